@@ -4,6 +4,12 @@ import android.app.Application;
 
 import com.alibaba.android.arouter.launcher.ARouter;
 import com.yzplan.lanbase.BaseApp;
+import com.yzplan.lanbase.app.http.api.WanApi;
+import com.yzplan.lanbase.http.HttpConfig;
+import com.yzplan.lanbase.http.dns.CachingDns;
+import com.yzplan.lanbase.http.priority.PriorityConfig;
+
+import java.io.File;
 
 
 public class App extends Application {
@@ -24,7 +30,13 @@ public class App extends Application {
     }
 
     private void initBase() {
-        BaseApp.init(this);
+        HttpConfig httpConfig = new HttpConfig()
+                .setCache(new File(getCacheDir(), "http"), 20 * 1024 * 1024)
+                .setDns(new CachingDns())
+                .setPriority(new PriorityConfig());
+        BaseApp.init(this, httpConfig);
+        // 注册启动预热的域名 (SplashActivity 中开始预热)
+        WanApi.getInstance().prewarm();
         BaseApp.initLog("YZPP");
         String path = "/mnt/sdcard/mtms/log/outapp/" + getPackageName();
         BaseApp.openLogFileSave(path, 15);
@@ -1,14 +1,20 @@
 package com.yzplan.lanbase.app.http.api;
 
 import com.yzplan.lanbase.app.bean.base.WanBaseResponse;
-import com.yzplan.lanbase.app.bean.response.ArticleListResponse;
+import com.yzplan.lanbase.app.bean.response.Article;
 import com.yzplan.lanbase.app.bean.response.BannerBean;
 import com.yzplan.lanbase.app.bean.response.LoginResponse;
 import com.yzplan.lanbase.http.api.BaseApi;
+import com.yzplan.lanbase.http.cache.CachePolicy;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
+import com.yzplan.lanbase.http.priority.Priority;
+import com.yzplan.lanbase.http.priority.RequestPriority;
+import com.yzplan.lanbase.http.stream.StreamArray;
 
 import java.util.List;
 import java.util.Map;
 
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 import okhttp3.Interceptor;
 import retrofit2.http.FieldMap;
@@ -17,6 +23,7 @@ import retrofit2.http.GET;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * WanApi 系统接口管理
@@ -24,6 +31,11 @@ import retrofit2.http.Query;
 public class WanApi extends BaseApi<WanApi.Service> {
     private static volatile WanApi instance;
 
+    // wanandroid 响应外壳：{"errorCode":0,"errorMsg":"","data":...}
+    private static final ResponseEnvelope ENVELOPE = new ResponseEnvelope()
+            .setFieldNames("errorCode", "errorMsg", "data")
+            .setSuccessCodes("0");
+
     public static WanApi getInstance() {
         if (instance == null) {
             synchronized (WanApi.class) {
@@ -50,6 +62,12 @@ public class WanApi extends BaseApi<WanApi.Service> {
     protected void registerInterceptors(List<Interceptor> interceptors) {
     }
 
+    // 4. 配置响应外壳 (接口可直接声明业务类型)
+    @Override
+    protected ResponseEnvelope getResponseEnvelope() {
+        return ENVELOPE;
+    }
+
     //  接口定义区
     public interface Service {
         /**
@@ -60,15 +78,20 @@ public class WanApi extends BaseApi<WanApi.Service> {
         Single<WanBaseResponse<LoginResponse>> login(@FieldMap Map<String, Object> request);
 
         /**
-         * 首页文章列表
+         * 首页文章列表 (流式解析 data.datas，边下载边发射；用户等待中，优先发起)
          */
+        @Priority(RequestPriority.FOREGROUND)
+        @CachePolicy(maxAge = 30, staleWhileRevalidate = 24 * 3600, offlineStale = 7 * 24 * 3600)
+        @Streaming
+        @StreamArray("data.datas")
         @GET("article/list/{page}/json")
-        Single<WanBaseResponse<ArticleListResponse>> getArticleList(@Path("page") int page, @Query("page_size") int pageSize);
+        Flowable<Article> getArticleList(@Path("page") int page, @Query("page_size") int pageSize);
 
         /**
          * 首页banner
          */
+        @CachePolicy(maxAge = 5 * 60, staleWhileRevalidate = 7 * 24 * 3600, offlineStale = 7 * 24 * 3600)
         @GET("banner/json")
-        Single<WanBaseResponse<List<BannerBean>>> getBanner();
+        Single<List<BannerBean>> getBanner();
     }
 }
\ No newline at end of file
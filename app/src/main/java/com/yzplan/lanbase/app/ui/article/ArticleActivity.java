@@ -15,7 +15,6 @@ import com.yzplan.lanbase.app.R;
 import com.yzplan.lanbase.app.arouter.ARouterPath;
 import com.yzplan.lanbase.app.base.AppBaseActivity;
 import com.yzplan.lanbase.app.bean.response.Article;
-import com.yzplan.lanbase.app.bean.response.ArticleListResponse;
 import com.yzplan.lanbase.app.bean.response.BannerBean;
 import com.yzplan.lanbase.app.databinding.ActivityArticleBinding;
 import com.yzplan.lanbase.manager.RecycleViewHelper;
@@ -77,8 +76,13 @@ public class ArticleActivity extends AppBaseActivity<ActivityArticleBinding, Art
     }
 
     @Override
-    public void getArticleListSuccess(ArticleListResponse articleListResponse) {
-        recycleViewHelper.notifyData(articleListResponse.getDatas());
+    public void getArticleListChunk(List<Article> chunk) {
+        recycleViewHelper.notifyDataChunk(chunk);
+    }
+
+    @Override
+    public void getArticleListComplete() {
+        recycleViewHelper.notifyDataComplete();
     }
 
     @Override
@@ -1,7 +1,7 @@
 package com.yzplan.lanbase.app.ui.article;
 
 
-import com.yzplan.lanbase.app.bean.response.ArticleListResponse;
+import com.yzplan.lanbase.app.bean.response.Article;
 import com.yzplan.lanbase.app.bean.response.BannerBean;
 import com.yzplan.lanbase.base.IBaseView;
 
@@ -9,7 +9,9 @@ import java.util.List;
 
 public interface ArticleContract {
     interface View extends IBaseView {
-        void getArticleListSuccess(ArticleListResponse articleListResponse);
+        void getArticleListChunk(List<Article> chunk);
+
+        void getArticleListComplete();
 
         void getArticleListFail(String errorMsg);
 
@@ -1,6 +1,6 @@
 package com.yzplan.lanbase.app.ui.article;
 
-import com.yzplan.lanbase.app.bean.response.ArticleListResponse;
+import com.yzplan.lanbase.app.bean.response.Article;
 import com.yzplan.lanbase.app.bean.response.BannerBean;
 import com.yzplan.lanbase.app.http.api.WanApi;
 import com.yzplan.lanbase.base.BasePresenter;
@@ -11,6 +11,9 @@ import io.reactivex.disposables.Disposable;
 
 public class ArticlePresenter extends BasePresenter<ArticleContract.View> implements ArticleContract.IPresenter {
 
+    // 每解析出多少篇文章刷新一次列表
+    private static final int ARTICLE_CHUNK_SIZE = 10;
+
     private WanApi.Service mApi;
 
     @Override
@@ -20,14 +23,15 @@ public class ArticlePresenter extends BasePresenter<ArticleContract.View> implem
 
     @Override
     public void getArticleList(int pageNo, int pageSize) {
-        send(mApi.getArticleList(pageNo, pageSize), new ApiCall<>() {
+        sendStream(mApi.getArticleList(pageNo, pageSize), ARTICLE_CHUNK_SIZE, new StreamCall<>() {
             @Override
-            public void onSubscribe(Disposable d) {
+            public void onChunk(List<Article> chunk) {
+                getView().getArticleListChunk(chunk);
             }
 
             @Override
-            public void onSuccess(ArticleListResponse data) {
-                getView().getArticleListSuccess(data);
+            public void onComplete() {
+                getView().getArticleListComplete();
             }
 
             @Override
@@ -39,7 +43,7 @@ public class ArticlePresenter extends BasePresenter<ArticleContract.View> implem
 
     @Override
     public void getBanner() {
-        send(mApi.getBanner(), new ApiCall<>() {
+        sendData(mApi.getBanner(), new ApiCall<>() {
             @Override
             public void onSubscribe(Disposable d) {
 
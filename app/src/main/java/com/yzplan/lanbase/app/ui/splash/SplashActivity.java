@@ -10,7 +10,9 @@ import com.alibaba.android.arouter.launcher.ARouter;
 import com.yzplan.lanbase.app.arouter.ARouterPath;
 import com.yzplan.lanbase.app.base.AppBaseActivity;
 import com.yzplan.lanbase.app.databinding.ActivitySplashBinding;
+import com.yzplan.lanbase.app.http.api.WanApi;
 import com.yzplan.lanbase.base.BasePresenter;
+import com.yzplan.lanbase.http.prewarm.Prewarmer;
 import com.yzplan.lanbase.manager.AlertDialogHelper;
 import com.yzplan.lanbase.manager.SingleClickListener;
 import com.yzplan.lanbase.utils.permission.PermissionConstants;
@@ -42,6 +44,7 @@ public class SplashActivity extends AppBaseActivity<ActivitySplashBinding, BaseP
     @Override
     protected void initData() {
         StatusBarUtils.setFullScreen(this);
+        prewarm();
         checkPermissions();
     }
 
@@ -64,6 +67,15 @@ public class SplashActivity extends AppBaseActivity<ActivitySplashBinding, BaseP
         }, PermissionConstants.GROUP_STORAGE);
     }
 
+    /**
+     * 等待权限授权期间在后台解析域名、建立连接，并预取首页 banner (写入磁盘缓存)
+     */
+    private void prewarm() {
+        Prewarmer.getInstance()
+                .addPrefetch(WanApi.getInstance().get().getBanner().ignoreElement())
+                .start();
+    }
+
     private void initApp() {
         ARouter.getInstance().build(ARouterPath.MainActivity).navigation(this);
         finish();
@@ -4,6 +4,8 @@ import android.app.Application;
 import android.content.Context;
 
 import com.orhanobut.logger.Logger;
+import com.yzplan.lanbase.http.HttpConfig;
+import com.yzplan.lanbase.http.RetrofitClient;
 import com.yzplan.lanbase.utils.log.DefaultLogAdapter;
 import com.yzplan.lanbase.utils.log.LogFileUtils;
 
@@ -41,6 +43,17 @@ public class BaseApp {
         sApplication = application;
     }
 
+    /**
+     * 初始化：在 App 启动时调用，同时指定全局网络配置
+     *
+     * @param application 全局 Application
+     * @param httpConfig  全局网络配置 (连接池、并发数、超时等)
+     */
+    public static void init(Application application, HttpConfig httpConfig) {
+        init(application);
+        RetrofitClient.init(httpConfig);
+    }
+
     /**
      * 第二步：开启日志文件存储（可根据权限随时调用）
      *
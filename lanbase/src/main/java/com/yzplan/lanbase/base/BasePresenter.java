@@ -3,6 +3,9 @@ package com.yzplan.lanbase.base;
 
 import com.google.gson.JsonSyntaxException;
 import com.yzplan.lanbase.http.exception.ApiException;
+import com.yzplan.lanbase.http.exception.CircuitBreakerException;
+import com.yzplan.lanbase.http.exception.OutboxQueuedException;
+import com.yzplan.lanbase.http.exception.TransferException;
 import com.yzplan.lanbase.http.utils.RxUtils;
 import com.yzplan.lanbase.utils.data.StringUtils;
 import com.yzplan.lanbase.utils.log.L;
@@ -10,11 +13,14 @@ import com.yzplan.lanbase.utils.log.L;
 import java.lang.ref.WeakReference;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
+import java.util.List;
 
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.reactivex.SingleObserver;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.subscribers.DisposableSubscriber;
 import retrofit2.HttpException;
 
 /**
@@ -73,6 +79,60 @@ public abstract class BasePresenter<V extends IBaseView> {
                 .subscribe(createSafeObserver(callback));
     }
 
+    /**
+     * 发起网络请求 (接口直接返回业务数据，需在 BaseApi 中配置 getResponseEnvelope)
+     *
+     * @param single   网络请求
+     * @param callback 接口请求的回调
+     * @param <T>      泛型
+     */
+    protected <T> void sendData(Single<T> single, final ApiCall<T> callback) {
+        if (!isViewAttached()) {
+            return;
+        }
+        single.compose(RxUtils.applySchedulers())
+                .subscribe(createSafeObserver(callback));
+    }
+
+    /**
+     * 发起流式列表请求 (接口声明 @StreamArray，返回 Flowable)
+     * 元素在子线程逐个解析，每凑满 chunkSize 个回调一次 onChunk，配合 RecycleViewHelper.notifyDataChunk 边解析边显示
+     *
+     * @param flowable  流式请求
+     * @param chunkSize 每批元素个数
+     * @param callback  回调 (主线程)
+     * @param <T>       元素类型
+     */
+    protected <T> void sendStream(Flowable<T> flowable, int chunkSize, final StreamCall<T> callback) {
+        if (!isViewAttached()) {
+            return;
+        }
+        DisposableSubscriber<List<T>> subscriber = new DisposableSubscriber<List<T>>() {
+            @Override
+            public void onNext(List<T> chunk) {
+                if (isViewAttached()) {
+                    callback.onChunk(chunk);
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                if (!dispatchError(e) && isViewAttached()) {
+                    callback.onError(e);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (isViewAttached()) {
+                    callback.onComplete();
+                }
+            }
+        };
+        addDisposable(subscriber);
+        flowable.compose(RxUtils.chunked(chunkSize)).subscribe(subscriber);
+    }
+
     /**
      * 创建一个“安全”的订阅者，它自动处理 isViewAttached()
      */
@@ -114,21 +174,7 @@ public abstract class BasePresenter<V extends IBaseView> {
 
         @Override
         public void onError(Throwable e) {
-            L.e(TAG, "请求报错:" + e.getMessage());
-            String code = "-1";
-            String msg;
-            if (e instanceof ApiException) {
-                ApiException apiEx = (ApiException) e;
-                code = apiEx.getCode();
-                msg = apiEx.getMessage();
-            } else if (e instanceof SocketTimeoutException) {
-                msg = "网络请求超时";
-            } else if (e instanceof ConnectException) {
-                msg = "网络连接失败";
-            } else {
-                msg = e.getMessage();
-            }
-            if (interceptError(code, msg)) {
+            if (dispatchError(e)) {
                 return; // 子类处理了，结束
             }
             if (isViewAttached() && mCallback != null) {
@@ -137,6 +183,38 @@ public abstract class BasePresenter<V extends IBaseView> {
         }
     }
 
+    /**
+     * 统一的错误预处理：打印日志，解析 code / msg 后交给 interceptError
+     *
+     * @return true: 子类已经处理了
+     */
+    private boolean dispatchError(Throwable e) {
+        L.e(TAG, "请求报错:" + e.getMessage());
+        String code = "-1";
+        String msg;
+        if (e instanceof ApiException) {
+            ApiException apiEx = (ApiException) e;
+            code = apiEx.getCode();
+            msg = apiEx.getMessage();
+        } else if (e instanceof CircuitBreakerException) {
+            code = ((CircuitBreakerException) e).getCode();
+            msg = e.getMessage();
+        } else if (e instanceof OutboxQueuedException) {
+            code = ((OutboxQueuedException) e).getCode();
+            msg = e.getMessage();
+        } else if (e instanceof TransferException) {
+            code = ((TransferException) e).getCode();
+            msg = e.getMessage();
+        } else if (e instanceof SocketTimeoutException) {
+            msg = "网络请求超时";
+        } else if (e instanceof ConnectException) {
+            msg = "网络连接失败";
+        } else {
+            msg = e.getMessage();
+        }
+        return interceptError(code, msg);
+    }
+
     /**
      * 错误信息转换
      */
@@ -175,4 +253,15 @@ public abstract class BasePresenter<V extends IBaseView> {
 
         void onError(Throwable e);
     }
+
+    /**
+     * 流式列表请求的回调
+     */
+    public interface StreamCall<T> {
+        void onChunk(List<T> chunk);
+
+        void onComplete();
+
+        void onError(Throwable e);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,329 @@
+package com.yzplan.lanbase.http;
+
+import com.yzplan.lanbase.http.breaker.CircuitBreakerConfig;
+import com.yzplan.lanbase.http.compress.CompressionConfig;
+import com.yzplan.lanbase.http.outbox.OutboxConfig;
+import com.yzplan.lanbase.http.priority.PriorityConfig;
+import com.yzplan.lanbase.http.retry.RetryPolicy;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+
+/**
+ * 网络层配置
+ * 1. 全局配置：在 BaseApp.init(application, config) 时传入
+ * 2. 单接口配置：BaseApi 重写 getHttpConfig()，通常基于 HttpConfig.getGlobal().copy() 修改个别参数
+ * 注意：配置在第一次被 RetrofitClient 使用后即固定，之后再修改不会生效
+ */
+public class HttpConfig {
+    // 超时时间 (秒)
+    private int timeoutSeconds = 15;
+    // 连接池：最大空闲连接数 / 空闲连接保活时长 (秒)
+    private int maxIdleConnections = 5;
+    private long keepAliveSeconds = 5 * 60;
+    // 调度器：全局最大并发数 / 单域名最大并发数
+    private int maxRequests = 64;
+    private int maxRequestsPerHost = 5;
+    // HTTP/2 ping 间隔 (秒)，0 表示不发送
+    private int pingIntervalSeconds = 0;
+    // 自定义调度线程池，null 表示使用 OkHttp 默认线程池
+    private ExecutorService executorService;
+    // 磁盘缓存目录与大小 (字节)，目录为 null 表示不开启缓存 (仅全局配置生效)
+    private File cacheDir;
+    private long cacheMaxSize;
+    // 是否合并相同的在途 GET 请求 (single-flight)
+    private boolean singleFlightEnabled = false;
+    // 是否采集各阶段耗时 (NetworkStats)
+    private boolean metricsEnabled = true;
+    // 默认重试策略，null 表示只有声明了 @Retry 的接口才重试
+    private RetryPolicy retryPolicy;
+    // 熔断 + 舱壁配置，null 表示不开启 (按 BaseApi.getBaseUrl 分别熔断)
+    private CircuitBreakerConfig circuitBreakerConfig;
+    // 离线发件箱配置，null 表示不开启 (仅全局配置生效)
+    private OutboxConfig outboxConfig;
+    // 请求体压缩 + 响应解码配置，null 表示只使用 OkHttp 默认的 gzip 响应解码
+    private CompressionConfig compressionConfig;
+    // 域名解析，null 表示系统解析 (可使用 CachingDns)
+    private Dns dns;
+    // 请求优先级调度配置，null 表示不开启 (所有请求共享一个调度器)
+    private PriorityConfig priorityConfig;
+
+    // 由该配置构建出的连接池、调度器与缓存 (懒加载，保证同一配置只构建一次)
+    private ConnectionPool mConnectionPool;
+    private Dispatcher mDispatcher;
+    private Cache mCache;
+
+    private static volatile HttpConfig sGlobal = new HttpConfig();
+
+    /**
+     * 获取当前全局配置
+     */
+    public static HttpConfig getGlobal() {
+        return sGlobal;
+    }
+
+    static void setGlobal(HttpConfig config) {
+        sGlobal = config;
+    }
+
+    /**
+     * 复制一份参数 (不包含已构建的连接池与调度器)，用于单接口覆盖
+     */
+    public HttpConfig copy() {
+        HttpConfig config = new HttpConfig();
+        config.timeoutSeconds = timeoutSeconds;
+        config.maxIdleConnections = maxIdleConnections;
+        config.keepAliveSeconds = keepAliveSeconds;
+        config.maxRequests = maxRequests;
+        config.maxRequestsPerHost = maxRequestsPerHost;
+        config.pingIntervalSeconds = pingIntervalSeconds;
+        config.executorService = executorService;
+        config.cacheDir = cacheDir;
+        config.cacheMaxSize = cacheMaxSize;
+        config.singleFlightEnabled = singleFlightEnabled;
+        config.metricsEnabled = metricsEnabled;
+        config.retryPolicy = retryPolicy;
+        config.circuitBreakerConfig = circuitBreakerConfig;
+        config.outboxConfig = outboxConfig;
+        config.compressionConfig = compressionConfig;
+        config.dns = dns;
+        config.priorityConfig = priorityConfig;
+        return config;
+    }
+
+    // ================== 链式配置方法 ==================
+
+    public HttpConfig setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+        return this;
+    }
+
+    /**
+     * 连接池配置
+     *
+     * @param maxIdleConnections 最大空闲连接数
+     * @param keepAliveSeconds   空闲连接保活时长 (秒)
+     */
+    public HttpConfig setConnectionPool(int maxIdleConnections, long keepAliveSeconds) {
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveSeconds = keepAliveSeconds;
+        return this;
+    }
+
+    public HttpConfig setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public HttpConfig setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    public HttpConfig setPingIntervalSeconds(int pingIntervalSeconds) {
+        this.pingIntervalSeconds = pingIntervalSeconds;
+        return this;
+    }
+
+    public HttpConfig setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * 开启磁盘缓存，配合接口上的 @CachePolicy 使用 (仅全局配置生效)
+     *
+     * @param dir     缓存目录 (建议 new File(context.getCacheDir(), "http"))
+     * @param maxSize 最大缓存大小 (字节)
+     */
+    public HttpConfig setCache(File dir, long maxSize) {
+        this.cacheDir = dir;
+        this.cacheMaxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * 开启请求合并：相同的 GET 请求同时在途时只发出一次，其余共享结果
+     */
+    public HttpConfig setSingleFlightEnabled(boolean enabled) {
+        this.singleFlightEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * 是否采集 DNS/建连/TLS/首包等阶段耗时，结果通过 NetworkStats 查询 (默认开启)
+     */
+    public HttpConfig setMetricsEnabled(boolean enabled) {
+        this.metricsEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * 默认重试策略 (指数退避 + 抖动，受全局 RetryBudget 限制)，接口上的 @Retry 优先
+     */
+    public HttpConfig setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 开启熔断 + 舱壁：某个域名持续失败时快速失败，避免拖垮其它域名的请求
+     */
+    public HttpConfig setCircuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        return this;
+    }
+
+    /**
+     * 开启离线发件箱：&#64;Outbox 接口在无网络 / 连接失败时持久化保存，联网后限速补发 (仅全局配置生效)
+     */
+    public HttpConfig setOutbox(OutboxConfig outboxConfig) {
+        this.outboxConfig = outboxConfig;
+        return this;
+    }
+
+    /**
+     * 开启压缩：较大的请求体 gzip 后发送 (按域名协商)，响应支持 br 等额外编码
+     */
+    public HttpConfig setCompression(CompressionConfig compressionConfig) {
+        this.compressionConfig = compressionConfig;
+        return this;
+    }
+
+    /**
+     * 替换域名解析，例如 new CachingDns() (进程内缓存 + 后台刷新 + 失败兜底)
+     */
+    public HttpConfig setDns(Dns dns) {
+        this.dns = dns;
+        return this;
+    }
+
+    /**
+     * 开启优先级调度：前台请求优先发起，后台请求限制并发并在前台请求进行时暂停
+     */
+    public HttpConfig setPriority(PriorityConfig priorityConfig) {
+        this.priorityConfig = priorityConfig;
+        return this;
+    }
+
+    // ================== Getter ==================
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public int getPingIntervalSeconds() {
+        return pingIntervalSeconds;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public CircuitBreakerConfig getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    public OutboxConfig getOutboxConfig() {
+        return outboxConfig;
+    }
+
+    public CompressionConfig getCompressionConfig() {
+        return compressionConfig;
+    }
+
+    public Dns getDns() {
+        return dns;
+    }
+
+    public PriorityConfig getPriorityConfig() {
+        return priorityConfig;
+    }
+
+    // ================== 内部构建 ==================
+
+    /**
+     * 连接池参数是否与另一份配置一致 (一致则直接复用对方的连接池)
+     */
+    boolean samePool(HttpConfig other) {
+        return maxIdleConnections == other.maxIdleConnections
+                && keepAliveSeconds == other.keepAliveSeconds;
+    }
+
+    /**
+     * 调度器参数是否与另一份配置一致
+     */
+    boolean sameDispatcher(HttpConfig other) {
+        return maxRequests == other.maxRequests
+                && maxRequestsPerHost == other.maxRequestsPerHost
+                && executorService == other.executorService;
+    }
+
+    synchronized ConnectionPool obtainConnectionPool() {
+        if (mConnectionPool == null) {
+            mConnectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        }
+        return mConnectionPool;
+    }
+
+    synchronized Dispatcher obtainDispatcher() {
+        if (mDispatcher == null) {
+            mDispatcher = executorService != null ? new Dispatcher(executorService) : new Dispatcher();
+            mDispatcher.setMaxRequests(maxRequests);
+            mDispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+        return mDispatcher;
+    }
+
+    /**
+     * 获取磁盘缓存，未开启返回 null
+     */
+    synchronized Cache obtainCache() {
+        if (mCache == null && cacheDir != null && cacheMaxSize > 0) {
+            mCache = new Cache(cacheDir, cacheMaxSize);
+        }
+        return mCache;
+    }
+}
@@ -1,7 +1,27 @@
 package com.yzplan.lanbase.http;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.gson.Gson;
+import com.yzplan.lanbase.http.cache.CacheControlInterceptor;
+import com.yzplan.lanbase.http.cache.HttpCacheInterceptor;
+import com.yzplan.lanbase.http.compress.CompressionConfig;
+import com.yzplan.lanbase.http.compress.ContentDecodingInterceptor;
+import com.yzplan.lanbase.http.compress.RequestCompressionInterceptor;
+import com.yzplan.lanbase.http.converter.EnvelopeConverterFactory;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
+import com.yzplan.lanbase.http.interceptor.SingleFlightInterceptor;
+import com.yzplan.lanbase.http.metrics.MetricsEventListener;
+import com.yzplan.lanbase.http.outbox.OutboxInterceptor;
+import com.yzplan.lanbase.http.outbox.OutboxManager;
+import com.yzplan.lanbase.http.retry.RetryInterceptor;
+import com.yzplan.lanbase.http.stream.StreamArrayCallAdapterFactory;
+
+import okhttp3.Cache;
+import okhttp3.EventListener;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
@@ -13,26 +33,74 @@ import retrofit2.converter.gson.GsonConverterFactory;
  * 职责：
  * 1. 维护全局唯一的 OkHttpClient (复用连接池)
  * 2. 负责组装 Retrofit 并创建 Service 实例
+ * 3. 按 (超时, 拦截器集合) 复用 OkHttpClient，按 (域名, Client) 复用 Retrofit，
+ * 避免多个 BaseApi 子类重复构建相同的对象图
  */
 public class RetrofitClient {
     // 全局通用的 Client (包含基础配置)
     private final OkHttpClient mGlobalOkHttpClient;
+    // 全局配置
+    private final HttpConfig mConfig;
+    // 缓存策略拦截器 (未开启磁盘缓存时为 null)
+    private final HttpCacheInterceptor mCacheInterceptor;
+    // 离线发件箱拦截器 (未开启发件箱时为 null)
+    private final OutboxInterceptor mOutboxInterceptor;
     private static volatile RetrofitClient sInstance;
 
-    private RetrofitClient() {
+    // 全局共享的转换器与适配器 (无状态，可复用)
+    private final Gson mGson = new Gson();
+    private final GsonConverterFactory mConverterFactory = GsonConverterFactory.create(mGson);
+    private final RxJava2CallAdapterFactory mCallAdapterFactory = RxJava2CallAdapterFactory.create();
+
+    // 已构建实例的注册表 (创建频率很低，直接加锁即可)
+    private final Map<ClientKey, OkHttpClient> mClientCache = new HashMap<>();
+    private final Map<RetrofitKey, Retrofit> mRetrofitCache = new HashMap<>();
+
+    // 命中/未命中计数
+    private final AtomicLong mClientHitCount = new AtomicLong();
+    private final AtomicLong mClientMissCount = new AtomicLong();
+    private final AtomicLong mRetrofitHitCount = new AtomicLong();
+    private final AtomicLong mRetrofitMissCount = new AtomicLong();
+
+    private RetrofitClient(HttpConfig config) {
+        mConfig = config;
         // 1. 初始化全局基础配置
-        mGlobalOkHttpClient = new OkHttpClient.Builder()
-                .connectTimeout(15, TimeUnit.SECONDS)
-                .writeTimeout(15, TimeUnit.SECONDS)
-                .readTimeout(15, TimeUnit.SECONDS)
-                .build();
+        OkHttpClient.Builder builder = applyConfig(new OkHttpClient.Builder(), config);
+        // 2. 磁盘缓存 (按 @CachePolicy 改写响应缓存头)
+        Cache cache = config.obtainCache();
+        if (cache != null) {
+            builder.cache(cache).addNetworkInterceptor(new CacheControlInterceptor());
+        }
+        mGlobalOkHttpClient = builder.build();
+        mCacheInterceptor = cache != null ? new HttpCacheInterceptor() : null;
+        // 3. 离线发件箱 (读取未发送的请求，等待接口绑定 Client 后补发)
+        if (config.getOutboxConfig() != null) {
+            OutboxManager.getInstance().start(config.getOutboxConfig());
+            mOutboxInterceptor = new OutboxInterceptor();
+        } else {
+            mOutboxInterceptor = null;
+        }
+    }
+
+    /**
+     * 初始化全局网络配置 (建议在 BaseApp.init 中调用)
+     * 注意：调用前已创建的 Service 仍使用旧的 Client
+     *
+     * @param config 全局配置
+     */
+    public static void init(HttpConfig config) {
+        if (config == null) return;
+        synchronized (RetrofitClient.class) {
+            HttpConfig.setGlobal(config);
+            sInstance = new RetrofitClient(config);
+        }
     }
 
     public static RetrofitClient getInstance() {
         if (sInstance == null) {
             synchronized (RetrofitClient.class) {
                 if (sInstance == null) {
-                    sInstance = new RetrofitClient();
+                    sInstance = new RetrofitClient(HttpConfig.getGlobal());
                 }
             }
         }
@@ -48,27 +116,262 @@ public class RetrofitClient {
      * @param interceptors   该接口专用的拦截器数组
      */
     public <T> T create(Class<T> serviceClass, String baseUrl, int timeoutSeconds, Interceptor... interceptors) {
-        // 2. 准备 Client
-        OkHttpClient.Builder builder = mGlobalOkHttpClient.newBuilder();
-        // 3.如果传入了非 0 的超时时间，则覆盖默认配置
-        if (timeoutSeconds > 0) {
-            builder.connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
-                    .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
-                    .writeTimeout(timeoutSeconds, TimeUnit.SECONDS);
-        }
-        // 4.添加自定义拦截器
-        for (Interceptor interceptor : interceptors) {
-            builder.addInterceptor(interceptor);
+        return create(serviceClass, baseUrl, timeoutSeconds, null, interceptors);
+    }
+
+    /**
+     * 核心创建方法 (支持单接口配置)
+     *
+     * @param serviceClass   接口 Class
+     * @param baseUrl        域名
+     * @param timeoutSeconds 超时时间
+     * @param apiConfig      该接口专用的网络配置，null 表示使用全局配置
+     * @param interceptors   该接口专用的拦截器数组
+     */
+    public <T> T create(Class<T> serviceClass, String baseUrl, int timeoutSeconds, HttpConfig apiConfig, Interceptor... interceptors) {
+        return create(serviceClass, baseUrl, timeoutSeconds, apiConfig, null, interceptors);
+    }
+
+    /**
+     * 核心创建方法 (支持单接口配置 + 响应外壳解析)
+     *
+     * @param serviceClass   接口 Class
+     * @param baseUrl        域名
+     * @param timeoutSeconds 超时时间
+     * @param apiConfig      该接口专用的网络配置，null 表示使用全局配置
+     * @param envelope       响应外壳描述，null 表示接口直接返回 BaseResponse 包装类
+     * @param interceptors   该接口专用的拦截器数组
+     */
+    public <T> T create(Class<T> serviceClass, String baseUrl, int timeoutSeconds, HttpConfig apiConfig,
+                        ResponseEnvelope envelope, Interceptor... interceptors) {
+        // 2. 准备 Client (相同超时 + 相同配置 + 相同拦截器实例 -> 复用)
+        OkHttpClient client = obtainClient(timeoutSeconds, apiConfig, interceptors);
+        // 离线发件箱按接口类名补发，使用的是同一个 Client
+        if (mOutboxInterceptor != null) {
+            OutboxManager.getInstance().bindChannel(serviceClass.getName(), client);
         }
-        OkHttpClient client = builder.build();
-        // 5. 构建 Retrofit
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(client)
-                .addConverterFactory(GsonConverterFactory.create())
-                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .build();
-        // 6. 生成接口实例
+        // 3. 准备 Retrofit (相同域名 + 相同 Client + 相同外壳描述 -> 复用)
+        Retrofit retrofit = obtainRetrofit(baseUrl, client, envelope);
+        // 4. 生成接口实例
         return retrofit.create(serviceClass);
     }
+
+    /**
+     * 获取 (或构建) 指定配置的 OkHttpClient
+     * 所有派生 Client 均由全局 Client newBuilder 而来，默认共享同一个连接池与调度器
+     */
+    private OkHttpClient obtainClient(int timeoutSeconds, HttpConfig apiConfig, Interceptor[] interceptors) {
+        if (apiConfig == mConfig) apiConfig = null;
+        ClientKey key = new ClientKey(timeoutSeconds, apiConfig, interceptors);
+        synchronized (mClientCache) {
+            OkHttpClient client = mClientCache.get(key);
+            if (client != null) {
+                mClientHitCount.incrementAndGet();
+                return client;
+            }
+            mClientMissCount.incrementAndGet();
+            OkHttpClient.Builder builder = mGlobalOkHttpClient.newBuilder();
+            // 单接口配置：仅在参数与全局不同时才创建独立的连接池/调度器
+            if (apiConfig != null) {
+                applyConfig(builder, apiConfig);
+            }
+            // 如果传入了非 0 的超时时间，则覆盖默认配置
+            if (timeoutSeconds > 0) {
+                builder.connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                        .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                        .writeTimeout(timeoutSeconds, TimeUnit.SECONDS);
+            }
+            HttpConfig config = apiConfig != null ? apiConfig : mConfig;
+            // 离线发件箱放在最前面：先补齐幂等键 (重试也会带上)，并在所有重试失败后才入队
+            if (mOutboxInterceptor != null) {
+                builder.addInterceptor(mOutboxInterceptor);
+            }
+            // 请求合并放在业务拦截器前面，使用未签名的原始请求作为 Key
+            // 每个 Client 独立一个实例：拦截器集合不同 (鉴权、签名不同) 的接口不会互相合并
+            if (config.isSingleFlightEnabled()) {
+                builder.addInterceptor(new SingleFlightInterceptor());
+            }
+            // 重试放在业务拦截器之前，每次重试都会重新签名
+            builder.addInterceptor(new RetryInterceptor(config.getRetryPolicy()));
+            // 添加自定义拦截器
+            for (Interceptor interceptor : interceptors) {
+                builder.addInterceptor(interceptor);
+            }
+            // 缓存策略放在业务拦截器之后，处理的是最终请求
+            if (mCacheInterceptor != null) {
+                builder.addInterceptor(mCacheInterceptor);
+            }
+            // 压缩放在最后 (签名、日志、缓存处理的都是明文)，解码在网络层 (磁盘缓存保存的是明文)
+            CompressionConfig compression = config.getCompressionConfig();
+            if (compression != null) {
+                builder.addInterceptor(new RequestCompressionInterceptor(compression))
+                        .addNetworkInterceptor(new ContentDecodingInterceptor(compression));
+            }
+            client = builder.build();
+            mClientCache.put(key, client);
+            return client;
+        }
+    }
+
+    /**
+     * 将配置应用到 Builder
+     */
+    private OkHttpClient.Builder applyConfig(OkHttpClient.Builder builder, HttpConfig config) {
+        int timeout = config.getTimeoutSeconds();
+        builder.connectTimeout(timeout, TimeUnit.SECONDS)
+                .writeTimeout(timeout, TimeUnit.SECONDS)
+                .readTimeout(timeout, TimeUnit.SECONDS)
+                .pingInterval(config.getPingIntervalSeconds(), TimeUnit.SECONDS)
+                .eventListenerFactory(config.isMetricsEnabled()
+                        ? MetricsEventListener.FACTORY : call -> EventListener.NONE);
+        if (config.getDns() != null) {
+            builder.dns(config.getDns());
+        }
+        // 与全局参数一致时复用全局的连接池/调度器
+        boolean isGlobal = mConfig == null || config == mConfig;
+        builder.connectionPool(!isGlobal && config.samePool(mConfig)
+                ? mConfig.obtainConnectionPool() : config.obtainConnectionPool());
+        builder.dispatcher(!isGlobal && config.sameDispatcher(mConfig)
+                ? mConfig.obtainDispatcher() : config.obtainDispatcher());
+        return builder;
+    }
+
+    /**
+     * 获取 (或构建) 指定域名 + Client 的 Retrofit
+     */
+    private Retrofit obtainRetrofit(String baseUrl, OkHttpClient client, ResponseEnvelope envelope) {
+        RetrofitKey key = new RetrofitKey(baseUrl, client, envelope);
+        synchronized (mRetrofitCache) {
+            Retrofit retrofit = mRetrofitCache.get(key);
+            if (retrofit != null) {
+                mRetrofitHitCount.incrementAndGet();
+                return retrofit;
+            }
+            mRetrofitMissCount.incrementAndGet();
+            Retrofit.Builder builder = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .client(client);
+            // 外壳解析放在 Gson 之前，BaseResponse 类型的接口会跳过它
+            if (envelope != null) {
+                builder.addConverterFactory(new EnvelopeConverterFactory(envelope, mGson));
+            }
+            retrofit = builder
+                    .addConverterFactory(mConverterFactory)
+                    // @StreamArray 接口 (Flowable 逐个发射数组元素)，需要在 RxJava2 适配器之前
+                    .addCallAdapterFactory(new StreamArrayCallAdapterFactory(mGson, envelope))
+                    .addCallAdapterFactory(mCallAdapterFactory)
+                    .build();
+            mRetrofitCache.put(key, retrofit);
+            return retrofit;
+        }
+    }
+
+    /**
+     * 获取全局 Client (可用于非 Retrofit 场景，与所有接口共享连接池)
+     */
+    public OkHttpClient getGlobalClient() {
+        return mGlobalOkHttpClient;
+    }
+
+    /**
+     * 获取指定配置对应的 Client (与使用该配置的接口共享连接池与 DNS)，用于预热等非 Retrofit 场景
+     *
+     * @param apiConfig 接口专用配置，null 表示全局配置
+     */
+    public OkHttpClient getClient(HttpConfig apiConfig) {
+        if (apiConfig == null || apiConfig == mConfig) return mGlobalOkHttpClient;
+        return obtainClient(0, apiConfig, new Interceptor[0]);
+    }
+
+    /**
+     * 获取全局配置
+     */
+    public HttpConfig getConfig() {
+        return mConfig;
+    }
+
+    public long getClientHitCount() {
+        return mClientHitCount.get();
+    }
+
+    public long getClientMissCount() {
+        return mClientMissCount.get();
+    }
+
+    public long getRetrofitHitCount() {
+        return mRetrofitHitCount.get();
+    }
+
+    public long getRetrofitMissCount() {
+        return mRetrofitMissCount.get();
+    }
+
+    /**
+     * Client 缓存 Key：超时时间 + 接口配置 + 拦截器实例 (按引用比较，顺序敏感)
+     */
+    private static final class ClientKey {
+        private final int timeoutSeconds;
+        private final HttpConfig config;
+        private final Interceptor[] interceptors;
+        private final int hash;
+
+        ClientKey(int timeoutSeconds, HttpConfig config, Interceptor[] interceptors) {
+            this.timeoutSeconds = timeoutSeconds;
+            this.config = config;
+            this.interceptors = interceptors.clone();
+            int h = 31 * timeoutSeconds + System.identityHashCode(config);
+            for (Interceptor interceptor : this.interceptors) {
+                h = 31 * h + System.identityHashCode(interceptor);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClientKey)) return false;
+            ClientKey other = (ClientKey) o;
+            if (timeoutSeconds != other.timeoutSeconds || config != other.config
+                    || interceptors.length != other.interceptors.length) {
+                return false;
+            }
+            for (int i = 0; i < interceptors.length; i++) {
+                if (interceptors[i] != other.interceptors[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Retrofit 缓存 Key：域名 + Client 实例 + 外壳描述实例
+     */
+    private static final class RetrofitKey {
+        private final String baseUrl;
+        private final OkHttpClient client;
+        private final ResponseEnvelope envelope;
+
+        RetrofitKey(String baseUrl, OkHttpClient client, ResponseEnvelope envelope) {
+            this.baseUrl = baseUrl;
+            this.client = client;
+            this.envelope = envelope;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RetrofitKey)) return false;
+            RetrofitKey other = (RetrofitKey) o;
+            return client == other.client && envelope == other.envelope && baseUrl.equals(other.baseUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * baseUrl.hashCode() + System.identityHashCode(client)) + System.identityHashCode(envelope);
+        }
+    }
 }
@@ -1,8 +1,18 @@
 package com.yzplan.lanbase.http.api;
 
 
+import com.yzplan.lanbase.http.HttpConfig;
 import com.yzplan.lanbase.http.RetrofitClient;
+import com.yzplan.lanbase.http.batch.BatchConfig;
+import com.yzplan.lanbase.http.batch.BatchInterceptor;
+import com.yzplan.lanbase.http.breaker.CircuitBreakerConfig;
+import com.yzplan.lanbase.http.breaker.CircuitBreakers;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
 import com.yzplan.lanbase.http.interceptor.LogInterceptor;
+import com.yzplan.lanbase.http.prewarm.Prewarmer;
+import com.yzplan.lanbase.http.priority.PriorityConfig;
+import com.yzplan.lanbase.http.priority.PriorityInterceptor;
+import com.yzplan.lanbase.http.priority.RequestPriority;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +24,9 @@ import okhttp3.Interceptor;
  */
 public abstract class BaseApi<T> {
 
+    // 默认日志拦截器无状态，全局共享一个实例，使相同配置的 BaseApi 能复用同一个 Client
+    private static final Interceptor DEFAULT_LOG_INTERCEPTOR = new LogInterceptor();
+
     private volatile T mService;
 
     protected abstract String getBaseUrl();
@@ -23,9 +36,47 @@ public abstract class BaseApi<T> {
         return 0;
     }
 
+    /**
+     * 该接口专用的网络配置 (连接池、并发数、HTTP/2 ping 等)
+     * 默认返回 null 表示使用全局配置，覆盖示例：
+     * return HttpConfig.getGlobal().copy().setMaxRequestsPerHost(20);
+     * 注意：请返回同一个实例 (例如成员变量)，否则无法与其他接口共享 Client
+     */
+    protected HttpConfig getHttpConfig() {
+        return null;
+    }
+
+    /**
+     * 响应外壳描述，返回非 null 后接口可直接声明业务类型 (Single&lt;T&gt;)，
+     * 由转换器一次性剥离 code/message/data，配合 BasePresenter.sendData 使用
+     * 声明为 BaseResponse 实现类的接口不受影响
+     * 注意：请返回同一个实例 (例如静态常量)，否则无法复用 Retrofit
+     */
+    protected ResponseEnvelope getResponseEnvelope() {
+        return null;
+    }
+
+    /**
+     * 批量请求配置，服务端提供批量接口时返回非 null，
+     * 短时间内发出的 &#64;Batchable 请求会合并为一次 HTTP 请求，示例：
+     * return new BatchConfig("batch").setMaxBatchSize(8).setLingerMillis(10);
+     * 注意：请返回同一个实例 (例如静态常量)，否则无法复用 Client
+     */
+    protected BatchConfig getBatchConfig() {
+        return null;
+    }
+
+    /**
+     * 该接口的默认请求优先级 (需要 HttpConfig.setPriority 开启)，单个方法可用 &#64;Priority 覆盖，
+     * 例如日志上传、预取类接口返回 RequestPriority.BACKGROUND
+     */
+    protected RequestPriority getPriority() {
+        return RequestPriority.NORMAL;
+    }
+
     // 默认提供内置日志拦截器，子类可通过重写关闭或替换
     protected Interceptor getLogInterceptor() {
-        return new LogInterceptor();
+        return DEFAULT_LOG_INTERCEPTOR;
     }
 
     protected abstract Class<T> getServiceClass();
@@ -35,11 +86,36 @@ public abstract class BaseApi<T> {
      */
     protected abstract void registerInterceptors(List<Interceptor> interceptors);
 
+    /**
+     * 注册到启动预热：Prewarmer.start 时解析该域名并在该接口的连接池中建立连接
+     */
+    public BaseApi<T> prewarm() {
+        Prewarmer.getInstance().addBaseUrl(getBaseUrl(), getHttpConfig());
+        return this;
+    }
+
     public T get() {
         if (mService == null) {
             synchronized (this) {
                 if (mService == null) {
                     List<Interceptor> list = new ArrayList<>();
+                    HttpConfig config = getHttpConfig();
+                    HttpConfig effective = config != null ? config : HttpConfig.getGlobal();
+                    // 优先级排队放在最前面，排队期间不占用舱壁名额 (同一默认优先级共享同一个拦截器实例)
+                    PriorityConfig priorityConfig = effective.getPriorityConfig();
+                    if (priorityConfig != null) {
+                        list.add(PriorityInterceptor.obtain(getPriority(), priorityConfig));
+                    }
+                    // 熔断 + 舱壁 (同一域名共享同一个拦截器实例)
+                    CircuitBreakerConfig breakerConfig = effective.getCircuitBreakerConfig();
+                    if (breakerConfig != null) {
+                        list.add(CircuitBreakers.obtainInterceptor(getBaseUrl(), breakerConfig));
+                    }
+                    // 批量合并放在业务拦截器之前，签名作用于合并后的请求
+                    BatchConfig batchConfig = getBatchConfig();
+                    if (batchConfig != null) {
+                        list.add(BatchInterceptor.obtain(getBaseUrl(), batchConfig));
+                    }
                     // 添加自定义拦截器
                     registerInterceptors(list);
                     // 添加日志拦截器
@@ -51,6 +127,8 @@ public abstract class BaseApi<T> {
                             getServiceClass(),
                             getBaseUrl(),
                             getTimeoutSeconds(),
+                            config,
+                            getResponseEnvelope(),
                             list.toArray(new Interceptor[0])
                     );
                 }
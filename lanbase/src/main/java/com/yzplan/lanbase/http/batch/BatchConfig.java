@@ -0,0 +1,54 @@
+package com.yzplan.lanbase.http.batch;
+
+/**
+ * 批量请求配置
+ * 通过 BaseApi.getBatchConfig 开启，只有声明了 &#64;Batchable 的接口参与合并
+ */
+public class BatchConfig {
+    // 批量接口路径 (相对 BaseApi.getBaseUrl)，例如 "batch"
+    private final String path;
+    // 单次合并的最大请求数，达到后立即发出
+    private int maxBatchSize = 8;
+    // 第一个请求到达后最多等待多久收集其它请求 (毫秒)
+    private long lingerMillis = 10;
+    // 合并 / 拆分协议
+    private BatchProtocol protocol = new JsonBatchProtocol();
+
+    public BatchConfig(String path) {
+        this.path = path;
+    }
+
+    public BatchConfig setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        return this;
+    }
+
+    public BatchConfig setLingerMillis(long lingerMillis) {
+        this.lingerMillis = Math.max(0, lingerMillis);
+        return this;
+    }
+
+    /**
+     * 服务端批量接口格式与默认的 JSON 数组不同时替换
+     */
+    public BatchConfig setProtocol(BatchProtocol protocol) {
+        if (protocol != null) this.protocol = protocol;
+        return this;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public BatchProtocol getProtocol() {
+        return protocol;
+    }
+}
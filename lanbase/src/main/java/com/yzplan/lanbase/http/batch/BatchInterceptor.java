@@ -0,0 +1,217 @@
+package com.yzplan.lanbase.http.batch;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 批量请求拦截器
+ * 核心职责：
+ * 1. 同域名的 &#64;Batchable 请求进入同一个窗口，第一个请求 (leader) 等待 lingerMillis 或凑满 maxBatchSize 后关闭窗口
+ * 2. leader 用 BatchProtocol 合并窗口内的请求并继续走后续拦截器 (签名、日志等作用于合并后的请求)，拆分后分发给各请求
+ * 3. 其余请求 (follower) 只等待结果，不占用连接；被取消时只结束自己的等待
+ * 4. 窗口内只有一个请求时按原请求发出，不做合并
+ * 注意：放在业务拦截器之前；同一批量接口地址共享一个实例 (obtain)，使 RetrofitClient 能复用 Client
+ * 计数：batch.requests (合并后的请求数) / batch.merged (被合并的子请求数) / batch.single (未合并的请求数)
+ */
+public class BatchInterceptor implements Interceptor {
+    public static final String COUNTER_REQUESTS = "batch.requests";
+    public static final String COUNTER_MERGED = "batch.merged";
+    public static final String COUNTER_SINGLE = "batch.single";
+
+    // follower 检查自身是否被取消的间隔
+    private static final long WAIT_SLICE_MS = 100;
+
+    private static final ConcurrentHashMap<HttpUrl, BatchInterceptor> INTERCEPTORS = new ConcurrentHashMap<>();
+
+    private final HttpUrl mEndpoint;
+    private final BatchConfig mConfig;
+    // 正在收集请求的窗口 (由 mLock 保护)，null 表示没有
+    private final Object mLock = new Object();
+    private Window mWindow;
+
+    /**
+     * @param endpoint 批量接口地址
+     * @param config   批量配置
+     */
+    public BatchInterceptor(HttpUrl endpoint, BatchConfig config) {
+        this.mEndpoint = endpoint;
+        this.mConfig = config;
+    }
+
+    /**
+     * 获取 (或创建) 拦截器，同一批量接口地址返回同一实例，已存在时忽略传入的配置
+     *
+     * @param baseUrl 域名 (BaseApi.getBaseUrl)，批量接口地址为 baseUrl + config.getPath()
+     */
+    public static BatchInterceptor obtain(String baseUrl, BatchConfig config) {
+        HttpUrl endpoint = HttpUrl.get(baseUrl).resolve(config.getPath());
+        if (endpoint == null) {
+            throw new IllegalArgumentException("Illegal batch path: " + config.getPath());
+        }
+        BatchInterceptor interceptor = INTERCEPTORS.get(endpoint);
+        if (interceptor == null) {
+            BatchInterceptor created = new BatchInterceptor(endpoint, config);
+            interceptor = INTERCEPTORS.putIfAbsent(endpoint, created);
+            if (interceptor == null) interceptor = created;
+        }
+        return interceptor;
+    }
+
+    public HttpUrl getEndpoint() {
+        return mEndpoint;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (mConfig.getMaxBatchSize() <= 1 || InvocationUtils.getAnnotation(request, Batchable.class) == null) {
+            return chain.proceed(request);
+        }
+        HttpUrl url = request.url();
+        if (!url.host().equals(mEndpoint.host()) || url.port() != mEndpoint.port()) {
+            // 通过 @Url 访问其它域名的请求不合并
+            return chain.proceed(request);
+        }
+        Slot slot = new Slot(request);
+        Window window;
+        boolean leader = false;
+        synchronized (mLock) {
+            window = mWindow;
+            if (window == null) {
+                window = new Window();
+                mWindow = window;
+                leader = true;
+            }
+            window.slots.add(slot);
+            if (window.slots.size() >= mConfig.getMaxBatchSize()) {
+                // 凑满立即关闭窗口，唤醒 leader
+                mWindow = null;
+                mLock.notifyAll();
+            }
+        }
+        if (leader) {
+            return lead(chain, window, slot);
+        }
+        return follow(chain, slot);
+    }
+
+    /**
+     * leader：等待窗口关闭，发出 (合并后的) 请求并分发结果
+     */
+    private Response lead(Chain chain, Window window, Slot self) throws IOException {
+        List<Slot> slots;
+        synchronized (mLock) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mConfig.getLingerMillis());
+            long remaining;
+            while (mWindow == window && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(mLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (mWindow == window) {
+                mWindow = null;
+            }
+            slots = new ArrayList<>(window.slots);
+        }
+        if (slots.size() == 1) {
+            NetworkStats.increment(COUNTER_SINGLE);
+            return chain.proceed(self.request);
+        }
+        List<Request> requests = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            requests.add(slot.request);
+        }
+        NetworkStats.increment(COUNTER_REQUESTS);
+        NetworkStats.add(COUNTER_MERGED, slots.size());
+        BatchProtocol protocol = mConfig.getProtocol();
+        List<Response> responses = null;
+        IOException failure = null;
+        try (Response batch = chain.proceed(protocol.encode(mEndpoint, requests))) {
+            if (!batch.isSuccessful()) {
+                throw new IOException("Batch request failed: HTTP " + batch.code());
+            }
+            responses = protocol.decode(batch, requests);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException("Batch request failed", e);
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            Response response = responses != null && i < responses.size() ? responses.get(i) : null;
+            IOException error = failure != null ? failure
+                    : response == null ? new IOException("Missing response in batch") : null;
+            slots.get(i).complete(response, error);
+        }
+        return self.get();
+    }
+
+    /**
+     * follower：等待 leader 分发的结果
+     */
+    private Response follow(Chain chain, Slot slot) throws IOException {
+        try {
+            while (!slot.latch.await(WAIT_SLICE_MS, TimeUnit.MILLISECONDS)) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Canceled", e);
+        }
+        return slot.get();
+    }
+
+    /**
+     * 一个批次窗口 (由 mLock 保护)
+     */
+    private static final class Window {
+        final List<Slot> slots = new ArrayList<>();
+    }
+
+    /**
+     * 窗口中的一个请求
+     */
+    private static final class Slot {
+        final Request request;
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Response response;
+        volatile IOException error;
+
+        Slot(Request request) {
+            this.request = request;
+        }
+
+        void complete(Response response, IOException error) {
+            this.response = response;
+            this.error = error;
+            latch.countDown();
+        }
+
+        Response get() throws IOException {
+            if (error != null) {
+                // 每个调用方拿到独立的异常，堆栈指向自己的调用
+                throw new IOException(error.getMessage(), error);
+            }
+            return response;
+        }
+    }
+}
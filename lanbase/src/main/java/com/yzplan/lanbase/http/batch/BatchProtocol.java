@@ -0,0 +1,30 @@
+package com.yzplan.lanbase.http.batch;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 批量请求协议：把多个请求编码为一个请求，并把批量响应拆分为各自的响应
+ */
+public interface BatchProtocol {
+    /**
+     * 合并请求
+     *
+     * @param endpoint 批量接口地址
+     * @param requests 待合并的请求 (至少 2 个)
+     */
+    Request encode(HttpUrl endpoint, List<Request> requests) throws IOException;
+
+    /**
+     * 拆分响应
+     *
+     * @param response 批量接口的响应 (调用方负责关闭)
+     * @param requests 与 encode 时顺序一致的请求
+     * @return 与 requests 一一对应的响应，某一项缺失时对应位置返回 null
+     */
+    List<Response> decode(Response response, List<Request> requests) throws IOException;
+}
@@ -0,0 +1,24 @@
+package com.yzplan.lanbase.http.batch;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明该接口可以合并到批量请求中发送，需要 BaseApi.getBatchConfig 返回非 null
+ * 短时间内 (lingerMillis) 发出的多个 &#64;Batchable 请求会合并为一次 HTTP 请求，响应再拆分回各自的调用
+ * 注意：合并后的子请求不经过磁盘缓存，不要与 &#64;CachePolicy 一起使用
+ * 示例：
+ * <pre>
+ * &#64;Batchable
+ * &#64;GET("user/info")
+ * Single&lt;UserInfo&gt; getUserInfo();
+ * </pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batchable {
+}
@@ -0,0 +1,135 @@
+package com.yzplan.lanbase.http.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * 默认批量协议 (JSON 数组)
+ * 请求：POST endpoint
+ * <pre>
+ * [{"id":"0","method":"GET","url":"/banner/json","headers":{"k":"v"}},
+ *  {"id":"1","method":"POST","url":"/user/update","headers":{},"body":"name=a"}]
+ * </pre>
+ * 响应：按 id 对应，body 可以是任意 JSON (对象/数组原样交给子请求) 或字符串
+ * <pre>
+ * [{"id":"0","status":200,"headers":{"Content-Type":"application/json"},"body":{...}},
+ *  {"id":"1","status":500,"body":"error"}]
+ * </pre>
+ */
+public class JsonBatchProtocol implements BatchProtocol {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    @Override
+    public Request encode(HttpUrl endpoint, List<Request> requests) throws IOException {
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            JsonObject item = new JsonObject();
+            item.addProperty("id", String.valueOf(i));
+            item.addProperty("method", request.method());
+            HttpUrl url = request.url();
+            String query = url.encodedQuery();
+            item.addProperty("url", query != null ? url.encodedPath() + "?" + query : url.encodedPath());
+            JsonObject headers = new JsonObject();
+            for (int h = 0; h < request.headers().size(); h++) {
+                headers.addProperty(request.headers().name(h), request.headers().value(h));
+            }
+            RequestBody body = request.body();
+            if (body != null) {
+                MediaType type = body.contentType();
+                if (type != null) headers.addProperty("Content-Type", type.toString());
+                Buffer buffer = new Buffer();
+                body.writeTo(buffer);
+                item.addProperty("body", buffer.readUtf8());
+            }
+            item.add("headers", headers);
+            array.add(item);
+        }
+        return new Request.Builder()
+                .url(endpoint)
+                .post(RequestBody.create(JSON, array.toString()))
+                .build();
+    }
+
+    @Override
+    public List<Response> decode(Response response, List<Request> requests) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) throw new IOException("Empty batch response");
+        JsonElement root;
+        try {
+            root = JsonParser.parseReader(body.charStream());
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed batch response", e);
+        }
+        if (!root.isJsonArray()) throw new IOException("Batch response is not an array");
+        Response[] results = new Response[requests.size()];
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) continue;
+            JsonObject item = element.getAsJsonObject();
+            int index = parseIndex(item.get("id"));
+            if (index < 0 || index >= results.length) continue;
+            results[index] = toResponse(response, requests.get(index), item);
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    private int parseIndex(JsonElement id) {
+        if (id == null || !id.isJsonPrimitive()) return -1;
+        try {
+            return Integer.parseInt(id.getAsString());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Response toResponse(Response batch, Request request, JsonObject item) {
+        int status = item.has("status") ? item.get("status").getAsInt() : 200;
+        Headers.Builder headers = new Headers.Builder();
+        JsonElement headerJson = item.get("headers");
+        if (headerJson != null && headerJson.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : headerJson.getAsJsonObject().entrySet()) {
+                if (entry.getValue().isJsonPrimitive()) {
+                    headers.add(entry.getKey(), entry.getValue().getAsString());
+                }
+            }
+        }
+        String contentType = headers.get("Content-Type");
+        JsonElement bodyJson = item.get("body");
+        String content;
+        if (bodyJson == null || bodyJson.isJsonNull()) {
+            content = "";
+        } else if (bodyJson.isJsonPrimitive() && bodyJson.getAsJsonPrimitive().isString()) {
+            content = bodyJson.getAsString();
+        } else {
+            content = bodyJson.toString();
+        }
+        MediaType type = contentType != null ? MediaType.parse(contentType) : JSON;
+        return batch.newBuilder()
+                .request(request)
+                .code(status)
+                .message("")
+                .headers(headers.build())
+                .body(ResponseBody.create(type, content))
+                .networkResponse(null)
+                .cacheResponse(null)
+                .priorResponse(null)
+                .build();
+    }
+}
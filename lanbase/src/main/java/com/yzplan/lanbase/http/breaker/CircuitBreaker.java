@@ -0,0 +1,210 @@
+package com.yzplan.lanbase.http.breaker;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器 (单个域名)
+ * 核心职责：
+ * 1. 关闭 (CLOSED)：正常放行，记录最近 N 次请求结果 (滑动窗口)，失败率达到阈值后打开
+ * 2. 打开 (OPEN)：直接拒绝，持续 openDuration 后进入半开
+ * 3. 半开 (HALF_OPEN)：只放行少量试探请求，全部成功则关闭，任一失败则重新打开
+ * 4. 舱壁：可选的并发信号量，限制单域名同时占用的调度器线程
+ * 状态变化通过 CircuitBreakers.addStateListener 注册的监听器回调 (在请求线程回调，不持有锁)
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 状态变化监听
+     */
+    public interface StateListener {
+        /**
+         * @param key  熔断器 Key (BaseApi.getBaseUrl)
+         * @param from 原状态
+         * @param to   新状态
+         */
+        void onStateChanged(String key, State from, State to);
+    }
+
+    private final String mKey;
+    private final CircuitBreakerConfig mConfig;
+    // 舱壁信号量，不限制并发时为 null
+    private final Semaphore mBulkhead;
+
+    // 以下字段由 this 保护
+    private State mState = State.CLOSED;
+    // 滑动窗口：true 表示失败
+    private final boolean[] mWindow;
+    private int mWindowIndex;
+    private int mWindowCount;
+    private int mFailureCount;
+    private long mOpenedAtNanos;
+    private int mHalfOpenInFlight;
+    private int mHalfOpenSuccess;
+
+    CircuitBreaker(String key, CircuitBreakerConfig config) {
+        this.mKey = key;
+        this.mConfig = config;
+        this.mWindow = new boolean[config.getWindowSize()];
+        this.mBulkhead = config.getMaxConcurrentCalls() > 0
+                ? new Semaphore(config.getMaxConcurrentCalls()) : null;
+    }
+
+    public String getKey() {
+        return mKey;
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return mConfig;
+    }
+
+    public synchronized State getState() {
+        // 打开时长已到但还没有请求进来时，对外显示为半开
+        if (mState == State.OPEN && openExpired()) return State.HALF_OPEN;
+        return mState;
+    }
+
+    /**
+     * 当前窗口内的失败率 (百分比)
+     */
+    public synchronized float getFailureRate() {
+        return mWindowCount == 0 ? 0 : mFailureCount * 100f / mWindowCount;
+    }
+
+    // ================== 许可 ==================
+
+    /**
+     * 申请执行许可
+     *
+     * @return 获得许可时的状态 (用于上报结果)，null 表示被熔断拒绝
+     */
+    State tryAcquirePermission() {
+        State from = null;
+        State acquired;
+        synchronized (this) {
+            if (mState == State.OPEN) {
+                if (!openExpired()) return null;
+                from = State.OPEN;
+                moveTo(State.HALF_OPEN);
+            }
+            if (mState == State.HALF_OPEN) {
+                if (mHalfOpenInFlight + mHalfOpenSuccess >= mConfig.getHalfOpenPermits()) {
+                    acquired = null;
+                } else {
+                    mHalfOpenInFlight++;
+                    acquired = State.HALF_OPEN;
+                }
+            } else {
+                acquired = State.CLOSED;
+            }
+        }
+        if (from != null) CircuitBreakers.dispatch(mKey, from, State.HALF_OPEN);
+        return acquired;
+    }
+
+    /**
+     * 上报请求结果
+     *
+     * @param acquired tryAcquirePermission 返回的状态
+     * @param success  是否成功
+     */
+    void onResult(State acquired, boolean success) {
+        State from = null;
+        State to = null;
+        synchronized (this) {
+            if (acquired == State.HALF_OPEN && mState == State.HALF_OPEN) {
+                mHalfOpenInFlight--;
+                if (!success) {
+                    from = State.HALF_OPEN;
+                    to = State.OPEN;
+                } else if (++mHalfOpenSuccess >= mConfig.getHalfOpenPermits()) {
+                    from = State.HALF_OPEN;
+                    to = State.CLOSED;
+                }
+            } else if (acquired == State.CLOSED && mState == State.CLOSED) {
+                record(!success);
+                if (mWindowCount >= mConfig.getMinimumCalls()
+                        && mFailureCount * 100 >= mConfig.getFailureRateThreshold() * mWindowCount) {
+                    from = State.CLOSED;
+                    to = State.OPEN;
+                }
+            }
+            if (to != null) moveTo(to);
+        }
+        if (to != null) CircuitBreakers.dispatch(mKey, from, to);
+    }
+
+    /**
+     * 请求被取消等不计入统计的情况，归还半开试探名额
+     */
+    synchronized void onIgnored(State acquired) {
+        if (acquired == State.HALF_OPEN && mState == State.HALF_OPEN) {
+            mHalfOpenInFlight--;
+        }
+    }
+
+    // ================== 舱壁 ==================
+
+    boolean tryEnterBulkhead() throws InterruptedException {
+        if (mBulkhead == null) return true;
+        long wait = mConfig.getMaxWaitMillis();
+        return wait > 0 ? mBulkhead.tryAcquire(wait, TimeUnit.MILLISECONDS) : mBulkhead.tryAcquire();
+    }
+
+    void exitBulkhead() {
+        if (mBulkhead != null) mBulkhead.release();
+    }
+
+    /**
+     * 舱壁剩余可用并发数，不限制时返回 -1
+     */
+    public int getAvailableConcurrentCalls() {
+        return mBulkhead != null ? mBulkhead.availablePermits() : -1;
+    }
+
+    /**
+     * 手动重置为关闭状态
+     */
+    public void reset() {
+        State from;
+        synchronized (this) {
+            from = mState;
+            moveTo(State.CLOSED);
+        }
+        if (from != State.CLOSED) CircuitBreakers.dispatch(mKey, from, State.CLOSED);
+    }
+
+    // ================== 内部状态 ==================
+
+    private void record(boolean failure) {
+        if (mWindowCount == mWindow.length) {
+            if (mWindow[mWindowIndex]) mFailureCount--;
+        } else {
+            mWindowCount++;
+        }
+        mWindow[mWindowIndex] = failure;
+        if (failure) mFailureCount++;
+        mWindowIndex = (mWindowIndex + 1) % mWindow.length;
+    }
+
+    private boolean openExpired() {
+        return System.nanoTime() - mOpenedAtNanos >= TimeUnit.MILLISECONDS.toNanos(mConfig.getOpenDurationMillis());
+    }
+
+    private void moveTo(State state) {
+        mState = state;
+        mHalfOpenInFlight = 0;
+        mHalfOpenSuccess = 0;
+        if (state == State.OPEN) {
+            mOpenedAtNanos = System.nanoTime();
+        } else if (state == State.CLOSED) {
+            mWindowIndex = 0;
+            mWindowCount = 0;
+            mFailureCount = 0;
+        }
+    }
+}
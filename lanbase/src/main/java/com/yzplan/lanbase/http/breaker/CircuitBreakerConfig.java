@@ -0,0 +1,90 @@
+package com.yzplan.lanbase.http.breaker;
+
+/**
+ * 熔断器 + 舱壁配置
+ * 通过 HttpConfig.setCircuitBreaker 开启，每个 BaseApi.getBaseUrl() 一个熔断器
+ */
+public class CircuitBreakerConfig {
+    // 滑动窗口大小 (最近 N 次请求)
+    private int windowSize = 20;
+    // 窗口内至少有多少次请求才计算失败率
+    private int minimumCalls = 10;
+    // 失败率阈值 (百分比)，达到后打开熔断器
+    private int failureRateThreshold = 50;
+    // 打开状态持续时长 (毫秒)，之后进入半开状态
+    private long openDurationMillis = 30 * 1000;
+    // 半开状态允许的试探请求数，全部成功则关闭熔断器
+    private int halfOpenPermits = 3;
+    // 舱壁：单域名最大并发请求数，0 表示不限制
+    private int maxConcurrentCalls = 0;
+    // 舱壁：并发已满时的最长等待时长 (毫秒)，0 表示立即失败
+    private long maxWaitMillis = 0;
+
+    // ================== 链式配置方法 ==================
+
+    /**
+     * 失败率判定
+     *
+     * @param windowSize           滑动窗口大小
+     * @param minimumCalls         最少请求数
+     * @param failureRateThreshold 失败率阈值 (1 ~ 100)
+     */
+    public CircuitBreakerConfig setFailureRate(int windowSize, int minimumCalls, int failureRateThreshold) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = Math.max(1, Math.min(failureRateThreshold, 100));
+        return this;
+    }
+
+    public CircuitBreakerConfig setOpenDurationMillis(long openDurationMillis) {
+        this.openDurationMillis = openDurationMillis;
+        return this;
+    }
+
+    public CircuitBreakerConfig setHalfOpenPermits(int halfOpenPermits) {
+        this.halfOpenPermits = Math.max(1, halfOpenPermits);
+        return this;
+    }
+
+    /**
+     * 舱壁配置 (限制单域名并发，防止一个慢服务占满调度器)
+     *
+     * @param maxConcurrentCalls 最大并发数，0 表示不限制
+     * @param maxWaitMillis      已满时的最长等待 (毫秒)
+     */
+    public CircuitBreakerConfig setBulkhead(int maxConcurrentCalls, long maxWaitMillis) {
+        this.maxConcurrentCalls = Math.max(0, maxConcurrentCalls);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        return this;
+    }
+
+    // ================== Getter ==================
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    public int getHalfOpenPermits() {
+        return halfOpenPermits;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
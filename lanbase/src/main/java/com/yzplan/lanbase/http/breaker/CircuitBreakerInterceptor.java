@@ -0,0 +1,79 @@
+package com.yzplan.lanbase.http.breaker;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.exception.CircuitBreakerException;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * 熔断 + 舱壁拦截器
+ * 核心职责：
+ * 1. 熔断器打开时直接抛出 CircuitBreakerException (CIRCUIT_OPEN)，不占用连接与调度器线程
+ * 2. 舱壁已满时抛出 CircuitBreakerException (BULKHEAD_FULL)
+ * 3. IO 异常与 5xx 计为失败，其余计为成功，被取消的请求不计入
+ * 注意：舱壁只覆盖到收到响应头为止，响应体的读取不占用并发名额
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+    // 熔断拒绝次数
+    public static final String COUNTER_CIRCUIT_REJECTED = "breaker.circuit_rejected";
+    // 舱壁拒绝次数
+    public static final String COUNTER_BULKHEAD_REJECTED = "breaker.bulkhead_rejected";
+
+    private final CircuitBreaker mBreaker;
+
+    public CircuitBreakerInterceptor(CircuitBreaker breaker) {
+        this.mBreaker = breaker;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return mBreaker;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        CircuitBreaker.State acquired = mBreaker.tryAcquirePermission();
+        if (acquired == null) {
+            NetworkStats.increment(COUNTER_CIRCUIT_REJECTED);
+            throw new CircuitBreakerException("服务暂时不可用，请稍后重试",
+                    CircuitBreakerException.CODE_CIRCUIT_OPEN, mBreaker.getKey());
+        }
+        boolean entered;
+        try {
+            entered = mBreaker.tryEnterBulkhead();
+        } catch (InterruptedException e) {
+            mBreaker.onIgnored(acquired);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bulkhead interrupted");
+        }
+        if (!entered) {
+            mBreaker.onIgnored(acquired);
+            NetworkStats.increment(COUNTER_BULKHEAD_REJECTED);
+            throw new CircuitBreakerException("请求过于频繁，请稍后重试",
+                    CircuitBreakerException.CODE_BULKHEAD_FULL, mBreaker.getKey());
+        }
+        try {
+            Response response = chain.proceed(chain.request());
+            mBreaker.onResult(acquired, response.code() < 500);
+            return response;
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                mBreaker.onIgnored(acquired);
+            } else {
+                mBreaker.onResult(acquired, false);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            mBreaker.onIgnored(acquired);
+            throw e;
+        } finally {
+            mBreaker.exitBulkhead();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.yzplan.lanbase.http.breaker;
+
+import com.yzplan.lanbase.utils.log.L;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 熔断器注册表
+ * 1. 按 Key (BaseApi.getBaseUrl) 保存熔断器，同一域名的所有 BaseApi 共享一个熔断器与舱壁
+ * 2. 管理全局状态监听器
+ */
+public class CircuitBreakers {
+    private static final String TAG = "CircuitBreaker";
+    private static final ConcurrentHashMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, CircuitBreakerInterceptor> INTERCEPTORS = new ConcurrentHashMap<>();
+    private static final CopyOnWriteArrayList<CircuitBreaker.StateListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private CircuitBreakers() {
+    }
+
+    /**
+     * 获取 (或创建) 熔断器，已存在时忽略传入的配置
+     */
+    public static CircuitBreaker obtain(String key, CircuitBreakerConfig config) {
+        CircuitBreaker breaker = BREAKERS.get(key);
+        if (breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(key, config);
+            breaker = BREAKERS.putIfAbsent(key, created);
+            if (breaker == null) breaker = created;
+        }
+        return breaker;
+    }
+
+    /**
+     * 获取 (或创建) 熔断拦截器，同一 Key 返回同一实例，使 RetrofitClient 能复用 Client
+     */
+    public static CircuitBreakerInterceptor obtainInterceptor(String key, CircuitBreakerConfig config) {
+        CircuitBreakerInterceptor interceptor = INTERCEPTORS.get(key);
+        if (interceptor == null) {
+            CircuitBreakerInterceptor created = new CircuitBreakerInterceptor(obtain(key, config));
+            interceptor = INTERCEPTORS.putIfAbsent(key, created);
+            if (interceptor == null) interceptor = created;
+        }
+        return interceptor;
+    }
+
+    /**
+     * 获取熔断器，不存在返回 null
+     */
+    public static CircuitBreaker get(String key) {
+        return BREAKERS.get(key);
+    }
+
+    public static Collection<CircuitBreaker> getAll() {
+        return Collections.unmodifiableCollection(BREAKERS.values());
+    }
+
+    public static void addStateListener(CircuitBreaker.StateListener listener) {
+        if (listener != null) LISTENERS.addIfAbsent(listener);
+    }
+
+    public static void removeStateListener(CircuitBreaker.StateListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    static void dispatch(String key, CircuitBreaker.State from, CircuitBreaker.State to) {
+        L.i(TAG, key + " " + from + " -> " + to);
+        for (CircuitBreaker.StateListener listener : LISTENERS) {
+            try {
+                listener.onStateChanged(key, from, to);
+            } catch (Exception e) {
+                L.e(TAG, "listener error: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.yzplan.lanbase.http.cache;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 缓存头改写拦截器 (网络拦截器)
+ * 按 @CachePolicy 改写服务端响应的 Cache-Control，使其能被 OkHttp 磁盘缓存保存
+ */
+public class CacheControlInterceptor implements Interceptor {
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (!"GET".equals(request.method()) || !response.isSuccessful()) {
+            return response;
+        }
+        CachePolicy policy = InvocationUtils.getAnnotation(request, CachePolicy.class);
+        if (policy == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + policy.maxAge())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.yzplan.lanbase.http.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口缓存策略 (仅对 GET 请求生效，需在 HttpConfig 中开启磁盘缓存)
+ * 注意：缓存以最终 URL 为 key。签名拦截器把 timestamp / nonce 等易变参数加在 GET query 中时，
+ * 每次请求的 URL 都不同，缓存不会命中 (后台刷新会重新执行整个拦截器链，签名放在请求头中时不受影响)。
+ * 这类接口需要服务端支持把易变参数放在请求头中，否则不要声明本注解 (运行时会输出一次警告)。
+ * 示例：
+ * <pre>
+ * &#64;CachePolicy(maxAge = 60, staleWhileRevalidate = 24 * 3600, offlineStale = 7 * 24 * 3600)
+ * &#64;GET("banner/json")
+ * Single&lt;WanBaseResponse&lt;List&lt;BannerBean&gt;&gt;&gt; getBanner();
+ * </pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachePolicy {
+    /**
+     * 新鲜期 (秒)：期间直接使用缓存，不访问网络
+     */
+    int maxAge();
+
+    /**
+     * 过期后仍可先返回缓存的时长 (秒)，同时在后台刷新缓存；0 表示不启用
+     */
+    int staleWhileRevalidate() default 0;
+
+    /**
+     * 无网络时允许使用的过期缓存时长 (秒)；0 表示无网络时不使用缓存
+     */
+    int offlineStale() default 0;
+}
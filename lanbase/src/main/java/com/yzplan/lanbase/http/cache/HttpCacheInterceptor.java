@@ -0,0 +1,189 @@
+package com.yzplan.lanbase.http.cache;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.BaseApp;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+import com.yzplan.lanbase.utils.log.L;
+import com.yzplan.lanbase.utils.system.NetUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Okio;
+import retrofit2.Invocation;
+
+/**
+ * 缓存策略拦截器 (应用拦截器，位于业务拦截器之后，看到的是签名后的最终请求)
+ * 核心职责：
+ * 1. 无网络：按 offlineStale 强制读取缓存
+ * 2. stale-while-revalidate：缓存过期但仍在窗口内时，先返回缓存，同时在后台发起条件请求刷新缓存
+ * - 后台刷新克隆原始 Call (未签名的请求)，重新经过完整的拦截器链，签名等参数会重新生成
+ * 3. 统计缓存命中/未命中/刷新次数
+ * 4. 检测 URL 中的易变参数：OkHttp 以最终 URL 作为缓存 key，签名拦截器在 GET query 中加入的
+ * timestamp / nonce / sign 每次都不同，缓存永远不会命中。
+ * 相同参数的两次调用 URL 不同时输出一次警告；这类接口请把易变参数放到请求头，或不要声明 {@link CachePolicy}
+ */
+public class HttpCacheInterceptor implements Interceptor {
+    private static final String TAG = "HttpCacheInterceptor";
+    // OkHttp 返回过期缓存时添加的 Warning 头
+    private static final String WARNING_STALE = "110";
+    // 正在后台刷新的 URL (未签名的原始请求)，防止重复刷新
+    private final ConcurrentHashMap<String, Boolean> mRefreshing = new ConcurrentHashMap<>();
+    // 后台刷新发起的 Call，经过本拦截器时改为条件请求
+    private final ConcurrentHashMap<Call, Boolean> mRefreshCalls = new ConcurrentHashMap<>();
+    // 每个接口方法最近一次调用的参数与 URL，用于检测 URL 中的易变参数
+    private final ConcurrentHashMap<Method, UrlSample> mUrlSamples = new ConcurrentHashMap<>();
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        CachePolicy policy = "GET".equals(request.method())
+                ? InvocationUtils.getAnnotation(request, CachePolicy.class) : null;
+        if (policy == null) {
+            return chain.proceed(request);
+        }
+        // 后台刷新：max-age=0 让 OkHttp 携带 ETag/Last-Modified 发起条件请求，结果写回缓存
+        if (mRefreshCalls.containsKey(chain.call())) {
+            return chain.proceed(request.newBuilder()
+                    .cacheControl(new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build())
+                    .build());
+        }
+        checkStableUrl(request);
+        // 1. 无网络：直接读缓存
+        if (policy.offlineStale() > 0 && !isConnected()) {
+            Response response = chain.proceed(request.newBuilder()
+                    .cacheControl(cacheOnly(policy.offlineStale()))
+                    .build());
+            if (response.cacheResponse() != null) {
+                HttpCacheStats.OFFLINE_HIT.incrementAndGet();
+            }
+            return response;
+        }
+        // 2. 先看缓存窗口内是否有可用缓存
+        if (policy.staleWhileRevalidate() > 0) {
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(cacheOnly(policy.staleWhileRevalidate()))
+                    .build());
+            if (cached.cacheResponse() != null) {
+                HttpCacheStats.HIT.incrementAndGet();
+                if (isStale(cached)) {
+                    refreshInBackground(chain.call());
+                }
+                return cached;
+            }
+            // 504 Unsatisfiable Request：无缓存，关闭后正常走网络
+            cached.close();
+        }
+        // 3. 正常请求 (fresh 缓存由 OkHttp 直接返回，过期缓存自动发起条件请求)
+        Response response = chain.proceed(request);
+        HttpCacheStats.record(response);
+        return response;
+    }
+
+    /**
+     * 相同参数的两次调用得到不同的 URL，说明 URL 被拦截器加入了易变参数，缓存不会命中 (每个方法只警告一次)
+     */
+    private void checkStableUrl(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) return;
+        Method method = invocation.method();
+        UrlSample last = mUrlSamples.get(method);
+        if (last != null && last.warned) return;
+        String url = request.url().toString();
+        List<?> arguments = invocation.arguments();
+        if (last != null && last.arguments.equals(arguments) && !last.url.equals(url)) {
+            mUrlSamples.put(method, UrlSample.WARNED);
+            L.e(TAG, method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                    + " 声明了 @CachePolicy，但相同参数的请求 URL 每次不同 (签名拦截器在 query 中加入了 timestamp/nonce 等参数?)，"
+                    + "缓存不会命中，请将易变参数放到请求头: " + last.url + " -> " + url);
+            return;
+        }
+        mUrlSamples.put(method, new UrlSample(arguments, url));
+    }
+
+    private CacheControl cacheOnly(int maxStaleSeconds) {
+        return new CacheControl.Builder()
+                .onlyIfCached()
+                .maxStale(maxStaleSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private boolean isStale(Response response) {
+        String warning = response.header("Warning");
+        return warning != null && warning.startsWith(WARNING_STALE);
+    }
+
+    /**
+     * 后台刷新：克隆原始 Call，由同一个 Client 从头执行 (重新签名)，经过本拦截器时改为条件请求
+     */
+    private void refreshInBackground(Call original) {
+        final String key = original.request().url().toString();
+        if (mRefreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        HttpCacheStats.BACKGROUND_REFRESH.incrementAndGet();
+        Call refresh = original.clone();
+        mRefreshCalls.put(refresh, Boolean.TRUE);
+        refresh.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                mRefreshCalls.remove(call);
+                mRefreshing.remove(key);
+                L.e(TAG, "后台刷新失败: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                mRefreshCalls.remove(call);
+                mRefreshing.remove(key);
+                HttpCacheStats.record(response);
+                // 必须读完 body 才会写入缓存
+                try {
+                    if (response.body() != null) response.body().source().readAll(Okio.blackhole());
+                } catch (IOException ignored) {
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 当前是否有网络，包内可见以便测试替换
+     */
+    boolean isConnected() {
+        try {
+            Context context = BaseApp.getContext();
+            return NetUtils.isConnected(context);
+        } catch (Exception e) {
+            // 未初始化 BaseApp 时按有网处理
+            return true;
+        }
+    }
+
+    private static final class UrlSample {
+        static final UrlSample WARNED = new UrlSample(null, null);
+        final List<?> arguments;
+        final String url;
+        final boolean warned;
+
+        UrlSample(List<?> arguments, String url) {
+            this.arguments = arguments;
+            this.url = url;
+            this.warned = arguments == null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.yzplan.lanbase.http.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 磁盘缓存统计
+ */
+public class HttpCacheStats {
+    // 直接由缓存返回 (未访问网络)
+    static final AtomicLong HIT = new AtomicLong();
+    // 无可用缓存，走网络
+    static final AtomicLong MISS = new AtomicLong();
+    // 携带 ETag/Last-Modified 的条件请求 (含后台刷新)
+    static final AtomicLong REVALIDATE = new AtomicLong();
+    // 返回过期缓存并触发后台刷新
+    static final AtomicLong BACKGROUND_REFRESH = new AtomicLong();
+    // 无网络时返回过期缓存
+    static final AtomicLong OFFLINE_HIT = new AtomicLong();
+
+    private HttpCacheStats() {
+    }
+
+    public static long getHitCount() {
+        return HIT.get();
+    }
+
+    public static long getMissCount() {
+        return MISS.get();
+    }
+
+    public static long getRevalidateCount() {
+        return REVALIDATE.get();
+    }
+
+    public static long getBackgroundRefreshCount() {
+        return BACKGROUND_REFRESH.get();
+    }
+
+    public static long getOfflineHitCount() {
+        return OFFLINE_HIT.get();
+    }
+
+    public static void reset() {
+        HIT.set(0);
+        MISS.set(0);
+        REVALIDATE.set(0);
+        BACKGROUND_REFRESH.set(0);
+        OFFLINE_HIT.set(0);
+    }
+
+    /**
+     * 根据最终响应统计命中情况
+     */
+    static void record(okhttp3.Response response) {
+        if (response.networkResponse() == null) {
+            if (response.cacheResponse() != null) HIT.incrementAndGet();
+        } else if (response.cacheResponse() != null) {
+            REVALIDATE.incrementAndGet();
+        } else {
+            MISS.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.yzplan.lanbase.http.compress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 压缩配置
+ * 通过 HttpConfig.setCompression 开启：
+ * 1. 请求体：超过阈值的 Body 使用 gzip / deflate 压缩后发送，服务端返回 415 时该域名回退为不压缩
+ * 2. 响应体：Accept-Encoding 声明所有已注册的解码器，由 ContentDecodingInterceptor 统一解码
+ */
+public class CompressionConfig {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    // 请求体压缩算法 (gzip / deflate)
+    private String requestEncoding = GZIP;
+    // 小于该大小的请求体不压缩 (字节)
+    private long minRequestBytes = 1024;
+    // 超过该大小的请求体不压缩 (需要整体放入内存比较压缩率)
+    private long maxRequestBytes = 8 * 1024 * 1024;
+    // 压缩后至少节省的比例，达不到时发送原始数据 (例如图片、zip)
+    private float minSavingRatio = 0.1f;
+    // 未知域名是否先尝试压缩 (false 表示只压缩 addHost 声明或响应头声明支持的域名)
+    private boolean optimistic = true;
+    // 已知支持压缩请求体的域名
+    private final Set<String> hosts = new HashSet<>();
+    // 响应解码器，按优先级排列
+    private final List<ContentDecoder> decoders = new ArrayList<>();
+
+    public CompressionConfig() {
+        decoders.add(ContentDecoders.gzip());
+        decoders.add(ContentDecoders.deflate());
+        // 主工程依赖了 org.brotli:dec 时自动支持 br
+        ContentDecoder brotli = ContentDecoders.brotli();
+        if (brotli != null) decoders.add(0, brotli);
+    }
+
+    public CompressionConfig setRequestEncoding(String requestEncoding) {
+        if (GZIP.equals(requestEncoding) || DEFLATE.equals(requestEncoding)) {
+            this.requestEncoding = requestEncoding;
+        }
+        return this;
+    }
+
+    public CompressionConfig setRequestSizeRange(long minBytes, long maxBytes) {
+        this.minRequestBytes = Math.max(0, minBytes);
+        this.maxRequestBytes = Math.max(this.minRequestBytes, maxBytes);
+        return this;
+    }
+
+    public CompressionConfig setMinSavingRatio(float minSavingRatio) {
+        this.minSavingRatio = Math.max(0f, Math.min(minSavingRatio, 1f));
+        return this;
+    }
+
+    public CompressionConfig setOptimistic(boolean optimistic) {
+        this.optimistic = optimistic;
+        return this;
+    }
+
+    /**
+     * 声明支持压缩请求体的域名 (setOptimistic(false) 时只压缩这些域名)
+     */
+    public CompressionConfig addHost(String host) {
+        if (host != null) hosts.add(host.toLowerCase(Locale.US));
+        return this;
+    }
+
+    /**
+     * 注册响应解码器，优先级高于已有的同名解码器 (null 忽略，便于直接传入 ContentDecoders.fromInputStream 的结果)
+     */
+    public CompressionConfig addDecoder(ContentDecoder decoder) {
+        if (decoder == null) return this;
+        for (int i = decoders.size() - 1; i >= 0; i--) {
+            if (decoders.get(i).getEncoding().equalsIgnoreCase(decoder.getEncoding())) decoders.remove(i);
+        }
+        decoders.add(0, decoder);
+        return this;
+    }
+
+    public String getRequestEncoding() {
+        return requestEncoding;
+    }
+
+    public long getMinRequestBytes() {
+        return minRequestBytes;
+    }
+
+    public long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    public float getMinSavingRatio() {
+        return minSavingRatio;
+    }
+
+    public boolean isOptimistic() {
+        return optimistic;
+    }
+
+    public boolean isKnownHost(String host) {
+        return hosts.contains(host.toLowerCase(Locale.US));
+    }
+
+    public List<ContentDecoder> getDecoders() {
+        return Collections.unmodifiableList(decoders);
+    }
+
+    /**
+     * 按编码名查找解码器 (忽略大小写)
+     */
+    public ContentDecoder findDecoder(String encoding) {
+        for (ContentDecoder decoder : decoders) {
+            if (decoder.getEncoding().equalsIgnoreCase(encoding)) return decoder;
+        }
+        return null;
+    }
+}
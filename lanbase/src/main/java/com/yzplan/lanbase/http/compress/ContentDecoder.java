@@ -0,0 +1,22 @@
+package com.yzplan.lanbase.http.compress;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+import okio.Source;
+
+/**
+ * 响应体解码器 (对应 Content-Encoding)
+ * 内置 gzip / deflate，brotli 等需要第三方解码库的编码通过 ContentDecoders 按需创建
+ */
+public interface ContentDecoder {
+    /**
+     * 编码名 (小写，例如 "br")，会出现在 Accept-Encoding 中
+     */
+    String getEncoding();
+
+    /**
+     * 包装压缩数据流，返回解压后的数据流
+     */
+    Source decode(BufferedSource source) throws IOException;
+}
@@ -0,0 +1,107 @@
+package com.yzplan.lanbase.http.compress;
+
+import com.yzplan.lanbase.utils.log.L;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.zip.Inflater;
+
+import okio.BufferedSource;
+import okio.GzipSource;
+import okio.InflaterSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * 常用解码器
+ * 1. gzip / deflate：基于 okio，无额外依赖
+ * 2. 其它编码 (brotli、zstd 等)：通过反射包装第三方库的解压 InputStream，类不存在时返回 null，
+ * lanbase 不强制依赖解码库，主工程引入后即可使用
+ */
+public class ContentDecoders {
+    private static final String TAG = "ContentDecoders";
+    // org.brotli:dec (纯 Java 实现)
+    private static final String BROTLI_INPUT_STREAM = "org.brotli.dec.BrotliInputStream";
+
+    private ContentDecoders() {
+    }
+
+    public static ContentDecoder gzip() {
+        return new ContentDecoder() {
+            @Override
+            public String getEncoding() {
+                return CompressionConfig.GZIP;
+            }
+
+            @Override
+            public Source decode(BufferedSource source) {
+                return new GzipSource(source);
+            }
+        };
+    }
+
+    /**
+     * HTTP 的 deflate 实际为 zlib 格式 (RFC 9110)
+     */
+    public static ContentDecoder deflate() {
+        return new ContentDecoder() {
+            @Override
+            public String getEncoding() {
+                return CompressionConfig.DEFLATE;
+            }
+
+            @Override
+            public Source decode(BufferedSource source) {
+                return new InflaterSource(source, new Inflater());
+            }
+        };
+    }
+
+    /**
+     * brotli 解码器，主工程未依赖 org.brotli:dec 时返回 null
+     */
+    public static ContentDecoder brotli() {
+        return fromInputStream("br", BROTLI_INPUT_STREAM);
+    }
+
+    /**
+     * 通过反射包装解压 InputStream (需要有 (InputStream) 构造方法)
+     * 例如 zstd：fromInputStream("zstd", "com.github.luben.zstd.ZstdInputStream")
+     *
+     * @param encoding  编码名
+     * @param className 解压 InputStream 的完整类名
+     * @return 类不存在时返回 null
+     */
+    public static ContentDecoder fromInputStream(final String encoding, String className) {
+        final Constructor<?> constructor;
+        try {
+            Class<?> clazz = Class.forName(className);
+            if (!InputStream.class.isAssignableFrom(clazz)) return null;
+            constructor = clazz.getConstructor(InputStream.class);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            L.d(TAG, encoding + " 解码器不可用: " + className);
+            return null;
+        }
+        return new ContentDecoder() {
+            @Override
+            public String getEncoding() {
+                return encoding;
+            }
+
+            @Override
+            public Source decode(BufferedSource source) throws IOException {
+                try {
+                    return Okio.source((InputStream) constructor.newInstance(source.inputStream()));
+                } catch (InvocationTargetException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    throw new IOException(encoding + " 解码失败", cause);
+                } catch (ReflectiveOperationException e) {
+                    throw new IOException(encoding + " 解码失败", e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.yzplan.lanbase.http.compress;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * 响应解码拦截器 (网络拦截器)
+ * 核心职责：
+ * 1. 用已注册的解码器改写 Accept-Encoding (例如 "br, gzip, deflate")
+ * - 请求已自带 Accept-Encoding 或带 Range 时不处理，保持 OkHttp 原有行为
+ * 2. 按响应的 Content-Encoding 解码并移除 Content-Encoding / Content-Length，
+ * 后续的磁盘缓存、转换器拿到的都是明文
+ * 3. 统计线上字节数与解码后字节数
+ * 4. 返回的响应关联原始请求 (Accept-Encoding: gzip)：磁盘缓存按 networkResponse 的请求头记录 Vary，
+ * 若记录改写后的值，之后 BridgeInterceptor 补的 "gzip" 永远对不上，带 Vary: Accept-Encoding 的响应无法命中缓存
+ * 注意：OkHttp 只在调用方没有设置 Accept-Encoding 时才自动解 gzip，
+ * 这里接管了 Accept-Encoding，因此 gzip 也由本拦截器解码
+ */
+public class ContentDecodingInterceptor implements Interceptor {
+    public static final String COUNTER_DECODED = "compress.response.decoded";
+    public static final String COUNTER_BYTES_WIRE = "compress.response.bytes_wire";
+    public static final String COUNTER_BYTES_DECODED = "compress.response.bytes_decoded";
+
+    private final CompressionConfig mConfig;
+    private final String mAcceptEncoding;
+
+    public ContentDecodingInterceptor(CompressionConfig config) {
+        mConfig = config;
+        StringBuilder sb = new StringBuilder();
+        for (ContentDecoder decoder : config.getDecoders()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(decoder.getEncoding());
+        }
+        mAcceptEncoding = sb.toString();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // BridgeInterceptor 只会补 "gzip"，调用方自己设置的值或 Range 请求保持不变
+        if (!"gzip".equals(request.header("Accept-Encoding")) || request.header("Range") != null) {
+            return chain.proceed(request);
+        }
+        Response response = chain.proceed(request.newBuilder()
+                .header("Accept-Encoding", mAcceptEncoding)
+                .build())
+                .newBuilder()
+                .request(request)
+                .build();
+        RequestCompressionInterceptor.learn(request.url(), response.header("Accept-Encoding"),
+                mConfig.getRequestEncoding());
+        String encoding = response.header("Content-Encoding");
+        ResponseBody body = response.body();
+        if (encoding == null || body == null || "HEAD".equals(request.method())
+                || response.code() == 204 || response.code() == 304) {
+            return response;
+        }
+        ContentDecoder decoder = mConfig.findDecoder(encoding.trim());
+        if (decoder == null) {
+            // 服务端返回了未声明的编码，原样交给上层
+            return response;
+        }
+        NetworkStats.increment(COUNTER_DECODED);
+        CountingSource wire = new CountingSource(body.source());
+        CountingSource decoded = new CountingSource(decoder.decode(Okio.buffer(wire)));
+        decoded.mWire = wire;
+        return response.newBuilder()
+                .headers(response.headers().newBuilder()
+                        .removeAll("Content-Encoding")
+                        .removeAll("Content-Length")
+                        .build())
+                .body(ResponseBody.create(body.contentType(), -1, Okio.buffer(decoded)))
+                .build();
+    }
+
+    /**
+     * 计数数据流：解码后的流读完或关闭时上报一次线上/明文字节数
+     */
+    private static final class CountingSource extends ForwardingSource {
+        private long mBytes;
+        private CountingSource mWire;
+        private boolean mReported;
+
+        CountingSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read == -1) {
+                report();
+            } else {
+                mBytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            report();
+            super.close();
+        }
+
+        private void report() {
+            if (mWire == null || mReported) return;
+            mReported = true;
+            NetworkStats.add(COUNTER_BYTES_WIRE, mWire.mBytes);
+            NetworkStats.add(COUNTER_BYTES_DECODED, mBytes);
+        }
+    }
+}
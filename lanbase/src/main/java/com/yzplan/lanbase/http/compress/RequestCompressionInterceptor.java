@@ -0,0 +1,180 @@
+package com.yzplan.lanbase.http.compress;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.DeflaterSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * 请求体压缩拦截器
+ * 核心职责：
+ * 1. 大小在阈值范围内、类型可压缩的请求体压缩后发送，并设置 Content-Encoding
+ * - 压缩率达不到 minSavingRatio (图片、zip 等) 时发送原始数据
+ * - 已设置 Content-Encoding、一次性 Body、长度未知的请求直接放行
+ * 2. 按域名协商：服务端返回 415 时记为不支持并立即以原始数据重发；
+ * 响应头 Accept-Encoding 声明了压缩算法时记为支持 (RFC 7694)
+ * 3. 统计压缩前后字节数
+ * 注意：放在所有应用拦截器最后，签名、日志看到的都是未压缩的原始数据
+ */
+public class RequestCompressionInterceptor implements Interceptor {
+    public static final String COUNTER_COMPRESSED = "compress.request.compressed";
+    public static final String COUNTER_SKIPPED = "compress.request.skipped_ratio";
+    public static final String COUNTER_FALLBACK = "compress.request.fallback";
+    public static final String COUNTER_BYTES_IN = "compress.request.bytes_in";
+    public static final String COUNTER_BYTES_OUT = "compress.request.bytes_out";
+
+    // 域名 (host:port) -> 是否支持压缩请求体，所有 Client 共享
+    private static final ConcurrentHashMap<String, Boolean> HOST_SUPPORT = new ConcurrentHashMap<>();
+
+    private final CompressionConfig mConfig;
+
+    public RequestCompressionInterceptor(CompressionConfig config) {
+        mConfig = config;
+    }
+
+    /**
+     * 查询域名的协商结果
+     *
+     * @return true 支持 / false 不支持 / null 尚未协商
+     */
+    public static Boolean getHostSupport(HttpUrl url) {
+        return HOST_SUPPORT.get(hostKey(url));
+    }
+
+    /**
+     * 清空协商结果 (例如服务端升级后)
+     */
+    public static void resetHostSupport() {
+        HOST_SUPPORT.clear();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!shouldCompress(request)) {
+            return chain.proceed(request);
+        }
+        RequestBody body = request.body();
+        String encoding = mConfig.getRequestEncoding();
+        Buffer compressed = compress(body, encoding);
+        long originalSize = body.contentLength();
+        if (compressed.size() > originalSize * (1 - mConfig.getMinSavingRatio())) {
+            NetworkStats.increment(COUNTER_SKIPPED);
+            return chain.proceed(request);
+        }
+        Request compressedRequest = request.newBuilder()
+                .header("Content-Encoding", encoding)
+                .method(request.method(), RequestBody.create(body.contentType(), compressed.readByteString()))
+                .build();
+        String host = hostKey(request.url());
+        Response response = chain.proceed(compressedRequest);
+        if (response.code() == 415) {
+            // 服务端不接受压缩的请求体：原始数据重发一次，重发成功才记住该域名 (415 也可能与压缩无关)
+            NetworkStats.increment(COUNTER_FALLBACK);
+            response.close();
+            Response fallback = chain.proceed(request);
+            if (fallback.code() != 415) HOST_SUPPORT.put(host, false);
+            return fallback;
+        }
+        if (response.isSuccessful()) {
+            HOST_SUPPORT.put(host, true);
+        }
+        NetworkStats.increment(COUNTER_COMPRESSED);
+        NetworkStats.add(COUNTER_BYTES_IN, originalSize);
+        NetworkStats.add(COUNTER_BYTES_OUT, compressedRequest.body().contentLength());
+        return response;
+    }
+
+    private boolean shouldCompress(Request request) throws IOException {
+        RequestBody body = request.body();
+        if (body == null || body.isOneShot() || body.isDuplex()) return false;
+        if (request.header("Content-Encoding") != null) return false;
+        long length = body.contentLength();
+        if (length < mConfig.getMinRequestBytes() || length > mConfig.getMaxRequestBytes() || length <= 0) {
+            return false;
+        }
+        if (!isCompressible(body.contentType())) return false;
+        if (body instanceof MultipartBody && incompressibleBytes((MultipartBody) body) * 2 > length) return false;
+        Boolean support = HOST_SUPPORT.get(hostKey(request.url()));
+        if (support != null) return support;
+        return mConfig.isOptimistic() || mConfig.isKnownHost(request.url().host());
+    }
+
+    private static Buffer compress(RequestBody body, String encoding) throws IOException {
+        Buffer buffer = new Buffer();
+        BufferedSink sink = CompressionConfig.DEFLATE.equals(encoding)
+                ? Okio.buffer(new DeflaterSink(buffer, new Deflater()))
+                : Okio.buffer(new GzipSink(buffer));
+        body.writeTo(sink);
+        sink.close();
+        return buffer;
+    }
+
+    /**
+     * Multipart 中已压缩的文件部分 (zip、图片等) 的字节数，占一半以上时不值得压缩
+     */
+    private static long incompressibleBytes(MultipartBody body) throws IOException {
+        long bytes = 0;
+        for (MultipartBody.Part part : body.parts()) {
+            RequestBody partBody = part.body();
+            if (!isCompressible(partBody.contentType())) {
+                long length = partBody.contentLength();
+                if (length < 0) return Long.MAX_VALUE / 2;
+                bytes += length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 按 Content-Type 判断是否值得压缩 (未知类型按可压缩处理，由压缩率兜底)
+     */
+    static boolean isCompressible(MediaType type) {
+        if (type == null) return true;
+        String main = type.type().toLowerCase(Locale.US);
+        String sub = type.subtype().toLowerCase(Locale.US);
+        if (main.equals("image") || main.equals("video") || main.equals("audio")) {
+            return sub.equals("svg+xml");
+        }
+        return !(sub.equals("zip") || sub.equals("gzip") || sub.equals("x-gzip") || sub.equals("x-7z-compressed")
+                || sub.equals("x-rar-compressed") || sub.equals("octet-stream") || sub.equals("vnd.android.package-archive"));
+    }
+
+    /**
+     * 响应头声明了支持的请求编码时记录 (由 ContentDecodingInterceptor 在网络层调用)
+     */
+    static void learn(HttpUrl url, String acceptEncoding, String requestEncoding) {
+        if (acceptEncoding == null) return;
+        for (String item : acceptEncoding.split(",")) {
+            String name = item.trim();
+            int semicolon = name.indexOf(';');
+            if (semicolon >= 0) name = name.substring(0, semicolon).trim();
+            if (name.equalsIgnoreCase(requestEncoding)) {
+                HOST_SUPPORT.put(hostKey(url), true);
+                return;
+            }
+        }
+    }
+
+    private static String hostKey(HttpUrl url) {
+        return url.host() + ":" + url.port();
+    }
+}
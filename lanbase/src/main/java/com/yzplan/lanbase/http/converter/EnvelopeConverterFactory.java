@@ -0,0 +1,129 @@
+package com.yzplan.lanbase.http.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.yzplan.lanbase.base.BaseResponse;
+import com.yzplan.lanbase.http.exception.ApiException;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 响应外壳解析转换器
+ * 核心职责：
+ * 1. 接口直接声明业务类型 (Single&lt;T&gt;)，转换器流式读取外壳，只把 data 子树反序列化为 T
+ * - 省去 BaseResponse 包装对象与 RxUtils.handleRequest 中的 flatMap
+ * - 失败时 data 直接跳过，不做反序列化
+ * - data 出现在 code 之前时先读取为 JsonElement，确认成功后再转换为 T，
+ * 失败响应的 data 结构不同 (如 "" / []) 时仍然抛出 ApiException，而不是 JsonSyntaxException
+ * 2. code 交给 ResponseCodeHandler，替代 BaseResponseCodeInterceptor 的二次扫描
+ * 3. 失败 / data 为空时抛出 ApiException，订阅者收到的异常与原流程一致
+ * 声明类型为 BaseResponse 实现类或 ResponseBody 的接口不处理，交给后面的 Gson 转换器
+ */
+public class EnvelopeConverterFactory extends Converter.Factory {
+    private final ResponseEnvelope mEnvelope;
+    private final Gson mGson;
+
+    public EnvelopeConverterFactory(ResponseEnvelope envelope, Gson gson) {
+        this.mEnvelope = envelope;
+        this.mGson = gson;
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        Class<?> rawType = getRawType(type);
+        if (BaseResponse.class.isAssignableFrom(rawType)
+                || rawType == ResponseBody.class || rawType == Void.class) {
+            return null;
+        }
+        return new EnvelopeConverter<>(mEnvelope, mGson, mGson.getAdapter(TypeToken.get(type)));
+    }
+
+    private static final class EnvelopeConverter<T> implements Converter<ResponseBody, T> {
+        private final ResponseEnvelope envelope;
+        private final Gson gson;
+        private final TypeAdapter<T> adapter;
+
+        EnvelopeConverter(ResponseEnvelope envelope, Gson gson, TypeAdapter<T> adapter) {
+            this.envelope = envelope;
+            this.gson = gson;
+            this.adapter = adapter;
+        }
+
+        @Override
+        public T convert(ResponseBody value) throws IOException {
+            String code = null;
+            String message = null;
+            T data = null;
+            // code 之前出现的 data，code 确认成功后再转换
+            JsonElement pendingData = null;
+            try (JsonReader reader = gson.newJsonReader(value.charStream())) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals(envelope.getCodeField())) {
+                        code = readString(reader);
+                    } else if (name.equals(envelope.getMessageField())) {
+                        message = readString(reader);
+                    } else if (name.equals(envelope.getDataField()) && code == null) {
+                        pendingData = gson.getAdapter(JsonElement.class).read(reader);
+                    } else if (name.equals(envelope.getDataField()) && envelope.isSuccess(code)) {
+                        // code 通常在 data 之前，已知失败时直接跳过 data
+                        data = adapter.read(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new JsonIOException("JSON document was not fully consumed.");
+                }
+                if (pendingData != null && envelope.isSuccess(code)) {
+                    data = adapter.fromJsonTree(pendingData);
+                }
+            } catch (IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            }
+            ResponseCodeHandler handler = envelope.getCodeHandler();
+            if (handler != null && code != null) {
+                handler.handleResponseCode(code);
+            }
+            if (!envelope.isSuccess(code)) {
+                throw sneakyThrow(new ApiException(message, code));
+            }
+            if (data == null && !envelope.isAllowNullData()) {
+                throw sneakyThrow(new ApiException("无应答数据", code));
+            }
+            return data;
+        }
+
+        private static String readString(JsonReader reader) throws IOException {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                return reader.nextString();
+            }
+            reader.skipValue();
+            return null;
+        }
+    }
+
+    /**
+     * Converter 只能声明 IOException，这里原样抛出 ApiException (受检异常)，
+     * Retrofit 会把它透传给 RxJava 的 onError / Callback.onFailure，订阅者的处理逻辑无需修改
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(Throwable e) throws E {
+        throw (E) e;
+    }
+}
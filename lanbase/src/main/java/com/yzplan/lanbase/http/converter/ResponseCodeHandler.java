@@ -0,0 +1,14 @@
+package com.yzplan.lanbase.http.converter;
+
+/**
+ * 响应码处理器 (token 失效、权限异常等全局处理)
+ * 在解析响应外壳时回调，无论成功失败都会收到 code
+ */
+public interface ResponseCodeHandler {
+    /**
+     * 注意：在网络线程回调
+     *
+     * @param code 响应码
+     */
+    void handleResponseCode(String code);
+}
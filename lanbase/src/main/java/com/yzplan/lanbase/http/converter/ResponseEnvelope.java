@@ -0,0 +1,91 @@
+package com.yzplan.lanbase.http.converter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 响应外壳描述
+ * 用于 EnvelopeConverterFactory 一次性流式解析 {"code":..,"message":..,"data":..}：
+ * 1. 只把 data 子树反序列化为接口声明的类型 T
+ * 2. code 交给 ResponseCodeHandler (可替代 BaseResponseCodeInterceptor，避免重复扫描)
+ * 3. code 不在成功列表中时抛出 ApiException，data 为空时默认也抛出 ApiException
+ * 示例 (wanandroid)：
+ * <pre>
+ * new ResponseEnvelope()
+ *         .setFieldNames("errorCode", "errorMsg", "data")
+ *         .setSuccessCodes("0")
+ * </pre>
+ */
+public class ResponseEnvelope {
+    private String codeField = "code";
+    private String messageField = "message";
+    private String dataField = "data";
+    private Set<String> successCodes = new HashSet<>(Arrays.asList("0", "200"));
+    private boolean allowNullData = false;
+    private ResponseCodeHandler codeHandler;
+
+    // ================== 链式配置方法 ==================
+
+    /**
+     * 外壳字段名
+     *
+     * @param codeField    响应码字段
+     * @param messageField 提示信息字段
+     * @param dataField    业务数据字段
+     */
+    public ResponseEnvelope setFieldNames(String codeField, String messageField, String dataField) {
+        this.codeField = codeField;
+        this.messageField = messageField;
+        this.dataField = dataField;
+        return this;
+    }
+
+    /**
+     * 代表成功的响应码 (数字类型的 code 按其字面值比较，例如 0 -> "0")
+     */
+    public ResponseEnvelope setSuccessCodes(String... codes) {
+        this.successCodes = new HashSet<>(Arrays.asList(codes));
+        return this;
+    }
+
+    /**
+     * 成功但 data 为空时是否正常返回 (默认 false：与 RxUtils.handleRequest 一致，抛出 "无应答数据")
+     * 注意：RxJava2 不允许发射 null，Single 接口请勿开启
+     */
+    public ResponseEnvelope setAllowNullData(boolean allowNullData) {
+        this.allowNullData = allowNullData;
+        return this;
+    }
+
+    public ResponseEnvelope setCodeHandler(ResponseCodeHandler codeHandler) {
+        this.codeHandler = codeHandler;
+        return this;
+    }
+
+    // ================== Getter ==================
+
+    public String getCodeField() {
+        return codeField;
+    }
+
+    public String getMessageField() {
+        return messageField;
+    }
+
+    public String getDataField() {
+        return dataField;
+    }
+
+    public boolean isSuccess(String code) {
+        return code != null && successCodes.contains(code);
+    }
+
+    public boolean isAllowNullData() {
+        return allowNullData;
+    }
+
+    public ResponseCodeHandler getCodeHandler() {
+        return codeHandler;
+    }
+}
@@ -0,0 +1,318 @@
+package com.yzplan.lanbase.http.dns;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.metrics.LatencyHistogram;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Dns;
+
+/**
+ * 带缓存的 DNS
+ * 核心职责：
+ * 1. 进程内 LRU 缓存 (条目数有上限)，TTL 内直接返回
+ * 2. 超过 TTL 的 refreshRatio 后命中时仍返回缓存，同时后台刷新 (每个域名同时只刷新一次)
+ * 3. 同一域名并发未命中时只解析一次，其它线程等待结果
+ * 4. 解析失败时，过期不超过 staleMillis 的旧结果仍可使用 (stale-on-error)
+ * 5. 结果按 Happy Eyeballs (RFC 8305) 交替排列 IPv6 / IPv4，某种网络不通时最多浪费一次连接尝试
+ * 6. 解析器分别查询 A / AAAA 时 (例如 HTTPDNS)，可开启 setParallelFamilies 并行查询两种记录
+ * 命中、未命中、过期兜底等计数写入 NetworkStats，解析耗时见 getResolveLatency
+ * 使用：HttpConfig.setDns(new CachingDns())，参数需在设置到 HttpConfig 之前配置
+ */
+public class CachingDns implements Dns {
+    public static final String COUNTER_HIT = "dns.hit";
+    public static final String COUNTER_MISS = "dns.miss";
+    public static final String COUNTER_STALE = "dns.stale";
+    public static final String COUNTER_REFRESH = "dns.refresh";
+    public static final String COUNTER_FAILURE = "dns.failure";
+
+    private final DnsResolver mResolver;
+    private final LatencyHistogram mResolveLatency = new LatencyHistogram();
+    private final ConcurrentHashMap<String, Lookup> mInFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> mCache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > mMaxEntries;
+        }
+    };
+
+    // 缓存有效期 (毫秒)，系统解析拿不到真实 TTL，统一使用该值
+    private long mTtlMillis = 60 * 1000;
+    // 过期后解析失败时，旧结果最多还能使用多久 (毫秒)
+    private long mStaleMillis = 24 * 60 * 60 * 1000L;
+    // 超过 TTL 的该比例后命中时后台刷新
+    private float mRefreshRatio = 0.75f;
+    private int mMaxEntries = 64;
+    private boolean mParallelFamilies;
+    private boolean mPreferIpv6 = true;
+
+    public CachingDns() {
+        this(DnsResolver.SYSTEM);
+    }
+
+    public CachingDns(DnsResolver resolver) {
+        mResolver = resolver;
+    }
+
+    public CachingDns setTtl(long ttlMillis, long staleMillis) {
+        mTtlMillis = Math.max(0, ttlMillis);
+        mStaleMillis = Math.max(0, staleMillis);
+        return this;
+    }
+
+    public CachingDns setRefreshRatio(float refreshRatio) {
+        mRefreshRatio = Math.max(0f, Math.min(refreshRatio, 1f));
+        return this;
+    }
+
+    public CachingDns setMaxEntries(int maxEntries) {
+        mMaxEntries = Math.max(1, maxEntries);
+        return this;
+    }
+
+    /**
+     * 并行查询 IPv4 / IPv6 (仅对分别查询 A / AAAA 的解析器有意义，系统解析一次就会返回两种地址)
+     */
+    public CachingDns setParallelFamilies(boolean parallelFamilies) {
+        mParallelFamilies = parallelFamilies;
+        return this;
+    }
+
+    /**
+     * 交替排列时哪种地址在前 (RFC 8305 建议 IPv6 优先，IPv6 质量差的网络可改为 false)
+     */
+    public CachingDns setPreferIpv6(boolean preferIpv6) {
+        mPreferIpv6 = preferIpv6;
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public List<InetAddress> lookup(@NonNull String hostname) throws UnknownHostException {
+        long now = now();
+        Entry entry;
+        synchronized (mCache) {
+            entry = mCache.get(hostname);
+        }
+        if (entry != null && now < entry.expireAt) {
+            NetworkStats.increment(COUNTER_HIT);
+            if (now >= entry.refreshAt && entry.refreshing.compareAndSet(false, true)) {
+                refreshAsync(hostname);
+            }
+            return entry.addresses;
+        }
+        NetworkStats.increment(COUNTER_MISS);
+        try {
+            return resolve(hostname).addresses;
+        } catch (UnknownHostException e) {
+            if (entry != null && now < entry.expireAt + mStaleMillis) {
+                NetworkStats.increment(COUNTER_STALE);
+                return entry.addresses;
+            }
+            NetworkStats.increment(COUNTER_FAILURE);
+            throw e;
+        }
+    }
+
+    /**
+     * 移除某个域名的缓存 (例如确认 IP 已不可用)
+     */
+    public void evict(String hostname) {
+        synchronized (mCache) {
+            mCache.remove(hostname);
+        }
+    }
+
+    public void clear() {
+        synchronized (mCache) {
+            mCache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (mCache) {
+            return mCache.size();
+        }
+    }
+
+    /**
+     * 实际解析 (未命中缓存) 的耗时分布
+     */
+    public LatencyHistogram.Snapshot getResolveLatency() {
+        return mResolveLatency.snapshot();
+    }
+
+    // ================== 解析 ==================
+
+    /**
+     * 解析并写入缓存，同一域名并发调用只解析一次
+     */
+    private Entry resolve(String hostname) throws UnknownHostException {
+        Lookup lookup = new Lookup();
+        Lookup existing = mInFlight.putIfAbsent(hostname, lookup);
+        if (existing != null) return existing.await(hostname);
+        try {
+            long start = System.nanoTime();
+            List<InetAddress> addresses = query(hostname);
+            mResolveLatency.record(System.nanoTime() - start);
+            long now = now();
+            Entry entry = new Entry(Collections.unmodifiableList(interleave(addresses)),
+                    now + (long) (mTtlMillis * mRefreshRatio), now + mTtlMillis);
+            synchronized (mCache) {
+                mCache.put(hostname, entry);
+            }
+            lookup.entry = entry;
+            return entry;
+        } catch (UnknownHostException e) {
+            lookup.error = e;
+            throw e;
+        } finally {
+            mInFlight.remove(hostname, lookup);
+            lookup.latch.countDown();
+        }
+    }
+
+    private void refreshAsync(String hostname) {
+        NetworkStats.increment(COUNTER_REFRESH);
+        Schedulers.io().scheduleDirect(() -> {
+            try {
+                resolve(hostname);
+            } catch (UnknownHostException e) {
+                // 刷新失败保留旧结果，过期后由 lookup 决定是否兜底
+                Entry entry;
+                synchronized (mCache) {
+                    entry = mCache.get(hostname);
+                }
+                if (entry != null) entry.refreshing.set(false);
+            }
+        });
+    }
+
+    private List<InetAddress> query(String hostname) throws UnknownHostException {
+        if (!mParallelFamilies) {
+            return lookupFamily(hostname, DnsResolver.Family.ANY);
+        }
+        // IPv6 在后台线程查询，IPv4 在当前线程查询，任意一种成功即可
+        final Lookup ipv6 = new Lookup();
+        Schedulers.io().scheduleDirect(() -> {
+            try {
+                ipv6.entry = new Entry(lookupFamily(hostname, DnsResolver.Family.IPV6), 0, 0);
+            } catch (UnknownHostException e) {
+                ipv6.error = e;
+            } finally {
+                ipv6.latch.countDown();
+            }
+        });
+        List<InetAddress> result = new ArrayList<>();
+        UnknownHostException error = null;
+        try {
+            result.addAll(lookupFamily(hostname, DnsResolver.Family.IPV4));
+        } catch (UnknownHostException e) {
+            error = e;
+        }
+        try {
+            result.addAll(ipv6.await(hostname).addresses);
+        } catch (UnknownHostException e) {
+            if (error == null) error = e;
+        }
+        if (result.isEmpty()) throw error != null ? error : new UnknownHostException(hostname);
+        return result;
+    }
+
+    /**
+     * 调用解析器，空结果与运行时异常统一转换为 UnknownHostException (OkHttp 只处理该异常)
+     */
+    private List<InetAddress> lookupFamily(String hostname, DnsResolver.Family family) throws UnknownHostException {
+        List<InetAddress> addresses;
+        try {
+            addresses = mResolver.lookup(hostname, family);
+        } catch (RuntimeException e) {
+            UnknownHostException error = new UnknownHostException(hostname + ": " + e.getMessage());
+            error.initCause(e);
+            throw error;
+        }
+        if (addresses == null || addresses.isEmpty()) throw new UnknownHostException(hostname);
+        return addresses;
+    }
+
+    /**
+     * Happy Eyeballs 排序：两种地址交替排列，首选类型在前，同类型保持原有顺序
+     */
+    List<InetAddress> interleave(List<InetAddress> addresses) {
+        List<InetAddress> preferred = new ArrayList<>();
+        List<InetAddress> other = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            if ((address instanceof Inet6Address) == mPreferIpv6) {
+                preferred.add(address);
+            } else {
+                other.add(address);
+            }
+        }
+        List<InetAddress> result = new ArrayList<>(addresses.size());
+        int max = Math.max(preferred.size(), other.size());
+        for (int i = 0; i < max; i++) {
+            if (i < preferred.size()) result.add(preferred.get(i));
+            if (i < other.size()) result.add(other.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 单调时钟 (毫秒)，包内可见以便测试替换
+     */
+    long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * 缓存条目 (不可变地址列表)
+     */
+    private static final class Entry {
+        final List<InetAddress> addresses;
+        final long refreshAt;
+        final long expireAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(List<InetAddress> addresses, long refreshAt, long expireAt) {
+            this.addresses = addresses;
+            this.refreshAt = refreshAt;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 进行中的解析，其它线程等待其结果
+     */
+    private static final class Lookup {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Entry entry;
+        volatile UnknownHostException error;
+
+        Entry await(String hostname) throws UnknownHostException {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnknownHostException(hostname + ": interrupted");
+            }
+            if (entry != null) return entry;
+            UnknownHostException copy = new UnknownHostException(error != null ? error.getMessage() : hostname);
+            if (error != null) copy.initCause(error);
+            throw copy;
+        }
+    }
+}
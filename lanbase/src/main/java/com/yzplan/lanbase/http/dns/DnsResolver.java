@@ -0,0 +1,49 @@
+package com.yzplan.lanbase.http.dns;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 实际执行解析的解析器 (CachingDns 的数据来源)
+ * 默认使用系统解析 (SYSTEM)，也可以替换为 HTTPDNS 或测试用的假实现
+ */
+public interface DnsResolver {
+
+    enum Family {
+        // 同时返回 IPv4 与 IPv6
+        ANY,
+        // 只返回 IPv4 (A 记录)
+        IPV4,
+        // 只返回 IPv6 (AAAA 记录)
+        IPV6
+    }
+
+    /**
+     * 系统解析：getaddrinfo 一次返回两种地址，按 family 过滤
+     */
+    DnsResolver SYSTEM = (hostname, family) -> {
+        List<InetAddress> all = Arrays.asList(InetAddress.getAllByName(hostname));
+        if (family == Family.ANY) return all;
+        List<InetAddress> result = new ArrayList<>();
+        for (InetAddress address : all) {
+            if (family == Family.IPV4 ? address instanceof Inet4Address : address instanceof Inet6Address) {
+                result.add(address);
+            }
+        }
+        if (result.isEmpty()) throw new UnknownHostException(hostname + " 没有 " + family + " 地址");
+        return result;
+    };
+
+    /**
+     * 解析域名
+     *
+     * @return 至少包含一个地址
+     * @throws UnknownHostException 解析失败或没有该类型的地址
+     */
+    List<InetAddress> lookup(String hostname, Family family) throws UnknownHostException;
+}
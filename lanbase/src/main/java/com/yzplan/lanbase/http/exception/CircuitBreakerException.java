@@ -0,0 +1,43 @@
+package com.yzplan.lanbase.http.exception;
+
+import java.io.IOException;
+
+/**
+ * 熔断 / 舱壁拒绝异常 (请求未发出，快速失败)
+ * 继承 IOException 以便从 OkHttp 拦截器中抛出，BasePresenter 会按 code 处理
+ */
+public class CircuitBreakerException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    // 熔断器打开，域名暂时不可用
+    public static final String CODE_CIRCUIT_OPEN = "CIRCUIT_OPEN";
+    // 该域名并发请求已满
+    public static final String CODE_BULKHEAD_FULL = "BULKHEAD_FULL";
+
+    private final String code;
+    private final String host;
+
+    public CircuitBreakerException(String message, String code, String host) {
+        super(message);
+        this.code = code;
+        this.host = host;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 被拒绝的域名 (BaseApi.getBaseUrl)
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * 转换为业务异常，便于与 ApiException 统一处理
+     */
+    public ApiException toApiException() {
+        return new ApiException(getMessage(), code);
+    }
+}
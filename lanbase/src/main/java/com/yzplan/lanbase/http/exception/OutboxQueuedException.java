@@ -0,0 +1,38 @@
+package com.yzplan.lanbase.http.exception;
+
+import java.io.IOException;
+
+/**
+ * 请求已保存到离线发件箱 (本次未成功，联网后自动补发)
+ * 继承 IOException 以便从 OkHttp 拦截器中抛出，BasePresenter 会按 code 处理
+ */
+public class OutboxQueuedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public static final String CODE_QUEUED = "OUTBOX_QUEUED";
+
+    private final String id;
+
+    public OutboxQueuedException(String message, String id, Throwable cause) {
+        super(message, cause);
+        this.id = id;
+    }
+
+    public String getCode() {
+        return CODE_QUEUED;
+    }
+
+    /**
+     * 幂等键 (Idempotency-Key)，可用于查询补发结果
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 转换为业务异常，便于与 ApiException 统一处理
+     */
+    public ApiException toApiException() {
+        return new ApiException(getMessage(), CODE_QUEUED);
+    }
+}
@@ -0,0 +1,56 @@
+package com.yzplan.lanbase.http.exception;
+
+import java.io.IOException;
+
+/**
+ * 文件传输 (断点续传下载 / 分块上传) 失败
+ * 继承 IOException 以便与网络异常统一重试，BasePresenter 会按 code 处理
+ */
+public class TransferException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    // 服务端返回了非预期的状态码，见 getHttpCode
+    public static final String CODE_HTTP = "TRANSFER_HTTP";
+    // 下载完成后 MD5 与期望值不一致 (已删除临时文件)
+    public static final String CODE_MD5_MISMATCH = "TRANSFER_MD5_MISMATCH";
+    // 同一个文件已有任务在进行
+    public static final String CODE_BUSY = "TRANSFER_BUSY";
+
+    private final String code;
+    private final int httpCode;
+
+    public TransferException(String message, String code) {
+        this(message, code, 0);
+    }
+
+    public TransferException(String message, String code, int httpCode) {
+        super(message);
+        this.code = code;
+        this.httpCode = httpCode;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 状态码 (仅 CODE_HTTP 有效)
+     */
+    public int getHttpCode() {
+        return httpCode;
+    }
+
+    /**
+     * 是否值得重试 (服务端错误、超时、限流、上传偏移量冲突)
+     */
+    public boolean isRetryable() {
+        return CODE_HTTP.equals(code) && (httpCode >= 500 || httpCode == 408 || httpCode == 409 || httpCode == 429);
+    }
+
+    /**
+     * 转换为业务异常，便于与 ApiException 统一处理
+     */
+    public ApiException toApiException() {
+        return new ApiException(getMessage(), code);
+    }
+}
@@ -26,10 +26,11 @@ import okio.BufferedSource;
  * 核心职责：
  * 1. 流式解析响应 JSON，快速扫描指定字段（通常是 code）
  * - 遇到目标字段立即返回，剩余 JSON 不解析
- * - 避免创建大字符串，减少内存消耗
+ * - 优先使用字节级扫描 (ResponseCodeScanner)：按需读取，不克隆 Buffer、不解码字符
+ * - 非 ASCII 兼容字符集或非标准 JSON 回退到 JsonReader
  * 2. 安全防护：
  * - 最大解析长度 1MB，防止 Chunked / 大文件导致 OOM
- * - 克隆 Buffer 读取，不消费原 Response 流，Retrofit 正常工作
+ * - 不消费原 Response 流，Retrofit 正常工作
  * 3. 兼容性：
  * - lenient 模式容忍非标准 JSON
  * - 支持 code 字段为字符串或数字
@@ -58,27 +59,22 @@ public abstract class BaseResponseCodeInterceptor implements Interceptor {
         }
         try {
             BufferedSource source = body.source();
-            source.request(MAX_CONTENT_LENGTH);
-            Buffer buffer = source.buffer();
-            if (buffer.size() > MAX_CONTENT_LENGTH) {
-                return response;
-            }
-            Charset charset = StandardCharsets.UTF_8;
-            Charset temp = mediaType.charset(StandardCharsets.UTF_8);
-            if (temp != null) {
-                charset = temp;
-            }
-            // 克隆 buffer 进行流式解析
-            InputStream inputStream = buffer.clone().inputStream();
-            try (JsonReader reader = new JsonReader(new InputStreamReader(inputStream, charset))) {
-                reader.setLenient(true);
-                String code = scanForCode(reader, getCodeFieldName());
-                if (!TextUtils.isEmpty(code)) {
-                    handleResponseCode(code);
+            Charset declared = mediaType.charset();
+            if (ResponseCodeScanner.isSupported(declared)) {
+                // 字节级扫描：按需读取，不克隆、不解码
+                ResponseCodeScanner scanner = new ResponseCodeScanner(source, MAX_CONTENT_LENGTH);
+                int result = scanner.scan(getCodeFieldName(), declared);
+                if (result == ResponseCodeScanner.FOUND) {
+                    if (!TextUtils.isEmpty(scanner.getCode())) {
+                        handleResponseCode(scanner.getCode());
+                    }
+                    return response;
+                } else if (result == ResponseCodeScanner.NOT_FOUND) {
+                    return response;
                 }
-            } catch (Exception ignored) {
-                // 忽略异常
             }
+            // 非 ASCII 兼容字符集或非标准 JSON：回退到 JsonReader 解析
+            scanWithReader(source, declared);
         } catch (Exception e) {
             L.e(TAG, "parse error: " + e.getMessage());
         }
@@ -86,16 +82,39 @@ public abstract class BaseResponseCodeInterceptor implements Interceptor {
     }
 
     /**
-     * 流式扫描 JSON，遇到 code 立即返回
+     * 回退路径：预读最多 1MB，克隆 Buffer 后用 lenient JsonReader 解析
+     */
+    private void scanWithReader(BufferedSource source, Charset declared) throws java.io.IOException {
+        source.request(MAX_CONTENT_LENGTH);
+        Buffer buffer = source.getBuffer();
+        if (buffer.size() > MAX_CONTENT_LENGTH) {
+            return;
+        }
+        Charset charset = declared != null ? declared : StandardCharsets.UTF_8;
+        // 克隆 buffer 进行流式解析
+        InputStream inputStream = buffer.clone().inputStream();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(inputStream, charset))) {
+            reader.setLenient(true);
+            String code = scanForCode(reader, getCodeFieldName());
+            if (!TextUtils.isEmpty(code)) {
+                handleResponseCode(code);
+            }
+        } catch (Exception ignored) {
+            // 忽略异常
+        }
+    }
+
+    /**
+     * 流式扫描 JSON，遇到 code 立即返回 (包内可见，供单元测试与字节扫描器对照)
      */
-    private String scanForCode(JsonReader reader, String targetKey) throws Exception {
+    static String scanForCode(JsonReader reader, String targetKey) throws Exception {
         if (reader.peek() != JsonToken.BEGIN_OBJECT) {
             return null;
         }
         reader.beginObject();
         while (reader.hasNext()) {
             String name = reader.nextName();
-            if (TextUtils.equals(name, targetKey)) {
+            if (targetKey.equals(name)) {
                 JsonToken token = reader.peek();
                 if (token == JsonToken.STRING) {
                     return reader.nextString();
@@ -2,10 +2,19 @@ package com.yzplan.lanbase.http.interceptor;
 
 import androidx.annotation.NonNull;
 
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.yzplan.lanbase.http.sign.SignEngine;
+import com.yzplan.lanbase.http.sign.SignEngines;
 import com.yzplan.lanbase.utils.data.JsonUtil;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -20,6 +29,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okio.Buffer;
+import okio.BufferedSink;
 
 /**
  * 通用签名拦截器基类（最终版）
@@ -28,6 +38,9 @@ import okio.Buffer;
  * 1. 解析请求参数
  * 2. 调用 processParams 添加/修改签名等公共参数
  * 3. 重建请求
+ * JSON 请求可开启流式签名 (isStreamingJsonSign)：
+ * - 用 JsonReader 单次读取请求体，按 Key 排序后直接送入摘要计算签名
+ * - 原始请求体字节不做重新序列化，仅在末尾拼接公共参数与签名字段
  */
 public abstract class BaseSignInterceptor implements Interceptor {
 
@@ -59,10 +72,61 @@ public abstract class BaseSignInterceptor implements Interceptor {
      */
     protected abstract void prepareSignedParams(Map<String, Object> params);
 
+    // ===========================================
+    //  流式签名 (仅 JSON 请求)
+    // ===========================================
+
+    /**
+     * 是否对 JSON 请求启用流式签名，默认关闭 (走 prepareSignedParams)
+     * 开启后 JSON 请求不再回调 prepareSignedParams，改为：
+     * prepareCommonParams 添加公共参数 -> 按 Key 升序由 getSignEngine() 计算签名 -> 写入 getSignKey() 字段
+     * 签名结果与 getSignEngine().sign(params, salt) 一致
+     */
+    protected boolean isStreamingJsonSign() {
+        return false;
+    }
+
+    /**
+     * 签名引擎，默认 MD5 (与 Md5Util.sign 一致)，可替换为 SignEngines.SHA256 / HMAC_SHA256 或自定义实现
+     */
+    protected SignEngine getSignEngine() {
+        return SignEngines.MD5;
+    }
+
+    /**
+     * 供子类在 prepareSignedParams 中使用：按 getSignEngine() 计算签名
+     */
+    protected String sign(Map<String, Object> params, String salt) {
+        return getSignEngine().sign(params, salt);
+    }
+
+    /**
+     * 流式签名：签名字段名
+     */
+    protected String getSignKey() {
+        return "sign";
+    }
+
+    /**
+     * 流式签名：盐值
+     */
+    protected String getSignSalt() {
+        return "";
+    }
+
+    /**
+     * 流式签名：添加公共参数 (如 timestamp、appId)，请求体中已存在的 Key 不会被覆盖
+     */
+    protected void prepareCommonParams(Map<String, Object> commonParams) {
+    }
+
     // ===========================================
     //  GET / Form / JSON / Multipart 处理逻辑
     // ===========================================
 
+    /**
+     * GET 参数写回 query：加入 timestamp / nonce 后 URL 每次不同，声明了 @CachePolicy 的接口将无法命中磁盘缓存
+     */
     private Request handleGetRequest(Request request) {
         Map<String, Object> params = new TreeMap<>();
         HttpUrl originalUrl = request.url();
@@ -96,6 +160,10 @@ public abstract class BaseSignInterceptor implements Interceptor {
     }
 
     private Request handleJsonRequest(Request request, RequestBody body) throws IOException {
+        if (isStreamingJsonSign()) {
+            Request signed = handleJsonRequestStreaming(request, body);
+            if (signed != null) return signed;
+        }
         String jsonString = bodyToString(body);
         Map<String, Object> params = JsonUtil.fromJsonToMap(jsonString);
         if (params == null) params = new TreeMap<>();
@@ -105,6 +173,121 @@ public abstract class BaseSignInterceptor implements Interceptor {
         return request.newBuilder().post(newBody).build();
     }
 
+    /**
+     * 流式签名：读取一遍请求体，在原始字节末尾拼接公共参数与签名
+     *
+     * @return 签名后的请求，无法流式处理 (非 UTF-8、非对象、已包含签名字段、重复 Key) 时返回 null 走普通流程
+     */
+    private Request handleJsonRequestStreaming(Request request, RequestBody body) throws IOException {
+        MediaType contentType = body.contentType();
+        Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        if (!StandardCharsets.UTF_8.equals(charset)) return null;
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        String signKey = getSignKey();
+        // 1. 单次读取：Key -> Value 字符串 (数字/嵌套结构的字符串化规则与 Md5Util.sign 保持一致)
+        TreeMap<String, String> sortedValues = new TreeMap<>();
+        int fieldCount = 0;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(buffer.peek().inputStream(), StandardCharsets.UTF_8))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals(signKey) || sortedValues.containsKey(name)) return null;
+                sortedValues.put(name, readValueAsString(reader));
+                fieldCount++;
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) return null;
+        } catch (Exception e) {
+            return null;
+        }
+        // 2. 公共参数：仅添加请求体中不存在的 Key
+        Map<String, Object> commonParams = new LinkedHashMap<>();
+        prepareCommonParams(commonParams);
+        Map<String, Object> appended = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : commonParams.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals(signKey) || sortedValues.containsKey(key)) continue;
+            Object value = entry.getValue();
+            sortedValues.put(key, value == null ? null : stringifyValue(value));
+            appended.put(key, value);
+        }
+        // 3. 签名：Value 按 Key 升序直接送入摘要
+        appended.put(signKey, getSignEngine().signSorted(sortedValues.values(), getSignSalt()));
+        // 4. 拼接：原始字节 (去掉末尾 '}') + 新字段 + '}'
+        long end = lastBraceIndex(buffer);
+        if (end < 0) return null;
+        final Buffer out = new Buffer();
+        buffer.copyTo(out, 0, end);
+        boolean needComma = fieldCount > 0;
+        for (Map.Entry<String, Object> entry : appended.entrySet()) {
+            if (entry.getValue() == null) continue;
+            if (needComma) out.writeByte(',');
+            out.writeUtf8(JsonUtil.toJson(entry.getKey())).writeByte(':').writeUtf8(JsonUtil.toJson(entry.getValue()));
+            needComma = true;
+        }
+        buffer.copyTo(out, end, buffer.size() - end);
+        RequestBody newBody = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return out.size();
+            }
+
+            @Override
+            public void writeTo(@NonNull BufferedSink sink) throws IOException {
+                // clone 共享 Segment，不复制字节，且支持重试时多次写出
+                sink.writeAll(out.clone());
+            }
+        };
+        return request.newBuilder().post(newBody).build();
+    }
+
+    /**
+     * 读取一个 JSON 值并转为签名用的字符串 (数字按 LONG_OR_DOUBLE 规则解析，与 JsonUtil.fromJsonToMap 一致)
+     */
+    private String readValueAsString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return ToNumberPolicy.LONG_OR_DOUBLE.readNumber(reader).toString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            default:
+                // 嵌套对象/数组：解析后重新序列化，与 Md5Util.sign 中的 JsonUtil.toJson 一致
+                Object value = JsonUtil.getGson().fromJson(reader, Object.class);
+                return JsonUtil.toJson(value);
+        }
+    }
+
+    private String stringifyValue(Object value) {
+        if (value instanceof Map || value instanceof List) {
+            return JsonUtil.toJson(value);
+        }
+        return value.toString();
+    }
+
+    /**
+     * 从末尾向前查找顶层对象的结束 '}'
+     */
+    private long lastBraceIndex(Buffer buffer) {
+        for (long i = buffer.size() - 1; i >= 0; i--) {
+            byte b = buffer.getByte(i);
+            if (b == '}') return i;
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') return -1;
+        }
+        return -1;
+    }
+
     private Request handleMultipartRequest(Request request, MultipartBody body) {
         MultipartBody.Builder builder = new MultipartBody.Builder().setType(body.type());
         Map<String, Object> textParams = new TreeMap<>();
@@ -2,6 +2,8 @@ package com.yzplan.lanbase.http.interceptor;
 
 import androidx.annotation.NonNull;
 
+import com.yzplan.lanbase.BaseApp;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
 import com.yzplan.lanbase.utils.data.JsonUtil;
 import com.yzplan.lanbase.utils.log.L;
 
@@ -10,7 +12,12 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.Headers;
 import okhttp3.Interceptor;
@@ -35,6 +42,12 @@ import okio.BufferedSource;
  * 3. 支持 Multipart 上传：
  * - 文件部分只打印文件名、类型、大小
  * - 文本部分读取并打印，但超过限制长度会忽略
+ * 4. 生产模式 (可在 release 中保留日志)：
+ * - 采样：setSampleRate 全局采样率，@LogSample 单接口采样率
+ * - 级别：NONE / HEADERS (仅请求行与头) / BODY (含截断后的 Body)
+ * - 异步：OkHttp 线程只截取有限长度的快照，JSON 格式化在后台线程完成 (队列满时丢弃)
+ * - 统计：拦截器自身耗时 (不含网络耗时)
+ * 默认构造保持原有行为：全量、同步、Body 上限 1MB
  */
 public class LogInterceptor implements Interceptor {
     private static final String TAG_REQUEST = "OkHttp-Request";
@@ -55,14 +68,101 @@ public class LogInterceptor implements Interceptor {
      */
     private static final long MAX_LOG_BODY_SIZE = 1024 * 1024;
 
+    /**
+     * 请求体只有「明确知道长度且很小」时才打印
+     */
+    private static final long MAX_LOG_REQUEST_SIZE = 2048;
+
+    // ================== 统计 ==================
+    private static final AtomicLong OVERHEAD_NANOS = new AtomicLong();
+    private static final AtomicLong LOGGED_COUNT = new AtomicLong();
+    private static final AtomicLong SAMPLED_OUT_COUNT = new AtomicLong();
+    private static final AtomicLong DROPPED_COUNT = new AtomicLong();
+
+    /**
+     * 异步格式化线程 (单线程保证顺序，队列有界，满了直接丢弃)
+     */
+    private static final ThreadPoolExecutor FORMAT_EXECUTOR = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(256),
+            r -> {
+                Thread thread = new Thread(r, "LogInterceptor-Format");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (r, executor) -> DROPPED_COUNT.incrementAndGet());
+
+    public enum Level {
+        // 不打印
+        NONE,
+        // 请求行 + 请求头 / 状态码 + 耗时 + 响应头
+        HEADERS,
+        // 请求行 + Body / 状态码 + 耗时 + Body (Body 超过上限时截断)
+        BODY
+    }
+
+    // 配置可在运行时修改，OkHttp 线程并发读取
+    private volatile Level mLevel = Level.BODY;
+    private volatile float mSampleRate = 1f;
+    private volatile long mMaxBodyBytes = MAX_LOG_BODY_SIZE;
+    private volatile boolean mTruncateBody = false;
+    private volatile boolean mAsync = false;
+
+    // ================== 链式配置方法 ==================
+
+    public LogInterceptor setLevel(Level level) {
+        this.mLevel = level;
+        return this;
+    }
+
+    /**
+     * 默认采样率 0 ~ 1，接口上的 @LogSample 优先
+     */
+    public LogInterceptor setSampleRate(float sampleRate) {
+        this.mSampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * Body 截断长度：只读取前 maxBodyBytes 字节打印，不再预读整个响应体
+     */
+    public LogInterceptor setTruncateBody(long maxBodyBytes) {
+        this.mMaxBodyBytes = maxBodyBytes;
+        this.mTruncateBody = true;
+        return this;
+    }
+
+    /**
+     * 是否在后台线程格式化并输出日志
+     */
+    public LogInterceptor setAsync(boolean async) {
+        this.mAsync = async;
+        return this;
+    }
+
     @NonNull
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
+        // 本次请求只读取一次级别，避免中途修改导致请求/响应日志不一致
+        Level level = mLevel;
+        // 日志未开启时不做任何格式化
+        if (level == Level.NONE || (!BaseApp.sLogEnable && !BaseApp.sLogToFile)) {
+            return chain.proceed(request);
+        }
+        long begin = System.nanoTime();
+        if (!isSampled(request)) {
+            SAMPLED_OUT_COUNT.incrementAndGet();
+            OVERHEAD_NANOS.addAndGet(System.nanoTime() - begin);
+            return chain.proceed(request);
+        }
+        LOGGED_COUNT.incrementAndGet();
         String id = "[" + ID_GENERATOR.getAndIncrement() + "]";
         // 请求日志
-        printRequestLog(request, id);
+        final Snapshot requestSnapshot = snapshotRequest(request, level);
+        output(() -> L.i(TAG_REQUEST, formatRequestLog(requestSnapshot, id)));
         long startTime = System.nanoTime();
+        OVERHEAD_NANOS.addAndGet(startTime - begin);
         Response response;
         try {
             response = chain.proceed(request);
@@ -71,76 +171,168 @@ public class LogInterceptor implements Interceptor {
             L.e(TAG_RESPONSE, id + " 请求失败: " + e.getMessage());
             throw e;
         }
+        long endTime = System.nanoTime();
         // 响应日志
-        printResponseLog(response, id, startTime);
+        final Snapshot responseSnapshot = snapshotResponse(response, level);
+        final String costTime = getCostTime(startTime, endTime);
+        output(() -> L.i(TAG_RESPONSE, formatResponseLog(responseSnapshot, id, costTime)));
+        OVERHEAD_NANOS.addAndGet(System.nanoTime() - endTime);
         return response;
     }
 
+    private boolean isSampled(Request request) {
+        LogSample sample = InvocationUtils.getAnnotation(request, LogSample.class);
+        float rate = sample != null ? sample.value() : mSampleRate;
+        return rate >= 1f || (rate > 0f && ThreadLocalRandom.current().nextFloat() < rate);
+    }
+
+    private void output(Runnable task) {
+        if (mAsync) {
+            FORMAT_EXECUTOR.execute(task);
+        } else {
+            task.run();
+        }
+    }
+
+    // ================== 快照 (在 OkHttp 线程执行，只做有限拷贝) ==================
+
     /**
-     * 打印请求日志
+     * 日志快照：格式化所需的全部数据
      */
-    private void printRequestLog(Request request, String id) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("⬇️⬇️ ============ Request ").append(id).append(" ============ ⬇️⬇️\n");
-        sb.append("URL    : ").append(request.url()).append("\n");
-        sb.append("Method : ").append(request.method()).append("\n");
+    private static final class Snapshot {
+        String line;
+        Headers headers;
+        // Body 原始字节 (可能被截断) 或描述文本，二者取其一
+        Buffer body;
+        Charset charset;
+        boolean truncated;
+        String bodyDesc;
+    }
+
+    private Snapshot snapshotRequest(Request request, Level level) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.line = "URL    : " + request.url() + "\nMethod : " + request.method() + "\n";
+        if (level == Level.HEADERS) {
+            snapshot.headers = request.headers();
+            return snapshot;
+        }
         RequestBody body = request.body();
-        if (body != null) {
-            try {
-                // multipart/form-data（文件上传）
-                if (body instanceof MultipartBody) {
-                    printMultipartBody((MultipartBody) body, sb);
-                } else {
-                    long length = body.contentLength();
-                    // 只有「明确知道长度且很小」的请求体才打印
-                    // -1 代表未知长度（流式 body），一律跳过
-                    if (!isFileUpload(body.contentType()) && length != -1 && length < 2048) {
-                        Buffer buffer = new Buffer();
-                        body.writeTo(buffer);
-                        Charset charset = getCharset(body.contentType());
-                        sb.append("Body   : \n").append(JsonUtil.formatJson(buffer.readString(charset))).append("\n");
-                    } else {
-                        sb.append("Body   : (Binary / Stream / LargeBody - Ignored)\n");
+        if (body == null) return snapshot;
+        try {
+            // multipart/form-data（文件上传）
+            if (body instanceof MultipartBody) {
+                StringBuilder sb = new StringBuilder();
+                printMultipartBody((MultipartBody) body, sb);
+                snapshot.bodyDesc = sb.toString();
+            } else {
+                long length = body.contentLength();
+                // 只有「明确知道长度且很小」的请求体才打印
+                // -1 代表未知长度（流式 body），一律跳过
+                long limit = mTruncateBody ? Math.min(mMaxBodyBytes, MAX_LOG_REQUEST_SIZE) : MAX_LOG_REQUEST_SIZE;
+                if (!isFileUpload(body.contentType()) && length != -1 && length < MAX_LOG_REQUEST_SIZE) {
+                    Buffer buffer = new Buffer();
+                    body.writeTo(buffer);
+                    if (buffer.size() > limit) {
+                        Buffer truncated = new Buffer();
+                        buffer.copyTo(truncated, 0, limit);
+                        buffer = truncated;
+                        snapshot.truncated = true;
                     }
+                    snapshot.body = buffer;
+                    snapshot.charset = getCharset(body.contentType());
+                } else {
+                    snapshot.bodyDesc = "Body   : (Binary / Stream / LargeBody - Ignored)\n";
                 }
-            } catch (Exception e) {
-                sb.append("Body   : (Log Error) ").append(e.getMessage()).append("\n");
             }
+        } catch (Exception e) {
+            snapshot.bodyDesc = "Body   : (Log Error) " + e.getMessage() + "\n";
         }
-        sb.append("⬆️⬆️ ============================================ ⬆️⬆️");
-        L.i(TAG_REQUEST, sb.toString());
+        return snapshot;
     }
 
-    /**
-     * 打印响应日志
-     */
-    private void printResponseLog(Response response, String id, long startTime) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("⬇️⬇️ ============ Response ").append(id).append(" ============ ⬇️⬇️\n");
-        sb.append("Code   : ").append(response.code()).append("\n");
-        sb.append("Time   : ").append(getCostTime(startTime)).append(" ms\n");
+    private Snapshot snapshotResponse(Response response, Level level) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.line = "Code   : " + response.code() + "\n";
+        if (level == Level.HEADERS) {
+            snapshot.headers = response.headers();
+            return snapshot;
+        }
         ResponseBody body = response.body();
         if (body != null && isPlaintext(body.contentType())) {
             try {
                 BufferedSource source = body.source();
-                // 预读最多 1MB + 1 字节
-                source.request(MAX_LOG_BODY_SIZE + 1);
-                Buffer buffer = source.buffer();
-                if (buffer.size() <= MAX_LOG_BODY_SIZE) {
-                    Charset charset = getCharset(body.contentType());
-                    String content = buffer.clone().readString(charset);
-                    sb.append("Body   : \n").append(JsonUtil.formatJson(content)).append("\n");
+                if (mTruncateBody) {
+                    // 截断模式：只预读前 N 字节，不拖慢 Retrofit 拿到首字节
+                    source.request(mMaxBodyBytes);
+                    Buffer buffer = source.getBuffer();
+                    long size = Math.min(buffer.size(), mMaxBodyBytes);
+                    Buffer copy = new Buffer();
+                    buffer.copyTo(copy, 0, size);
+                    snapshot.body = copy;
+                    snapshot.truncated = size < buffer.size() || source.request(size + 1);
+                    snapshot.charset = getCharset(body.contentType());
                 } else {
-                    sb.append("Body   : (Payload > 1MB - Ignored)\n");
+                    // 预读最多 1MB + 1 字节
+                    source.request(MAX_LOG_BODY_SIZE + 1);
+                    Buffer buffer = source.getBuffer();
+                    if (buffer.size() <= MAX_LOG_BODY_SIZE) {
+                        snapshot.body = buffer.clone();
+                        snapshot.charset = getCharset(body.contentType());
+                    } else {
+                        snapshot.bodyDesc = "Body   : (Payload > 1MB - Ignored)\n";
+                    }
                 }
             } catch (Exception e) {
-                sb.append("Body   : (Read Error) ").append(e.getMessage()).append("\n");
+                snapshot.bodyDesc = "Body   : (Read Error) " + e.getMessage() + "\n";
             }
         } else {
-            sb.append("Body   : (Binary / Stream - Ignored)\n");
+            snapshot.bodyDesc = "Body   : (Binary / Stream - Ignored)\n";
         }
+        return snapshot;
+    }
+
+    // ================== 格式化 (同步模式在 OkHttp 线程，异步模式在后台线程) ==================
+
+    /**
+     * 格式化请求日志
+     */
+    private String formatRequestLog(Snapshot snapshot, String id) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("⬇️⬇️ ============ Request ").append(id).append(" ============ ⬇️⬇️\n");
+        sb.append(snapshot.line);
+        appendDetail(sb, snapshot);
+        sb.append("⬆️⬆️ ============================================ ⬆️⬆️");
+        return sb.toString();
+    }
+
+    /**
+     * 格式化响应日志
+     */
+    private String formatResponseLog(Snapshot snapshot, String id, String costTime) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("⬇️⬇️ ============ Response ").append(id).append(" ============ ⬇️⬇️\n");
+        sb.append(snapshot.line);
+        sb.append("Time   : ").append(costTime).append(" ms\n");
+        appendDetail(sb, snapshot);
         sb.append("⬆️⬆️ ============================================ ⬆️⬆️");
-        L.i(TAG_RESPONSE, sb.toString());
+        return sb.toString();
+    }
+
+    private void appendDetail(StringBuilder sb, Snapshot snapshot) {
+        if (snapshot.headers != null) {
+            for (int i = 0; i < snapshot.headers.size(); i++) {
+                sb.append(snapshot.headers.name(i)).append(": ").append(snapshot.headers.value(i)).append("\n");
+            }
+        } else if (snapshot.body != null) {
+            String content = snapshot.body.readString(snapshot.charset);
+            if (snapshot.truncated) {
+                sb.append("Body   : (Truncated)\n").append(content).append("...\n");
+            } else {
+                sb.append("Body   : \n").append(JsonUtil.formatJson(content)).append("\n");
+            }
+        } else if (snapshot.bodyDesc != null) {
+            sb.append(snapshot.bodyDesc);
+        }
     }
 
     /**
@@ -175,6 +367,47 @@ public class LogInterceptor implements Interceptor {
         }
     }
 
+    // ================== 统计 ==================
+
+    /**
+     * 拦截器自身累计耗时 (纳秒，不含网络耗时与异步格式化耗时)
+     */
+    public static long getOverheadNanos() {
+        return OVERHEAD_NANOS.get();
+    }
+
+    /**
+     * 平均每次调用的拦截器开销 (微秒)
+     */
+    public static double getAverageOverheadMicros() {
+        long calls = LOGGED_COUNT.get() + SAMPLED_OUT_COUNT.get();
+        return calls == 0 ? 0 : OVERHEAD_NANOS.get() / 1000d / calls;
+    }
+
+    public static long getLoggedCount() {
+        return LOGGED_COUNT.get();
+    }
+
+    public static long getSampledOutCount() {
+        return SAMPLED_OUT_COUNT.get();
+    }
+
+    /**
+     * 异步队列已满被丢弃的日志数
+     */
+    public static long getDroppedCount() {
+        return DROPPED_COUNT.get();
+    }
+
+    public static void resetStats() {
+        OVERHEAD_NANOS.set(0);
+        LOGGED_COUNT.set(0);
+        SAMPLED_OUT_COUNT.set(0);
+        DROPPED_COUNT.set(0);
+    }
+
+    // ================== 辅助方法 ==================
+
     /**
      * 获取 charset，默认 UTF-8
      */
@@ -207,8 +440,8 @@ public class LogInterceptor implements Interceptor {
     /**
      * 计算耗时（毫秒，保留两位小数）
      */
-    private String getCostTime(long startTime) {
-        return String.format(Locale.getDefault(), "%.2f", (System.nanoTime() - startTime) / 1e6d);
+    private String getCostTime(long startTime, long endTime) {
+        return String.format(Locale.getDefault(), "%.2f", (endTime - startTime) / 1e6d);
     }
 
     /**
@@ -0,0 +1,26 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 单接口日志采样率，覆盖 LogInterceptor 的默认采样率
+ * 示例：高频轮询接口只记录 1% 的请求
+ * <pre>
+ * &#64;LogSample(0.01f)
+ * &#64;GET("order/status")
+ * Single&lt;...&gt; queryStatus();
+ * </pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LogSample {
+    /**
+     * 采样率 0 ~ 1，0 表示不记录
+     */
+    float value();
+}
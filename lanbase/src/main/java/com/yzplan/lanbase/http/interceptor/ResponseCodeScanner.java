@@ -0,0 +1,314 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * 字节级 code 扫描器
+ * 核心职责：
+ * 1. 直接在 okio Buffer 的 Segment 上逐字节扫描顶层 JSON 对象，找到目标字段立即停止
+ * - 不克隆 Buffer、不做字符解码，只按需 request 后续数据 (通常只需要第一个 Segment)
+ * - 不消费原响应流，Retrofit 正常读取
+ * 2. 只处理标准 JSON + ASCII 兼容字符集 (UTF-8 / US-ASCII / ISO-8859-1)
+ * - 遇到转义的字段名、小数/科学计数法的 code、非标准 JSON 等情况返回 UNSUPPORTED，由调用方走原有的 JsonReader 解析
+ * 注意：非线程安全，每次扫描创建一个实例
+ */
+final class ResponseCodeScanner {
+    // 找到 code，通过 getCode() 获取
+    static final int FOUND = 0;
+    // 没有 code 字段 / code 不是字符串或数字 / 数据不完整
+    static final int NOT_FOUND = 1;
+    // 无法按字节处理，需要回退到 JsonReader
+    static final int UNSUPPORTED = 2;
+
+    private static final ScanStop STOP_NOT_FOUND = new ScanStop(NOT_FOUND);
+    private static final ScanStop STOP_UNSUPPORTED = new ScanStop(UNSUPPORTED);
+    // long 最多 19 位，超过 18 位交给 JsonReader 处理溢出
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final BufferedSource mSource;
+    private final Buffer mBuffer;
+    private final long mLimit;
+    private final Buffer.UnsafeCursor mCursor = new Buffer.UnsafeCursor();
+    private boolean mCursorOpen;
+
+    // 当前 Segment 的数据窗口
+    private byte[] mData;
+    private int mBase;
+    private int mIndex;
+    private int mEnd;
+    // mData[mBase] 在 Buffer 中的绝对位置
+    private long mWindowStart;
+
+    private String mCode;
+
+    /**
+     * @param source 响应流 (只 request，不消费)
+     * @param limit  最多扫描的字节数
+     */
+    ResponseCodeScanner(BufferedSource source, long limit) {
+        mSource = source;
+        mBuffer = source.getBuffer();
+        mLimit = limit;
+    }
+
+    /**
+     * 是否支持按字节扫描该字符集 (null 视为 UTF-8)
+     */
+    static boolean isSupported(Charset charset) {
+        return charset == null
+                || StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    String getCode() {
+        return mCode;
+    }
+
+    /**
+     * 扫描顶层字段
+     *
+     * @param fieldName 字段名 (通常是 code)
+     * @param charset   响应字符集，用于解码字符串类型的 code
+     * @return FOUND / NOT_FOUND / UNSUPPORTED
+     */
+    int scan(String fieldName, Charset charset) throws IOException {
+        byte[] target = fieldName.getBytes(StandardCharsets.UTF_8);
+        try {
+            skipBom();
+            int b = skipWhitespace();
+            if (b == '[') return NOT_FOUND;
+            if (b != '{') return UNSUPPORTED;
+            mIndex++;
+            b = skipWhitespace();
+            if (b == '}') return NOT_FOUND;
+            while (true) {
+                if (read() != '"') return UNSUPPORTED;
+                boolean match = readKey(target);
+                if (skipWhitespace() != ':') return UNSUPPORTED;
+                mIndex++;
+                b = skipWhitespace();
+                if (match) {
+                    return readCode(b, charset != null ? charset : StandardCharsets.UTF_8);
+                }
+                skipValue(b);
+                b = skipWhitespace();
+                mIndex++;
+                if (b == '}') return NOT_FOUND;
+                if (b != ',') return UNSUPPORTED;
+                skipWhitespace();
+            }
+        } catch (ScanStop stop) {
+            return stop.status;
+        } finally {
+            closeCursor();
+        }
+    }
+
+    // ================== 值解析 ==================
+
+    private boolean readKey(byte[] target) throws IOException, ScanStop {
+        int matched = 0;
+        boolean match = true;
+        while (true) {
+            int b = read();
+            if (b == '"') return match && matched == target.length;
+            if (b == '\\') throw STOP_UNSUPPORTED;
+            if (match && matched < target.length && target[matched] == (byte) b) {
+                matched++;
+            } else {
+                match = false;
+            }
+        }
+    }
+
+    private int readCode(int first, Charset charset) throws IOException, ScanStop {
+        if (first == '"') {
+            mIndex++;
+            byte[] bytes = new byte[16];
+            int length = 0;
+            while (true) {
+                int b = read();
+                if (b == '"') break;
+                if (b == '\\') throw STOP_UNSUPPORTED;
+                if (length == bytes.length) {
+                    byte[] larger = new byte[length * 2];
+                    System.arraycopy(bytes, 0, larger, 0, length);
+                    bytes = larger;
+                }
+                bytes[length++] = (byte) b;
+            }
+            mCode = new String(bytes, 0, length, charset);
+            return FOUND;
+        }
+        if (first == '-' || (first >= '0' && first <= '9')) {
+            long value = 0;
+            int digits = 0;
+            boolean negative = false;
+            if (first == '-') {
+                negative = true;
+                mIndex++;
+            }
+            while (true) {
+                int b = peekOrEnd();
+                if (b >= '0' && b <= '9') {
+                    if (++digits > MAX_LONG_DIGITS) throw STOP_UNSUPPORTED;
+                    value = value * 10 + (b - '0');
+                    mIndex++;
+                } else if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                    // 小数/科学计数法交给 JsonReader，保持原有的转换规则
+                    throw STOP_UNSUPPORTED;
+                } else {
+                    break;
+                }
+            }
+            if (digits == 0) throw STOP_UNSUPPORTED;
+            mCode = String.valueOf(negative ? -value : value);
+            return FOUND;
+        }
+        // true / false / null / 对象 / 数组：与原实现一致，视为没有 code
+        return NOT_FOUND;
+    }
+
+    private void skipValue(int first) throws IOException, ScanStop {
+        mIndex++;
+        if (first == '"') {
+            skipString();
+        } else if (first == '{' || first == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                int b = read();
+                if (b == '"') {
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            }
+        } else if (first == '-' || (first >= '0' && first <= '9') || first == 't' || first == 'f' || first == 'n') {
+            while (true) {
+                int b = peekOrEnd();
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) return;
+                if (b == -1) throw STOP_NOT_FOUND;
+                mIndex++;
+            }
+        } else {
+            throw STOP_UNSUPPORTED;
+        }
+    }
+
+    private void skipString() throws IOException, ScanStop {
+        while (true) {
+            // 在当前 Segment 内快速跳过普通字符
+            byte[] data = mData;
+            int index = mIndex;
+            int end = mEnd;
+            while (index < end && data[index] != '"' && data[index] != '\\') {
+                index++;
+            }
+            mIndex = index;
+            int b = read();
+            if (b == '\\') {
+                read();
+            } else if (b == '"') {
+                return;
+            }
+        }
+    }
+
+    private void skipBom() throws IOException, ScanStop {
+        if (peekOrEnd() == 0xEF) {
+            mIndex++;
+            if (read() != 0xBB || read() != 0xBF) throw STOP_UNSUPPORTED;
+        }
+    }
+
+    /**
+     * 跳过空白，返回下一个字节但不前移
+     */
+    private int skipWhitespace() throws IOException, ScanStop {
+        while (true) {
+            int b = peekOrEnd();
+            if (b == -1) throw STOP_NOT_FOUND;
+            if (!isWhitespace(b)) return b;
+            mIndex++;
+        }
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    // ================== 字节读取 ==================
+
+    private int read() throws IOException, ScanStop {
+        int b = peekOrEnd();
+        if (b == -1) throw STOP_NOT_FOUND;
+        mIndex++;
+        return b;
+    }
+
+    /**
+     * 查看当前字节，数据结束或超过扫描上限时返回 -1
+     */
+    private int peekOrEnd() throws IOException {
+        if (mIndex < mEnd || fill()) {
+            return mData[mIndex] & 0xFF;
+        }
+        return -1;
+    }
+
+    /**
+     * 移动窗口到下一个 Segment，必要时从网络 request 更多数据
+     */
+    private boolean fill() throws IOException {
+        long position = mWindowStart + (mIndex - mBase);
+        if (position >= mLimit) return false;
+        if (position >= mBuffer.size()) {
+            // Buffer 结构变化前必须关闭游标
+            closeCursor();
+            if (!mSource.request(position + 1)) return false;
+        }
+        if (!mCursorOpen) {
+            mBuffer.readUnsafe(mCursor);
+            mCursorOpen = true;
+        }
+        mCursor.seek(position);
+        mData = mCursor.data;
+        mBase = mCursor.start;
+        mIndex = mCursor.start;
+        mEnd = (int) Math.min(mCursor.end, mCursor.start + (mLimit - position));
+        mWindowStart = position;
+        return true;
+    }
+
+    private void closeCursor() {
+        if (mCursorOpen) {
+            mCursor.close();
+            mCursorOpen = false;
+        }
+    }
+
+    /**
+     * 扫描结束 (预分配，不收集堆栈)
+     */
+    private static final class ScanStop extends Exception {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ScanStop(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.http.Streaming;
+
+/**
+ * 请求合并拦截器 (single-flight)
+ * 核心职责：
+ * 1. 相同 Method + URL(含参数) + Header 的 GET/HEAD 请求同时在途时，只有第一个 (leader) 真正发出
+ * 2. 其余请求 (follower) 等待 leader 完成后共享同一份响应数据
+ * - 只有确实有 follower 加入时 leader 才读取整个响应体，否则原样返回 (不影响边下载边解析)
+ * - &#64;Streaming 接口不参与合并
+ * 3. 取消安全：
+ * - follower 被取消 (CompositeDisposable.clear) 只会结束自己的等待
+ * - leader 被取消时，follower 重新合并 (由其中一个成为新的 leader)，不会被连带取消
+ * - leader 失败或响应过大时，follower 各自发起请求
+ * 注意：放在业务拦截器 (签名等) 之前，使用原始请求作为 Key；
+ * 每个 Client 使用独立的实例，业务拦截器 (鉴权、签名) 不同的接口之间不会共享响应
+ */
+public class SingleFlightInterceptor implements Interceptor {
+    // 可共享的最大响应体 (1MB)，超过则 follower 自行请求
+    private static final long MAX_SHARE_BODY_SIZE = 1024 * 1024;
+    // follower 检查自身是否被取消的间隔
+    private static final long WAIT_SLICE_MS = 100;
+
+    private static final AtomicLong LEADER_COUNT = new AtomicLong();
+    private static final AtomicLong SUPPRESSED_COUNT = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Flight> mInFlight = new ConcurrentHashMap<>();
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String method = request.method();
+        if (!"GET".equals(method) && !"HEAD".equals(method)
+                || InvocationUtils.getAnnotation(request, Streaming.class) != null) {
+            return chain.proceed(request);
+        }
+        String key = method + " " + request.url() + "\n" + request.headers();
+        Flight flight = new Flight();
+        Flight existing = mInFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.followers.incrementAndGet();
+            return follow(chain, existing);
+        }
+        LEADER_COUNT.incrementAndGet();
+        try {
+            Response response = chain.proceed(request);
+            // 先移除再检查：之后加入的 follower 拿不到共享响应，会自行请求
+            mInFlight.remove(key, flight);
+            if (flight.followers.get() == 0) {
+                return response;
+            }
+            return flight.share(response);
+        } finally {
+            mInFlight.remove(key, flight);
+            flight.leaderCanceled = chain.call().isCanceled();
+            flight.latch.countDown();
+        }
+    }
+
+    /**
+     * follower：等待 leader 的结果
+     */
+    private Response follow(Chain chain, Flight flight) throws IOException {
+        try {
+            while (!flight.latch.await(WAIT_SLICE_MS, TimeUnit.MILLISECONDS)) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Canceled", e);
+        }
+        Response shared = flight.newResponse(chain.request());
+        if (shared != null) {
+            SUPPRESSED_COUNT.incrementAndGet();
+            return shared;
+        }
+        if (flight.leaderCanceled) {
+            // leader 被取消：重新合并，避免所有 follower 同时发出请求
+            return intercept(chain);
+        }
+        // leader 失败/响应过大：自行请求
+        return chain.proceed(chain.request());
+    }
+
+    /**
+     * 真正发出的请求数
+     */
+    public static long getLeaderCount() {
+        return LEADER_COUNT.get();
+    }
+
+    /**
+     * 被合并 (节省) 的请求数
+     */
+    public static long getSuppressedCount() {
+        return SUPPRESSED_COUNT.get();
+    }
+
+    public static void resetStats() {
+        LEADER_COUNT.set(0);
+        SUPPRESSED_COUNT.set(0);
+    }
+
+    /**
+     * 一次在途请求
+     */
+    private static final class Flight {
+        final CountDownLatch latch = new CountDownLatch(1);
+        // 已加入的 follower 数，为 0 时 leader 不读取响应体
+        final AtomicInteger followers = new AtomicInteger();
+        // 响应模板 (不含 body) 与共享的 body 数据，不可共享时为 null
+        volatile Response template;
+        volatile byte[] body;
+        volatile MediaType contentType;
+        // leader 是否因取消而结束 (在 latch 之前写入)
+        volatile boolean leaderCanceled;
+
+        /**
+         * 读取 leader 的响应体以便共享，返回给 leader 的是重建后的响应
+         */
+        Response share(Response response) throws IOException {
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                template = response;
+                return response;
+            }
+            if (responseBody.contentLength() > MAX_SHARE_BODY_SIZE) {
+                return response;
+            }
+            BufferedSource source = responseBody.source();
+            if (source.request(MAX_SHARE_BODY_SIZE + 1)) {
+                // 超过共享上限，已预读的数据仍在 source 中，原样返回
+                return response;
+            }
+            byte[] bytes = source.readByteArray();
+            responseBody.close();
+            MediaType type = responseBody.contentType();
+            body = bytes;
+            contentType = type;
+            template = response.newBuilder().body(null).build();
+            return response.newBuilder().body(ResponseBody.create(type, bytes)).build();
+        }
+
+        Response newResponse(Request request) {
+            Response t = template;
+            if (t == null) return null;
+            Response.Builder builder = t.newBuilder().request(request);
+            byte[] bytes = body;
+            if (bytes != null) {
+                builder.body(ResponseBody.create(contentType, bytes));
+            }
+            return builder.build();
+        }
+    }
+}
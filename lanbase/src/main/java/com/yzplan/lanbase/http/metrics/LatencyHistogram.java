@@ -0,0 +1,141 @@
+package com.yzplan.lanbase.http.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁耗时直方图
+ * 核心职责：
+ * 1. 按微秒取 log2 分桶，每个 2 的幂区间再线性分成 4 个子桶，记录只有几次 CAS，不加锁
+ * 2. 快照时计算百分位，结果为所在桶的上界 (误差不超过 25%，足以区分 DNS/TLS/服务端耗时)
+ */
+public class LatencyHistogram {
+    // 每个 2 的幂区间的子桶数 (2^SUB_BITS)
+    private static final int SUB_BITS = 2;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // 覆盖到 2^31 微秒 (约 35 分钟)，更大的值计入最后一个桶
+    static final int BUCKET_COUNT = SUB_COUNT * 31;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSumMicros = new AtomicLong();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时 (纳秒)，小于 0 忽略
+     */
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        long micros = nanos / 1000;
+        mBuckets.incrementAndGet(bucketOf(micros));
+        mCount.incrementAndGet();
+        mSumMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = mMaxMicros.get())) {
+            if (mMaxMicros.compareAndSet(max, micros)) break;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSumMicros.set(0);
+        mMaxMicros.set(0);
+    }
+
+    /**
+     * 获取快照 (与并发写入之间不保证原子，统计用途足够)
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+        return new Snapshot(buckets, count, mSumMicros.get(), mMaxMicros.get());
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) - SUB_COUNT;
+        int index = SUB_COUNT * (exponent - SUB_BITS + 1) + sub;
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 桶的上界 (微秒，不含)
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_COUNT) return index + 1;
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        return (long) (SUB_COUNT + sub + 1) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * 直方图快照 (不可变)
+     */
+    public static final class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+
+        Snapshot(long[] buckets, long count, long sumMicros, long maxMicros) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : sumMicros / 1000d / count;
+        }
+
+        public double getMaxMillis() {
+            return maxMicros / 1000d;
+        }
+
+        /**
+         * 百分位耗时 (毫秒)
+         *
+         * @param percentile 0 ~ 100，例如 99 表示 P99
+         */
+        public double getPercentileMillis(double percentile) {
+            if (count == 0) return 0;
+            long target = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100d);
+            if (target < 1) target = 1;
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    // 桶上界不超过实际最大值
+                    return Math.min(upperBoundOf(i), Math.max(maxMicros, 1)) / 1000d;
+                }
+            }
+            return getMaxMillis();
+        }
+
+        public double getP50Millis() {
+            return getPercentileMillis(50);
+        }
+
+        public double getP90Millis() {
+            return getPercentileMillis(90);
+        }
+
+        public double getP99Millis() {
+            return getPercentileMillis(99);
+        }
+    }
+}
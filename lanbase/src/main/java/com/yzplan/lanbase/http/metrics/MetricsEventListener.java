@@ -0,0 +1,133 @@
+package com.yzplan.lanbase.http.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 请求阶段耗时采集
+ * 核心职责：
+ * 1. 每个 Call 一个实例，记录各阶段开始时间，阶段结束时写入 NetworkStats
+ * 2. 重定向/重试产生的多次连接与读写分别记录
+ * 3. 命中磁盘缓存的请求只记录 TOTAL
+ * 注意：同一 Call 的事件按顺序回调，字段无需同步
+ */
+public class MetricsEventListener extends EventListener {
+
+    public static final Factory FACTORY = call -> new MetricsEventListener();
+
+    private String mHost;
+    private long mCallStart;
+    private long mDnsStart;
+    private long mConnectStart;
+    private long mSecureConnectStart;
+    private long mRequestStart;
+    private long mRequestEnd;
+    private long mBodyStart;
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        mHost = call.request().url().host();
+        mCallStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        mDnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        record(NetworkPhase.DNS, mDnsStart);
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        mConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        mSecureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+        record(NetworkPhase.TLS, mSecureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy, Protocol protocol) {
+        record(NetworkPhase.CONNECT, mConnectStart);
+    }
+
+    @Override
+    public void connectFailed(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy,
+                              Protocol protocol, @NonNull IOException ioe) {
+        record(NetworkPhase.CONNECT, mConnectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        mRequestStart = System.nanoTime();
+        mRequestEnd = 0;
+    }
+
+    @Override
+    public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+        mRequestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        mRequestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        long now = System.nanoTime();
+        if (mRequestStart != 0 && mRequestEnd != 0) {
+            NetworkStats.record(mHost, NetworkPhase.REQUEST_WRITE, mRequestEnd - mRequestStart);
+            NetworkStats.record(mHost, NetworkPhase.TTFB, now - mRequestEnd);
+        }
+        mRequestStart = 0;
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        mBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        record(NetworkPhase.BODY_READ, mBodyStart);
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        record(NetworkPhase.TOTAL, mCallStart);
+        NetworkStats.recordCall(mHost, true);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        record(NetworkPhase.TOTAL, mCallStart);
+        NetworkStats.recordCall(mHost, false);
+    }
+
+    private void record(NetworkPhase phase, long start) {
+        if (start == 0) return;
+        NetworkStats.record(mHost, phase, System.nanoTime() - start);
+    }
+}
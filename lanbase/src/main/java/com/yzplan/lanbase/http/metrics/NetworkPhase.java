@@ -0,0 +1,21 @@
+package com.yzplan.lanbase.http.metrics;
+
+/**
+ * 请求阶段
+ */
+public enum NetworkPhase {
+    // DNS 解析
+    DNS,
+    // TCP 建连 (含 TLS)
+    CONNECT,
+    // TLS 握手
+    TLS,
+    // 写请求头 + 请求体
+    REQUEST_WRITE,
+    // 请求写完到收到响应头 (服务端耗时 + 网络往返)
+    TTFB,
+    // 读取响应体
+    BODY_READ,
+    // 整个调用 (callStart ~ callEnd/callFailed)
+    TOTAL
+}
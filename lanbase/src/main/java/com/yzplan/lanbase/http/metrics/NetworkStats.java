@@ -0,0 +1,202 @@
+package com.yzplan.lanbase.http.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 网络统计
+ * 核心职责：
+ * 1. 按域名 + 阶段 (DNS/建连/TLS/写请求/首包/读响应/总耗时) 记录耗时直方图
+ * 2. 按名称记录通用计数 (重试次数、熔断次数等)
+ * 3. 提供快照与重置，快照可直接上报或打印
+ * 数据由 RetrofitClient 安装的 MetricsEventListener 自动采集 (HttpConfig.setMetricsEnabled 控制)
+ */
+public class NetworkStats {
+    private static final ConcurrentHashMap<String, HostStats> HOSTS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> COUNTERS = new ConcurrentHashMap<>();
+
+    private NetworkStats() {
+    }
+
+    // ================== 记录 ==================
+
+    /**
+     * 记录一次阶段耗时
+     *
+     * @param host  域名
+     * @param phase 阶段
+     * @param nanos 耗时 (纳秒)
+     */
+    public static void record(String host, NetworkPhase phase, long nanos) {
+        obtainHost(host).histograms.get(phase).record(nanos);
+    }
+
+    static void recordCall(String host, boolean success) {
+        HostStats stats = obtainHost(host);
+        stats.calls.incrementAndGet();
+        if (!success) stats.failures.incrementAndGet();
+    }
+
+    /**
+     * 通用计数 +1
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 通用计数累加
+     */
+    public static void add(String name, long delta) {
+        AtomicLong counter = COUNTERS.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = COUNTERS.putIfAbsent(name, created);
+            if (counter == null) counter = created;
+        }
+        counter.addAndGet(delta);
+    }
+
+    private static HostStats obtainHost(String host) {
+        if (host == null) host = "";
+        HostStats stats = HOSTS.get(host);
+        if (stats == null) {
+            HostStats created = new HostStats();
+            stats = HOSTS.putIfAbsent(host, created);
+            if (stats == null) stats = created;
+        }
+        return stats;
+    }
+
+    // ================== 查询 ==================
+
+    public static long getCounter(String name) {
+        AtomicLong counter = COUNTERS.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 所有通用计数 (按名称排序)
+     */
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : COUNTERS.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * 获取所有域名的统计快照 (按域名排序)
+     */
+    public static Map<String, HostSnapshot> snapshot() {
+        Map<String, HostSnapshot> result = new TreeMap<>();
+        for (Map.Entry<String, HostStats> entry : HOSTS.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * 获取单个域名的统计快照，没有记录时返回 null
+     */
+    public static HostSnapshot snapshot(String host) {
+        HostStats stats = HOSTS.get(host);
+        return stats != null ? stats.snapshot(host) : null;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public static void reset() {
+        HOSTS.clear();
+        COUNTERS.clear();
+    }
+
+    /**
+     * 输出可读的统计报告 (毫秒)，便于直接打印到日志
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (HostSnapshot host : snapshot().values()) {
+            sb.append(host.getHost())
+                    .append("  calls=").append(host.getCallCount())
+                    .append(" failures=").append(host.getFailureCount()).append("\n");
+            for (NetworkPhase phase : NetworkPhase.values()) {
+                LatencyHistogram.Snapshot s = host.get(phase);
+                if (s.getCount() == 0) continue;
+                sb.append(String.format(Locale.US, "  %-13s n=%-6d p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                        phase, s.getCount(), s.getP50Millis(), s.getP90Millis(), s.getP99Millis(), s.getMaxMillis()));
+            }
+        }
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            sb.append(entry.getKey()).append("=").append(entry.getValue()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单个域名的统计
+     */
+    private static final class HostStats {
+        final EnumMap<NetworkPhase, LatencyHistogram> histograms = new EnumMap<>(NetworkPhase.class);
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+
+        HostStats() {
+            for (NetworkPhase phase : NetworkPhase.values()) {
+                histograms.put(phase, new LatencyHistogram());
+            }
+        }
+
+        HostSnapshot snapshot(String host) {
+            EnumMap<NetworkPhase, LatencyHistogram.Snapshot> phases = new EnumMap<>(NetworkPhase.class);
+            for (Map.Entry<NetworkPhase, LatencyHistogram> entry : histograms.entrySet()) {
+                phases.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            return new HostSnapshot(host, calls.get(), failures.get(), phases);
+        }
+    }
+
+    /**
+     * 单个域名的统计快照 (不可变)
+     */
+    public static final class HostSnapshot {
+        private final String host;
+        private final long callCount;
+        private final long failureCount;
+        private final Map<NetworkPhase, LatencyHistogram.Snapshot> phases;
+
+        HostSnapshot(String host, long callCount, long failureCount, Map<NetworkPhase, LatencyHistogram.Snapshot> phases) {
+            this.host = host;
+            this.callCount = callCount;
+            this.failureCount = failureCount;
+            this.phases = Collections.unmodifiableMap(phases);
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public long getCallCount() {
+            return callCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public LatencyHistogram.Snapshot get(NetworkPhase phase) {
+            return phases.get(phase);
+        }
+
+        public Map<NetworkPhase, LatencyHistogram.Snapshot> getPhases() {
+            return phases;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.yzplan.lanbase.http.outbox;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 离线发件箱：声明该接口在无网络 / 网络中断时将请求持久化，联网后自动补发
+ * 需要在 HttpConfig.setOutbox 中开启 (仅全局配置生效)
+ * 请求会自动携带 Idempotency-Key 请求头 (默认由 OrderIdUtils 生成，调用方也可自行传入订单号)，
+ * 服务端需按该值去重，补发时使用同一个值
+ * 示例：
+ * <pre>
+ * &#64;Outbox
+ * &#64;FormUrlEncoded
+ * &#64;POST("order/submit")
+ * Single&lt;BaseResponse&lt;Void&gt;&gt; submit(&#64;Header("Idempotency-Key") String orderId, &#64;FieldMap Map&lt;String, Object&gt; params);
+ * </pre>
+ * 入队后调用方收到 OutboxQueuedException (code 为 OUTBOX_QUEUED)，补发结果通过 OutboxManager.addListener 监听
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Outbox {
+    /**
+     * 有网络但请求因连接异常失败 (断网、超时等) 时是否也入队
+     */
+    boolean queueOnFailure() default true;
+}
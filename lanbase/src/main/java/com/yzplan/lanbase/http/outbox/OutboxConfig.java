@@ -0,0 +1,112 @@
+package com.yzplan.lanbase.http.outbox;
+
+import java.io.File;
+
+/**
+ * 离线发件箱配置
+ * 核心职责：
+ * 1. 持久化目录与容量 (条数、单条 Body 大小、过期时间)
+ * 2. 补发限速：每批条数 + 批次间隔，同一时间只有一个请求在途
+ * 3. 网络恢复后随机延迟一段时间再开始补发，避免大量设备同时重连时冲击服务端
+ */
+public class OutboxConfig {
+    // 持久化目录 (建议 new File(context.getFilesDir(), "outbox"))
+    private final File dir;
+    // 每批补发条数 / 批次间隔 (毫秒)
+    private int batchSize = 10;
+    private long batchIntervalMillis = 1000;
+    // 网络恢复后开始补发前的随机延迟上限 (毫秒)
+    private long reconnectJitterMillis = 3000;
+    // 补发失败 (5xx / IO 异常) 后的重试间隔 (毫秒)
+    private long retryDelayMillis = 30 * 1000;
+    // 单条最多补发次数，超过后丢弃
+    private int maxAttempts = 10;
+    // 最多保存的条数，超过后新请求不再入队
+    private int maxEntries = 500;
+    // 单条请求 Body 上限 (字节)，超过的请求不入队
+    private long maxBodyBytes = 256 * 1024;
+    // 过期时间 (毫秒)，超过后不再补发
+    private long maxAgeMillis = 24 * 3600 * 1000L;
+
+    public OutboxConfig(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 补发速率
+     *
+     * @param batchSize           每批条数
+     * @param batchIntervalMillis 批次间隔 (毫秒)
+     */
+    public OutboxConfig setBatch(int batchSize, long batchIntervalMillis) {
+        this.batchSize = Math.max(1, batchSize);
+        this.batchIntervalMillis = Math.max(0, batchIntervalMillis);
+        return this;
+    }
+
+    public OutboxConfig setReconnectJitterMillis(long reconnectJitterMillis) {
+        this.reconnectJitterMillis = Math.max(0, reconnectJitterMillis);
+        return this;
+    }
+
+    public OutboxConfig setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = Math.max(0, retryDelayMillis);
+        return this;
+    }
+
+    public OutboxConfig setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    public OutboxConfig setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        return this;
+    }
+
+    public OutboxConfig setMaxBodyBytes(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+        return this;
+    }
+
+    public OutboxConfig setMaxAgeMillis(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+        return this;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchIntervalMillis() {
+        return batchIntervalMillis;
+    }
+
+    public long getReconnectJitterMillis() {
+        return reconnectJitterMillis;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+}
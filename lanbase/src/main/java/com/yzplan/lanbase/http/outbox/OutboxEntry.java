@@ -0,0 +1,118 @@
+package com.yzplan.lanbase.http.outbox;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * 发件箱中的一条请求 (Gson 序列化后按行写入日志文件)
+ * 保存的是进入签名等业务拦截器之前的原始请求，补发时由同一个 Client 重新签名
+ */
+public class OutboxEntry {
+    // 幂等键 (Idempotency-Key 请求头)，同时作为去重 Key
+    private String id;
+    // 所属 Retrofit 接口 (Service 类名)，补发时使用该接口对应的 Client
+    private String channel;
+    private String method;
+    private String url;
+    // 请求头，按 name, value 依次排列
+    private List<String> headers;
+    private String contentType;
+    // Body (Base64)，无 Body 时为 null
+    private String body;
+    private long createdAt;
+    // 已补发次数 (失败时由 OutboxStore 追加 attempt 记录，进程重启后仍然有效)
+    private int attempts;
+
+    /**
+     * 由请求创建，Body 不可重复读取或超过上限时返回 null
+     */
+    static OutboxEntry from(Request request, String id, String channel, long maxBodyBytes) throws IOException {
+        OutboxEntry entry = new OutboxEntry();
+        entry.id = id;
+        entry.channel = channel;
+        entry.method = request.method();
+        entry.url = request.url().toString();
+        Headers headers = request.headers();
+        entry.headers = new ArrayList<>(headers.size() * 2);
+        for (int i = 0; i < headers.size(); i++) {
+            entry.headers.add(headers.name(i));
+            entry.headers.add(headers.value(i));
+        }
+        RequestBody requestBody = request.body();
+        if (requestBody != null) {
+            if (requestBody.isOneShot() || requestBody.isDuplex()) return null;
+            long length = requestBody.contentLength();
+            if (length > maxBodyBytes) return null;
+            Buffer buffer = new Buffer();
+            requestBody.writeTo(buffer);
+            if (buffer.size() > maxBodyBytes) return null;
+            MediaType type = requestBody.contentType();
+            entry.contentType = type != null ? type.toString() : null;
+            entry.body = buffer.readByteString().base64();
+        }
+        entry.createdAt = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * 还原为 OkHttp 请求 (带 OutboxEntry tag，OutboxInterceptor 据此放行)
+     */
+    Request toRequest() {
+        Request.Builder builder = new Request.Builder().url(url).tag(OutboxEntry.class, this);
+        for (int i = 0; i + 1 < headers.size(); i += 2) {
+            builder.addHeader(headers.get(i), headers.get(i + 1));
+        }
+        builder.header(OutboxInterceptor.HEADER_IDEMPOTENCY_KEY, id);
+        RequestBody requestBody = null;
+        if (body != null) {
+            ByteString bytes = ByteString.decodeBase64(body);
+            requestBody = RequestBody.create(contentType != null ? MediaType.parse(contentType) : null,
+                    bytes != null ? bytes : ByteString.EMPTY);
+        }
+        return builder.method(method, requestBody).build();
+    }
+
+    boolean isValid() {
+        return id != null && channel != null && method != null && url != null && headers != null;
+    }
+
+    int incrementAttempts() {
+        return ++attempts;
+    }
+
+    void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,69 @@
+package com.yzplan.lanbase.http.outbox;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.exception.OutboxQueuedException;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+import com.yzplan.lanbase.utils.data.OrderIdUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 离线发件箱拦截器
+ * 核心职责：
+ * 1. 为 &#64;Outbox 接口补齐 Idempotency-Key 请求头 (OrderIdUtils 生成)，使在线重试与离线补发都能被服务端去重
+ * 2. 无网络时不发请求，直接保存并抛出 OutboxQueuedException
+ * 3. 有网络但连接失败 (queueOnFailure) 时保存请求，服务端可能已收到，补发时依赖幂等键去重
+ * 注意：放在所有拦截器最前面，保存的是签名前的原始请求；补发的请求 (带 OutboxEntry tag) 直接放行
+ */
+public class OutboxInterceptor implements Interceptor {
+    static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        OutboxManager manager = OutboxManager.getInstance();
+        if (!manager.isStarted() || request.tag(OutboxEntry.class) != null) {
+            return chain.proceed(request);
+        }
+        Outbox outbox = InvocationUtils.getAnnotation(request, Outbox.class);
+        if (outbox == null) {
+            return chain.proceed(request);
+        }
+        String id = request.header(HEADER_IDEMPOTENCY_KEY);
+        if (id == null || id.isEmpty()) {
+            id = OrderIdUtils.getLocalTermOdrId();
+            request = request.newBuilder().header(HEADER_IDEMPOTENCY_KEY, id).build();
+        }
+        if (!manager.isOnline()) {
+            throw queue(manager, request, id, new IOException("网络不可用"));
+        }
+        try {
+            return chain.proceed(request);
+        } catch (IOException e) {
+            if (!outbox.queueOnFailure() || chain.call().isCanceled()) throw e;
+            throw queue(manager, request, id, e);
+        }
+    }
+
+    /**
+     * 保存请求，无法保存 (Body 过大 / 一次性 Body / 队列已满) 时返回原异常
+     */
+    private IOException queue(OutboxManager manager, Request request, String id, IOException cause) {
+        Method method = InvocationUtils.getMethod(request);
+        try {
+            OutboxEntry entry = OutboxEntry.from(request, id, method.getDeclaringClass().getName(),
+                    manager.getConfig().getMaxBodyBytes());
+            if (entry == null || !manager.enqueue(entry)) return cause;
+        } catch (IOException e) {
+            return cause;
+        }
+        return new OutboxQueuedException("网络不可用，请求已保存，联网后自动提交", id, cause);
+    }
+}
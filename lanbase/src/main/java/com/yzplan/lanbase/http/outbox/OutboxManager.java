@@ -0,0 +1,353 @@
+package com.yzplan.lanbase.http.outbox;
+
+import android.app.Application;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.yzplan.lanbase.BaseApp;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+import com.yzplan.lanbase.utils.log.L;
+import com.yzplan.lanbase.utils.system.NetUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * 离线发件箱管理器
+ * 核心职责：
+ * 1. 保存 &#64;Outbox 接口在离线 / 连接失败时的请求 (OutboxStore 追加写日志，按幂等键去重)
+ * 2. 监听网络恢复，随机延迟后按批次补发：同一时间只有一个请求在途，每批之间间隔固定时长，重连风暴时不会压垮服务端
+ * 3. 补发结果处理：
+ * - 2xx 及 4xx (408/429 除外) 视为完成，不再补发 (4xx 通知 onDropped)
+ * - 5xx / 408 / 429 / IO 异常：停止本轮补发，retryDelay 后再试，超过最大次数或过期后丢弃
+ * 4. 补发走接口原来的 Client (按 Service 类名绑定)，签名等业务拦截器照常生效
+ * 计数：outbox.queued / outbox.duplicate / outbox.delivered / outbox.dropped / outbox.replay_failed
+ */
+public class OutboxManager {
+    private static final String TAG = "Outbox";
+
+    public static final String COUNTER_QUEUED = "outbox.queued";
+    public static final String COUNTER_DUPLICATE = "outbox.duplicate";
+    public static final String COUNTER_DELIVERED = "outbox.delivered";
+    public static final String COUNTER_DROPPED = "outbox.dropped";
+    public static final String COUNTER_REPLAY_FAILED = "outbox.replay_failed";
+
+    private static volatile OutboxManager sInstance;
+
+    private final Object mLock = new Object();
+    private final Random mRandom = new Random();
+    private final Gson mGson = new Gson();
+    // Service 类名 -> 该接口使用的 Client
+    private final ConcurrentHashMap<String, OkHttpClient> mChannels = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService mExecutor;
+
+    private volatile OutboxConfig mConfig;
+    private OutboxStore mStore;
+    // 已安排的下一轮补发 (同一时间最多一个)
+    private ScheduledFuture<?> mScheduled;
+    private long mScheduledAt;
+
+    private OutboxManager() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "lan-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        mExecutor = executor;
+    }
+
+    public static OutboxManager getInstance() {
+        if (sInstance == null) {
+            synchronized (OutboxManager.class) {
+                if (sInstance == null) {
+                    sInstance = new OutboxManager();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 启动发件箱：读取持久化的请求并监听网络变化 (由 RetrofitClient 按 HttpConfig.setOutbox 调用)
+     */
+    public void start(OutboxConfig config) {
+        if (config == null || config.getDir() == null) return;
+        synchronized (mLock) {
+            if (mConfig != null) return;
+            mStore = new OutboxStore(config.getDir(), mGson);
+            mStore.load();
+            mConfig = config;
+            L.i(TAG, "start, pending=" + mStore.size());
+        }
+        registerNetworkCallback();
+    }
+
+    public boolean isStarted() {
+        return mConfig != null;
+    }
+
+    public OutboxConfig getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * 绑定接口与 Client，已保存的该接口请求随后开始补发
+     */
+    public void bindChannel(String channel, OkHttpClient client) {
+        if (channel == null || client == null) return;
+        if (mChannels.put(channel, client) == null && isStarted()) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * 保存请求
+     *
+     * @return false 表示队列已满，未保存
+     */
+    boolean enqueue(OutboxEntry entry) throws IOException {
+        synchronized (mLock) {
+            if (mStore.contains(entry.getId())) {
+                NetworkStats.increment(COUNTER_DUPLICATE);
+                return true;
+            }
+            if (mStore.size() >= mConfig.getMaxEntries()) {
+                return false;
+            }
+            mStore.add(entry);
+        }
+        NetworkStats.increment(COUNTER_QUEUED);
+        L.i(TAG, "queued " + entry.getMethod() + " " + entry.getUrl() + " id=" + entry.getId());
+        if (isOnline()) schedule(mConfig.getRetryDelayMillis());
+        return true;
+    }
+
+    /**
+     * 该幂等键是否已保存 (待发送或已完成)
+     */
+    public boolean contains(String id) {
+        synchronized (mLock) {
+            return mStore != null && mStore.contains(id);
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mStore != null ? mStore.size() : 0;
+        }
+    }
+
+    /**
+     * 待发送的请求 (按入队顺序)
+     */
+    public List<OutboxEntry> getPending() {
+        synchronized (mLock) {
+            if (mStore == null) return Collections.emptyList();
+            return new ArrayList<>(mStore.pending());
+        }
+    }
+
+    /**
+     * 立即开始补发 (例如用户手动点击同步)
+     */
+    public void flush() {
+        if (isStarted()) schedule(0);
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null) mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    boolean isOnline() {
+        Application application = BaseApp.getApplication();
+        return application == null || NetUtils.isConnected(application);
+    }
+
+    // ================== 补发 ==================
+
+    /**
+     * 安排一轮补发，已安排了更早的补发时忽略
+     */
+    private void schedule(long delayMillis) {
+        synchronized (mLock) {
+            long at = System.currentTimeMillis() + delayMillis;
+            if (mScheduled != null && !mScheduled.isDone()) {
+                if (mScheduledAt <= at) return;
+                mScheduled.cancel(false);
+            }
+            mScheduledAt = at;
+            mScheduled = mExecutor.schedule(this::replayBatch, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 补发一批 (在 lan-outbox 线程中顺序执行)
+     */
+    private void replayBatch() {
+        synchronized (mLock) {
+            // 本轮已开始执行，允许安排下一轮
+            mScheduled = null;
+        }
+        OutboxConfig config = mConfig;
+        if (!isOnline()) return;
+        List<OutboxEntry> batch = new ArrayList<>(config.getBatchSize());
+        List<OutboxEntry> expired = new ArrayList<>();
+        boolean hasMore = false;
+        long now = System.currentTimeMillis();
+        synchronized (mLock) {
+            for (OutboxEntry entry : mStore.pending()) {
+                if (now - entry.getCreatedAt() > config.getMaxAgeMillis()) {
+                    expired.add(entry);
+                } else if (mChannels.containsKey(entry.getChannel())) {
+                    if (batch.size() < config.getBatchSize()) {
+                        batch.add(entry);
+                    } else {
+                        hasMore = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (OutboxEntry entry : expired) {
+            drop(entry, "expired");
+        }
+        for (OutboxEntry entry : batch) {
+            if (!deliver(entry, config)) {
+                NetworkStats.increment(COUNTER_REPLAY_FAILED);
+                int attempts;
+                synchronized (mLock) {
+                    attempts = mStore.recordAttempt(entry);
+                }
+                if (attempts >= config.getMaxAttempts()) {
+                    drop(entry, "too many attempts");
+                }
+                schedule(config.getRetryDelayMillis());
+                return;
+            }
+        }
+        if (hasMore) schedule(config.getBatchIntervalMillis());
+    }
+
+    /**
+     * 发送单条请求
+     *
+     * @return false 表示需要稍后重试
+     */
+    private boolean deliver(OutboxEntry entry, OutboxConfig config) {
+        OkHttpClient client = mChannels.get(entry.getChannel());
+        if (client == null) return true;
+        int code;
+        try (Response response = client.newCall(entry.toRequest()).execute()) {
+            code = response.code();
+        } catch (Exception e) {
+            L.e(TAG, "replay failed: " + entry.getId() + " " + e.getMessage());
+            return false;
+        }
+        if (code >= 200 && code < 300) {
+            complete(entry);
+            NetworkStats.increment(COUNTER_DELIVERED);
+            for (Listener listener : mListeners) {
+                try {
+                    listener.onDelivered(entry, code);
+                } catch (Exception e) {
+                    L.e(TAG, "listener error: " + e.getMessage());
+                }
+            }
+            return true;
+        }
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            // 请求本身有问题，补发多少次都不会成功
+            drop(entry, "HTTP " + code);
+            return true;
+        }
+        L.e(TAG, "replay failed: " + entry.getId() + " HTTP " + code);
+        return false;
+    }
+
+    private void complete(OutboxEntry entry) {
+        synchronized (mLock) {
+            mStore.markDone(entry.getId());
+        }
+    }
+
+    private void drop(OutboxEntry entry, String reason) {
+        complete(entry);
+        NetworkStats.increment(COUNTER_DROPPED);
+        L.i(TAG, "dropped " + entry.getId() + ": " + reason);
+        for (Listener listener : mListeners) {
+            try {
+                listener.onDropped(entry, reason);
+            } catch (Exception e) {
+                L.e(TAG, "listener error: " + e.getMessage());
+            }
+        }
+    }
+
+    // ================== 网络监听 ==================
+
+    private void registerNetworkCallback() {
+        Application application = BaseApp.getApplication();
+        if (application == null) {
+            schedule(0);
+            return;
+        }
+        ConnectivityManager cm = (ConnectivityManager) application.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        try {
+            cm.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    // 随机延迟，避免大量设备同时恢复网络时集中补发
+                    long jitter = mConfig.getReconnectJitterMillis();
+                    schedule(jitter > 0 ? (long) (mRandom.nextDouble() * jitter) : 0);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 缺少 ACCESS_NETWORK_STATE 权限等情况：只能依赖新请求入队与 flush 触发补发
+            L.e(TAG, "register network callback failed: " + e.getMessage());
+        }
+        if (isOnline()) schedule(0);
+    }
+
+    /**
+     * 补发结果监听 (在 lan-outbox 线程回调)
+     */
+    public interface Listener {
+        /**
+         * 补发成功 (HTTP 2xx，业务结果需服务端按幂等键查询)
+         */
+        void onDelivered(OutboxEntry entry, int httpCode);
+
+        /**
+         * 放弃补发 (过期、次数用完或 4xx)
+         */
+        void onDropped(OutboxEntry entry, String reason);
+    }
+}
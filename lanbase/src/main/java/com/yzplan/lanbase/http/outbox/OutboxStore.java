@@ -0,0 +1,208 @@
+package com.yzplan.lanbase.http.outbox;
+
+import com.google.gson.Gson;
+import com.yzplan.lanbase.utils.log.L;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 发件箱持久化 (追加写日志)
+ * 核心职责：
+ * 1. 每行一条 JSON 记录：add (入队) / attempt (补发失败次数) / done (完成或丢弃)，写入后立即 fsync，进程被杀也不丢
+ * 2. 启动时顺序回放日志得到待发送队列，损坏的行 (写到一半断电) 直接跳过
+ * 3. 已完成的请求累积到一定数量后整体重写 (先写临时文件再 rename)，只保留最近的已完成 ID 用于去重
+ * 注意：非线程安全，由 OutboxManager 加锁调用
+ */
+final class OutboxStore {
+    private static final String TAG = "Outbox";
+    private static final String FILE_NAME = "outbox.log";
+    private static final String OP_ADD = "add";
+    private static final String OP_DONE = "done";
+    private static final String OP_ATTEMPT = "attempt";
+    // 压缩时保留的已完成 ID 数量 (用于去重)
+    private static final int MAX_DONE_IDS = 500;
+    // 日志中已完成请求的 add 记录达到该数量时压缩
+    private static final int COMPACT_THRESHOLD = 64;
+
+    private final File mFile;
+    private final Gson mGson;
+    // 待发送 (按入队顺序)
+    private final LinkedHashMap<String, OutboxEntry> mPending = new LinkedHashMap<>();
+    // 已完成的 ID (按完成顺序)
+    private final LinkedHashSet<String> mDone = new LinkedHashSet<>();
+    // 日志中已失效的记录数 (已完成请求的 add 记录、被新值覆盖的 attempt 记录)
+    private int mDeadRecords;
+
+    OutboxStore(File dir, Gson gson) {
+        if (!dir.exists()) dir.mkdirs();
+        mFile = new File(dir, FILE_NAME);
+        mGson = gson;
+    }
+
+    /**
+     * 读取日志，重建待发送队列
+     */
+    void load() {
+        mPending.clear();
+        mDone.clear();
+        mDeadRecords = 0;
+        if (!mFile.exists()) return;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(mFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record;
+                try {
+                    record = mGson.fromJson(line, Record.class);
+                } catch (Exception e) {
+                    L.e(TAG, "skip broken record: " + e.getMessage());
+                    continue;
+                }
+                if (record == null) continue;
+                if (OP_ADD.equals(record.op) && record.entry != null && record.entry.isValid()) {
+                    if (!mDone.contains(record.entry.getId())) {
+                        mPending.put(record.entry.getId(), record.entry);
+                    }
+                } else if (OP_ATTEMPT.equals(record.op) && record.id != null && record.attempts != null) {
+                    OutboxEntry entry = mPending.get(record.id);
+                    if (entry != null) entry.setAttempts(record.attempts);
+                    mDeadRecords++;
+                } else if (OP_DONE.equals(record.op) && record.id != null) {
+                    if (mPending.remove(record.id) != null) mDeadRecords++;
+                    mDone.add(record.id);
+                }
+            }
+        } catch (IOException e) {
+            L.e(TAG, "load failed: " + e.getMessage());
+        }
+    }
+
+    boolean contains(String id) {
+        return mPending.containsKey(id) || mDone.contains(id);
+    }
+
+    int size() {
+        return mPending.size();
+    }
+
+    Collection<OutboxEntry> pending() {
+        return mPending.values();
+    }
+
+    void add(OutboxEntry entry) throws IOException {
+        Record record = new Record();
+        record.op = OP_ADD;
+        record.entry = entry;
+        append(record);
+        mPending.put(entry.getId(), entry);
+    }
+
+    /**
+     * 记录一次补发失败 (写入日志，重启后不会重新获得全部补发次数)
+     *
+     * @return 累计失败次数
+     */
+    int recordAttempt(OutboxEntry entry) {
+        int attempts = entry.incrementAttempts();
+        Record record = new Record();
+        record.op = OP_ATTEMPT;
+        record.id = entry.getId();
+        record.attempts = attempts;
+        try {
+            append(record);
+        } catch (IOException e) {
+            L.e(TAG, "record attempt failed: " + e.getMessage());
+        }
+        if (++mDeadRecords >= COMPACT_THRESHOLD) {
+            compact();
+        }
+        return attempts;
+    }
+
+    void markDone(String id) {
+        if (mPending.remove(id) == null) return;
+        mDone.add(id);
+        Record record = new Record();
+        record.op = OP_DONE;
+        record.id = id;
+        try {
+            append(record);
+        } catch (IOException e) {
+            L.e(TAG, "mark done failed: " + e.getMessage());
+        }
+        if (++mDeadRecords >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    private void append(Record record) throws IOException {
+        byte[] line = (mGson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(mFile, true)) {
+            out.write(line);
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * 重写日志：只保留待发送记录 (含补发次数) + 最近的已完成 ID
+     */
+    private void compact() {
+        while (mDone.size() > MAX_DONE_IDS) {
+            Iterator<String> iterator = mDone.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        List<Record> records = new ArrayList<>(mDone.size() + mPending.size());
+        for (String id : mDone) {
+            Record record = new Record();
+            record.op = OP_DONE;
+            record.id = id;
+            records.add(record);
+        }
+        for (OutboxEntry entry : mPending.values()) {
+            Record record = new Record();
+            record.op = OP_ADD;
+            record.entry = entry;
+            records.add(record);
+        }
+        File temp = new File(mFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            for (Record record : records) {
+                out.write((mGson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.getFD().sync();
+        } catch (IOException e) {
+            L.e(TAG, "compact failed: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(mFile)) {
+            mDeadRecords = 0;
+        } else {
+            temp.delete();
+        }
+    }
+
+    /**
+     * 日志中的一行
+     */
+    private static final class Record {
+        String op;
+        OutboxEntry entry;
+        String id;
+        // attempt 记录的累计次数
+        Integer attempts;
+    }
+}
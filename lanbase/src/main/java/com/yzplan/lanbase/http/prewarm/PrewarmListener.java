@@ -0,0 +1,21 @@
+package com.yzplan.lanbase.http.prewarm;
+
+/**
+ * 预热耗时监听 (在后台线程回调)
+ */
+public interface PrewarmListener {
+    /**
+     * 单个步骤结束
+     *
+     * @param step       步骤
+     * @param target     域名 (DNS / CONNECT) 或预取序号 (PREFETCH)
+     * @param costMillis 耗时
+     * @param error      失败原因，成功为 null
+     */
+    void onStep(PrewarmStep step, String target, long costMillis, Throwable error);
+
+    /**
+     * 所有步骤结束 (失败的步骤不影响其它步骤)
+     */
+    void onComplete(long costMillis);
+}
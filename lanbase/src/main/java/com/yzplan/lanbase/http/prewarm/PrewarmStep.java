@@ -0,0 +1,13 @@
+package com.yzplan.lanbase.http.prewarm;
+
+/**
+ * 预热步骤
+ */
+public enum PrewarmStep {
+    // 解析域名
+    DNS,
+    // 建立连接 (TCP + TLS，HEAD 请求完成后连接留在连接池)
+    CONNECT,
+    // 预取可缓存的接口
+    PREFETCH
+}
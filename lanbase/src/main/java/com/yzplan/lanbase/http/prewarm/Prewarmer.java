@@ -0,0 +1,228 @@
+package com.yzplan.lanbase.http.prewarm;
+
+import com.yzplan.lanbase.http.HttpConfig;
+import com.yzplan.lanbase.http.RetrofitClient;
+import com.yzplan.lanbase.http.metrics.NetworkPhase;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+import com.yzplan.lanbase.utils.log.L;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 启动预热
+ * 核心职责：
+ * 1. 并行解析所有已注册域名的 DNS (BaseApi.prewarm 或 addBaseUrl 注册)
+ * 2. 每个域名发送 HEAD 请求建立 TCP + TLS 连接，连接留在该接口使用的连接池中，首个业务请求直接复用
+ * 3. 连接建立后执行预取 (例如声明了 &#64;CachePolicy 的首页接口)，结果写入磁盘缓存
+ * 4. 可选定时保活 (间隔需小于连接池 keepAlive，默认 5 分钟)
+ * 每个步骤的耗时通过 PrewarmListener 回调，DNS 耗时同时记入 NetworkStats，失败的步骤不影响其它步骤
+ * 使用示例 (启动页等待权限期间)：
+ * Prewarmer.getInstance().addPrefetch(api.getBanner().ignoreElement()).start();
+ */
+public class Prewarmer {
+    private static final String TAG = "Prewarmer";
+    public static final String COUNTER_SUCCESS = "prewarm.success";
+    public static final String COUNTER_FAILURE = "prewarm.failure";
+
+    private static volatile Prewarmer sInstance;
+
+    // baseUrl -> 接口专用配置 (null 表示全局配置)
+    private final Map<String, HttpConfig> mTargets = new LinkedHashMap<>();
+    private final List<Completable> mPrefetches = new ArrayList<>();
+    private final CopyOnWriteArrayList<PrewarmListener> mListeners = new CopyOnWriteArrayList<>();
+    // 每个域名预先建立的连接数 (HTTP/2 只需要 1 个，0 表示只解析 DNS)
+    private int mConnectionsPerHost = 1;
+    // 保活间隔 (秒)，0 表示不保活
+    private long mKeepWarmSeconds;
+    private Disposable mRunning;
+    private Disposable mKeepWarm;
+
+    /**
+     * 使用 getInstance()，包内可见以便测试创建独立实例
+     */
+    Prewarmer() {
+    }
+
+    public static Prewarmer getInstance() {
+        if (sInstance == null) {
+            synchronized (Prewarmer.class) {
+                if (sInstance == null) {
+                    sInstance = new Prewarmer();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    public Prewarmer addBaseUrl(String baseUrl) {
+        return addBaseUrl(baseUrl, null);
+    }
+
+    /**
+     * 注册需要预热的域名
+     *
+     * @param baseUrl 域名 (与 BaseApi.getBaseUrl 一致)
+     * @param config  该接口专用的网络配置 (决定使用哪个连接池)，null 表示全局配置
+     */
+    public synchronized Prewarmer addBaseUrl(String baseUrl, HttpConfig config) {
+        if (HttpUrl.parse(baseUrl) != null) mTargets.put(baseUrl, config);
+        return this;
+    }
+
+    /**
+     * 添加预取任务 (在连接建立后执行，只执行一次)
+     * 例如：api.get().getBanner().ignoreElement()
+     */
+    public synchronized Prewarmer addPrefetch(Completable prefetch) {
+        if (prefetch != null) mPrefetches.add(prefetch);
+        return this;
+    }
+
+    public synchronized Prewarmer setConnectionsPerHost(int connectionsPerHost) {
+        mConnectionsPerHost = Math.max(0, connectionsPerHost);
+        return this;
+    }
+
+    public synchronized Prewarmer setKeepWarmSeconds(long keepWarmSeconds) {
+        mKeepWarmSeconds = Math.max(0, keepWarmSeconds);
+        return this;
+    }
+
+    public Prewarmer addListener(PrewarmListener listener) {
+        if (listener != null) mListeners.addIfAbsent(listener);
+        return this;
+    }
+
+    public void removeListener(PrewarmListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * 开始预热 (后台执行，正在预热时忽略)
+     */
+    public synchronized void start() {
+        if (mRunning != null && !mRunning.isDisposed()) return;
+        final long begin = System.nanoTime();
+        List<Completable> hosts = new ArrayList<>();
+        for (Map.Entry<String, HttpConfig> entry : mTargets.entrySet()) {
+            HttpUrl url = HttpUrl.get(entry.getKey());
+            hosts.add(warmHost(url, entry.getValue()).subscribeOn(Schedulers.io()));
+        }
+        List<Completable> prefetches = new ArrayList<>();
+        for (int i = 0; i < mPrefetches.size(); i++) {
+            prefetches.add(timed(mPrefetches.get(i), String.valueOf(i)));
+        }
+        mPrefetches.clear();
+        mRunning = Completable.merge(hosts)
+                .andThen(Completable.merge(prefetches))
+                .subscribe(() -> {
+                    long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                    L.d(TAG, "预热完成: " + cost + "ms");
+                    for (PrewarmListener listener : mListeners) {
+                        listener.onComplete(cost);
+                    }
+                    scheduleKeepWarm();
+                });
+    }
+
+    /**
+     * 停止预热与保活
+     */
+    public synchronized void stop() {
+        if (mRunning != null) mRunning.dispose();
+        if (mKeepWarm != null) mKeepWarm.dispose();
+        mRunning = null;
+        mKeepWarm = null;
+    }
+
+    // ================== 步骤 ==================
+
+    private Completable warmHost(final HttpUrl url, HttpConfig config) {
+        final int connections = mConnectionsPerHost;
+        return Completable.defer(() -> {
+            OkHttpClient client = RetrofitClient.getInstance().getClient(config);
+            resolve(client, url.host());
+            List<Completable> connects = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                connects.add(Completable.fromAction(() -> connect(client, url)).subscribeOn(Schedulers.io()));
+            }
+            return Completable.merge(connects);
+        }).onErrorComplete();
+    }
+
+    private void resolve(OkHttpClient client, String host) throws Exception {
+        long start = System.nanoTime();
+        try {
+            client.dns().lookup(host);
+            NetworkStats.record(host, NetworkPhase.DNS, System.nanoTime() - start);
+            notifyStep(PrewarmStep.DNS, host, start, null);
+        } catch (Exception e) {
+            // 解析失败 (通常是无网络) 时不再建立连接
+            notifyStep(PrewarmStep.DNS, host, start, e);
+            throw e;
+        }
+    }
+
+    private void connect(OkHttpClient client, HttpUrl url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .head()
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .build();
+        long start = System.nanoTime();
+        Response response = null;
+        try {
+            // 任何响应码都说明连接已建立 (服务端可能不支持 HEAD)
+            response = client.newCall(request).execute();
+            notifyStep(PrewarmStep.CONNECT, url.host(), start, null);
+        } catch (Exception e) {
+            notifyStep(PrewarmStep.CONNECT, url.host(), start, e);
+        } finally {
+            // 关闭响应后连接回到连接池
+            if (response != null) response.close();
+        }
+    }
+
+    private Completable timed(Completable prefetch, final String target) {
+        return Completable.defer(() -> {
+            final long start = System.nanoTime();
+            return prefetch
+                    .doOnComplete(() -> notifyStep(PrewarmStep.PREFETCH, target, start, null))
+                    .doOnError(e -> notifyStep(PrewarmStep.PREFETCH, target, start, e))
+                    .onErrorComplete();
+        });
+    }
+
+    private synchronized void scheduleKeepWarm() {
+        if (mKeepWarmSeconds <= 0 || mKeepWarm != null || mConnectionsPerHost == 0) return;
+        final Map<String, HttpConfig> targets = new LinkedHashMap<>(mTargets);
+        mKeepWarm = Schedulers.io().schedulePeriodicallyDirect(() -> {
+            for (Map.Entry<String, HttpConfig> entry : targets.entrySet()) {
+                connect(RetrofitClient.getInstance().getClient(entry.getValue()), HttpUrl.get(entry.getKey()));
+            }
+        }, mKeepWarmSeconds, mKeepWarmSeconds, TimeUnit.SECONDS);
+    }
+
+    private void notifyStep(PrewarmStep step, String target, long start, Throwable error) {
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        NetworkStats.increment(error == null ? COUNTER_SUCCESS : COUNTER_FAILURE);
+        L.d(TAG, step + " " + target + " " + cost + "ms" + (error != null ? " 失败: " + error.getMessage() : ""));
+        for (PrewarmListener listener : mListeners) {
+            listener.onStep(step, target, cost, error);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.yzplan.lanbase.http.priority;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明接口的请求优先级，优先于 BaseApi.getPriority，需要 HttpConfig.setPriority 开启
+ * 示例：
+ * <pre>
+ * &#64;Priority(RequestPriority.BACKGROUND)
+ * &#64;POST("log/upload")
+ * Single&lt;Object&gt; uploadLog(&#64;Body RequestBody body);
+ * </pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+    RequestPriority value();
+}
@@ -0,0 +1,41 @@
+package com.yzplan.lanbase.http.priority;
+
+/**
+ * 优先级调度配置
+ * 通过 HttpConfig.setPriority 开启 (所有接口共享一个调度器，以第一次使用的配置为准)
+ */
+public class PriorityConfig {
+    // 同时进行的请求总数上限
+    private int maxConcurrent = 64;
+    // 同时进行的后台请求上限
+    private int maxBackground = 2;
+    // 后台请求最长暂停时间 (毫秒)，超过后不再等待前台请求，避免被饿死
+    private long maxPauseMillis = 10 * 1000;
+
+    public PriorityConfig setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        return this;
+    }
+
+    public PriorityConfig setMaxBackground(int maxBackground) {
+        this.maxBackground = Math.max(1, maxBackground);
+        return this;
+    }
+
+    public PriorityConfig setMaxPauseMillis(long maxPauseMillis) {
+        this.maxPauseMillis = Math.max(0, maxPauseMillis);
+        return this;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxBackground() {
+        return maxBackground;
+    }
+
+    public long getMaxPauseMillis() {
+        return maxPauseMillis;
+    }
+}
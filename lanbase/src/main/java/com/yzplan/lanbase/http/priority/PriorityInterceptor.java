@@ -0,0 +1,103 @@
+package com.yzplan.lanbase.http.priority;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * 优先级拦截器
+ * 核心职责：
+ * 1. 确定请求优先级：Request tag (RequestPriority) > &#64;Priority > BaseApi.getPriority
+ * 2. 发送前向 PriorityScheduler 申请名额，响应体读完或关闭后归还 (流式响应下载期间仍占用名额)
+ * 注意：由 BaseApi 添加在业务拦截器最前面，同一默认优先级共享一个实例，使 RetrofitClient 能复用 Client
+ */
+public class PriorityInterceptor implements Interceptor {
+    private static final ConcurrentHashMap<RequestPriority, PriorityInterceptor> INTERCEPTORS = new ConcurrentHashMap<>();
+
+    private final RequestPriority mDefaultPriority;
+    private final PriorityScheduler mScheduler;
+
+    /**
+     * 使用 obtain()，包内可见以便测试使用独立的调度器
+     */
+    PriorityInterceptor(RequestPriority defaultPriority, PriorityScheduler scheduler) {
+        mDefaultPriority = defaultPriority;
+        mScheduler = scheduler;
+    }
+
+    /**
+     * 获取 (或创建) 指定默认优先级的拦截器
+     */
+    public static PriorityInterceptor obtain(RequestPriority defaultPriority, PriorityConfig config) {
+        if (defaultPriority == null) defaultPriority = RequestPriority.NORMAL;
+        PriorityInterceptor interceptor = INTERCEPTORS.get(defaultPriority);
+        if (interceptor == null) {
+            PriorityInterceptor created = new PriorityInterceptor(defaultPriority, PriorityScheduler.obtain(config));
+            interceptor = INTERCEPTORS.putIfAbsent(defaultPriority, created);
+            if (interceptor == null) interceptor = created;
+        }
+        return interceptor;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        final RequestPriority priority = priorityOf(request);
+        mScheduler.acquire(priority, chain.call());
+        final AtomicBoolean released = new AtomicBoolean();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (Throwable e) {
+            // 任何异常 (包括 Error) 都要归还名额，否则名额永久泄漏
+            mScheduler.release(priority);
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            mScheduler.release(priority);
+            return response;
+        }
+        ForwardingSource source = new ForwardingSource(body.source()) {
+            @Override
+            public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read == -1) release();
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                release();
+                super.close();
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) mScheduler.release(priority);
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                .build();
+    }
+
+    private RequestPriority priorityOf(Request request) {
+        RequestPriority tagged = request.tag(RequestPriority.class);
+        if (tagged != null) return tagged;
+        Priority priority = InvocationUtils.getAnnotation(request, Priority.class);
+        return priority != null ? priority.value() : mDefaultPriority;
+    }
+}
@@ -0,0 +1,152 @@
+package com.yzplan.lanbase.http.priority;
+
+import com.yzplan.lanbase.http.metrics.LatencyHistogram;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+
+/**
+ * 优先级调度器
+ * 核心职责：
+ * 1. 请求开始前申请名额，结束 (响应体读完或关闭) 后归还
+ * 2. FOREGROUND 最先获得名额；有 FOREGROUND 排队时 NORMAL 等待
+ * 3. BACKGROUND 只在没有 FOREGROUND 进行中、且没有更高优先级排队时发起，并受 maxBackground 限制；
+ * 暂停超过 maxPauseMillis 后只受 maxBackground 限制
+ * 4. 按优先级记录排队耗时
+ * 注意：Retrofit 的 RxJava2 适配器在 IO 线程同步执行请求，排队会阻塞该 IO 线程 (不占用 OkHttp 调度器)；
+ * 同一优先级内不保证先进先出
+ */
+public class PriorityScheduler {
+    // 后台请求因前台请求而等待的次数
+    public static final String COUNTER_BACKGROUND_PAUSED = "priority.background_paused";
+    // 等待期间检查取消的间隔
+    private static final long POLL_MILLIS = 100;
+
+    private static volatile PriorityScheduler sInstance;
+
+    private final PriorityConfig mConfig;
+    private final Object mLock = new Object();
+    private final int[] mRunning = new int[RequestPriority.values().length];
+    private final int[] mWaiting = new int[RequestPriority.values().length];
+    private final LatencyHistogram[] mQueueWait = new LatencyHistogram[RequestPriority.values().length];
+
+    PriorityScheduler(PriorityConfig config) {
+        mConfig = config;
+        for (int i = 0; i < mQueueWait.length; i++) {
+            mQueueWait[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 获取 (或创建) 全局调度器，已存在时忽略传入的配置
+     */
+    static PriorityScheduler obtain(PriorityConfig config) {
+        if (sInstance == null) {
+            synchronized (PriorityScheduler.class) {
+                if (sInstance == null) {
+                    sInstance = new PriorityScheduler(config);
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 获取全局调度器，未开启优先级调度时返回 null
+     */
+    public static PriorityScheduler get() {
+        return sInstance;
+    }
+
+    /**
+     * 申请名额，没有名额时阻塞等待
+     *
+     * @param call 所属请求，被取消时停止等待
+     */
+    void acquire(RequestPriority priority, Call call) throws IOException {
+        long start = System.nanoTime();
+        long maxPauseNanos = TimeUnit.MILLISECONDS.toNanos(mConfig.getMaxPauseMillis());
+        int index = priority.ordinal();
+        boolean paused = false;
+        synchronized (mLock) {
+            mWaiting[index]++;
+            try {
+                while (!canStart(priority, System.nanoTime() - start >= maxPauseNanos)) {
+                    if (call.isCanceled()) throw new IOException("Canceled");
+                    paused = true;
+                    mLock.wait(POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待请求名额时被中断");
+            } finally {
+                mWaiting[index]--;
+            }
+            mRunning[index]++;
+        }
+        mQueueWait[index].record(System.nanoTime() - start);
+        if (paused && priority == RequestPriority.BACKGROUND) {
+            NetworkStats.increment(COUNTER_BACKGROUND_PAUSED);
+        }
+    }
+
+    void release(RequestPriority priority) {
+        synchronized (mLock) {
+            mRunning[priority.ordinal()]--;
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * 需在 mLock 内调用
+     */
+    private boolean canStart(RequestPriority priority, boolean pauseExpired) {
+        int total = 0;
+        for (int running : mRunning) {
+            total += running;
+        }
+        int foreground = RequestPriority.FOREGROUND.ordinal();
+        int normal = RequestPriority.NORMAL.ordinal();
+        int background = RequestPriority.BACKGROUND.ordinal();
+        switch (priority) {
+            case FOREGROUND:
+                return total < mConfig.getMaxConcurrent();
+            case NORMAL:
+                return total < mConfig.getMaxConcurrent() && mWaiting[foreground] == 0;
+            default:
+                if (mRunning[background] >= mConfig.getMaxBackground()) return false;
+                if (pauseExpired) return true;
+                return total < mConfig.getMaxConcurrent() && mRunning[foreground] == 0
+                        && mWaiting[foreground] == 0 && mWaiting[normal] == 0;
+        }
+    }
+
+    /**
+     * 进行中的请求数
+     */
+    public int getRunningCount(RequestPriority priority) {
+        synchronized (mLock) {
+            return mRunning[priority.ordinal()];
+        }
+    }
+
+    /**
+     * 排队中的请求数
+     */
+    public int getWaitingCount(RequestPriority priority) {
+        synchronized (mLock) {
+            return mWaiting[priority.ordinal()];
+        }
+    }
+
+    /**
+     * 排队耗时分布 (申请名额到开始发送)
+     */
+    public LatencyHistogram.Snapshot getQueueWait(RequestPriority priority) {
+        return mQueueWait[priority.ordinal()].snapshot();
+    }
+}
@@ -0,0 +1,13 @@
+package com.yzplan.lanbase.http.priority;
+
+/**
+ * 请求优先级
+ */
+public enum RequestPriority {
+    // 用户正在等待结果的请求 (页面首屏、点击后的提交等)
+    FOREGROUND,
+    // 默认
+    NORMAL,
+    // 后台任务 (日志上传、预取、同步等)，前台有请求时暂停发起
+    BACKGROUND
+}
@@ -0,0 +1,44 @@
+package com.yzplan.lanbase.http.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口重试策略，覆盖 HttpConfig 中的默认重试策略
+ * 默认只重试幂等请求 (GET/HEAD/PUT/DELETE/OPTIONS)，POST 需声明 idempotent = true
+ * 或携带 Idempotency-Key 请求头
+ * 示例：
+ * <pre>
+ * &#64;Retry(maxAttempts = 3)
+ * &#64;GET("banner/json")
+ * Single&lt;List&lt;BannerBean&gt;&gt; getBanner();
+ * </pre>
+ * 关闭某个接口的重试：&#64;Retry(maxAttempts = 1)
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retry {
+    /**
+     * 最大尝试次数 (含第一次)，1 表示不重试
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * 退避基准时长 (毫秒)，第 n 次重试的等待上限为 baseDelayMillis * 2^(n-1)
+     */
+    long baseDelayMillis() default 300;
+
+    /**
+     * 单次等待上限 (毫秒)
+     */
+    long maxDelayMillis() default 5000;
+
+    /**
+     * 接口是否幂等 (非幂等方法声明为 true 后才会重试)
+     */
+    boolean idempotent() default false;
+}
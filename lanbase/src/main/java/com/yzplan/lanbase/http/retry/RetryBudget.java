@@ -0,0 +1,80 @@
+package com.yzplan.lanbase.http.retry;
+
+/**
+ * 全局重试预算 (令牌桶)
+ * 核心职责：
+ * 1. 每个原始请求存入 ratio 个令牌，每次重试消耗 1 个令牌，重试总量被限制在原始请求量的 ratio 倍以内
+ * 2. 另外按时间补充 minPerSecond 个令牌，保证低流量时也能少量重试
+ * 3. 服务端整体故障时令牌很快耗尽，重试自动停止，不会放大故障
+ */
+public class RetryBudget {
+    private static volatile RetryBudget sGlobal = new RetryBudget(0.2, 1, 20);
+
+    private final double mRatio;
+    private final double mMinPerSecond;
+    private final double mMaxTokens;
+    private double mTokens;
+    private long mLastRefillNanos = System.nanoTime();
+
+    /**
+     * @param ratio        每个原始请求存入的令牌数 (0.2 表示重试量最多为请求量的 20%)
+     * @param minPerSecond 每秒固定补充的令牌数
+     * @param maxTokens    令牌上限
+     */
+    public RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+        this.mRatio = ratio;
+        this.mMinPerSecond = minPerSecond;
+        this.mMaxTokens = maxTokens;
+        this.mTokens = maxTokens;
+    }
+
+    public static RetryBudget getGlobal() {
+        return sGlobal;
+    }
+
+    /**
+     * 替换全局重试预算 (建议在 BaseApp.init 之前设置)
+     */
+    public static void setGlobal(RetryBudget budget) {
+        if (budget != null) sGlobal = budget;
+    }
+
+    /**
+     * 记录一次原始请求
+     */
+    public synchronized void deposit() {
+        refill();
+        mTokens = Math.min(mMaxTokens, mTokens + mRatio);
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @return false 表示预算不足，不应重试
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (mTokens >= 1) {
+            mTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前剩余令牌数
+     */
+    public synchronized double getTokens() {
+        refill();
+        return mTokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - mLastRefillNanos) / 1e9;
+        mLastRefillNanos = now;
+        if (elapsedSeconds > 0) {
+            mTokens = Math.min(mMaxTokens, mTokens + elapsedSeconds * mMinPerSecond);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.yzplan.lanbase.http.retry;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 重试拦截器
+ * 核心职责：
+ * 1. 按 &#64;Retry 注解 (优先) 或 HttpConfig 默认策略重试 IO 异常与 408/429/502/503/504
+ * 2. 幂等感知：默认只重试幂等方法；POST 需注解声明 idempotent 或携带 Idempotency-Key 请求头；一次性 Body 不重试
+ * 3. 指数退避 + 抖动，429/503 优先使用服务端 Retry-After (超过等待上限则不重试)
+ * 4. 每次重试都要向全局 RetryBudget 申请令牌，预算耗尽后直接返回失败
+ * 5. 重试次数计入 NetworkStats (retry.* 计数)
+ * 注意：放在业务拦截器 (签名等) 之前，每次重试都会重新签名
+ */
+public class RetryInterceptor implements Interceptor {
+    // 实际发生的重试次数
+    public static final String COUNTER_RETRY = "retry.attempts";
+    // 重试后成功的请求数
+    public static final String COUNTER_RECOVERED = "retry.recovered";
+    // 用完重试次数仍失败的请求数
+    public static final String COUNTER_EXHAUSTED = "retry.exhausted";
+    // 因预算不足放弃重试的次数
+    public static final String COUNTER_BUDGET_REJECTED = "retry.budget_rejected";
+
+    // 等待期间检查取消的间隔
+    private static final long SLEEP_SLICE_MS = 100;
+
+    private static final ConcurrentHashMap<Retry, RetryPolicy> POLICY_CACHE = new ConcurrentHashMap<>();
+
+    private final RetryPolicy mDefaultPolicy;
+
+    /**
+     * @param defaultPolicy 没有 &#64;Retry 注解时使用的策略，null 表示默认不重试
+     */
+    public RetryInterceptor(RetryPolicy defaultPolicy) {
+        this.mDefaultPolicy = defaultPolicy;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RetryPolicy policy = resolvePolicy(request);
+        if (policy == null || policy.getMaxAttempts() <= 1 || !policy.canRetry(request)) {
+            return chain.proceed(request);
+        }
+        RetryBudget budget = RetryBudget.getGlobal();
+        budget.deposit();
+        int attempt = 1;
+        while (true) {
+            Response response = null;
+            IOException failure = null;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                failure = e;
+            }
+            boolean retryable = failure != null
+                    ? policy.isRetryable(failure) && !chain.call().isCanceled()
+                    : policy.isRetryable(response.code());
+            if (!retryable) {
+                if (attempt > 1 && failure == null) NetworkStats.increment(COUNTER_RECOVERED);
+                return finish(response, failure);
+            }
+            if (attempt >= policy.getMaxAttempts()) {
+                NetworkStats.increment(COUNTER_EXHAUSTED);
+                return finish(response, failure);
+            }
+            long delay = failure != null ? policy.delayMillis(attempt) : retryDelay(response, policy, attempt);
+            if (delay < 0) {
+                return finish(response, null);
+            }
+            if (!budget.tryAcquire()) {
+                NetworkStats.increment(COUNTER_BUDGET_REJECTED);
+                return finish(response, failure);
+            }
+            if (response != null) {
+                response.close();
+            }
+            sleep(chain, delay);
+            attempt++;
+            NetworkStats.increment(COUNTER_RETRY);
+        }
+    }
+
+    private RetryPolicy resolvePolicy(Request request) {
+        Retry retry = InvocationUtils.getAnnotation(request, Retry.class);
+        if (retry == null) return mDefaultPolicy;
+        RetryPolicy policy = POLICY_CACHE.get(retry);
+        if (policy == null) {
+            policy = RetryPolicy.from(retry);
+            POLICY_CACHE.putIfAbsent(retry, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * 响应重试的等待时长，服务端要求的 Retry-After 超过上限时返回 -1 (不重试)
+     */
+    private long retryDelay(Response response, RetryPolicy policy, int attempt) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                long millis = Long.parseLong(retryAfter.trim()) * 1000;
+                return millis <= policy.getMaxDelayMillis() ? Math.max(millis, 0) : -1;
+            } catch (NumberFormatException ignored) {
+                // HTTP-date 格式按普通退避处理
+            }
+        }
+        return policy.delayMillis(attempt);
+    }
+
+    private Response finish(Response response, IOException failure) throws IOException {
+        if (failure != null) throw failure;
+        return response;
+    }
+
+    /**
+     * 退避等待，期间请求被取消则立即结束
+     */
+    private void sleep(Chain chain, long delayMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + delayMillis;
+        try {
+            long remaining;
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                Thread.sleep(Math.min(remaining, SLEEP_SLICE_MS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Retry interrupted");
+        }
+        if (chain.call().isCanceled()) {
+            throw new IOException("Canceled");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.yzplan.lanbase.http.retry;
+
+import com.yzplan.lanbase.http.exception.CircuitBreakerException;
+import com.yzplan.lanbase.http.exception.OutboxQueuedException;
+import com.yzplan.lanbase.http.utils.InvocationUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import retrofit2.HttpException;
+
+/**
+ * 重试策略
+ * 核心职责：
+ * 1. 判断异常 / HTTP 状态码是否值得重试 (IO 异常、408/429/502/503/504)
+ * 2. 计算退避时长：指数退避 + 全抖动 (full jitter)，避免大量终端同时重试
+ * 使用方式：
+ * - 全局默认：HttpConfig.setRetryPolicy(new RetryPolicy())
+ * - 单接口：&#64;Retry 注解
+ * - Rx 层：RxUtils.retry(policy) / RxUtils.retry(policy, idempotent)
+ */
+public class RetryPolicy {
+    private static final Random RANDOM = new Random();
+    private static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private int maxAttempts = 3;
+    private long baseDelayMillis = 300;
+    private long maxDelayMillis = 5000;
+    private boolean retryNonIdempotent = false;
+
+    static RetryPolicy from(Retry retry) {
+        return new RetryPolicy()
+                .setMaxAttempts(retry.maxAttempts())
+                .setBackoff(retry.baseDelayMillis(), retry.maxDelayMillis())
+                .setRetryNonIdempotent(retry.idempotent());
+    }
+
+    // ================== 链式配置方法 ==================
+
+    /**
+     * 最大尝试次数 (含第一次)
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    /**
+     * 退避时长
+     *
+     * @param baseDelayMillis 基准时长 (毫秒)
+     * @param maxDelayMillis  单次等待上限 (毫秒)
+     */
+    public RetryPolicy setBackoff(long baseDelayMillis, long maxDelayMillis) {
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        return this;
+    }
+
+    /**
+     * 是否重试非幂等请求 (POST/PATCH)，默认 false
+     */
+    public RetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }
+
+    // ================== Getter ==================
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public boolean isRetryNonIdempotent() {
+        return retryNonIdempotent;
+    }
+
+    // ================== 判断与计算 ==================
+
+    /**
+     * 计算第 retry 次重试前的等待时长 (全抖动：0 ~ min(max, base * 2^(retry-1)) 之间随机)
+     *
+     * @param retry 第几次重试，从 1 开始
+     */
+    public long delayMillis(int retry) {
+        int shift = Math.min(Math.max(retry - 1, 0), 30);
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        if (ceiling <= 0) return 0;
+        return (long) (RANDOM.nextDouble() * ceiling);
+    }
+
+    /**
+     * HTTP 状态码是否值得重试
+     */
+    public boolean isRetryable(int httpCode) {
+        return httpCode == 408 || httpCode == 429 || httpCode == 502 || httpCode == 503 || httpCode == 504;
+    }
+
+    /**
+     * 异常是否值得重试 (网络抖动类异常)
+     */
+    public boolean isRetryable(Throwable e) {
+        if (e instanceof HttpException) {
+            return isRetryable(((HttpException) e).code());
+        }
+        if (e instanceof CircuitBreakerException) {
+            // 熔断/舱壁拒绝：立即重试只会继续被拒绝
+            return false;
+        }
+        if (e instanceof OutboxQueuedException) {
+            // 已进入离线发件箱，由 OutboxManager 负责补发
+            return false;
+        }
+        if (e instanceof SSLPeerUnverifiedException) {
+            // 证书问题重试也不会成功
+            return false;
+        }
+        if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            // 被取消/中断
+            return false;
+        }
+        return e instanceof IOException;
+    }
+
+    /**
+     * 请求是否允许重试 (幂等感知，RetryInterceptor 与 RxUtils.retry 共用)
+     * 幂等方法 / 策略允许非幂等 / 接口声明 &#64;Retry(idempotent = true) / 携带 Idempotency-Key 请求头，且 Body 可重复写出
+     */
+    public boolean canRetry(Request request) {
+        RequestBody body = request.body();
+        if (body != null && body.isOneShot()) return false;
+        if (isIdempotent(request.method()) || retryNonIdempotent || request.header(HEADER_IDEMPOTENCY_KEY) != null) {
+            return true;
+        }
+        Retry retry = InvocationUtils.getAnnotation(request, Retry.class);
+        return retry != null && retry.idempotent();
+    }
+
+    /**
+     * 请求方法是否幂等
+     */
+    public static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "PUT".equals(method)
+                || "DELETE".equals(method) || "OPTIONS".equals(method);
+    }
+}
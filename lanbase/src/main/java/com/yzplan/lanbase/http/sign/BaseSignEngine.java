@@ -0,0 +1,200 @@
+package com.yzplan.lanbase.http.sign;
+
+import com.yzplan.lanbase.utils.data.JsonUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 签名引擎基类
+ * 1. 负责排序、Value 字符串化
+ * 2. 将字符串按 UTF-8 编码到线程私有的缓冲区后直接送入摘要，不拼接中间字符串
+ * - 编码结果与拼接后整体 getBytes(UTF_8) 一致，跨 Value 的代理对同样合并为一个码点
+ *
+ * @param <C> 摘要上下文 (MessageDigest / Mac)
+ */
+abstract class BaseSignEngine<C> implements SignEngine {
+    private static final char[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+    // UTF-8 编码缓冲区 (线程私有，避免每个 Value 分配 byte[])
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[1024];
+        }
+    };
+
+    /**
+     * 开始一次签名，返回已重置的线程私有上下文
+     */
+    protected abstract C begin(String salt) throws Exception;
+
+    protected abstract void update(C context, byte[] bytes, int offset, int length);
+
+    /**
+     * 结束签名
+     *
+     * @param length 已送入的字节总数 (Value + suffix)
+     * @return 摘要结果，返回 null 表示结果为空字符串
+     */
+    protected abstract byte[] finish(C context, String salt, long length);
+
+    @Override
+    public String sign(Map<String, ?> params, String salt) {
+        if (params == null || params.isEmpty()) {
+            return signSorted(new ArrayList<String>(0), salt);
+        }
+        // 已是自然排序的 SortedMap 时无需再复制一份
+        SortedMap<String, ?> sortedMap;
+        if (params instanceof SortedMap && ((SortedMap<String, ?>) params).comparator() == null) {
+            sortedMap = (SortedMap<String, ?>) params;
+        } else {
+            sortedMap = new TreeMap<>(params);
+        }
+        List<String> values = new ArrayList<>(sortedMap.size());
+        for (Object value : sortedMap.values()) {
+            if (value == null) continue;
+            if (value instanceof Map || value instanceof List) {
+                values.add(JsonUtil.toJson(value));
+            } else {
+                values.add(value.toString());
+            }
+        }
+        return signSorted(values, salt);
+    }
+
+    @Override
+    public String signSorted(Iterable<String> sortedValues, String salt) {
+        try {
+            C context = begin(salt);
+            Utf8Encoder encoder = new Utf8Encoder(context, threadBuffer());
+            for (String value : sortedValues) {
+                if (value != null) {
+                    encoder.write(value);
+                }
+            }
+            String suffix = suffix(salt);
+            if (suffix != null) {
+                encoder.write(suffix);
+            }
+            byte[] result = finish(context, salt, encoder.flush());
+            return result == null ? "" : bytesToHex(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /**
+     * 拼接在所有 Value 之后、一起参与摘要的内容 (如盐值)，默认没有
+     */
+    protected String suffix(String salt) {
+        return null;
+    }
+
+    /**
+     * 线程私有的编码缓冲区
+     */
+    private static byte[] threadBuffer() {
+        return BUFFER.get();
+    }
+
+    /**
+     * 按 UTF-8 编码依次写入的字符串并分块送入摘要
+     * 结果与「先拼接全部字符串再 getBytes(UTF_8)」逐字节一致：
+     * - 末尾的高代理字符会暂存，与下一个字符串开头的低代理字符合并为一个 4 字节码点
+     * - 孤立的代理字符替换为 '?'
+     * 注意：非线程安全，每次签名创建一个实例
+     */
+    private final class Utf8Encoder {
+        private final C mContext;
+        private final byte[] mBuffer;
+        private final int mLimit;
+        private int mPos;
+        private long mTotal;
+        // 等待与下一个字符配对的高代理字符，0 表示没有
+        private char mPendingHigh;
+
+        Utf8Encoder(C context, byte[] buffer) {
+            mContext = context;
+            mBuffer = buffer;
+            // 每个字符最多写入 4 字节 ('?' + 3 字节字符 或 一个 4 字节码点)
+            mLimit = buffer.length - 4;
+        }
+
+        void write(String s) {
+            byte[] buffer = mBuffer;
+            int len = s.length();
+            for (int i = 0; i < len; i++) {
+                if (mPos > mLimit) {
+                    flushBuffer();
+                }
+                char c = s.charAt(i);
+                if (mPendingHigh != 0) {
+                    char high = mPendingHigh;
+                    mPendingHigh = 0;
+                    if (Character.isLowSurrogate(c)) {
+                        int cp = Character.toCodePoint(high, c);
+                        buffer[mPos++] = (byte) (0xF0 | (cp >> 18));
+                        buffer[mPos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                        buffer[mPos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        buffer[mPos++] = (byte) (0x80 | (cp & 0x3F));
+                        continue;
+                    }
+                    buffer[mPos++] = '?';
+                }
+                if (c < 0x80) {
+                    buffer[mPos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[mPos++] = (byte) (0xC0 | (c >> 6));
+                    buffer[mPos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c)) {
+                    mPendingHigh = c;
+                } else if (Character.isSurrogate(c)) {
+                    buffer[mPos++] = '?';
+                } else {
+                    buffer[mPos++] = (byte) (0xE0 | (c >> 12));
+                    buffer[mPos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[mPos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        /**
+         * 写入剩余数据 (末尾未配对的高代理字符按 '?' 处理)
+         *
+         * @return 编码后的字节总数
+         */
+        long flush() {
+            if (mPendingHigh != 0) {
+                mPendingHigh = 0;
+                if (mPos == mBuffer.length) {
+                    flushBuffer();
+                }
+                mBuffer[mPos++] = '?';
+            }
+            flushBuffer();
+            return mTotal;
+        }
+
+        private void flushBuffer() {
+            if (mPos > 0) {
+                update(mContext, mBuffer, 0, mPos);
+                mTotal += mPos;
+                mPos = 0;
+            }
+        }
+    }
+
+    static String bytesToHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        int index = 0;
+        for (byte b : bytes) {
+            result[index++] = HEX_DIGITS[(b >>> 4) & 0xf];
+            result[index++] = HEX_DIGITS[b & 0xf];
+        }
+        return new String(result);
+    }
+}
@@ -0,0 +1,58 @@
+package com.yzplan.lanbase.http.sign;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 摘要签名引擎 (MD5 / SHA-256)
+ * 规则：摘要(拼接 Value + 盐值)，与 Md5Util.sign 历史算法保持字节级一致
+ */
+public class DigestSignEngine extends BaseSignEngine<MessageDigest> {
+    private final String mAlgorithm;
+    // 线程私有的 MessageDigest，避免每次签名 getInstance
+    private final ThreadLocal<MessageDigest> mDigest = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance(mAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * @param algorithm 摘要算法名，如 "MD5"、"SHA-256"
+     */
+    public DigestSignEngine(String algorithm) {
+        this.mAlgorithm = algorithm;
+    }
+
+    @Override
+    protected MessageDigest begin(String salt) {
+        MessageDigest digest = mDigest.get();
+        digest.reset();
+        return digest;
+    }
+
+    @Override
+    protected void update(MessageDigest digest, byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+    }
+
+    @Override
+    protected String suffix(String salt) {
+        // 与 originalString + salt 的拼接行为一致 (null 盐会拼接为 "null")
+        return String.valueOf(salt);
+    }
+
+    @Override
+    protected byte[] finish(MessageDigest digest, String salt, long length) {
+        // 与 Md5Util.md5 一致：空串返回空
+        if (length == 0) {
+            digest.reset();
+            return null;
+        }
+        return digest.digest();
+    }
+}
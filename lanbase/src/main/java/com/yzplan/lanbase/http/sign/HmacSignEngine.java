@@ -0,0 +1,61 @@
+package com.yzplan.lanbase.http.sign;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC 签名引擎 (如 HmacSHA256)
+ * 规则：HMAC(密钥 = 盐值, 消息 = 拼接 Value)，盐值不参与拼接
+ */
+public class HmacSignEngine extends BaseSignEngine<Mac> {
+    private final String mAlgorithm;
+    // 线程私有的 Mac 及其当前密钥，密钥不变时无需重新 init
+    private final ThreadLocal<MacHolder> mMac = new ThreadLocal<>();
+
+    /**
+     * @param algorithm HMAC 算法名，如 "HmacSHA256"
+     */
+    public HmacSignEngine(String algorithm) {
+        this.mAlgorithm = algorithm;
+    }
+
+    @Override
+    protected Mac begin(String salt) throws Exception {
+        if (salt == null || salt.isEmpty()) {
+            throw new IllegalArgumentException("HMAC 签名密钥不能为空");
+        }
+        MacHolder holder = mMac.get();
+        if (holder == null) {
+            holder = new MacHolder(Mac.getInstance(mAlgorithm));
+            mMac.set(holder);
+        }
+        if (!salt.equals(holder.key)) {
+            holder.mac.init(new SecretKeySpec(salt.getBytes(StandardCharsets.UTF_8), mAlgorithm));
+            holder.key = salt;
+        } else {
+            holder.mac.reset();
+        }
+        return holder.mac;
+    }
+
+    @Override
+    protected void update(Mac mac, byte[] bytes, int offset, int length) {
+        mac.update(bytes, offset, length);
+    }
+
+    @Override
+    protected byte[] finish(Mac mac, String salt, long length) {
+        return mac.doFinal();
+    }
+
+    private static final class MacHolder {
+        final Mac mac;
+        String key;
+
+        MacHolder(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.yzplan.lanbase.http.sign;
+
+import java.util.Map;
+
+/**
+ * 签名引擎
+ * 统一规则：Key 升序排序 -> 依次拼接非 null 的 Value -> 结合盐值/密钥计算摘要 -> 大写 16 进制
+ * 内置实现见 SignEngines (MD5 / SHA-256 / HMAC-SHA256)
+ */
+public interface SignEngine {
+
+    /**
+     * 对参数 Map 签名
+     * Value 为 Map/List 时按 JSON 序列化，其余调用 toString()
+     *
+     * @param params 请求参数
+     * @param salt   盐值 (HMAC 引擎中作为密钥)
+     * @return 签名字符串，失败返回空字符串
+     */
+    String sign(Map<String, ?> params, String salt);
+
+    /**
+     * 对已按 Key 升序排列、且已转为字符串的 Value 签名 (null 会被跳过)
+     *
+     * @param sortedValues 已排序的 Value
+     * @param salt         盐值 (HMAC 引擎中作为密钥)
+     * @return 签名字符串，失败返回空字符串
+     */
+    String signSorted(Iterable<String> sortedValues, String salt);
+}
@@ -0,0 +1,24 @@
+package com.yzplan.lanbase.http.sign;
+
+/**
+ * 内置签名引擎 (均为线程安全，可全局共享)
+ */
+public class SignEngines {
+    /**
+     * MD5(拼接 Value + 盐)，与 Md5Util.sign 一致
+     */
+    public static final SignEngine MD5 = new DigestSignEngine("MD5");
+
+    /**
+     * SHA-256(拼接 Value + 盐)
+     */
+    public static final SignEngine SHA256 = new DigestSignEngine("SHA-256");
+
+    /**
+     * HMAC-SHA256(密钥 = 盐, 消息 = 拼接 Value)
+     */
+    public static final SignEngine HMAC_SHA256 = new HmacSignEngine("HmacSHA256");
+
+    private SignEngines() {
+    }
+}
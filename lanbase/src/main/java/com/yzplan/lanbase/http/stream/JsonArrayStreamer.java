@@ -0,0 +1,190 @@
+package com.yzplan.lanbase.http.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.yzplan.lanbase.http.converter.ResponseCodeHandler;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
+import com.yzplan.lanbase.http.exception.ApiException;
+
+import java.io.IOException;
+
+import io.reactivex.Emitter;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * 单次订阅的解析状态 (Flowable.generate 的 state)
+ * 1. 第一次 next 时执行请求，沿路径定位到数组 (顺带读取顶层的 code/message)
+ * 2. 之后每次 next 只发射一个元素 (跳过 null 元素)
+ * 3. 数组结束后读完剩余字段，code 在数组之后出现时在这里检查
+ * 注意：由 Flowable.generate 保证串行调用，无需同步
+ */
+final class JsonArrayStreamer<T> {
+    private final Call<ResponseBody> mCall;
+    private final Gson mGson;
+    private final TypeAdapter<T> mAdapter;
+    private final String[] mPath;
+    private final ResponseEnvelope mEnvelope;
+
+    private ResponseBody mBody;
+    private JsonReader mReader;
+    // 实际进入的对象层数 (路径中途缺失时小于 mPath.length)
+    private int mDepth;
+    // 是否定位到了数组
+    private boolean mInArray;
+    private String mCode;
+    private String mMessage;
+    private boolean mCodeHandled;
+
+    JsonArrayStreamer(Call<ResponseBody> call, Gson gson, TypeAdapter<T> adapter, String[] path, ResponseEnvelope envelope) {
+        mCall = call;
+        mGson = gson;
+        mAdapter = adapter;
+        mPath = path;
+        mEnvelope = envelope;
+    }
+
+    void next(Emitter<T> emitter) {
+        try {
+            if (mReader == null) {
+                open();
+            }
+            // null 元素不下发，继续读下一个：generate 每次回调必须发射或结束，否则会占用下游的请求数
+            while (mInArray && mReader.hasNext()) {
+                T item = mAdapter.read(mReader);
+                if (item != null) {
+                    emitter.onNext(item);
+                    return;
+                }
+            }
+            finish();
+            emitter.onComplete();
+        } catch (Exception e) {
+            if (mCall.isCanceled()) {
+                // 已取消订阅，异常不再下发
+                emitter.onComplete();
+            } else {
+                emitter.onError(e);
+            }
+        }
+    }
+
+    void close() {
+        if (mBody != null) {
+            mBody.close();
+        } else {
+            mCall.cancel();
+        }
+    }
+
+    /**
+     * 执行请求并定位到数组
+     */
+    private void open() throws Exception {
+        Response<ResponseBody> response = mCall.execute();
+        if (!response.isSuccessful()) {
+            throw new HttpException(response);
+        }
+        mBody = response.body();
+        if (mBody == null) {
+            throw new IOException("Empty response body");
+        }
+        mReader = mGson.newJsonReader(mBody.charStream());
+        while (mDepth < mPath.length) {
+            if (mReader.peek() != JsonToken.BEGIN_OBJECT) {
+                mReader.skipValue();
+                return;
+            }
+            mReader.beginObject();
+            mDepth++;
+            if (!seek(mPath[mDepth - 1])) {
+                return;
+            }
+            checkCode(false);
+        }
+        if (mReader.peek() == JsonToken.BEGIN_ARRAY) {
+            mReader.beginArray();
+            mInArray = true;
+        } else {
+            // null 或其它类型：视为空数组
+            mReader.skipValue();
+        }
+    }
+
+    /**
+     * 在当前对象中查找字段，找到时停在字段值之前；找不到时停在对象末尾
+     */
+    private boolean seek(String field) throws IOException {
+        while (mReader.hasNext()) {
+            String name = mReader.nextName();
+            if (name.equals(field)) return true;
+            readOrSkip(name);
+        }
+        return false;
+    }
+
+    /**
+     * 数组结束后读完剩余内容
+     */
+    private void finish() throws Exception {
+        if (mInArray) {
+            mReader.endArray();
+            mInArray = false;
+        }
+        while (mDepth > 0) {
+            while (mReader.hasNext()) {
+                readOrSkip(mReader.nextName());
+            }
+            mReader.endObject();
+            mDepth--;
+        }
+        checkCode(true);
+    }
+
+    /**
+     * 顶层对象中的外壳字段读取，其它字段跳过
+     */
+    private void readOrSkip(String name) throws IOException {
+        if (mEnvelope != null && mDepth == 1) {
+            if (name.equals(mEnvelope.getCodeField())) {
+                mCode = readString();
+                return;
+            } else if (name.equals(mEnvelope.getMessageField())) {
+                mMessage = readString();
+                return;
+            }
+        }
+        mReader.skipValue();
+    }
+
+    private String readString() throws IOException {
+        JsonToken token = mReader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return mReader.nextString();
+        }
+        mReader.skipValue();
+        return null;
+    }
+
+    /**
+     * 检查外壳 code：已读到 code 时立即检查 (失败则不再解析数组)，文档结束时必须检查
+     */
+    private void checkCode(boolean end) throws ApiException {
+        // 响应本身是数组时没有外壳
+        if (mEnvelope == null || mPath.length == 0 || (mCode == null && !end)) return;
+        if (!mCodeHandled && mCode != null) {
+            mCodeHandled = true;
+            ResponseCodeHandler handler = mEnvelope.getCodeHandler();
+            if (handler != null) {
+                handler.handleResponseCode(mCode);
+            }
+        }
+        if (!mEnvelope.isSuccess(mCode)) {
+            throw new ApiException(mMessage, mCode);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.yzplan.lanbase.http.stream;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 流式读取响应中的 JSON 数组，接口返回 Flowable&lt;T&gt;，每解析出一个元素就发射一个 (支持背压)
+ * 配合 &#64;Streaming 使用才能边下载边解析，否则会先把响应体读入内存 (仍可省去整个列表对象)
+ * 示例 (wanandroid：{"data":{"datas":[...]},"errorCode":0})：
+ * <pre>
+ * &#64;Streaming
+ * &#64;StreamArray("data.datas")
+ * &#64;GET("article/list/{page}/json")
+ * Flowable&lt;Article&gt; streamArticleList(&#64;Path("page") int page);
+ * </pre>
+ * 配置了 ResponseEnvelope 时会同时检查外壳 code，失败时以 ApiException 结束
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamArray {
+    /**
+     * 数组所在路径，按 "." 分隔的字段名，空字符串表示响应本身就是数组
+     */
+    String value() default "";
+}
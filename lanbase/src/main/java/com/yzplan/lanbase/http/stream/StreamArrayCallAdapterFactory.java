@@ -0,0 +1,92 @@
+package com.yzplan.lanbase.http.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+
+/**
+ * &#64;StreamArray 接口的 CallAdapter
+ * 核心职责：
+ * 1. 只处理声明了 &#64;StreamArray 且返回 Flowable&lt;T&gt; 的接口，其余交给 RxJava2CallAdapterFactory
+ * 2. 以 ResponseBody 接收响应，订阅时发起请求，按下游 request 的数量逐个用 JsonReader 解析数组元素
+ * 3. 取消订阅时取消请求；非 2xx 以 HttpException 结束
+ * 注意：与 Retrofit 自带的 Flowable 一样是同步执行，请配合 subscribeOn(Schedulers.io()) 使用
+ */
+public class StreamArrayCallAdapterFactory extends CallAdapter.Factory {
+    private final Gson mGson;
+    private final ResponseEnvelope mEnvelope;
+
+    /**
+     * @param gson     元素反序列化使用的 Gson
+     * @param envelope 响应外壳描述，null 表示不检查 code
+     */
+    public StreamArrayCallAdapterFactory(Gson gson, ResponseEnvelope envelope) {
+        this.mGson = gson;
+        this.mEnvelope = envelope;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        StreamArray streamArray = findAnnotation(annotations);
+        if (streamArray == null || getRawType(returnType) != Flowable.class) {
+            return null;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException("@StreamArray return type must be Flowable<T>");
+        }
+        Type elementType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        return new Adapter<>(mGson.getAdapter(TypeToken.get(elementType)), split(streamArray.value()), mEnvelope);
+    }
+
+    private static StreamArray findAnnotation(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof StreamArray) return (StreamArray) annotation;
+        }
+        return null;
+    }
+
+    private static String[] split(String path) {
+        return path.isEmpty() ? new String[0] : path.split("\\.");
+    }
+
+    private final class Adapter<T> implements CallAdapter<ResponseBody, Flowable<T>> {
+        private final TypeAdapter<T> adapter;
+        private final String[] path;
+        private final ResponseEnvelope envelope;
+
+        Adapter(TypeAdapter<T> adapter, String[] path, ResponseEnvelope envelope) {
+            this.adapter = adapter;
+            this.path = path;
+            this.envelope = envelope;
+        }
+
+        @Override
+        public Type responseType() {
+            return ResponseBody.class;
+        }
+
+        @Override
+        public Flowable<T> adapt(Call<ResponseBody> call) {
+            return Flowable.defer(() -> {
+                Call<ResponseBody> clone = call.clone();
+                return Flowable.generate(
+                        () -> new JsonArrayStreamer<>(clone, mGson, adapter, path, envelope),
+                        (JsonArrayStreamer<T> streamer, Emitter<T> emitter) -> streamer.next(emitter),
+                        JsonArrayStreamer::close)
+                        .doOnCancel(clone::cancel);
+            });
+        }
+    }
+}
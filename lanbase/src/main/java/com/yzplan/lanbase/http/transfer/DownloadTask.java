@@ -0,0 +1,406 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.yzplan.lanbase.http.exception.TransferException;
+import com.yzplan.lanbase.utils.data.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.ObservableEmitter;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 断点续传下载
+ * 核心职责：
+ * 1. 首次用 Range: bytes=0-0 探测总大小与是否支持 Range，支持时拆成多段并行下载 (每段一个连接)
+ * 2. 数据写入 "目标文件.part"，各段进度定期保存，下次从断点继续；用 If-Range 校验文件未被替换，替换了则重新下载
+ * 3. 边下载边计算 MD5 (OrderedDigest)，完成后与期望值比较，一致才重命名为目标文件
+ * 服务端不支持 Range 时只能整体下载，失败后从头开始
+ */
+final class DownloadTask extends TransferTask {
+    static final String KIND = "download";
+    static final String PART_SUFFIX = ".part";
+
+    private final String mUrl;
+    private final String mExpectedMd5;
+    private final File mPart;
+    private DownloadState mState;
+    private OrderedDigest mDigest;
+    // 探测时服务端直接返回了完整内容 (不支持 Range)，由第一个分段直接读取；未被读取时在 download 结束时关闭
+    private Response mPending;
+    private Call mPendingCall;
+
+    DownloadTask(OkHttpClient client, TransferConfig config, TransferStore store, String url, File dest,
+                 String expectedMd5, ObservableEmitter<TransferProgress> emitter) {
+        super(client, config, store, TransferStore.keyOf(KIND, url, dest), dest, emitter);
+        mUrl = url;
+        mExpectedMd5 = expectedMd5;
+        mPart = new File(dest.getPath() + PART_SUFFIX);
+    }
+
+    @Override
+    void execute() throws IOException {
+        try {
+            download();
+        } catch (ResourceChangedException e) {
+            // 服务端文件已更新，已下载的部分作废，重新下载一次
+            if (isCanceled()) throw e;
+            discard();
+            clearAbort();
+            download();
+        }
+    }
+
+    @Override
+    void saveState() {
+        DownloadState state = mState;
+        if (state == null || !state.rangeSupported) return;
+        synchronized (state) {
+            mStore.write(mKey, state);
+        }
+    }
+
+    private void discard() {
+        mState = null;
+        mStore.delete(mKey);
+        mPart.delete();
+    }
+
+    private void download() throws IOException {
+        try {
+            downloadOnce();
+        } finally {
+            closePending();
+        }
+    }
+
+    private void downloadOnce() throws IOException {
+        mState = mStore.read(mKey, DownloadState.class);
+        if (mState != null && !mState.isResumable(mUrl, mPart)) {
+            discard();
+        }
+        if (mState == null) {
+            mState = probe();
+            allocate();
+            saveState();
+        }
+        mTotal = mState.totalBytes;
+        mTransferred.set(mState.downloadedBytes());
+        mDigest = new OrderedDigest();
+        // 续传：先补算已下载的连续部分，之后第一段的数据可以直接边写边算
+        mDigest.catchUp(mPart, mState.contiguousBytes());
+        runSegments();
+
+        long length = mState.totalBytes;
+        String md5 = mDigest.finish(mPart, length);
+        if (mExpectedMd5 != null && !mExpectedMd5.equalsIgnoreCase(md5)) {
+            discard();
+            throw new TransferException("文件校验失败", TransferException.CODE_MD5_MISMATCH);
+        }
+        if (mFile.exists()) mFile.delete();
+        if (!mPart.renameTo(mFile)) {
+            if (!FileUtils.copyFile(mPart, mFile)) throw new IOException("保存文件失败: " + mFile);
+            mPart.delete();
+        }
+        mStore.delete(mKey);
+        complete(length, md5);
+    }
+
+    // ================== 探测与分段 ==================
+
+    private Request.Builder newRequest() {
+        // 不进入磁盘缓存、不使用 gzip (偏移量必须对应原始字节)
+        return new Request.Builder()
+                .url(mUrl)
+                .cacheControl(new CacheControl.Builder().noStore().build())
+                .header("Accept-Encoding", "identity");
+    }
+
+    private DownloadState probe() throws IOException {
+        Call call = newCall(newRequest().header("Range", "bytes=0-0").build());
+        Response response = call.execute();
+        DownloadState state = new DownloadState();
+        state.url = mUrl;
+        state.validator = validatorOf(response);
+        int code = response.code();
+        if (code == 206) {
+            release(call);
+            response.close();
+            state.totalBytes = parseTotal(response.header("Content-Range"));
+            state.rangeSupported = state.totalBytes >= 0;
+        } else if (code == 200) {
+            state.totalBytes = response.body() != null ? response.body().contentLength() : -1;
+            mPending = response;
+            mPendingCall = call;
+        } else {
+            release(call);
+            response.close();
+            throw httpError("下载", code);
+        }
+        if (code == 206 && !state.rangeSupported) {
+            // Content-Range 无法解析，按不支持 Range 处理
+            state.totalBytes = -1;
+        }
+        state.segments = split(state);
+        return state;
+    }
+
+    private List<Segment> split(DownloadState state) {
+        List<Segment> segments = new ArrayList<>();
+        long total = state.totalBytes;
+        int count = 1;
+        if (state.rangeSupported && total > 0) {
+            count = (int) Math.max(1, Math.min(mConfig.getSegmentCount(), total / mConfig.getMinSegmentBytes()));
+        }
+        if (total <= 0) {
+            segments.add(new Segment(0, -1));
+            return segments;
+        }
+        long size = total / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * size;
+            long end = i == count - 1 ? total - 1 : start + size - 1;
+            segments.add(new Segment(start, end));
+        }
+        return segments;
+    }
+
+    private void allocate() throws IOException {
+        FileUtils.makeParentDirs(mPart);
+        try (RandomAccessFile raf = new RandomAccessFile(mPart, "rw")) {
+            raf.setLength(Math.max(0, mState.totalBytes));
+        }
+    }
+
+    // ================== 分段下载 ==================
+
+    private void runSegments() throws IOException {
+        final List<Segment> pending = new ArrayList<>();
+        for (Segment segment : mState.segments) {
+            if (!segment.isComplete()) pending.add(segment);
+        }
+        if (pending.size() <= 1) {
+            for (Segment segment : pending) {
+                downloadWithRetry(segment);
+            }
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(pending.size());
+        final AtomicReference<IOException> error = new AtomicReference<>();
+        for (final Segment segment : pending) {
+            Schedulers.io().scheduleDirect(() -> {
+                try {
+                    downloadWithRetry(segment);
+                    mDigest.catchUp(mPart, mState.contiguousBytes());
+                } catch (IOException e) {
+                    // 一段失败则停止其它分段，已下载的进度会被保存
+                    if (error.compareAndSet(null, e)) abort();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("传输已取消");
+        }
+        if (error.get() != null) throw error.get();
+        checkStopped();
+    }
+
+    private void downloadWithRetry(Segment segment) throws IOException {
+        int failures = 0;
+        while (true) {
+            try {
+                downloadSegment(segment);
+                return;
+            } catch (IOException e) {
+                if (e instanceof ResourceChangedException || !isRetryable(e) || ++failures > mConfig.getMaxRetries()) {
+                    throw e;
+                }
+                saveState();
+                backoff(failures);
+            }
+        }
+    }
+
+    private void downloadSegment(Segment segment) throws IOException {
+        Response response = mPending;
+        Call call = mPendingCall;
+        mPending = null;
+        mPendingCall = null;
+        if (response == null) {
+            Request.Builder builder = newRequest();
+            if (mState.rangeSupported) {
+                builder.header("Range", "bytes=" + segment.position() + "-" + segment.end);
+                if (mState.validator != null) builder.header("If-Range", mState.validator);
+            } else {
+                // 不支持 Range：只能从头下载
+                mTransferred.addAndGet(-segment.downloaded);
+                segment.downloaded = 0;
+            }
+            call = newCall(builder.build());
+            response = call.execute();
+        }
+        try {
+            int code = response.code();
+            if (mState.rangeSupported && code == 200) throw new ResourceChangedException();
+            if (code != 200 && code != 206) throw httpError("下载", code);
+            checkStopped();
+            try (InputStream in = response.body().byteStream()) {
+                write(segment, in);
+            }
+        } finally {
+            response.close();
+            if (call != null) release(call);
+        }
+    }
+
+    private void write(Segment segment, InputStream in) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(mPart, "rw")) {
+            long position = segment.position();
+            long limit = segment.end >= 0 ? segment.end + 1 : Long.MAX_VALUE;
+            raf.seek(position);
+            byte[] buffer = new byte[BUFFER_BYTES];
+            int read;
+            while (position < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - position))) != -1) {
+                raf.write(buffer, 0, read);
+                mDigest.update(position, buffer, 0, read);
+                position += read;
+                synchronized (mState) {
+                    segment.downloaded += read;
+                }
+                addTransferred(read);
+                checkStopped();
+            }
+            if (segment.end < 0) {
+                // 长度未知：读到结束即完成
+                mState.totalBytes = position;
+                mTotal = position;
+            } else if (position < limit) {
+                throw new IOException("连接中断，已下载 " + (position - segment.start) + "/" + (limit - segment.start));
+            }
+        }
+    }
+
+    /**
+     * 关闭探测时保留但没有被分段读取的响应 (探测之后出错)
+     */
+    private void closePending() {
+        Response response = mPending;
+        Call call = mPendingCall;
+        mPending = null;
+        mPendingCall = null;
+        if (response != null) response.close();
+        if (call != null) release(call);
+    }
+
+    // ================== 工具 ==================
+
+    /**
+     * 强 ETag 优先，其次 Last-Modified (弱 ETag 不能用于 If-Range)
+     */
+    private static String validatorOf(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) return etag;
+        return response.header("Last-Modified");
+    }
+
+    /**
+     * 解析 Content-Range: bytes 0-0/12345，总大小未知 (*) 时返回 -1
+     */
+    static long parseTotal(String contentRange) {
+        if (contentRange == null) return -1;
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0) return -1;
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 下载状态 (Gson 序列化保存)
+     */
+    static final class DownloadState {
+        String url;
+        long totalBytes;
+        boolean rangeSupported;
+        String validator;
+        List<Segment> segments;
+
+        long downloadedBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.downloaded;
+            }
+            return bytes;
+        }
+
+        /**
+         * 从文件开头起连续已下载的字节数
+         */
+        synchronized long contiguousBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes = segment.position();
+                if (!segment.isComplete()) break;
+            }
+            return bytes;
+        }
+
+        boolean isResumable(String url, File part) {
+            return rangeSupported && segments != null && !segments.isEmpty() && url.equals(this.url)
+                    && part.exists() && part.length() == totalBytes;
+        }
+    }
+
+    /**
+     * 分段 [start, end]，end 为 -1 表示直到结束 (长度未知)
+     */
+    static final class Segment {
+        long start;
+        long end;
+        long downloaded;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long position() {
+            return start + downloaded;
+        }
+
+        boolean isComplete() {
+            return end >= 0 && position() > end;
+        }
+    }
+
+    /**
+     * If-Range 不匹配 (服务端返回 200 完整内容)，说明文件已被替换
+     */
+    private static final class ResourceChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ResourceChangedException() {
+            super("服务端文件已更新");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.yzplan.lanbase.http.utils.Md5Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+
+/**
+ * 顺序 MD5
+ * 核心职责：
+ * 1. 写入位置正好接在已计算位置之后的数据直接 update (边下载 / 边上传边计算，不重复读文件)
+ * 2. 乱序到达的数据 (其它分段) 先忽略，之后通过 catchUp 从文件补算，补算完成后又能接上正在写入的分段
+ * 3. 重复写入 (重试) 的数据只计算一次
+ */
+final class OrderedDigest {
+    private static final int READ_BYTES = 64 * 1024;
+
+    private final MessageDigest mDigest = Md5Util.newMd5();
+    private long mPosition;
+
+    /**
+     * 数据已写入文件 (或已发送)
+     *
+     * @param position 数据在文件中的起始位置
+     */
+    synchronized void update(long position, byte[] buffer, int offset, int length) {
+        long end = position + length;
+        if (position > mPosition || end <= mPosition) return;
+        int skip = (int) (mPosition - position);
+        mDigest.update(buffer, offset + skip, length - skip);
+        mPosition = end;
+    }
+
+    long getPosition() {
+        synchronized (this) {
+            return mPosition;
+        }
+    }
+
+    /**
+     * 从文件补算到 upTo (不含)，每次只持锁读一块，不阻塞正在写入的分段
+     */
+    void catchUp(File file, long upTo) throws IOException {
+        byte[] buffer = new byte[READ_BYTES];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            while (true) {
+                synchronized (this) {
+                    if (mPosition >= upTo) return;
+                    raf.seek(mPosition);
+                    int read = raf.read(buffer, 0, (int) Math.min(buffer.length, upTo - mPosition));
+                    if (read <= 0) throw new IOException("文件长度不足: " + file);
+                    mDigest.update(buffer, 0, read);
+                    mPosition += read;
+                }
+            }
+        }
+    }
+
+    /**
+     * 补算剩余部分并返回 MD5 (调用后不能再使用)
+     */
+    String finish(File file, long length) throws IOException {
+        catchUp(file, length);
+        synchronized (this) {
+            return Md5Util.toHex(mDigest);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.yzplan.lanbase.http.transfer;
+
+import java.io.File;
+
+/**
+ * 文件传输配置
+ * 通过 TransferManager.setConfig 设置，未设置时状态保存在 filesDir/transfer
+ */
+public class TransferConfig {
+    // 任务状态 (分段进度、上传地址) 保存目录
+    private final File stateDir;
+    // 并行下载的分段数 (服务端不支持 Range 时固定为 1)
+    private int segmentCount = 3;
+    // 每段至少多大才拆分 (字节)，小文件只用一个连接
+    private long minSegmentBytes = 4 * 1024 * 1024;
+    // 上传分块大小 (字节)
+    private int chunkBytes = 1024 * 1024;
+    // 单个分段 / 分块连续失败的重试次数 (之后按已完成的进度保存状态并报错)
+    private int maxRetries = 3;
+    // 重试间隔 (毫秒，按次数线性递增)
+    private long retryDelayMillis = 1000;
+    // 进度回调与状态保存的最小间隔 (毫秒)
+    private long progressIntervalMillis = 200;
+    // 分块上传协议
+    private UploadProtocol uploadProtocol = new TusUploadProtocol();
+
+    public TransferConfig(File stateDir) {
+        this.stateDir = stateDir;
+    }
+
+    public TransferConfig setSegments(int segmentCount, long minSegmentBytes) {
+        this.segmentCount = Math.max(1, segmentCount);
+        this.minSegmentBytes = Math.max(1, minSegmentBytes);
+        return this;
+    }
+
+    public TransferConfig setChunkBytes(int chunkBytes) {
+        this.chunkBytes = Math.max(1, chunkBytes);
+        return this;
+    }
+
+    public TransferConfig setRetry(int maxRetries, long retryDelayMillis) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryDelayMillis = Math.max(0, retryDelayMillis);
+        return this;
+    }
+
+    public TransferConfig setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = Math.max(0, progressIntervalMillis);
+        return this;
+    }
+
+    /**
+     * 服务端不是 tus 协议时替换
+     */
+    public TransferConfig setUploadProtocol(UploadProtocol uploadProtocol) {
+        if (uploadProtocol != null) this.uploadProtocol = uploadProtocol;
+        return this;
+    }
+
+    public File getStateDir() {
+        return stateDir;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public long getMinSegmentBytes() {
+        return minSegmentBytes;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+
+    public UploadProtocol getUploadProtocol() {
+        return uploadProtocol;
+    }
+}
@@ -0,0 +1,140 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.yzplan.lanbase.BaseApp;
+import com.yzplan.lanbase.http.RetrofitClient;
+import com.yzplan.lanbase.http.exception.TransferException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.OkHttpClient;
+
+/**
+ * 大文件传输管理 (断点续传下载 / 分块上传)
+ * 核心职责：
+ * 1. 使用 RetrofitClient 的全局 Client (共享连接池)，不经过业务拦截器与磁盘缓存
+ * 2. 进度通过 Observable 回调 (节流)，最后一次回调 isCompleted() 为 true 并携带 MD5
+ * 3. 任务状态保存在 TransferConfig.stateDir，取消订阅 / 失败 / 进程被杀后，以相同参数再次调用即可续传
+ * 4. 同一个文件同时只允许一个任务
+ * 使用示例：
+ * TransferManager.getInstance().download(url, file, md5)
+ * .compose(RxUtils.applySchedulers())
+ * .subscribe(progress -> ..., error -> ...);
+ */
+public class TransferManager {
+    private static volatile TransferManager sInstance;
+
+    private volatile TransferConfig mConfig;
+    private volatile TransferStore mStore;
+    private final Set<String> mActive = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private TransferManager() {
+    }
+
+    public static TransferManager getInstance() {
+        if (sInstance == null) {
+            synchronized (TransferManager.class) {
+                if (sInstance == null) {
+                    sInstance = new TransferManager();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 设置传输配置 (建议在 BaseApp.init 之后调用，只影响之后创建的任务)
+     */
+    public synchronized TransferManager setConfig(TransferConfig config) {
+        if (config != null) {
+            mConfig = config;
+            mStore = new TransferStore(config.getStateDir());
+        }
+        return this;
+    }
+
+    public synchronized TransferConfig getConfig() {
+        if (mConfig == null) {
+            setConfig(new TransferConfig(new File(BaseApp.getContext().getFilesDir(), "transfer")));
+        }
+        return mConfig;
+    }
+
+    /**
+     * 下载文件 (支持断点续传、多连接分段下载)
+     *
+     * @param url  下载地址
+     * @param dest 保存位置 (下载过程中写入 dest.part，完成后重命名)
+     */
+    public Observable<TransferProgress> download(String url, File dest) {
+        return download(url, dest, null);
+    }
+
+    /**
+     * 下载文件并校验 MD5
+     *
+     * @param md5 期望的 MD5 (不区分大小写)，null 表示不校验；不一致时抛出 TransferException (CODE_MD5_MISMATCH)
+     */
+    public Observable<TransferProgress> download(String url, File dest, String md5) {
+        String key = TransferStore.keyOf(DownloadTask.KIND, url, dest);
+        return run(key, emitter -> new DownloadTask(client(), getConfig(), getStore(), url, dest, md5, emitter));
+    }
+
+    /**
+     * 分块上传文件 (支持断点续传，协议见 TransferConfig.setUploadProtocol)
+     *
+     * @param endpoint 上传入口地址
+     * @param file     待上传文件
+     */
+    public Observable<TransferProgress> upload(String endpoint, File file) {
+        String key = TransferStore.keyOf(UploadTask.KIND, endpoint, file);
+        return run(key, emitter -> new UploadTask(client(), getConfig(), getStore(), endpoint, file, emitter));
+    }
+
+    /**
+     * 放弃未完成的下载 (删除临时文件与进度)
+     */
+    public void discardDownload(String url, File dest) {
+        getStore().delete(TransferStore.keyOf(DownloadTask.KIND, url, dest));
+        new File(dest.getPath() + DownloadTask.PART_SUFFIX).delete();
+    }
+
+    /**
+     * 放弃未完成的上传 (下次从头上传)
+     */
+    public void discardUpload(String endpoint, File file) {
+        getStore().delete(TransferStore.keyOf(UploadTask.KIND, endpoint, file));
+    }
+
+    private TransferStore getStore() {
+        getConfig();
+        return mStore;
+    }
+
+    private OkHttpClient client() {
+        return RetrofitClient.getInstance().getGlobalClient();
+    }
+
+    private Observable<TransferProgress> run(String key, TaskFactory factory) {
+        return Observable.<TransferProgress>create(emitter -> {
+            if (!mActive.add(key)) {
+                emitter.tryOnError(new TransferException("文件正在传输", TransferException.CODE_BUSY));
+                return;
+            }
+            try {
+                factory.create(emitter.serialize()).run();
+            } finally {
+                mActive.remove(key);
+            }
+        }).subscribeOn(Schedulers.io());
+    }
+
+    private interface TaskFactory {
+        TransferTask create(ObservableEmitter<TransferProgress> emitter);
+    }
+}
@@ -0,0 +1,57 @@
+package com.yzplan.lanbase.http.transfer;
+
+import java.io.File;
+
+/**
+ * 传输进度 (不可变)
+ * 最后一次回调 isCompleted() 为 true，并携带文件的 MD5
+ */
+public final class TransferProgress {
+    private final File file;
+    private final long transferredBytes;
+    private final long totalBytes;
+    private final boolean completed;
+    private final String md5;
+
+    TransferProgress(File file, long transferredBytes, long totalBytes, boolean completed, String md5) {
+        this.file = file;
+        this.transferredBytes = transferredBytes;
+        this.totalBytes = totalBytes;
+        this.completed = completed;
+        this.md5 = md5;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * 总大小，服务端未返回长度时为 -1
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 百分比 (0 ~ 100)，总大小未知时返回 -1
+     */
+    public int getPercent() {
+        if (totalBytes <= 0) return completed ? 100 : -1;
+        return (int) Math.min(100, transferredBytes * 100 / totalBytes);
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 文件 MD5 (大写 16 进制，与 Md5Util.getFileMD5 一致)，仅完成时有值
+     */
+    public String getMd5() {
+        return md5;
+    }
+}
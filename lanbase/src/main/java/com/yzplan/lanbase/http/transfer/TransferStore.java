@@ -0,0 +1,62 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.google.gson.Gson;
+import com.yzplan.lanbase.http.utils.Md5Util;
+import com.yzplan.lanbase.utils.log.L;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 任务状态存储
+ * 每个任务一个 JSON 文件 (文件名为 类型 + 地址 + 本地路径 的 MD5)，先写临时文件再重命名，进程被杀也不会留下半个文件
+ */
+final class TransferStore {
+    private static final String TAG = "TransferStore";
+    private static final Gson GSON = new Gson();
+
+    private final File mDir;
+
+    TransferStore(File dir) {
+        mDir = dir;
+    }
+
+    static String keyOf(String kind, String url, File file) {
+        return Md5Util.md5(kind + "|" + url + "|" + file.getAbsolutePath());
+    }
+
+    <T> T read(String key, Class<T> type) {
+        File file = new File(mDir, key + ".json");
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, type);
+        } catch (Exception e) {
+            L.e(TAG, "读取传输状态失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    void write(String key, Object state) {
+        if (!mDir.exists() && !mDir.mkdirs()) return;
+        File tmp = new File(mDir, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(GSON.toJson(state).getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            L.e(TAG, "保存传输状态失败: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(new File(mDir, key + ".json"))) {
+            L.e(TAG, "保存传输状态失败: rename " + tmp);
+        }
+    }
+
+    void delete(String key) {
+        new File(mDir, key + ".json").delete();
+    }
+}
@@ -0,0 +1,187 @@
+package com.yzplan.lanbase.http.transfer;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.exception.TransferException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.ObservableEmitter;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * 传输任务基类
+ * 核心职责：
+ * 1. 记录发出的 Call，取消订阅或任务失败时统一 cancel
+ * 2. 按间隔节流进度回调，同时保存任务状态 (进程被杀后从最近一次保存的位置续传)
+ * 3. 统一的重试判断：网络异常与 5xx/408/429 可重试，取消与其它 HTTP 错误不重试
+ */
+abstract class TransferTask implements Call.Factory {
+    static final int BUFFER_BYTES = 8 * 1024;
+
+    final OkHttpClient mClient;
+    final TransferConfig mConfig;
+    final TransferStore mStore;
+    final String mKey;
+    final File mFile;
+    final AtomicLong mTransferred = new AtomicLong();
+    volatile long mTotal = -1;
+
+    private final ObservableEmitter<TransferProgress> mEmitter;
+    private final Set<Call> mCalls = Collections.newSetFromMap(new ConcurrentHashMap<Call, Boolean>());
+    // 取消订阅 (不可恢复)
+    private volatile boolean mCanceled;
+    // 某个分段失败，停止本轮其它分段 (重新开始时清除)
+    private volatile boolean mAborted;
+    private long mLastEmit;
+
+    TransferTask(OkHttpClient client, TransferConfig config, TransferStore store, String key, File file,
+                 ObservableEmitter<TransferProgress> emitter) {
+        mClient = client;
+        mConfig = config;
+        mStore = store;
+        mKey = key;
+        mFile = file;
+        mEmitter = emitter;
+        emitter.setCancellable(this::cancel);
+    }
+
+    /**
+     * 执行传输，完成后调用 complete
+     */
+    abstract void execute() throws IOException;
+
+    /**
+     * 保存当前进度
+     */
+    abstract void saveState();
+
+    final void run() {
+        try {
+            execute();
+        } catch (Throwable e) {
+            saveState();
+            if (!mEmitter.isDisposed()) mEmitter.tryOnError(e);
+        }
+    }
+
+    // ================== Call 管理 ==================
+
+    @NonNull
+    @Override
+    public Call newCall(@NonNull Request request) {
+        Call call = mClient.newCall(request);
+        mCalls.add(call);
+        if (isStopped()) call.cancel();
+        return call;
+    }
+
+    void release(Call call) {
+        mCalls.remove(call);
+    }
+
+    void releaseAll() {
+        mCalls.clear();
+    }
+
+    /**
+     * 取消订阅：进行中的请求立即中断，进度已保存
+     */
+    void cancel() {
+        mCanceled = true;
+        cancelCalls();
+    }
+
+    /**
+     * 停止本轮传输 (其它分段已失败)
+     */
+    void abort() {
+        mAborted = true;
+        cancelCalls();
+    }
+
+    void clearAbort() {
+        mAborted = false;
+    }
+
+    private void cancelCalls() {
+        for (Call call : mCalls) {
+            call.cancel();
+        }
+    }
+
+    boolean isCanceled() {
+        return mCanceled;
+    }
+
+    boolean isStopped() {
+        return mCanceled || mAborted;
+    }
+
+    void checkStopped() throws InterruptedIOException {
+        if (isStopped()) throw new InterruptedIOException("传输已取消");
+    }
+
+    // ================== 重试 ==================
+
+    boolean isRetryable(IOException e) {
+        if (isStopped() || e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            return false;
+        }
+        if (e instanceof TransferException) return ((TransferException) e).isRetryable();
+        return true;
+    }
+
+    /**
+     * 第 failures 次失败后等待
+     */
+    void backoff(int failures) throws InterruptedIOException {
+        try {
+            Thread.sleep(mConfig.getRetryDelayMillis() * failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("传输已取消");
+        }
+        checkStopped();
+    }
+
+    // ================== 进度 ==================
+
+    void addTransferred(long bytes) {
+        mTransferred.addAndGet(bytes);
+        maybeEmit();
+    }
+
+    void setTransferred(long bytes) {
+        mTransferred.set(bytes);
+        maybeEmit();
+    }
+
+    private void maybeEmit() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - mLastEmit < mConfig.getProgressIntervalMillis()) return;
+            mLastEmit = now;
+        }
+        saveState();
+        mEmitter.onNext(new TransferProgress(mFile, mTransferred.get(), mTotal, false, null));
+    }
+
+    void complete(long total, String md5) {
+        mEmitter.onNext(new TransferProgress(mFile, total, total, true, md5));
+        mEmitter.onComplete();
+    }
+
+    static TransferException httpError(String action, int code) {
+        return new TransferException(action + "失败(" + code + ")", TransferException.CODE_HTTP, code);
+    }
+}
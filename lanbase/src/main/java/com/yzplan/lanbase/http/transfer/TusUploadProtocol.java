@@ -0,0 +1,81 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.yzplan.lanbase.http.exception.TransferException;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.ByteString;
+
+/**
+ * tus 1.0 断点续传协议 (https://tus.io/protocols/resumable-upload)
+ * 1. POST 入口地址 (Upload-Length) -> 201 + Location
+ * 2. HEAD 上传地址 -> Upload-Offset
+ * 3. PATCH 上传地址 (Upload-Offset + application/offset+octet-stream) -> 204 + 新的 Upload-Offset
+ */
+public class TusUploadProtocol implements UploadProtocol {
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String HEADER_OFFSET = "Upload-Offset";
+
+    @Override
+    public String create(Call.Factory client, String endpoint, File file) throws IOException {
+        Request request = new Request.Builder()
+                .url(endpoint)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Length", String.valueOf(file.length()))
+                .header("Upload-Metadata", "filename " + ByteString.encodeUtf8(file.getName()).base64())
+                .post(RequestBody.create(null, new byte[0]))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            String location = response.header("Location");
+            if (response.code() != 201 || location == null) {
+                throw TransferTask.httpError("创建上传", response.code());
+            }
+            HttpUrl url = request.url().resolve(location);
+            if (url == null) {
+                throw new TransferException("无效的上传地址: " + location, TransferException.CODE_HTTP, response.code());
+            }
+            return url.toString();
+        }
+    }
+
+    @Override
+    public long queryOffset(Call.Factory client, String uploadUrl) throws IOException {
+        Request request = new Request.Builder()
+                .url(uploadUrl)
+                .header("Tus-Resumable", TUS_VERSION)
+                .head()
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) throw TransferTask.httpError("查询上传进度", response.code());
+            return parseOffset(response);
+        }
+    }
+
+    @Override
+    public long upload(Call.Factory client, String uploadUrl, long offset, RequestBody chunk) throws IOException {
+        Request request = new Request.Builder()
+                .url(uploadUrl)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header(HEADER_OFFSET, String.valueOf(offset))
+                .patch(chunk)
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) throw TransferTask.httpError("上传", response.code());
+            return parseOffset(response);
+        }
+    }
+
+    private static long parseOffset(Response response) throws TransferException {
+        try {
+            return Long.parseLong(response.header(HEADER_OFFSET, "").trim());
+        } catch (NumberFormatException e) {
+            throw new TransferException("缺少 " + HEADER_OFFSET, TransferException.CODE_HTTP, response.code());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.yzplan.lanbase.http.transfer;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.RequestBody;
+
+/**
+ * 分块上传协议
+ * 默认实现为 tus 1.0 (TusUploadProtocol)，服务端使用其它断点续传方案时实现该接口
+ * 注意：请求必须通过传入的 Call.Factory 创建，取消任务时才能中断
+ */
+public interface UploadProtocol {
+    /**
+     * 创建上传任务
+     *
+     * @param client   用于发起请求
+     * @param endpoint 上传入口地址
+     * @param file     待上传文件
+     * @return 本次上传的地址 (后续查询 / 分块上传使用，会被保存用于续传)
+     */
+    String create(Call.Factory client, String endpoint, File file) throws IOException;
+
+    /**
+     * 查询服务端已接收的字节数
+     * 上传地址已失效时抛出 TransferException (httpCode 为 404 或 410)，会重新 create
+     */
+    long queryOffset(Call.Factory client, String uploadUrl) throws IOException;
+
+    /**
+     * 上传一个分块
+     *
+     * @param offset 分块在文件中的起始位置
+     * @param chunk  分块数据 (可重复写出)
+     * @return 服务端确认后的新偏移量
+     */
+    long upload(Call.Factory client, String uploadUrl, long offset, RequestBody chunk) throws IOException;
+}
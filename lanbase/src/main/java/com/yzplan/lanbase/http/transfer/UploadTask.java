@@ -0,0 +1,165 @@
+package com.yzplan.lanbase.http.transfer;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.http.exception.TransferException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import io.reactivex.ObservableEmitter;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 分块断点续传上传
+ * 核心职责：
+ * 1. 通过 UploadProtocol 创建上传地址并保存，续传时先向服务端查询已接收的字节数 (以服务端为准)
+ * 2. 按 chunkBytes 从文件直接读取分块上传，不把整个文件读入内存
+ * 3. 边上传边计算 MD5，续传时先补算已上传部分，完成时随进度返回
+ * 分块失败时重新查询偏移量再继续；上传地址失效 (404/410) 时重新创建
+ */
+final class UploadTask extends TransferTask {
+    static final String KIND = "upload";
+    private static final MediaType OCTET_STREAM = MediaType.get("application/offset+octet-stream");
+
+    private final String mEndpoint;
+    private final UploadProtocol mProtocol;
+    private final OrderedDigest mDigest = new OrderedDigest();
+    private UploadState mState;
+
+    UploadTask(OkHttpClient client, TransferConfig config, TransferStore store, String endpoint, File file,
+               ObservableEmitter<TransferProgress> emitter) {
+        super(client, config, store, TransferStore.keyOf(KIND, endpoint, file), file, emitter);
+        mEndpoint = endpoint;
+        mProtocol = config.getUploadProtocol();
+    }
+
+    @Override
+    void execute() throws IOException {
+        if (!mFile.isFile()) throw new IOException("文件不存在: " + mFile);
+        long total = mFile.length();
+        mTotal = total;
+        mState = mStore.read(mKey, UploadState.class);
+        if (mState == null || mState.totalBytes != total || mState.lastModified != mFile.lastModified()) {
+            // 文件已变化，之前的上传作废
+            mState = new UploadState();
+            mState.totalBytes = total;
+            mState.lastModified = mFile.lastModified();
+        }
+        long offset = -1;
+        int failures = 0;
+        while (true) {
+            try {
+                if (offset < 0) offset = syncOffset();
+                if (offset >= total) break;
+                int length = (int) Math.min(mConfig.getChunkBytes(), total - offset);
+                offset = mProtocol.upload(this, mState.uploadUrl, offset, new ChunkBody(offset, length));
+                releaseAll();
+                mState.offset = offset;
+                setTransferred(offset);
+                failures = 0;
+            } catch (IOException e) {
+                releaseAll();
+                if (!isRetryable(e) || ++failures > mConfig.getMaxRetries()) throw e;
+                backoff(failures);
+                // 服务端可能已收到部分数据，重新查询
+                offset = -1;
+            }
+        }
+        String md5 = mDigest.finish(mFile, total);
+        mStore.delete(mKey);
+        complete(total, md5);
+    }
+
+    @Override
+    void saveState() {
+        UploadState state = mState;
+        if (state != null && state.uploadUrl != null) mStore.write(mKey, state);
+    }
+
+    /**
+     * 确保上传地址可用并返回服务端已接收的字节数
+     */
+    private long syncOffset() throws IOException {
+        long offset;
+        if (mState.uploadUrl == null) {
+            create();
+            offset = 0;
+        } else {
+            try {
+                offset = mProtocol.queryOffset(this, mState.uploadUrl);
+            } catch (TransferException e) {
+                if (e.getHttpCode() != 404 && e.getHttpCode() != 410) throw e;
+                create();
+                offset = 0;
+            }
+        }
+        mState.offset = offset;
+        mTransferred.set(offset);
+        // 补算服务端已接收部分的 MD5 (之前的进程上传的)
+        mDigest.catchUp(mFile, offset);
+        return offset;
+    }
+
+    private void create() throws IOException {
+        mState.uploadUrl = mProtocol.create(this, mEndpoint, mFile);
+        mState.offset = 0;
+        saveState();
+    }
+
+    /**
+     * 文件分块 (从文件直接读取，可重复写出)
+     */
+    private final class ChunkBody extends RequestBody {
+        private final long mStart;
+        private final int mLength;
+
+        ChunkBody(long start, int length) {
+            mStart = start;
+            mLength = length;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public long contentLength() {
+            return mLength;
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(mFile, "r")) {
+                raf.seek(mStart);
+                byte[] buffer = new byte[BUFFER_BYTES];
+                long position = mStart;
+                long end = mStart + mLength;
+                while (position < end) {
+                    int read = raf.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+                    if (read == -1) throw new IOException("文件长度不足: " + mFile);
+                    sink.write(buffer, 0, read);
+                    mDigest.update(position, buffer, 0, read);
+                    position += read;
+                    setTransferred(position);
+                    checkStopped();
+                }
+            }
+        }
+    }
+
+    /**
+     * 上传状态 (Gson 序列化保存)
+     */
+    static final class UploadState {
+        String uploadUrl;
+        long totalBytes;
+        long lastModified;
+        long offset;
+    }
+}
@@ -0,0 +1,53 @@
+package com.yzplan.lanbase.http.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * Retrofit 方法注解读取工具
+ * 通过 Request 上的 Invocation tag 找到对应的接口方法，读取方法注解 (带缓存，避免每次请求都反射)
+ */
+public class InvocationUtils {
+    // 占位对象：表示该方法上没有此注解
+    private static final Object NONE = new Object();
+    private static final ConcurrentHashMap<Method, ConcurrentHashMap<Class<?>, Object>> CACHE = new ConcurrentHashMap<>();
+
+    private InvocationUtils() {
+    }
+
+    /**
+     * 获取请求对应的 Retrofit 接口方法，非 Retrofit 发起的请求返回 null
+     */
+    public static Method getMethod(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null ? invocation.method() : null;
+    }
+
+    /**
+     * 获取请求对应接口方法上的注解
+     *
+     * @return 注解实例，没有则返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <A extends Annotation> A getAnnotation(Request request, Class<A> annotationClass) {
+        Method method = getMethod(request);
+        if (method == null) return null;
+        ConcurrentHashMap<Class<?>, Object> annotations = CACHE.get(method);
+        if (annotations == null) {
+            ConcurrentHashMap<Class<?>, Object> created = new ConcurrentHashMap<>();
+            annotations = CACHE.putIfAbsent(method, created);
+            if (annotations == null) annotations = created;
+        }
+        Object value = annotations.get(annotationClass);
+        if (value == null) {
+            A annotation = method.getAnnotation(annotationClass);
+            value = annotation != null ? annotation : NONE;
+            annotations.put(annotationClass, value);
+        }
+        return value == NONE ? null : (A) value;
+    }
+}
@@ -2,7 +2,7 @@ package com.yzplan.lanbase.http.utils;
 
 import android.text.TextUtils;
 
-import com.yzplan.lanbase.utils.data.JsonUtil;
+import com.yzplan.lanbase.http.sign.SignEngines;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -10,9 +10,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * Md5加密与签名工具类
@@ -57,6 +56,24 @@ public class Md5Util {
         }
     }
 
+    /**
+     * 创建 MD5 摘要，用于边读写边计算 (分块传输时逐块 update，最后调用 toHex)
+     */
+    public static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 结束摘要计算并转换为 16 进制字符串 (与 getFileMD5 格式一致)
+     */
+    public static String toHex(MessageDigest digest) {
+        return bytesToHex(digest.digest());
+    }
+
     /**
      * 计算字符串的 MD5
      *
@@ -96,6 +113,7 @@ public class Md5Util {
     /**
      * 签名算法
      * 逻辑：Key 升序排序 -> 拼接 Value -> 拼接盐 -> MD5
+     * 实现委托给 SignEngines.MD5 (线程私有摘要、不拼接中间字符串)，结果与历史算法一致
      *
      * @param parameter 请求参数 Map
      * @param salt      盐值
@@ -105,21 +123,18 @@ public class Md5Util {
         if (parameter == null) {
             return md5(salt);
         }
-        SortedMap<String, Object> sortedMap = new TreeMap<>(parameter);
-        StringBuilder sb = new StringBuilder();
-        for (Object value : sortedMap.values()) {
-            if (value != null) {
-                String strVal;
-                if (value instanceof Map || value instanceof java.util.List) {
-                    strVal = JsonUtil.toJson(value);
-                } else {
-                    strVal = value.toString();
-                }
-                sb.append(strVal);
-            }
-        }
-        String originalString = sb.toString();
-        return md5(originalString + salt);
+        return SignEngines.MD5.sign(parameter, salt);
     }
 
-}
\ No newline at end of file
+    /**
+     * 签名算法 (已排序版本)
+     * 直接按顺序把 Value 与盐的 UTF-8 字节送入摘要，不拼接中间字符串，结果与 sign(Map, String) 一致
+     *
+     * @param sortedValues 按 Key 升序排列的 Value (已转为字符串，null 会被跳过)
+     * @param salt         盐值
+     * @return 签名字符串
+     */
+    public static String signSorted(Collection<String> sortedValues, String salt) {
+        return SignEngines.MD5.signSorted(sortedValues, salt);
+    }
+}
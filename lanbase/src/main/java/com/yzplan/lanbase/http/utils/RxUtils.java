@@ -3,10 +3,17 @@ package com.yzplan.lanbase.http.utils;
 
 import com.yzplan.lanbase.base.BaseResponse;
 import com.yzplan.lanbase.http.exception.ApiException;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+import com.yzplan.lanbase.http.retry.RetryBudget;
+import com.yzplan.lanbase.http.retry.RetryInterceptor;
+import com.yzplan.lanbase.http.retry.RetryPolicy;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
@@ -16,6 +23,8 @@ import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 import io.reactivex.schedulers.Schedulers;
+import retrofit2.HttpException;
+import retrofit2.Response;
 
 public class RxUtils {
 
@@ -43,6 +52,82 @@ public class RxUtils {
                 });
     }
 
+    /**
+     * 统一线程处理 (数据已由 EnvelopeConverterFactory 剥离，无需再 flatMap)
+     *
+     * @param <T> 核心数据类型
+     */
+    public static <T> SingleTransformer<T, T> applySchedulers() {
+        return upstream -> upstream
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * 流式列表分批 (配合 @StreamArray 接口)：子线程解析，每凑满 chunkSize 个元素切回主线程发射一批
+     * 按数量分批不破坏背压，主线程处理不过来时上游会暂停解析
+     *
+     * @param chunkSize 每批元素个数
+     */
+    public static <T> FlowableTransformer<T, List<T>> chunked(int chunkSize) {
+        return upstream -> upstream
+                .subscribeOn(Schedulers.io())
+                .buffer(Math.max(1, chunkSize))
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    /**
+     * 重试 (指数退避 + 抖动，受全局 RetryBudget 限制)
+     * 只重试网络异常与 408/429/502/503/504，ApiException 等业务错误直接下发
+     * 幂等感知 (与 RetryInterceptor 一致)，只有确认幂等时才重试：
+     * - HTTP 错误：按实际请求判断 (幂等方法 / &#64;Retry(idempotent = true) / Idempotency-Key 请求头)
+     * - 网络异常拿不到请求信息，视为非幂等不重试；确认幂等的接口请使用 retry(policy, true)
+     * - policy.setRetryNonIdempotent(true) 时不做幂等限制
+     * 注意：与 RetryInterceptor 二选一，否则重试次数会叠加
+     *
+     * @param policy 重试策略
+     */
+    public static <T> SingleTransformer<T, T> retry(RetryPolicy policy) {
+        return retry(policy, false);
+    }
+
+    /**
+     * 重试 (由调用方声明接口是否幂等)
+     * 用法：send(mApi.getBanner().compose(RxUtils.retry(policy, true)), callback)
+     *
+     * @param policy     重试策略
+     * @param idempotent 接口是否幂等 (GET 等幂等方法，或服务端按幂等键去重的 POST)；false 时按 retry(policy) 的规则判断
+     */
+    public static <T> SingleTransformer<T, T> retry(RetryPolicy policy, boolean idempotent) {
+        return upstream -> Single.defer(() -> {
+            RetryBudget budget = RetryBudget.getGlobal();
+            budget.deposit();
+            int[] attempt = {1};
+            return upstream.retryWhen(errors -> errors.flatMap(e -> {
+                if (attempt[0] >= policy.getMaxAttempts() || !policy.isRetryable(e)
+                        || !(idempotent || canRetry(e, policy))) {
+                    return Flowable.error(e);
+                }
+                if (!budget.tryAcquire()) {
+                    NetworkStats.increment(RetryInterceptor.COUNTER_BUDGET_REJECTED);
+                    return Flowable.error(e);
+                }
+                NetworkStats.increment(RetryInterceptor.COUNTER_RETRY);
+                return Flowable.timer(policy.delayMillis(attempt[0]++), TimeUnit.MILLISECONDS);
+            }));
+        });
+    }
+
+    /**
+     * 未声明幂等时，从 HTTP 错误携带的请求判断能否重试
+     */
+    private static boolean canRetry(Throwable e, RetryPolicy policy) {
+        if (policy.isRetryNonIdempotent()) return true;
+        if (!(e instanceof HttpException)) return false;
+        Response<?> response = ((HttpException) e).response();
+        return response != null && policy.canRetry(response.raw().request());
+    }
+
     // ==================== 1. 延迟执行 (Timer) ====================
 
     /**
@@ -48,6 +48,7 @@ public class RecycleViewHelper<T> {
     private int startPageNo = 1;
     private int pageSize = 10;
     private boolean mEnableRefresh = true; // 默认开启刷新
+    private int mChunkReceived = -1; // 本次分批加载已收到的条数，-1 表示不在分批加载中
     private View emptyView;
 
     // --- 回调接口 ---
@@ -90,6 +91,7 @@ public class RecycleViewHelper<T> {
             @Override
             public void onRefresh(@NonNull RefreshLayout refreshLayout) {
                 pageNo = startPageNo; // 重置页码
+                mChunkReceived = -1;
                 refreshLayout.setNoMoreData(false); // 重置"没有更多数据"状态
                 if (loader != null) loader.load(pageNo, pageSize);
             }
@@ -97,6 +99,7 @@ public class RecycleViewHelper<T> {
             @Override
             public void onLoadMore(@NonNull RefreshLayout refreshLayout) {
                 pageNo++; // 页码自增
+                mChunkReceived = -1;
                 if (loader != null) loader.load(pageNo, pageSize);
             }
         });
@@ -295,10 +298,65 @@ public class RecycleViewHelper<T> {
         }
     }
 
+    /**
+     * 分批加载：收到一批数据 (配合 BasePresenter.sendStream 使用，边解析边显示)
+     * 第一批到达时结束刷新动画并 (刷新时) 替换旧数据，之后的批次追加到末尾
+     *
+     * @param chunk 本批数据
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    public void notifyDataChunk(List<T> chunk) {
+        if (chunk == null || chunk.isEmpty()) return;
+        if (mChunkReceived < 0) {
+            mChunkReceived = 0;
+            refreshLayout.finishRefresh();
+            if (pageNo == startPageNo) {
+                mData.clear();
+                mData.addAll(chunk);
+                adapter.notifyDataSetChanged();
+                checkEmptyState();
+                mChunkReceived = chunk.size();
+                return;
+            }
+        }
+        int start = mData.size();
+        mData.addAll(chunk);
+        adapter.notifyItemRangeInserted(start, chunk.size());
+        mChunkReceived += chunk.size();
+    }
+
+    /**
+     * 加载更多中途失败：移除本页已显示的部分数据，页码回退后重新加载不会出现重复
+     */
+    private void rollbackChunks() {
+        int received = mChunkReceived;
+        mChunkReceived = -1;
+        if (received <= 0 || pageNo == startPageNo) return;
+        int start = mData.size() - received;
+        mData.subList(start, mData.size()).clear();
+        adapter.notifyItemRangeRemoved(start, received);
+    }
+
+    /**
+     * 分批加载：全部数据已到达
+     */
+    public void notifyDataComplete() {
+        int received = mChunkReceived;
+        mChunkReceived = -1;
+        if (received <= 0) {
+            // 一批都没有，按空数据处理 (清空列表 / 没有更多数据)
+            notifyData(null);
+            return;
+        }
+        refreshLayout.finishRefresh();
+        refreshLayout.finishLoadMore();
+    }
+
     /**
      * 请求失败处理
      */
     public void notifyError() {
+        rollbackChunks();
         refreshLayout.finishRefresh(false);
         refreshLayout.finishLoadMore(false);
         // 如果不是第一页失败，页码要回退
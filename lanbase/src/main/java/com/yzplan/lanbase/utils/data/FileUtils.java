@@ -53,8 +53,15 @@ public class FileUtils {
         if (src == null || !src.exists() || dest == null) return false;
         try (FileChannel in = new FileInputStream(src).getChannel();
              FileChannel out = new FileOutputStream(dest).getChannel()) {
-            in.transferTo(0, in.size(), out);
-            return true;
+            // transferTo 单次可能只传输一部分 (大文件)，需要循环直到完成
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long count = in.transferTo(position, size - position, out);
+                if (count <= 0) break;
+                position += count;
+            }
+            return position == size;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
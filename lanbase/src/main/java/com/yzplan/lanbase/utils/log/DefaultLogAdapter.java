@@ -8,9 +8,20 @@ import com.orhanobut.logger.LogAdapter;
 import com.orhanobut.logger.PrettyFormatStrategy;
 import com.yzplan.lanbase.BaseApp;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class DefaultLogAdapter implements LogAdapter {
+    // 调用位置格式化结果的缓存上限 (调用点数量有限，超过后整体清空)
+    private static final int MAX_CACHED_LOCATIONS = 1024;
+    private static final ConcurrentHashMap<StackTraceElement, String> LOCATIONS = new ConcurrentHashMap<>();
+
+    // 调用位置采集方式，null 表示按输出目标决定：打印到控制台时 ALWAYS，只写文件时 ERROR_ONLY
+    private static volatile LogLocationMode sLocationMode;
+    private static volatile int sSampleInterval = 16;
 
     private final FormatStrategy formatStrategy;
+    private final AtomicInteger mSampleCounter = new AtomicInteger();
 
     public DefaultLogAdapter() {
         formatStrategy = PrettyFormatStrategy.newBuilder()
@@ -20,6 +31,20 @@ public class DefaultLogAdapter implements LogAdapter {
                 .build();
     }
 
+    /**
+     * 设置调用位置采集方式，传 null 恢复默认 (控制台 ALWAYS，仅文件 ERROR_ONLY)
+     */
+    public static void setLocationMode(LogLocationMode mode) {
+        sLocationMode = mode;
+    }
+
+    /**
+     * SAMPLED 模式下的采样间隔，每 interval 条非 ERROR 日志采集一次
+     */
+    public static void setSampleInterval(int interval) {
+        sSampleInterval = Math.max(1, interval);
+    }
+
     @Override
     public boolean isLoggable(int priority, @Nullable String tag) {
         return BaseApp.sLogEnable || BaseApp.sLogToFile;
@@ -27,35 +52,56 @@ public class DefaultLogAdapter implements LogAdapter {
 
     @Override
     public void log(int priority, @Nullable String tag, @NonNull String message) {
-        // 获取精准的堆栈元素
-        StackTraceElement targetElement = getTargetStackElement();
-
-        // 关键点 2：构造符合 Logcat 跳转规则的字符串格式: "at 全类名.方法名(文件名:行号)"
-        String clickableStack = "Unknown";
-        if (targetElement != null) {
-            clickableStack = String.format("at %s.%s(%s:%d)",
-                    targetElement.getClassName(),
-                    targetElement.getMethodName(),
-                    targetElement.getFileName(),
-                    targetElement.getLineNumber());
-        }
+        boolean toConsole = BaseApp.sLogEnable;
+        boolean toFile = BaseApp.sLogToFile && priority >= Log.INFO;
+        if (!toConsole && !toFile) return;
+        // 只有需要时才遍历堆栈，格式化结果按调用点缓存
+        String location = shouldLocate(priority, toConsole) ? locate() : null;
 
         // 1. 控制台打印：将可点击的堆栈信息拼接到消息头部
-        if (BaseApp.sLogEnable) {
+        if (toConsole) {
+            // 关键点 2：符合 Logcat 跳转规则的格式 "at 全类名.方法名(文件名:行号)"，
             // 在消息前加上换行和 at 信息，Android Studio 会自动识别为蓝链
-            formatStrategy.log(priority, tag, clickableStack + "\n" + message);
+            formatStrategy.log(priority, tag, location != null ? location + "\n" + message : message);
+        }
+
+        // 2. 日志输出至文件：只入队调用位置与消息引用，格式化与写入在写入线程完成
+        if (toFile) {
+            LogFileUtils.writeRecordAsync(priority, tag, location, message);
+        }
+    }
+
+    private boolean shouldLocate(int priority, boolean toConsole) {
+        LogLocationMode mode = sLocationMode;
+        if (mode == null) mode = toConsole ? LogLocationMode.ALWAYS : LogLocationMode.ERROR_ONLY;
+        switch (mode) {
+            case ALWAYS:
+                return true;
+            case ERROR_ONLY:
+                return priority >= Log.ERROR;
+            case SAMPLED:
+                return priority >= Log.ERROR || mSampleCounter.incrementAndGet() % sSampleInterval == 0;
+            default:
+                return false;
         }
+    }
 
-        // 2. 日志输出至文件
-        if (BaseApp.sLogToFile && priority >= Log.INFO) {
-            String fullTag = BaseApp.sLogTag + "-" + (tag == null ? "" : tag);
-            String line = String.format("%s | %s | %s | %s",
-                    level(priority),
-                    Thread.currentThread().getName(),
-                    clickableStack,
-                    message);
-            LogFileUtils.writeLogAsync(fullTag, line);
+    /**
+     * 获取调用位置字符串，找不到业务调用处时返回 null
+     */
+    private String locate() {
+        StackTraceElement element = getTargetStackElement();
+        if (element == null) return null;
+        String location = LOCATIONS.get(element);
+        if (location == null) {
+            StringBuilder sb = new StringBuilder(128);
+            appendLocation(sb, element);
+            location = sb.toString();
+            if (LOCATIONS.size() >= MAX_CACHED_LOCATIONS) LOCATIONS.clear();
+            String cached = LOCATIONS.putIfAbsent(element, location);
+            if (cached != null) location = cached;
         }
+        return location;
     }
 
     /**
@@ -95,7 +141,7 @@ public class DefaultLogAdapter implements LogAdapter {
                 !className.startsWith("com.orhanobut.logger");
     }
 
-    private String level(int p) {
+    static String level(int p) {
         switch (p) {
             case Log.VERBOSE: return "V";
             case Log.DEBUG: return "D";
@@ -105,4 +151,21 @@ public class DefaultLogAdapter implements LogAdapter {
             default: return "U";
         }
     }
+
+    /**
+     * 追加 Logcat 可跳转的调用位置: "at 全类名.方法名(文件名:行号)"，null 时为 Unknown
+     */
+    static void appendLocation(StringBuilder sb, Object location) {
+        if (location instanceof StackTraceElement) {
+            StackTraceElement element = (StackTraceElement) location;
+            sb.append("at ").append(element.getClassName())
+                    .append('.').append(element.getMethodName())
+                    .append('(').append(element.getFileName())
+                    .append(':').append(element.getLineNumber()).append(')');
+        } else if (location != null) {
+            sb.append(location);
+        } else {
+            sb.append("Unknown");
+        }
+    }
 }
\ No newline at end of file
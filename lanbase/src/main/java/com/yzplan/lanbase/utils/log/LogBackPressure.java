@@ -0,0 +1,13 @@
+package com.yzplan.lanbase.utils.log;
+
+/**
+ * 文件日志队列写满时的处理策略
+ */
+public enum LogBackPressure {
+    // 等待写入线程腾出空间 (最多 LogFileUtils.setQueue 指定的时间，超时后丢弃新日志)；主线程不等待，直接丢弃新日志
+    BLOCK,
+    // 丢弃队列中最早的日志 (默认，保留最近的日志用于排查)
+    DROP_OLDEST,
+    // 丢弃新日志
+    DROP_NEWEST
+}
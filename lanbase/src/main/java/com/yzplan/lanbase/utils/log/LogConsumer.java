@@ -0,0 +1,103 @@
+package com.yzplan.lanbase.utils.log;
+
+import com.yzplan.lanbase.BaseApp;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件日志写入线程
+ * 核心职责：
+ * 1. 从 LogQueue 批量取出日志，在写入线程上格式化 (复用 StringBuilder) 并在一次加锁内写入 MappedLogWriter
+ * 2. 空闲时等待新日志，定时 msync
+ * 3. 发生丢弃时在文件中写入一行提示，便于排查时发现日志缺口
+ * 4. 重新 init 后切换到新的写入器，并负责关闭旧的写入器
+ * 注意：drain 也可在其他线程调用 (writeLogSync / flush 前清空队列)，每个线程使用自己的实例
+ */
+final class LogConsumer implements Runnable {
+    // 每批最多写入条数
+    static final int BATCH_SIZE = 256;
+    // 定时刷盘间隔
+    private static final long SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // 超过该长度的格式化缓存用完后释放
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private final LogQueue mQueue;
+    private final LogQueue.Record mRecord = new LogQueue.Record();
+    private final StringBuilder mTag = new StringBuilder(32);
+    private final StringBuilder mBody = new StringBuilder(256);
+
+    LogConsumer(LogQueue queue) {
+        mQueue = queue;
+    }
+
+    @Override
+    public void run() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            // 此时不持有任何写入器，可以安全关闭被替换的写入器
+            LogFileUtils.closeRetiredWriters();
+            MappedLogWriter writer = LogFileUtils.getWriter();
+            int count = writer != null ? drain(writer, BATCH_SIZE) : 0;
+            if (count == BATCH_SIZE) continue;
+            long now = System.nanoTime();
+            if (writer != null && now - lastSync >= SYNC_INTERVAL_NANOS) {
+                writer.force();
+                lastSync = now;
+            }
+            if (count == 0) mQueue.awaitRecords(SYNC_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * 取出并写入最多 max 条日志
+     *
+     * @return 写入条数
+     */
+    int drain(MappedLogWriter writer, int max) {
+        int count = 0;
+        synchronized (writer) {
+            while (count < max && mQueue.poll(mRecord)) {
+                format(mRecord);
+                mRecord.clear();
+                write(writer, mRecord.time, mTag, mBody);
+                count++;
+            }
+            long dropped = mQueue.takeUnreportedDrops();
+            if (dropped > 0) {
+                write(writer, System.currentTimeMillis(), "LogFileUtils", "日志队列已满，已丢弃 " + dropped + " 条");
+            }
+        }
+        if (mBody.capacity() > MAX_RETAINED_CHARS) {
+            mBody.setLength(0);
+            mBody.trimToSize();
+        }
+        return count;
+    }
+
+    private void format(LogQueue.Record record) {
+        mTag.setLength(0);
+        mBody.setLength(0);
+        if (record.priority == 0) {
+            // writeLogAsync 写入的完整内容
+            mTag.append(record.tag);
+            mBody.append(record.message);
+            return;
+        }
+        mTag.append(BaseApp.sLogTag).append('-');
+        if (record.tag != null) mTag.append(record.tag);
+        mBody.append(DefaultLogAdapter.level(record.priority))
+                .append(" | ").append(record.thread)
+                .append(" | ");
+        DefaultLogAdapter.appendLocation(mBody, record.location);
+        mBody.append(" | ").append(record.message);
+    }
+
+    private static void write(MappedLogWriter writer, long time, CharSequence tag, CharSequence body) {
+        try {
+            writer.append(time, tag, body);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
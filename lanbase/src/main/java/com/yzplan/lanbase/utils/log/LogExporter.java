@@ -0,0 +1,315 @@
+package com.yzplan.lanbase.utils.log;
+
+import androidx.annotation.NonNull;
+
+import com.yzplan.lanbase.BaseApp;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 日志流式导出
+ * 核心职责：
+ * 1. 按日期 / 时间范围选取日志文件 (压缩分段先按索引跳过)，边读 (.gz 边解压) 边写入 zip / gzip / 纯文本，不生成临时文件
+ * 2. 可选按时间、最低级别、tag 逐行过滤，多行日志的后续行跟随所属的首行
+ * 3. 输出到 OutputStream、okio Sink，或作为流式 RequestBody 直接上传 (边压缩边发送，每次重试重新读取文件)
+ * 示例：
+ * <pre>
+ * RequestBody body = new LogExporter()
+ *         .setDateRange("20240101", "20240107")
+ *         .setMinLevel('W')
+ *         .toRequestBody();
+ * </pre>
+ * 注意：读取磁盘与压缩均在调用线程执行，请在子线程 / 上传线程中使用
+ */
+public class LogExporter {
+    public enum Format {
+        // 单个文本条目的 zip 包
+        ZIP,
+        // gzip 压缩的文本
+        GZIP,
+        // 纯文本
+        PLAIN
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] FILE_END = "\n\n".getBytes(StandardCharsets.UTF_8);
+    // 级别从低到高
+    private static final String LEVELS = "VDIWE";
+
+    private int startDay = 0;
+    private int endDay = Integer.MAX_VALUE;
+    private long startMillis = Long.MIN_VALUE;
+    private long endMillis = Long.MAX_VALUE;
+    private char minLevel;
+    private final Set<String> tags = new HashSet<>();
+    private Format format = Format.ZIP;
+    private String entryName = "logs.txt";
+
+    // 过滤状态 (每次导出重置)
+    private final Calendar mCalendar = Calendar.getInstance();
+    private boolean mKeep;
+
+    /**
+     * 日期范围 (yyyyMMdd，包含首尾)
+     */
+    public LogExporter setDateRange(String startDateStr, String endDateStr) {
+        int start = LogFileUtils.parseDay(startDateStr);
+        int end = LogFileUtils.parseDay(endDateStr);
+        this.startDay = start >= 0 ? start : 0;
+        this.endDay = end >= 0 ? end : Integer.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * 时间范围 (毫秒，包含首尾)，按行过滤；Long.MIN_VALUE / Long.MAX_VALUE 表示该侧不限，
+     * 例如 setTimeRange(since, Long.MAX_VALUE) 导出 since 之后的全部日志
+     */
+    public LogExporter setTimeRange(long startMillis, long endMillis) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        return this;
+    }
+
+    /**
+     * 最低级别 (V/D/I/W/E)，低于该级别的行不导出；没有级别的行 (writeLogAsync / 崩溃信息) 始终导出
+     */
+    public LogExporter setMinLevel(char minLevel) {
+        this.minLevel = LEVELS.indexOf(minLevel) > 0 ? minLevel : 0;
+        return this;
+    }
+
+    /**
+     * 只导出指定 tag 的行，可多次调用 (L.i(tag, msg) 中的 tag，或 writeLogAsync 的完整 tag)
+     */
+    public LogExporter addTag(String tag) {
+        if (tag != null) tags.add(tag);
+        return this;
+    }
+
+    public LogExporter setFormat(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * ZIP 格式中文本条目的名称
+     */
+    public LogExporter setEntryName(String entryName) {
+        this.entryName = entryName;
+        return this;
+    }
+
+    /**
+     * 本次导出会读取的文件 (按时间顺序)
+     */
+    public List<File> getFiles() {
+        List<File> result = new ArrayList<>();
+        boolean hasTime = startMillis != Long.MIN_VALUE || endMillis != Long.MAX_VALUE;
+        List<File> files = hasTime ? LogFileUtils.getLogSegmentsByTime(startMillis, endMillis)
+                : LogFileUtils.getLogFilesByDay(startDay, endDay);
+        for (File file : files) {
+            int day = LogSegments.dayOf(file.getName());
+            if (day < startDay || day > endDay) continue;
+            if (minLevel != 0 && file.getName().endsWith(LogSegments.GZIP_SUFFIX) && !hasLevel(file)) continue;
+            result.add(file);
+        }
+        return result;
+    }
+
+    // ================== 输出 ==================
+
+    /**
+     * 导出到 OutputStream (完成后 flush，不关闭)
+     */
+    public void writeTo(OutputStream target) throws IOException {
+        LogFileUtils.flush();
+        List<File> files = getFiles();
+        OutputStream buffered = new BufferedOutputStream(target, BUFFER_SIZE);
+        ZipOutputStream zip = null;
+        GZIPOutputStream gzip = null;
+        OutputStream out;
+        if (format == Format.ZIP) {
+            zip = new ZipOutputStream(buffered);
+            zip.putNextEntry(new ZipEntry(entryName));
+            out = zip;
+        } else if (format == Format.GZIP) {
+            gzip = new GZIPOutputStream(buffered, BUFFER_SIZE);
+            out = gzip;
+        } else {
+            out = buffered;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        boolean filter = startMillis != Long.MIN_VALUE || endMillis != Long.MAX_VALUE || minLevel != 0 || !tags.isEmpty();
+        for (File file : files) {
+            InputStream in = open(file);
+            if (in == null) continue;
+            try {
+                out.write(("==================== File: " + file.getName() + " ====================\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                if (filter) {
+                    copyFiltered(in, out, buffer);
+                } else {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                out.write(FILE_END);
+            } finally {
+                in.close();
+            }
+        }
+        if (zip != null) {
+            zip.closeEntry();
+            zip.finish();
+        } else if (gzip != null) {
+            gzip.finish();
+        }
+        buffered.flush();
+    }
+
+    /**
+     * 导出到 okio Sink (完成后 flush，不关闭)
+     */
+    public void writeTo(BufferedSink sink) throws IOException {
+        writeTo(sink.outputStream());
+        sink.flush();
+    }
+
+    /**
+     * 流式上传的请求体：长度未知 (chunked)，边读取、压缩边发送
+     */
+    public RequestBody toRequestBody() {
+        final MediaType contentType = MediaType.parse(format == Format.ZIP ? "application/zip"
+                : format == Format.GZIP ? "application/gzip" : "text/plain; charset=utf-8");
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public void writeTo(@NonNull BufferedSink sink) throws IOException {
+                LogExporter.this.writeTo(sink);
+            }
+        };
+    }
+
+    // ================== 内部实现 ==================
+
+    /**
+     * 打开日志文件；未压缩分段在选取后被压缩时改读对应的 .gz，文件已不存在时返回 null
+     */
+    private static InputStream open(File file) throws IOException {
+        File target = file;
+        String name = file.getName();
+        if (!file.exists() && name.endsWith(LogSegments.LOG_SUFFIX)
+                && LogSegments.seqOf(name) != LogSegments.ACTIVE_SEQ) {
+            target = new File(file.getParentFile(), name + ".gz");
+        }
+        if (!target.exists()) return null;
+        return LogFileUtils.openLogFile(target);
+    }
+
+    private void copyFiltered(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        byte[] line = new byte[4096];
+        int length = 0;
+        mKeep = true;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') continue;
+                if (length == 0) {
+                    // 整行都在 buffer 中，直接判断
+                    if (accept(buffer, start, i - start)) out.write(buffer, start, i - start + 1);
+                } else {
+                    line = append(line, length, buffer, start, i - start + 1);
+                    length += i - start + 1;
+                    if (accept(line, 0, length - 1)) out.write(line, 0, length);
+                    length = 0;
+                }
+                start = i + 1;
+            }
+            if (start < read) {
+                line = append(line, length, buffer, start, read - start);
+                length += read - start;
+            }
+        }
+        if (length > 0 && accept(line, 0, length)) {
+            out.write(line, 0, length);
+            out.write('\n');
+        }
+    }
+
+    private static byte[] append(byte[] line, int length, byte[] data, int offset, int count) {
+        if (length + count > line.length) {
+            byte[] larger = new byte[Math.max(line.length * 2, length + count)];
+            System.arraycopy(line, 0, larger, 0, length);
+            line = larger;
+        }
+        System.arraycopy(data, offset, line, length, count);
+        return line;
+    }
+
+    /**
+     * 判断一行 (不含换行符) 是否导出，没有时间戳的行跟随上一行
+     */
+    private boolean accept(byte[] line, int offset, int length) {
+        // 直接在原始数据上解析整行，不截取行首，tag 再长也能完整匹配
+        if (!LogSegments.hasTimestamp(line, offset, length)) return mKeep;
+        mKeep = matches(line, offset, length);
+        return mKeep;
+    }
+
+    private boolean matches(byte[] line, int offset, int length) {
+        if (startMillis != Long.MIN_VALUE || endMillis != Long.MAX_VALUE) {
+            long time = LogSegments.parseTime(line, offset, mCalendar);
+            if (time < startMillis || time > endMillis) return false;
+        }
+        if (minLevel != 0) {
+            char level = LogSegments.levelOf(line, offset, length);
+            if (level != 0 && LEVELS.indexOf(level) < LEVELS.indexOf(minLevel)) return false;
+        }
+        if (!tags.isEmpty()) {
+            int end = LogSegments.tagEnd(line, offset, length);
+            if (end < 0) return false;
+            int start = offset + LogSegments.TAG_START;
+            String tag = new String(line, start, end - start, StandardCharsets.UTF_8);
+            if (tags.contains(tag)) return true;
+            String prefix = BaseApp.sLogTag + "-";
+            return tag.startsWith(prefix) && tags.contains(tag.substring(prefix.length()));
+        }
+        return true;
+    }
+
+    /**
+     * 压缩分段中是否有不低于 minLevel 或没有级别的行 (索引缺失时视为有)
+     */
+    private boolean hasLevel(File segment) {
+        LogSegmentIndex index = LogFileUtils.getSegmentIndex(segment);
+        if (index == null) return true;
+        long count = index.getLevelCount('U');
+        for (int i = LEVELS.indexOf(minLevel); i < LEVELS.length(); i++) {
+            count += index.getLevelCount(LEVELS.charAt(i));
+        }
+        return count > 0;
+    }
+}
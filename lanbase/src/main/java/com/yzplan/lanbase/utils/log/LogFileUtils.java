@@ -5,34 +5,74 @@ import com.yzplan.lanbase.manager.CrashHandler;
 import com.yzplan.lanbase.utils.data.FileUtils;
 import com.yzplan.lanbase.utils.data.ZipUtils;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 /**
  * 日志文件管理工具类
- * 功能：异步/同步写入、按日期检索、多文件合并、自动清理
+ * 功能：异步/同步写入 (有界队列 + 单写入线程，mmap 追加，见 LogQueue / MappedLogWriter)、按日期检索、多文件合并、自动清理
+ * 文件按大小滚动为 gzip 分段并生成索引 (见 LogSegments)，总大小超过配额时删除最早的分段
  */
 public class LogFileUtils {
     private static final String TAG = "LogFileUtils";
     private static String sLogDirPath; // 日志存储根目录
-    private static final ExecutorService logExecutor = Executors.newSingleThreadExecutor(); // 单线程池确保写入顺序
+    private static volatile MappedLogWriter sWriter; // 当天日志文件的 mmap 写入器
+    private static volatile LogQueue sQueue; // 调用线程与写入线程之间的有界队列
+    // 重新 init 替换下来的写入器，由写入线程在两批之间关闭 (写入线程可能正在用它写入当前批次)
+    private static final ConcurrentLinkedQueue<MappedLogWriter> sRetiredWriters = new ConcurrentLinkedQueue<>();
+    // 队列配置 (需在 init 之前设置)
+    private static int sQueueCapacity = 8192;
+    private static LogBackPressure sBackPressure = LogBackPressure.DROP_OLDEST;
+    private static long sMaxBlockMillis = 100;
+    // 分段配置 (需在 init 之前设置)
+    private static long sMaxSegmentBytes = 4 * 1024 * 1024;
+    private static long sMaxTotalBytes = 100 * 1024 * 1024;
+    // 分段压缩、配额清理在单独的线程执行，不阻塞写入线程
+    private static final ExecutorService maintainExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "LanBase-LogMaintain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final MappedLogWriter.RollListener ROLL_LISTENER =
+            segment -> maintainExecutor.execute(() -> compressSegment(segment));
 
-    private static final SimpleDateFormat logTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.CHINA);
-    private static final SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyyMMdd", Locale.CHINA);
+    /**
+     * 配置文件日志队列，需在 init 之前调用
+     *
+     * @param capacity       最多缓存的日志条数 (向上取整为 2 的幂)
+     * @param policy         队列写满时的处理策略
+     * @param maxBlockMillis BLOCK 策略下调用线程最长等待时间，主线程从不等待
+     */
+    public static void setQueue(int capacity, LogBackPressure policy, long maxBlockMillis) {
+        sQueueCapacity = capacity;
+        sBackPressure = policy;
+        sMaxBlockMillis = maxBlockMillis;
+    }
+
+    /**
+     * 配置分段与配额，需在 init 之前调用
+     *
+     * @param maxSegmentBytes 单个文件的大小上限，超过后压缩为分段 (<= 0 表示只按天滚动)
+     * @param maxTotalBytes   日志目录总大小上限，超过后从最早的分段开始删除 (<= 0 表示不限制)
+     */
+    public static void setRolling(long maxSegmentBytes, long maxTotalBytes) {
+        sMaxSegmentBytes = maxSegmentBytes;
+        sMaxTotalBytes = maxTotalBytes;
+    }
 
     /**
      * 初始化日志配置
@@ -47,6 +87,15 @@ public class LogFileUtils {
         if (!dir.exists()) {
             dir.mkdirs();
         }
+        MappedLogWriter old = sWriter;
+        sWriter = new MappedLogWriter(dir, sMaxSegmentBytes, ROLL_LISTENER);
+        startConsumer();
+        if (old != null) {
+            sRetiredWriters.add(old);
+            sQueue.wakeConsumer();
+        }
+        // 压缩上次运行遗留的分段与往日文件，并检查配额
+        maintainExecutor.execute(() -> compressPending(dir));
         // 初始化时清理一次临时合并文件夹
         clearTempFiles();
         CrashHandler.getInstance().init();
@@ -56,151 +105,355 @@ public class LogFileUtils {
      * 异步写入日志（常规使用）
      */
     public static void writeLogAsync(String tag, String msg) {
-        if (sLogDirPath == null) return;
-        logExecutor.execute(() -> performWrite(tag, msg));
+        LogQueue queue = sQueue;
+        if (sLogDirPath == null || queue == null) return;
+        queue.offer(0, tag, System.currentTimeMillis(), null, null, msg);
+    }
+
+    /**
+     * 异步写入一条日志记录，格式化在写入线程完成 (DefaultLogAdapter 使用)
+     *
+     * @param priority 日志级别 (Log.INFO 等)
+     * @param location 调用位置 (StackTraceElement)，可为 null
+     */
+    static void writeRecordAsync(int priority, String tag, Object location, String msg) {
+        LogQueue queue = sQueue;
+        if (sLogDirPath == null || queue == null) return;
+        queue.offer(priority, tag, System.currentTimeMillis(), Thread.currentThread().getName(), location, msg);
     }
 
     /**
      * 同步写入日志（仅用于 Crash 捕捉等紧急场景，确保数据不丢失）
+     * 先在当前线程写完队列中尚未写入的日志
      */
     public static void writeLogSync(String tag, String msg) {
-        if (sLogDirPath == null) return;
-        performWrite(tag, msg);
+        MappedLogWriter writer = sWriter;
+        if (sLogDirPath == null || writer == null) return;
+        drainQueue(writer);
+        try {
+            writer.append(System.currentTimeMillis(), tag, msg);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writer.force();
     }
 
     /**
-     * 核心写入逻辑
+     * 写完队列中的日志，将当天日志刷入磁盘并截断映射预留的空间，读取 / 导出当天日志文件前调用
      */
-    private static void performWrite(String tag, String msg) {
-        if (sLogDirPath == null) return;
-        // --- 增加自动修复逻辑 ---
-        File dir = new File(sLogDirPath);
-        if (!dir.exists()) {
-            boolean success = dir.mkdirs();
-            if (!success) {
-                // 如果创建失败（比如权限依然没拿到），直接返回，避免触发异常
-                return;
-            }
+    public static void flush() {
+        MappedLogWriter writer = sWriter;
+        if (writer == null) return;
+        drainQueue(writer);
+        writer.seal();
+    }
+
+    /**
+     * 被丢弃的日志条数 (队列写满时)
+     */
+    public static long getDroppedCount() {
+        LogQueue queue = sQueue;
+        return queue != null ? queue.getDroppedCount() : 0;
+    }
+
+    /**
+     * BLOCK 策略下调用线程因队列写满而等待的次数
+     */
+    public static long getBlockedCount() {
+        LogQueue queue = sQueue;
+        return queue != null ? queue.getBlockedCount() : 0;
+    }
+
+    static MappedLogWriter getWriter() {
+        return sWriter;
+    }
+
+    /**
+     * 关闭已被替换的写入器 (写入线程在两批之间调用)
+     */
+    static void closeRetiredWriters() {
+        MappedLogWriter writer;
+        while ((writer = sRetiredWriters.poll()) != null) {
+            writer.close();
         }
-        // -----------------------
-        String fileName = fileNameFormat.format(new Date()) + ".log";
-        File logFile = new File(sLogDirPath, fileName);
-
-        // 使用 true 参数代表追加写入
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFile, true))) {
-            String content = String.format("%s [%s]: %s\n", logTimeFormat.format(new Date()), tag, msg);
-            writer.write(content);
-            writer.flush();
+    }
+
+    private static void drainQueue(MappedLogWriter writer) {
+        LogQueue queue = sQueue;
+        if (queue == null) return;
+        new LogConsumer(queue).drain(writer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 创建队列并启动唯一的写入线程 (重复 init 时复用)
+     */
+    private static synchronized void startConsumer() {
+        if (sQueue != null) return;
+        LogQueue queue = new LogQueue(sQueueCapacity, sBackPressure, sMaxBlockMillis);
+        Thread thread = new Thread(new LogConsumer(queue), "LanBase-LogWriter");
+        thread.setDaemon(true);
+        thread.start();
+        sQueue = queue;
+    }
+
+    /**
+     * SimpleDateFormat 非线程安全，每次使用单独创建
+     */
+    private static SimpleDateFormat newFileNameFormat() {
+        return new SimpleDateFormat("yyyyMMdd", Locale.CHINA);
+    }
+
+    /**
+     * yyyyMMdd 转为数值，格式不正确时返回 -1
+     */
+    static int parseDay(String dateStr) {
+        if (dateStr == null || dateStr.length() != 8) return -1;
+        int day = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = dateStr.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            day = day * 10 + (c - '0');
+        }
+        return day;
+    }
+
+    private static int dayOf(long timeMillis) {
+        return parseDay(newFileNameFormat().format(new Date(timeMillis)));
+    }
+
+    /**
+     * 时间范围的边界转为日期，超出 yyyyMMdd 能表示的范围 (如 Long.MIN_VALUE / Long.MAX_VALUE) 时返回 unbounded
+     */
+    private static int dayOfBound(long timeMillis, int unbounded) {
+        if (timeMillis == Long.MIN_VALUE || timeMillis == Long.MAX_VALUE) return unbounded;
+        int day = dayOf(timeMillis);
+        return day >= 0 ? day : unbounded;
+    }
+
+    // ================== 分段维护 (LanBase-LogMaintain 线程) ==================
+
+    private static void compressSegment(File segment) {
+        try {
+            LogSegments.compress(segment);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        enforceQuota(segment.getParentFile());
+    }
+
+    /**
+     * 压缩遗留的未压缩分段与往日文件 (上次运行中途退出 / 跨天时进程不在)，清理中断的临时文件
+     */
+    private static void compressPending(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            int today = dayOf(System.currentTimeMillis());
+            for (File file : files) {
+                String name = file.getName();
+                int day = LogSegments.dayOf(name);
+                if (day < 0) {
+                    if (name.endsWith(".tmp") && parseDay(name.length() >= 8 ? name.substring(0, 8) : null) >= 0) {
+                        file.delete();
+                    }
+                    continue;
+                }
+                if (!name.endsWith(LogSegments.LOG_SUFFIX)) continue;
+                File plain = file;
+                if (LogSegments.seqOf(name) == LogSegments.ACTIVE_SEQ) {
+                    if (day >= today) continue;
+                    plain = LogSegments.nextSegmentFile(dir, day);
+                    if (!file.renameTo(plain)) continue;
+                }
+                try {
+                    LogSegments.compress(plain);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        enforceQuota(dir);
+    }
+
+    private static void enforceQuota(File dir) {
+        MappedLogWriter writer = sWriter;
+        int activeDay = writer != null ? writer.getCurrentDay() : -1;
+        if (activeDay < 0) activeDay = dayOf(System.currentTimeMillis());
+        LogSegments.enforceQuota(dir, sMaxTotalBytes, activeDay);
     }
 
+    // ================== 查询 ==================
+
     /**
-     * 根据日期范围获取日志文件集合
+     * 根据日期范围获取日志文件集合 (每天一个可直接阅读的 .log 文本文件，按日期顺序)
+     * 当天只有未滚动的文件时直接返回原文件；已滚动为 .log.gz 分段的日期会解压合并到 temp 目录下的同名 yyyyMMdd.log，
+     * 用完后调用 clearTempFiles 清理。只需打包 / 上传原始分段时使用 getLogSegmentsByRange，避免解压
+     * 会先调用 flush，返回的当天文件不含映射预留的空白
      *
      * @param startDateStr 开始日期 yyyyMMdd
      * @param endDateStr   结束日期 yyyyMMdd
      */
     public static List<File> getLogFilesByRange(String startDateStr, String endDateStr) {
         List<File> resultList = new ArrayList<>();
-        if (sLogDirPath == null) return resultList;
-        File logDir = new File(sLogDirPath);
-        File[] files = logDir.listFiles();
-        if (files == null) return resultList;
-        try {
-            Date startDate = fileNameFormat.parse(startDateStr);
-            Date endDate = fileNameFormat.parse(endDateStr);
-            if (startDate == null || endDate == null) return resultList;
-            long start = startDate.getTime();
-            long end = endDate.getTime();
-            for (File file : files) {
-                if (file.isFile() && file.getName().matches("\\d{8}\\.log")) {
-                    String dateStr = file.getName().substring(0, 8);
-                    Date fileDate = fileNameFormat.parse(dateStr);
-                    if (fileDate != null) {
-                        long fileTime = fileDate.getTime();
-                        if (fileTime >= start && fileTime <= end) {
-                            resultList.add(file);
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        flush();
+        List<File> segments = getLogSegmentsByRange(startDateStr, endDateStr);
+        int from = 0;
+        while (from < segments.size()) {
+            int day = LogSegments.dayOf(segments.get(from).getName());
+            int to = from + 1;
+            while (to < segments.size() && LogSegments.dayOf(segments.get(to).getName()) == day) to++;
+            File file = readableFileOf(segments.subList(from, to), day);
+            if (file != null) resultList.add(file);
+            from = to;
         }
-        Collections.sort(resultList, new Comparator<File>() {
-            @Override
-            public int compare(File f1, File f2) {
-                return f1.getName().compareTo(f2.getName());
-            }
-        });
         return resultList;
     }
 
     /**
-     * 合并指定范围的日志为一个临时文件（用于分享/查看）
+     * 根据日期范围获取原始日志分段 (按时间顺序，包含 .log.gz 压缩分段与未压缩的 .log 文件)
+     * .gz 分段可通过 openLogFile 读取
      *
      * @param startDateStr 开始日期 yyyyMMdd
      * @param endDateStr   结束日期 yyyyMMdd
      */
-    public static File getMergedLogFile(String startDateStr, String endDateStr) {
-        List<File> files = getLogFilesByRange(startDateStr, endDateStr);
-        if (files.isEmpty()) return null;
+    public static List<File> getLogSegmentsByRange(String startDateStr, String endDateStr) {
+        int startDay = parseDay(startDateStr);
+        int endDay = parseDay(endDateStr);
+        if (sLogDirPath == null || startDay < 0 || endDay < 0) return new ArrayList<>();
+        return LogSegments.list(new File(sLogDirPath), startDay, endDay);
+    }
+
+    static List<File> getLogFilesByDay(int startDay, int endDay) {
+        if (sLogDirPath == null) return new ArrayList<>();
+        return LogSegments.list(new File(sLogDirPath), startDay, endDay);
+    }
+
+    /**
+     * 同一天的分段合并为一个文本文件，只有一个未压缩文件时直接返回，失败返回 null
+     */
+    private static File readableFileOf(List<File> segments, int day) {
+        if (segments.size() == 1 && segments.get(0).getName().endsWith(LogSegments.LOG_SUFFIX)) {
+            return segments.get(0);
+        }
         File cacheDir = new File(sLogDirPath, "temp");
         if (!cacheDir.exists()) cacheDir.mkdirs();
-        File mergedFile = new File(cacheDir, "merged_logs_" + startDateStr + "_" + endDateStr + ".txt");
-        if (mergedFile.exists()) mergedFile.delete();
-        L.i(TAG, "开始合并日志至: " + mergedFile.getName());
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(mergedFile, true))) {
-            for (File file : files) {
-                writer.write("==================== File: " + file.getName() + " ====================\n");
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        writer.write(line);
-                        writer.newLine();
+        File file = new File(cacheDir, String.format(Locale.US, "%08d", day) + LogSegments.LOG_SUFFIX);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (File segment : segments) {
+                try (InputStream in = openLogFile(segment)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
                     }
                 }
-                writer.write("\n\n");
             }
-            return mergedFile;
+            return file;
         } catch (IOException e) {
             e.printStackTrace();
+            file.delete();
             return null;
         }
     }
 
+    /**
+     * 按时间范围获取原始日志分段 (可能包含 .log.gz)，压缩分段通过索引判断，只返回可能包含该范围日志的文件
+     *
+     * @param startMillis 开始时间 (毫秒)，Long.MIN_VALUE 表示不限
+     * @param endMillis   结束时间 (毫秒)，Long.MAX_VALUE 表示不限
+     */
+    public static List<File> getLogSegmentsByTime(long startMillis, long endMillis) {
+        List<File> resultList = new ArrayList<>();
+        if (sLogDirPath == null || startMillis > endMillis) return resultList;
+        int startDay = dayOfBound(startMillis, 0);
+        int endDay = dayOfBound(endMillis, Integer.MAX_VALUE);
+        for (File file : LogSegments.list(new File(sLogDirPath), startDay, endDay)) {
+            if (file.getName().endsWith(LogSegments.GZIP_SUFFIX)) {
+                LogSegmentIndex index = LogSegmentIndex.load(LogSegments.indexFileOf(file));
+                if (index != null && !index.overlaps(startMillis, endMillis)) continue;
+            }
+            resultList.add(file);
+        }
+        return resultList;
+    }
+
+    /**
+     * 获取压缩分段的索引 (时间范围、各级别条数)，未压缩的文件或索引缺失时返回 null
+     */
+    public static LogSegmentIndex getSegmentIndex(File segment) {
+        return LogSegmentIndex.load(LogSegments.indexFileOf(segment));
+    }
+
+    /**
+     * 打开日志文件，.gz 分段自动解压
+     */
+    public static InputStream openLogFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (!file.getName().endsWith(".gz")) return in;
+        try {
+            return new GZIPInputStream(in, 64 * 1024);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 合并指定范围的日志为一个临时文件（用于分享/查看）
+     *
+     * @param startDateStr 开始日期 yyyyMMdd
+     * @param endDateStr   结束日期 yyyyMMdd
+     */
+    public static File getMergedLogFile(String startDateStr, String endDateStr) {
+        LogExporter exporter = new LogExporter()
+                .setDateRange(startDateStr, endDateStr)
+                .setFormat(LogExporter.Format.PLAIN);
+        String name = "merged_logs_" + startDateStr + "_" + endDateStr + ".txt";
+        L.i(TAG, "开始合并日志至: " + name);
+        return export(exporter, name);
+    }
+
     /**
      * 获取合并并压缩后的日志包
-     * 流程：筛选文件 -> 合并到 temp.txt -> 压缩为 .zip -> 返回 zip 文件
+     * 流程：筛选文件 -> 边读取边写入 .zip (不生成临时 txt) -> 返回 zip 文件
+     * 直接上传时可使用 LogExporter.toRequestBody，无需落盘
      *
      * @return 最终的 zip 文件，失败返回 null
      */
     public static File getMergedZipFile(String startDateStr, String endDateStr) {
-        // 1. 获取合并后的临时 .txt 文件
-        File mergedFile = getMergedLogFile(startDateStr, endDateStr);
-        if (mergedFile == null || !mergedFile.exists()) return null;
-        try {
-            // 2. 创建压缩包 File 对象，统一传参类型
-            String zipPath = mergedFile.getAbsolutePath().replace(".txt", ".zip");
-            File zipFile = new File(zipPath);
-            // 3. 调用重构后的 ZipUtils，直接传入 File 对象
-            boolean success = ZipUtils.zip(mergedFile, zipFile);
-            if (success) {
-                L.i(TAG, "日志合并压缩成功: " + FileUtils.formatSize(zipFile.length()));
-                // 4. 压缩成功后清理临时 txt 文件
-                mergedFile.delete();
-                return zipFile;
-            }
-        } catch (Exception e) {
+        String name = "merged_logs_" + startDateStr + "_" + endDateStr;
+        LogExporter exporter = new LogExporter()
+                .setDateRange(startDateStr, endDateStr)
+                .setEntryName(name + ".txt");
+        File zipFile = export(exporter, name + ".zip");
+        if (zipFile != null) {
+            L.i(TAG, "日志合并压缩成功: " + FileUtils.formatSize(zipFile.length()));
+        }
+        return zipFile;
+    }
+
+    /**
+     * 导出到 temp 目录下的文件，没有日志或失败时返回 null
+     */
+    private static File export(LogExporter exporter, String fileName) {
+        if (sLogDirPath == null) return null;
+        flush();
+        if (exporter.getFiles().isEmpty()) return null;
+        File cacheDir = new File(sLogDirPath, "temp");
+        if (!cacheDir.exists()) cacheDir.mkdirs();
+        File file = new File(cacheDir, fileName);
+        if (file.exists()) file.delete();
+        try (OutputStream out = new FileOutputStream(file)) {
+            exporter.writeTo(out);
+            return file;
+        } catch (IOException e) {
             e.printStackTrace();
+            file.delete();
+            return null;
         }
-        return null;
     }
 
     /**
-     * 获取原始日志文件集合的压缩包（不合并，直接打包多天文件）
+     * 获取原始日志文件集合的压缩包（不合并，直接打包多天文件，每天一个 yyyyMMdd.log）
      *
      * @return 压缩后的 zip 文件
      */
@@ -230,17 +483,12 @@ public class LogFileUtils {
         File[] files = logDir.listFiles();
         if (files == null) return;
         long cutoffTime = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(keepDays);
+        // 文件日期 (当天 0 点) 早于 cutoffTime 即过期
+        int cutoffDay = dayOf(cutoffTime);
         for (File file : files) {
-            if (file.isFile() && file.getName().matches("\\d{8}\\.log")) {
-                try {
-                    String dateStr = file.getName().substring(0, 8);
-                    Date fileDate = fileNameFormat.parse(dateStr);
-                    if (fileDate != null && fileDate.getTime() < cutoffTime) {
-                        file.delete();
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            int day = LogSegments.dayOf(file.getName());
+            if (day >= 0 && day <= cutoffDay && file.isFile()) {
+                file.delete();
             }
         }
     }
@@ -0,0 +1,16 @@
+package com.yzplan.lanbase.utils.log;
+
+/**
+ * 日志调用位置 (at 类.方法(文件:行号)) 的采集方式
+ * 采集需要遍历整个调用栈，是单条日志中最耗时的操作
+ */
+public enum LogLocationMode {
+    // 不采集
+    OFF,
+    // ERROR 始终采集，其它级别每 N 条采集一次 (DefaultLogAdapter.setSampleInterval)
+    SAMPLED,
+    // 只有 ERROR 采集
+    ERROR_ONLY,
+    // 每条都采集
+    ALWAYS
+}
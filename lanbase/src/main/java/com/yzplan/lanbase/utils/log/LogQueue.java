@@ -0,0 +1,231 @@
+package com.yzplan.lanbase.utils.log;
+
+import android.os.Looper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 文件日志的有界无锁队列 (Vyukov 环形队列)
+ * 核心职责：
+ * 1. 调用线程只把 级别/tag/时间/线程名/调用位置/消息 的引用写入预分配的槽位，不格式化、不分配对象
+ * 2. 多生产者 + 单个写入线程消费；DROP_OLDEST 时生产者自己出队最早的一条，因此按多消费者实现
+ * 3. 写满时按 LogBackPressure 处理，并统计丢弃、等待次数
+ * 4. 写入线程空闲时 park，生产者只在其等待时 unpark，避免每条日志一次系统调用
+ */
+final class LogQueue {
+    // 等待空间时每次 park 的时间
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Record[] mSlots;
+    private final AtomicLongArray mSequences;
+    private final int mMask;
+    private final LogBackPressure mPolicy;
+    private final long mMaxBlockNanos;
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+    private final AtomicLong mReportedDrops = new AtomicLong();
+    private final AtomicLong mBlocked = new AtomicLong();
+
+    private volatile Thread mConsumer;
+    private volatile boolean mConsumerParked;
+
+    /**
+     * @param capacity      容量，向上取整为 2 的幂
+     * @param policy        写满时的处理策略
+     * @param maxBlockMillis BLOCK 策略下最长等待时间
+     */
+    LogQueue(int capacity, LogBackPressure policy, long maxBlockMillis) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mSlots = new Record[size];
+        mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            mSlots[i] = new Record();
+            mSequences.set(i, i);
+        }
+        mMask = size - 1;
+        mPolicy = policy;
+        mMaxBlockNanos = TimeUnit.MILLISECONDS.toNanos(maxBlockMillis);
+    }
+
+    /**
+     * 入队
+     *
+     * @param priority 日志级别 (Log.INFO 等)，0 表示 message 已是完整内容
+     * @param location 调用位置，可为 null
+     * @return 是否入队 (被丢弃时返回 false)
+     */
+    boolean offer(int priority, String tag, long time, String thread, Object location, String message) {
+        long deadline = 0;
+        while (!tryOffer(priority, tag, time, thread, location, message)) {
+            if (mPolicy == LogBackPressure.DROP_OLDEST) {
+                if (discardOldest()) mDropped.incrementAndGet();
+                continue;
+            }
+            if (mPolicy == LogBackPressure.BLOCK && !isMainThread()) {
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + mMaxBlockNanos;
+                    mBlocked.incrementAndGet();
+                }
+                if (now < deadline) {
+                    wakeConsumer();
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    continue;
+                }
+            }
+            mDropped.incrementAndGet();
+            return false;
+        }
+        if (mConsumerParked) wakeConsumer();
+        return true;
+    }
+
+    private boolean tryOffer(int priority, String tag, long time, String thread, Object location, String message) {
+        long pos = mTail.get();
+        while (true) {
+            int index = (int) pos & mMask;
+            long diff = mSequences.get(index) - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    Record slot = mSlots[index];
+                    slot.priority = priority;
+                    slot.tag = tag;
+                    slot.time = time;
+                    slot.thread = thread;
+                    slot.location = location;
+                    slot.message = message;
+                    mSequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = mTail.get();
+            } else if (diff < 0) {
+                // 已满
+                return false;
+            } else {
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队一条，复制到 out (out 由消费方复用)
+     *
+     * @return 队列为空时返回 false
+     */
+    boolean poll(Record out) {
+        long pos = mHead.get();
+        while (true) {
+            int index = (int) pos & mMask;
+            long diff = mSequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (mHead.compareAndSet(pos, pos + 1)) {
+                    Record slot = mSlots[index];
+                    if (out != null) out.copyFrom(slot);
+                    slot.clear();
+                    mSequences.lazySet(index, pos + mMask + 1);
+                    return true;
+                }
+                pos = mHead.get();
+            } else if (diff < 0) {
+                // 为空 (或生产者尚未写完该槽位)
+                return false;
+            } else {
+                pos = mHead.get();
+            }
+        }
+    }
+
+    private boolean discardOldest() {
+        return poll(null);
+    }
+
+    boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    // ================== 写入线程等待 / 唤醒 ==================
+
+    /**
+     * 写入线程在队列为空时调用，最多等待 timeoutNanos
+     */
+    void awaitRecords(long timeoutNanos) {
+        mConsumer = Thread.currentThread();
+        mConsumerParked = true;
+        // 设置标记后再检查一次，避免错过生产者的唤醒
+        if (isEmpty()) LockSupport.parkNanos(this, timeoutNanos);
+        mConsumerParked = false;
+    }
+
+    void wakeConsumer() {
+        Thread consumer = mConsumer;
+        if (consumer != null) {
+            mConsumerParked = false;
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private static boolean isMainThread() {
+        Looper main = Looper.getMainLooper();
+        return main != null && Looper.myLooper() == main;
+    }
+
+    // ================== 统计 ==================
+
+    /**
+     * 被丢弃的日志条数
+     */
+    long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    /**
+     * 自上次调用以来新丢弃的条数 (写入线程据此在文件中记录缺口)
+     */
+    long takeUnreportedDrops() {
+        long dropped = mDropped.get();
+        return dropped - mReportedDrops.getAndSet(dropped);
+    }
+
+    /**
+     * BLOCK 策略下生产者等待的次数
+     */
+    long getBlockedCount() {
+        return mBlocked.get();
+    }
+
+    int capacity() {
+        return mSlots.length;
+    }
+
+    /**
+     * 队列中的一条日志 (槽位预分配，字段由生产者直接写入)
+     */
+    static final class Record {
+        int priority;
+        String tag;
+        long time;
+        String thread;
+        Object location;
+        String message;
+
+        void copyFrom(Record other) {
+            priority = other.priority;
+            tag = other.tag;
+            time = other.time;
+            thread = other.thread;
+            location = other.location;
+            message = other.message;
+        }
+
+        void clear() {
+            tag = null;
+            thread = null;
+            location = null;
+            message = null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.yzplan.lanbase.utils.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * 已压缩日志分段的索引 (与 .log.gz 同名的 .idx 文件)
+ * 记录分段内日志的时间范围、行数与各级别条数，按时间查询时只需读取索引即可跳过无关分段
+ */
+public final class LogSegmentIndex {
+    // 级别顺序，最后一位为无法识别级别的行 (如 writeLogAsync 直接写入的内容)
+    private static final char[] LEVELS = {'V', 'D', 'I', 'W', 'E', 'U'};
+
+    private long startTime = Long.MAX_VALUE;
+    private long endTime = Long.MIN_VALUE;
+    private long lineCount;
+    private long rawBytes;
+    private final long[] levelCounts = new long[LEVELS.length];
+
+    LogSegmentIndex() {
+    }
+
+    /**
+     * 记录一行带时间戳的日志
+     *
+     * @param level 级别字符 (V/D/I/W/E)，无法识别时传 0
+     */
+    void add(long time, char level) {
+        if (time < startTime) startTime = time;
+        if (time > endTime) endTime = time;
+        lineCount++;
+        levelCounts[indexOf(level)]++;
+    }
+
+    void setRawBytes(long rawBytes) {
+        this.rawBytes = rawBytes;
+    }
+
+    /**
+     * 是否与 [start, end] 时间范围有交集，没有任何带时间戳的行时视为有交集
+     */
+    public boolean overlaps(long start, long end) {
+        return lineCount == 0 || (startTime <= end && endTime >= start);
+    }
+
+    /**
+     * 第一条日志的时间 (毫秒)
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 最后一条日志的时间 (毫秒)
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 压缩前的字节数
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * 某个级别的条数
+     *
+     * @param level V/D/I/W/E，其它字符返回无法识别级别的条数
+     */
+    public long getLevelCount(char level) {
+        return levelCounts[indexOf(level)];
+    }
+
+    private static int indexOf(char level) {
+        for (int i = 0; i < LEVELS.length - 1; i++) {
+            if (LEVELS[i] == level) return i;
+        }
+        return LEVELS.length - 1;
+    }
+
+    // ================== 读写 ==================
+
+    void save(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("start", String.valueOf(startTime));
+        properties.setProperty("end", String.valueOf(endTime));
+        properties.setProperty("lines", String.valueOf(lineCount));
+        properties.setProperty("bytes", String.valueOf(rawBytes));
+        for (int i = 0; i < LEVELS.length; i++) {
+            properties.setProperty(String.valueOf(LEVELS[i]), String.valueOf(levelCounts[i]));
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, null);
+        }
+    }
+
+    /**
+     * 读取索引，文件不存在或损坏时返回 null
+     */
+    static LogSegmentIndex load(File file) {
+        if (!file.isFile()) return null;
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+            LogSegmentIndex index = new LogSegmentIndex();
+            index.startTime = Long.parseLong(properties.getProperty("start"));
+            index.endTime = Long.parseLong(properties.getProperty("end"));
+            index.lineCount = Long.parseLong(properties.getProperty("lines"));
+            index.rawBytes = Long.parseLong(properties.getProperty("bytes"));
+            for (int i = 0; i < LEVELS.length; i++) {
+                index.levelCounts[i] = Long.parseLong(properties.getProperty(String.valueOf(LEVELS[i]), "0"));
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
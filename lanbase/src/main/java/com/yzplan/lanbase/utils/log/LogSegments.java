@@ -0,0 +1,315 @@
+package com.yzplan.lanbase.utils.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志分段文件管理
+ * 文件命名：
+ * - yyyyMMdd.log：当天正在写入的文件
+ * - yyyyMMdd-NNN.log：已滚动、等待压缩的分段
+ * - yyyyMMdd-NNN.log.gz + yyyyMMdd-NNN.idx：压缩后的分段及其索引
+ * 行格式：yyyy-MM-dd HH:mm:ss.SSS [tag]: L | 线程 | 调用位置 | 消息 (writeLogAsync 直接写入的行没有 "L | ")
+ * 核心职责：
+ * 1. 按文件名解析日期与序号 (不使用正则 / SimpleDateFormat)，按 日期 + 序号 排序
+ * 2. 压缩分段，同时扫描每行的时间戳与级别生成索引
+ * 3. 总大小超过配额时从最早的分段开始删除
+ */
+final class LogSegments {
+    static final String LOG_SUFFIX = ".log";
+    static final String GZIP_SUFFIX = ".log.gz";
+    static final String INDEX_SUFFIX = ".idx";
+    // 当天正在写入的文件的序号，排在同一天所有分段之后
+    static final int ACTIVE_SEQ = Integer.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 解析时间戳与级别只需要每行开头的部分
+    private static final int LINE_HEAD = 128;
+    // "yyyy-MM-dd HH:mm:ss.SSS"
+    static final int TIME_LENGTH = 23;
+    // "yyyy-MM-dd HH:mm:ss.SSS [" 之后为 tag
+    static final int TAG_START = TIME_LENGTH + 2;
+
+    private static final Comparator<File> ORDER = new Comparator<File>() {
+        @Override
+        public int compare(File f1, File f2) {
+            int day1 = dayOf(f1.getName());
+            int day2 = dayOf(f2.getName());
+            if (day1 != day2) return day1 < day2 ? -1 : 1;
+            int seq1 = seqOf(f1.getName());
+            int seq2 = seqOf(f2.getName());
+            return seq1 < seq2 ? -1 : (seq1 == seq2 ? 0 : 1);
+        }
+    };
+
+    private LogSegments() {
+    }
+
+    // ================== 文件名 ==================
+
+    /**
+     * 文件名中的日期 (yyyyMMdd 数值)，不是日志文件时返回 -1
+     */
+    static int dayOf(String name) {
+        if (name.length() < 12) return -1;
+        int day = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            day = day * 10 + (c - '0');
+        }
+        return seqOf(name) >= 0 ? day : -1;
+    }
+
+    /**
+     * 文件名中的分段序号，当天文件返回 ACTIVE_SEQ，无法识别返回 -1
+     */
+    static int seqOf(String name) {
+        if (name.length() == 12 && name.endsWith(LOG_SUFFIX)) return ACTIVE_SEQ;
+        if (name.length() < 10 || name.charAt(8) != '-') return -1;
+        int seq = 0;
+        int i = 9;
+        for (; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') break;
+            if (seq > 100000) return -1;
+            seq = seq * 10 + (c - '0');
+        }
+        if (i == 9) return -1;
+        String suffix = name.substring(i);
+        return LOG_SUFFIX.equals(suffix) || GZIP_SUFFIX.equals(suffix) || INDEX_SUFFIX.equals(suffix) ? seq : -1;
+    }
+
+    /**
+     * 是否是日志内容文件 (当天文件 / 分段 / 压缩分段，不含索引)
+     */
+    static boolean isLogFile(String name) {
+        return dayOf(name) >= 0 && !name.endsWith(INDEX_SUFFIX);
+    }
+
+    static File indexFileOf(File segment) {
+        String name = segment.getName();
+        int end = name.endsWith(GZIP_SUFFIX) ? name.length() - GZIP_SUFFIX.length()
+                : name.endsWith(LOG_SUFFIX) ? name.length() - LOG_SUFFIX.length() : name.length();
+        return new File(segment.getParentFile(), name.substring(0, end) + INDEX_SUFFIX);
+    }
+
+    /**
+     * 该日期下一个分段的文件 (未压缩)
+     */
+    static File nextSegmentFile(File dir, int day) {
+        int max = 0;
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (dayOf(name) != day) continue;
+                int seq = seqOf(name);
+                if (seq != ACTIVE_SEQ && seq > max) max = seq;
+            }
+        }
+        return new File(dir, String.format(Locale.US, "%08d-%03d", day, max + 1) + LOG_SUFFIX);
+    }
+
+    /**
+     * 列出 [startDay, endDay] 内的日志内容文件，按日期 + 序号排序
+     */
+    static List<File> list(File dir, int startDay, int endDay) {
+        List<File> result = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null) return result;
+        for (File file : files) {
+            String name = file.getName();
+            if (!isLogFile(name)) continue;
+            int day = dayOf(name);
+            if (day >= startDay && day <= endDay && file.isFile()) result.add(file);
+        }
+        Collections.sort(result, ORDER);
+        return result;
+    }
+
+    // ================== 压缩与索引 ==================
+
+    /**
+     * 压缩分段并生成索引，完成后删除原文件
+     * 先写 .tmp 再重命名，中途退出时原文件仍在，下次重新压缩
+     */
+    static void compress(File plain) throws IOException {
+        // 已被其它任务压缩 / 清理
+        if (!plain.isFile()) return;
+        String name = plain.getName();
+        File gzip = new File(plain.getParentFile(), name.substring(0, name.length() - LOG_SUFFIX.length()) + GZIP_SUFFIX);
+        File gzipTmp = new File(gzip.getPath() + ".tmp");
+        File index = indexFileOf(plain);
+        File indexTmp = new File(index.getPath() + ".tmp");
+        LineScanner scanner = new LineScanner();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long raw = 0;
+        try (InputStream in = new FileInputStream(plain);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipTmp), BUFFER_SIZE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                scanner.scan(buffer, read);
+                out.write(buffer, 0, read);
+                raw += read;
+            }
+        }
+        scanner.finish();
+        scanner.index.setRawBytes(raw);
+        scanner.index.save(indexTmp);
+        if (!gzipTmp.renameTo(gzip) || !indexTmp.renameTo(index)) {
+            gzipTmp.delete();
+            indexTmp.delete();
+            throw new IOException("重命名压缩分段失败: " + gzip);
+        }
+        plain.delete();
+    }
+
+    /**
+     * 删除最早的分段，直到日志目录总大小不超过 maxBytes (当天正在写入的文件不删除)
+     * 等待压缩的分段不计入、不删除，压缩后再参与计算，避免突发写入时误删
+     */
+    static void enforceQuota(File dir, long maxBytes, int activeDay) {
+        if (maxBytes <= 0) return;
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        List<File> segments = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (dayOf(name) < 0 || !file.isFile()) continue;
+            if (seqOf(name) != ACTIVE_SEQ && name.endsWith(LOG_SUFFIX)) continue;
+            total += file.length();
+            if (isLogFile(name)) segments.add(file);
+        }
+        if (total <= maxBytes) return;
+        Collections.sort(segments, ORDER);
+        for (File segment : segments) {
+            if (total <= maxBytes) break;
+            String name = segment.getName();
+            if (seqOf(name) == ACTIVE_SEQ && dayOf(name) == activeDay) continue;
+            File index = indexFileOf(segment);
+            total -= segment.length();
+            segment.delete();
+            if (index.exists()) {
+                total -= index.length();
+                index.delete();
+            }
+        }
+    }
+
+    // ================== 行解析 ==================
+
+    /**
+     * 行首是否为 "yyyy-MM-dd HH:mm:ss.SSS" 时间戳 (多行日志的后续行没有)
+     * 以下解析方法中 offset 为行首在 line 中的下标，length 为行长度 (不含换行符)
+     */
+    static boolean hasTimestamp(byte[] line, int offset, int length) {
+        if (length < TIME_LENGTH) return false;
+        for (int i = 0; i < TIME_LENGTH; i++) {
+            byte b = line[offset + i];
+            switch (i) {
+                case 4:
+                case 7:
+                    if (b != '-') return false;
+                    break;
+                case 10:
+                    if (b != ' ') return false;
+                    break;
+                case 13:
+                case 16:
+                    if (b != ':') return false;
+                    break;
+                case 19:
+                    if (b != '.') return false;
+                    break;
+                default:
+                    if (b < '0' || b > '9') return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析行首时间戳 (需先通过 hasTimestamp 检查)
+     */
+    static long parseTime(byte[] line, int offset, Calendar calendar) {
+        calendar.clear();
+        calendar.set(number(line, offset, 4), number(line, offset + 5, 2) - 1, number(line, offset + 8, 2),
+                number(line, offset + 11, 2), number(line, offset + 14, 2), number(line, offset + 17, 2));
+        return calendar.getTimeInMillis() + number(line, offset + 20, 3);
+    }
+
+    /**
+     * tag 结束位置 (']' 在 line 中的下标)，tag 从 offset + TAG_START 开始，格式不符时返回 -1
+     */
+    static int tagEnd(byte[] line, int offset, int length) {
+        if (length <= TAG_START || line[offset + TIME_LENGTH] != ' ' || line[offset + TIME_LENGTH + 1] != '[') {
+            return -1;
+        }
+        for (int i = offset + TAG_START, end = offset + length; i + 2 < end; i++) {
+            if (line[i] == ']' && line[i + 1] == ':' && line[i + 2] == ' ') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * "]: " 之后为 "L | " 时返回级别字符，否则返回 0
+     */
+    static char levelOf(byte[] line, int offset, int length) {
+        int end = tagEnd(line, offset, length);
+        if (end < 0 || end + 5 >= offset + length) return 0;
+        return line[end + 4] == ' ' && line[end + 5] == '|' ? (char) line[end + 3] : 0;
+    }
+
+    private static int number(byte[] line, int offset, int digits) {
+        int value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            value = value * 10 + (line[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 逐行扫描日志，统计带时间戳的行的时间范围与级别
+     * 不带时间戳的行 (多行日志的后续行) 不计数
+     */
+    private static final class LineScanner {
+        final LogSegmentIndex index = new LogSegmentIndex();
+        private final byte[] mHead = new byte[LINE_HEAD];
+        private int mHeadLength;
+        private final Calendar mCalendar = Calendar.getInstance();
+
+        void scan(byte[] data, int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = data[i];
+                if (b == '\n') {
+                    endLine();
+                } else if (mHeadLength < LINE_HEAD) {
+                    mHead[mHeadLength++] = b;
+                }
+            }
+        }
+
+        void finish() {
+            if (mHeadLength > 0) endLine();
+        }
+
+        private void endLine() {
+            int length = mHeadLength;
+            mHeadLength = 0;
+            if (!hasTimestamp(mHead, 0, length)) return;
+            index.add(parseTime(mHead, 0, mCalendar), levelOf(mHead, 0, length));
+        }
+    }
+}
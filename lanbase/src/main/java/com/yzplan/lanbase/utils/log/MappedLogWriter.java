@@ -0,0 +1,337 @@
+package com.yzplan.lanbase.utils.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 基于内存映射 (mmap) 的日志追加写入
+ * 核心职责：
+ * 1. 每天一个 yyyyMMdd.log，文件保持打开，按 WINDOW_SIZE 分段映射后直接写入内存，不再逐行 open/write/close
+ * - 进程崩溃时已写入映射区的数据由系统写回文件，不会丢失；force() 只用于防止断电丢失
+ * 2. 映射会把文件预先扩展到窗口末尾 (尾部为 0)，切换日期 / 关闭 / seal() 时截断到实际长度；
+ * 上次异常退出未截断的文件在下次打开时从尾部向前找到最后一个非 0 字节并截断
+ * 3. 时间戳按秒缓存格式化结果，SimpleDateFormat 只在加锁状态下使用
+ * 4. 映射失败 (部分文件系统不支持) 时退化为保持打开的 FileOutputStream 追加写
+ * 5. 文件超过 maxSegmentBytes 或跨天时关闭并重命名为分段 (yyyyMMdd-NNN.log)，交给 RollListener 压缩
+ * 注意：所有方法线程安全；日志内容中的 '\0' 会被替换为空格，以保证尾部恢复正确；close 之后不再接受写入
+ */
+final class MappedLogWriter {
+    // 每次映射的窗口大小，也是异常退出后文件尾部最多残留的 0 字节数
+    static final int WINDOW_SIZE = 256 * 1024;
+    // 尾部恢复时每次向前扫描的字节数
+    private static final int SCAN_CHUNK = 8 * 1024;
+
+    private final File mDir;
+    // 单个文件的大小上限，<= 0 表示不按大小滚动
+    private final long mMaxSegmentBytes;
+    private final RollListener mRollListener;
+    private final SimpleDateFormat mFileNameFormat = new SimpleDateFormat("yyyyMMdd", Locale.CHINA);
+    private final SimpleDateFormat mSecondFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA);
+    private final StringBuilder mLine = new StringBuilder(256);
+
+    // 当前文件
+    private File mCurrentFile;
+    private int mCurrentDay;
+    private RandomAccessFile mFile;
+    private FileChannel mChannel;
+    private MappedByteBuffer mWindow;
+    // 映射失败时使用
+    private FileOutputStream mStream;
+    // 实际写入的字节数 (文件逻辑长度)
+    private long mLength;
+    // 当前文件覆盖的时间范围 [mDayStart, mDayEnd)
+    private long mDayStart;
+    private long mDayEnd;
+    // 自上次 force 后是否有新数据
+    private boolean mDirty;
+    // 已关闭 (不再重新打开文件)
+    private boolean mClosed;
+
+    // 秒级时间戳缓存
+    private long mCachedSecond = -1;
+    private String mCachedSecondText;
+
+    /**
+     * @param maxSegmentBytes 单个文件的大小上限，<= 0 表示不按大小滚动
+     * @param listener        文件滚动为分段后回调 (在写入线程上，不要做耗时操作)
+     */
+    MappedLogWriter(File dir, long maxSegmentBytes, RollListener listener) {
+        mDir = dir;
+        mMaxSegmentBytes = maxSegmentBytes;
+        mRollListener = listener;
+    }
+
+    /**
+     * 追加一行：yyyy-MM-dd HH:mm:ss.SSS [tag]: msg
+     */
+    synchronized void append(long timeMillis, CharSequence tag, CharSequence msg) throws IOException {
+        if (mClosed) throw new IOException("Log writer closed");
+        if (mFile == null || timeMillis < mDayStart || timeMillis >= mDayEnd) {
+            open(timeMillis);
+        }
+        StringBuilder line = mLine;
+        line.setLength(0);
+        appendTime(line, timeMillis);
+        line.append(" [").append(tag).append("]: ").append(msg).append('\n');
+        for (int i = 0, n = line.length(); i < n; i++) {
+            if (line.charAt(i) == '\0') line.setCharAt(i, ' ');
+        }
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if (line.capacity() > 64 * 1024) {
+            // 超长日志 (如崩溃堆栈) 之后不长期占用内存
+            mLine.setLength(0);
+            mLine.trimToSize();
+        }
+        try {
+            write(bytes);
+        } catch (IOException | RuntimeException e) {
+            // 文件被删除、磁盘满等情况：关闭当前文件，下次写入重新打开
+            closeQuietly();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        if (mMaxSegmentBytes > 0 && mLength >= mMaxSegmentBytes) roll();
+    }
+
+    /**
+     * 正在写入的日期 (yyyyMMdd 数值)，尚未打开文件时返回 -1
+     */
+    synchronized int getCurrentDay() {
+        return mFile != null ? mCurrentDay : -1;
+    }
+
+    /**
+     * 将映射区刷入磁盘 (msync)
+     */
+    synchronized void force() {
+        if (!mDirty) return;
+        mDirty = false;
+        try {
+            if (mWindow != null) {
+                mWindow.force();
+            } else if (mStream != null) {
+                mStream.getFD().sync();
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 刷盘并把文件截断到实际长度，之后读取该文件不会看到尾部的 0 (导出、上传前调用)
+     * 下次写入时重新映射
+     */
+    synchronized void seal() {
+        if (mChannel == null) return;
+        try {
+            if (mWindow != null) {
+                mWindow.force();
+                // 放弃旧窗口，截断后不再访问
+                mWindow = null;
+            } else if (mStream != null && mDirty) {
+                mStream.getFD().sync();
+            }
+            mDirty = false;
+            if (mChannel.size() > mLength) mChannel.truncate(mLength);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 截断并关闭当前文件，之后的 append 抛出 IOException
+     */
+    synchronized void close() {
+        mClosed = true;
+        closeFile();
+    }
+
+    // ================== 内部实现 ==================
+
+    /**
+     * 截断并关闭当前文件，重命名为分段后通知 RollListener；下次写入时新建当天文件
+     */
+    private void roll() {
+        File file = mCurrentFile;
+        int day = mCurrentDay;
+        closeFile();
+        if (file == null || file.length() == 0) return;
+        File segment = LogSegments.nextSegmentFile(mDir, day);
+        if (file.renameTo(segment)) {
+            if (mRollListener != null) mRollListener.onRoll(segment);
+        }
+    }
+
+    private void open(long timeMillis) throws IOException {
+        // 跨天：前一天的文件滚动为分段
+        if (mFile != null) {
+            roll();
+        } else {
+            closeFile();
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long dayStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        long dayEnd = calendar.getTimeInMillis();
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + mDir);
+        }
+        String day = mFileNameFormat.format(new Date(timeMillis));
+        File file = new File(mDir, day + LogSegments.LOG_SUFFIX);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            long length = recoverLength(channel);
+            if (length < channel.size()) channel.truncate(length);
+            mFile = raf;
+            mCurrentFile = file;
+            mCurrentDay = Integer.parseInt(day);
+            mChannel = channel;
+            mLength = length;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+        mWindow = null;
+        mDayStart = dayStart;
+        mDayEnd = dayEnd;
+    }
+
+    /**
+     * 找到文件中最后一个非 0 字节，得到上次写入的实际长度
+     */
+    private static long recoverLength(FileChannel channel) throws IOException {
+        long end = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_CHUNK);
+        // 残留的 0 不会超过一个窗口，再多扫描一段用于容错
+        long limit = Math.max(0, end - WINDOW_SIZE - SCAN_CHUNK);
+        while (end > limit) {
+            long start = Math.max(limit, end - SCAN_CHUNK);
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            int read = 0;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, start + read);
+                if (n < 0) break;
+                read += n;
+            }
+            for (int i = read - 1; i >= 0; i--) {
+                if (buffer.get(i) != 0) return start + i + 1;
+            }
+            end = start;
+        }
+        // 整个扫描范围都是 0：只截断扫描过的部分
+        return end;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (mStream != null) {
+            mStream.write(bytes);
+            mLength += bytes.length;
+            mDirty = true;
+            return;
+        }
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (mWindow == null || !mWindow.hasRemaining()) {
+                if (!mapWindow()) {
+                    // 映射失败：退化为流式追加 (从实际长度处继续)
+                    mStream = new FileOutputStream(mFile.getFD());
+                    mChannel.position(mLength);
+                    mStream.write(bytes, offset, bytes.length - offset);
+                    mLength += bytes.length - offset;
+                    mDirty = true;
+                    return;
+                }
+            }
+            int count = Math.min(mWindow.remaining(), bytes.length - offset);
+            mWindow.put(bytes, offset, count);
+            offset += count;
+            mLength += count;
+        }
+        mDirty = true;
+    }
+
+    private boolean mapWindow() throws IOException {
+        if (mWindow != null) {
+            // 已写满的窗口交给系统写回，不立即 force
+            mWindow = null;
+        }
+        try {
+            mWindow = mChannel.map(FileChannel.MapMode.READ_WRITE, mLength, WINDOW_SIZE);
+            return true;
+        } catch (IOException e) {
+            mWindow = null;
+            // 恢复被预扩展的长度
+            if (mChannel.size() > mLength) mChannel.truncate(mLength);
+            return false;
+        }
+    }
+
+    private void appendTime(StringBuilder sb, long timeMillis) {
+        long second = timeMillis / 1000;
+        if (second != mCachedSecond) {
+            mCachedSecond = second;
+            mCachedSecondText = mSecondFormat.format(new Date(second * 1000));
+        }
+        int millis = (int) (timeMillis - second * 1000);
+        sb.append(mCachedSecondText).append('.');
+        if (millis < 100) sb.append('0');
+        if (millis < 10) sb.append('0');
+        sb.append(millis);
+    }
+
+    /**
+     * 截断并关闭当前文件 (滚动 / 重新打开时使用，之后仍可写入)
+     */
+    private void closeFile() {
+        seal();
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        mWindow = null;
+        mChannel = null;
+        if (mStream != null) {
+            try {
+                mStream.close();
+            } catch (IOException ignored) {
+            }
+            mStream = null;
+        }
+        if (mFile != null) {
+            try {
+                mFile.close();
+            } catch (IOException ignored) {
+            }
+            mFile = null;
+        }
+        mCurrentFile = null;
+        mDayStart = 0;
+        mDayEnd = 0;
+    }
+
+    /**
+     * 文件滚动回调
+     */
+    interface RollListener {
+        /**
+         * @param segment 已关闭的分段文件 (yyyyMMdd-NNN.log)
+         */
+        void onRoll(File segment);
+    }
+}
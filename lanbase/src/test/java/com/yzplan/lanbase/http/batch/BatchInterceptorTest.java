@@ -0,0 +1,230 @@
+package com.yzplan.lanbase.http.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * BatchInterceptor + JsonBatchProtocol 在 MockWebServer 上的合并 / 拆分
+ */
+public class BatchInterceptorTest {
+    interface Service {
+        @Batchable
+        @GET("item/{id}")
+        Call<ResponseBody> item(@Path("id") String id);
+
+        @GET("plain")
+        Call<ResponseBody> plain();
+    }
+
+    private MockWebServer server;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    private Service service(BatchConfig config) {
+        BatchInterceptor interceptor = new BatchInterceptor(server.url("/batch"), config);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .build()
+                .create(Service.class);
+    }
+
+    /**
+     * 按请求中的 id 生成批量响应，body 为 {"item":"<url>"}，顺序与请求相反 (验证按 id 拆分)
+     */
+    private static String echo(RecordedRequest request, String skipId) {
+        JsonArray items = JsonParser.parseString(request.getBody().clone().readUtf8()).getAsJsonArray();
+        JsonArray result = new JsonArray();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            JsonObject item = items.get(i).getAsJsonObject();
+            String id = item.get("id").getAsString();
+            if (id.equals(skipId)) continue;
+            JsonObject body = new JsonObject();
+            body.addProperty("item", item.get("url").getAsString());
+            JsonObject response = new JsonObject();
+            response.addProperty("id", id);
+            response.addProperty("status", 200);
+            response.add("body", body);
+            result.add(response);
+        }
+        return result.toString();
+    }
+
+    private List<Future<Response<ResponseBody>>> submit(final Service service, int count, long gapMillis)
+            throws InterruptedException {
+        List<Future<Response<ResponseBody>>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final String id = String.valueOf(i);
+            futures.add(executor.submit(() -> service.item(id).execute()));
+            if (gapMillis > 0) Thread.sleep(gapMillis);
+        }
+        return futures;
+    }
+
+    @Test
+    public void lingerClosesWindowAndDemuxesById() throws Exception {
+        server.setDispatcher(new EchoDispatcher(null));
+        Service service = service(new BatchConfig("batch").setMaxBatchSize(8).setLingerMillis(300));
+        List<Future<Response<ResponseBody>>> futures = submit(service, 3, 20);
+        for (int i = 0; i < futures.size(); i++) {
+            Response<ResponseBody> response = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertTrue(response.isSuccessful());
+            assertEquals("{\"item\":\"/item/" + i + "\"}", response.body().string());
+        }
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest batch = server.takeRequest();
+        assertEquals("/batch", batch.getPath());
+        assertEquals("POST", batch.getMethod());
+    }
+
+    @Test
+    public void maxBatchSizeClosesWindowBeforeLinger() throws Exception {
+        server.setDispatcher(new EchoDispatcher(null));
+        Service service = service(new BatchConfig("batch").setMaxBatchSize(2).setLingerMillis(10_000));
+        long start = System.nanoTime();
+        List<Future<Response<ResponseBody>>> futures = submit(service, 2, 0);
+        for (Future<Response<ResponseBody>> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isSuccessful());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/batch", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void singleRequestIsSentAsIs() throws Exception {
+        server.enqueue(new MockResponse().setBody("one"));
+        Service service = service(new BatchConfig("batch").setLingerMillis(20));
+        Response<ResponseBody> response = service.item("7").execute();
+        assertEquals("one", response.body().string());
+        assertEquals("/item/7", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void notBatchableIsSentAsIs() throws Exception {
+        server.enqueue(new MockResponse().setBody("plain"));
+        Service service = service(new BatchConfig("batch").setLingerMillis(20));
+        assertEquals("plain", service.plain().execute().body().string());
+        assertEquals("/plain", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void missingIdFailsOnlyThatCall() throws Exception {
+        server.setDispatcher(new EchoDispatcher("1"));
+        Service service = service(new BatchConfig("batch").setMaxBatchSize(3).setLingerMillis(10_000));
+        List<Future<Response<ResponseBody>>> futures = submit(service, 3, 0);
+        // 线程到达窗口的顺序不确定：按响应内容区分，恰好一个调用失败
+        int failed = 0;
+        for (Future<Response<ResponseBody>> future : futures) {
+            try {
+                assertTrue(future.get(5, TimeUnit.SECONDS).body().string().startsWith("{\"item\""));
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertTrue(e.getCause().getMessage().contains("Missing response"));
+                failed++;
+            }
+        }
+        assertEquals(1, failed);
+    }
+
+    @Test
+    public void non2xxBatchResponseFailsAllCalls() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("busy"));
+        Service service = service(new BatchConfig("batch").setMaxBatchSize(2).setLingerMillis(10_000));
+        for (Future<Response<ResponseBody>> future : submit(service, 2, 0)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("expected failure");
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertTrue(e.getCause().getMessage().contains("HTTP 503"));
+            }
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelledFollowerDoesNotAffectLeader() throws Exception {
+        server.setDispatcher(new EchoDispatcher(null));
+        Service service = service(new BatchConfig("batch").setMaxBatchSize(8).setLingerMillis(600));
+        Future<Response<ResponseBody>> leader = executor.submit(() -> service.item("0").execute());
+        Thread.sleep(100);
+        final Call<ResponseBody> followerCall = service.item("1");
+        Future<Response<ResponseBody>> follower = executor.submit(() -> followerCall.execute());
+        Thread.sleep(100);
+        followerCall.cancel();
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            fail("expected cancellation");
+        } catch (java.util.concurrent.ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        // follower 取消后立即结束，不必等 leader 的窗口
+        assertFalse(leader.isDone());
+        Response<ResponseBody> response = leader.get(5, TimeUnit.SECONDS);
+        assertEquals("{\"item\":\"/item/0\"}", response.body().string());
+        // 已取消的请求仍在批次中 (只是结果无人接收)
+        RecordedRequest batch = server.takeRequest();
+        JsonElement items = JsonParser.parseString(batch.getBody().readUtf8());
+        assertEquals(2, items.getAsJsonArray().size());
+    }
+
+    /**
+     * 每个批量请求都按 id 回显 (可跳过一个 id)
+     */
+    private static final class EchoDispatcher extends okhttp3.mockwebserver.Dispatcher {
+        private final String skipId;
+
+        EchoDispatcher(String skipId) {
+            this.skipId = skipId;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            return new MockResponse().setBody(echo(request, skipId));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.yzplan.lanbase.http.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonBatchProtocolTest {
+    private static final HttpUrl ENDPOINT = HttpUrl.get("https://api.example.com/batch");
+
+    private final JsonBatchProtocol protocol = new JsonBatchProtocol();
+    private final List<Request> requests = Arrays.asList(
+            new Request.Builder().url("https://api.example.com/banner/json?page=1&q=a%20b")
+                    .header("X-Token", "t1").build(),
+            new Request.Builder().url("https://api.example.com/user/update")
+                    .post(RequestBody.create(MediaType.parse("application/x-www-form-urlencoded"), "name=a"))
+                    .build());
+
+    private static Response batchResponse(String json) {
+        return new Response.Builder()
+                .request(new Request.Builder().url(ENDPOINT).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(MediaType.parse("application/json"), json))
+                .build();
+    }
+
+    @Test
+    public void encodeWritesOneItemPerRequest() throws IOException {
+        Request batch = protocol.encode(ENDPOINT, requests);
+        assertEquals("POST", batch.method());
+        assertEquals(ENDPOINT, batch.url());
+        Buffer buffer = new Buffer();
+        batch.body().writeTo(buffer);
+        JsonArray items = JsonParser.parseString(buffer.readUtf8()).getAsJsonArray();
+        assertEquals(2, items.size());
+
+        JsonObject get = items.get(0).getAsJsonObject();
+        assertEquals("0", get.get("id").getAsString());
+        assertEquals("GET", get.get("method").getAsString());
+        assertEquals("/banner/json?page=1&q=a%20b", get.get("url").getAsString());
+        assertEquals("t1", get.getAsJsonObject("headers").get("X-Token").getAsString());
+        assertFalse(get.has("body"));
+
+        JsonObject post = items.get(1).getAsJsonObject();
+        assertEquals("1", post.get("id").getAsString());
+        assertEquals("POST", post.get("method").getAsString());
+        assertEquals("/user/update", post.get("url").getAsString());
+        assertEquals("name=a", post.get("body").getAsString());
+        assertTrue(post.getAsJsonObject("headers").get("Content-Type").getAsString()
+                .startsWith("application/x-www-form-urlencoded"));
+    }
+
+    @Test
+    public void decodeMatchesById() throws IOException {
+        List<Response> responses = protocol.decode(batchResponse(
+                "[{\"id\":\"1\",\"status\":500,\"body\":\"error\"},"
+                        + "{\"id\":\"0\",\"status\":200,\"headers\":{\"Content-Type\":\"application/json\",\"X-A\":\"1\"},"
+                        + "\"body\":{\"errorCode\":0,\"data\":[1,2]}}]"), requests);
+        assertEquals(2, responses.size());
+
+        Response first = responses.get(0);
+        assertEquals(200, first.code());
+        assertEquals(requests.get(0), first.request());
+        assertEquals("1", first.header("X-A"));
+        assertEquals("{\"errorCode\":0,\"data\":[1,2]}", first.body().string());
+
+        Response second = responses.get(1);
+        assertEquals(500, second.code());
+        assertEquals(requests.get(1), second.request());
+        // 字符串 body 原样交给子请求，不带引号
+        assertEquals("error", second.body().string());
+    }
+
+    @Test
+    public void decodeLeavesMissingAndUnknownIdsNull() throws IOException {
+        List<Response> responses = protocol.decode(batchResponse(
+                "[{\"id\":\"0\",\"body\":null},{\"id\":\"7\",\"body\":\"x\"},{\"id\":\"abc\"},42]"), requests);
+        assertEquals(2, responses.size());
+        // 缺省 status 为 200，body 为 null 时为空字符串
+        assertEquals(200, responses.get(0).code());
+        assertEquals("", responses.get(0).body().string());
+        assertNull(responses.get(1));
+    }
+
+    @Test
+    public void decodeRejectsNonArray() {
+        try {
+            protocol.decode(batchResponse("{\"id\":\"0\"}"), requests);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("not an array"));
+        }
+    }
+
+    @Test
+    public void decodeRejectsMalformedJson() {
+        try {
+            protocol.decode(batchResponse("[{\"id\":"), requests);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Malformed"));
+        }
+    }
+}
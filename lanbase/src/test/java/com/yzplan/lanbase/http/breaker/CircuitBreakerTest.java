@@ -0,0 +1,203 @@
+package com.yzplan.lanbase.http.breaker;
+
+import com.yzplan.lanbase.http.exception.CircuitBreakerException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 熔断器状态流转 (关闭 -> 打开 -> 半开 -> 关闭 / 重新打开) 与舱壁拒绝
+ */
+public class CircuitBreakerTest {
+    private static final long OPEN_MILLIS = 200;
+
+    @Rule
+    public TestName name = new TestName();
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final List<String> mTransitions = Collections.synchronizedList(new ArrayList<String>());
+    private String mKey;
+    private final CircuitBreaker.StateListener mListener = (key, from, to) -> {
+        if (key.equals(mKey)) mTransitions.add(from + "->" + to);
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.start();
+        // 熔断器按 Key 全局注册，每个用例使用独立的 Key
+        mKey = mServer.url("/").toString() + name.getMethodName();
+        CircuitBreakers.addStateListener(mListener);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        CircuitBreakers.removeStateListener(mListener);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void opensOnFailureRateAndClosesAfterHalfOpenSuccess() throws Exception {
+        OkHttpClient client = client(new CircuitBreakerConfig()
+                .setFailureRate(4, 4, 50)
+                .setOpenDurationMillis(OPEN_MILLIS)
+                .setHalfOpenPermits(2));
+        CircuitBreaker breaker = CircuitBreakers.get(mKey);
+
+        enqueue(500, 500, 200, 500);
+        for (int i = 0; i < 3; i++) assertCode(client, -1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // 第 4 次请求后窗口满，失败率 75% 达到阈值
+        assertCode(client, 500);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // 打开期间快速失败，请求不会发出
+        assertRejected(client, CircuitBreakerException.CODE_CIRCUIT_OPEN);
+        assertEquals(4, mServer.getRequestCount());
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        enqueue(200, 200);
+        assertCode(client, 200);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertCode(client, 200);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0f, breaker.getFailureRate(), 0f);
+
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), mTransitions);
+    }
+
+    @Test
+    public void halfOpenFailureReopens() throws Exception {
+        OkHttpClient client = client(new CircuitBreakerConfig()
+                .setFailureRate(2, 2, 50)
+                .setOpenDurationMillis(OPEN_MILLIS)
+                .setHalfOpenPermits(2));
+        CircuitBreaker breaker = CircuitBreakers.get(mKey);
+
+        enqueue(503, 503);
+        assertCode(client, 503);
+        assertCode(client, 503);
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        enqueue(503);
+        assertCode(client, 503);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertRejected(client, CircuitBreakerException.CODE_CIRCUIT_OPEN);
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"), mTransitions);
+    }
+
+    @Test
+    public void clientErrorsAreNotFailures() throws Exception {
+        OkHttpClient client = client(new CircuitBreakerConfig().setFailureRate(2, 2, 50));
+        enqueue(404, 400, 404);
+        for (int i = 0; i < 3; i++) assertCode(client, -1);
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreakers.get(mKey).getState());
+        assertTrue(mTransitions.isEmpty());
+    }
+
+    @Test
+    public void bulkheadRejectsWhenFull() throws Exception {
+        OkHttpClient client = client(new CircuitBreakerConfig().setBulkhead(1, 0));
+        CircuitBreaker breaker = CircuitBreakers.get(mKey);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch received = new CountDownLatch(1);
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if ("/slow".equals(request.getPath())) {
+                    received.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return new MockResponse();
+            }
+        });
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final int[] slowCode = new int[1];
+        client.newCall(new Request.Builder().url(mServer.url("/slow")).build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                done.countDown();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                slowCode[0] = response.code();
+                response.close();
+                done.countDown();
+            }
+        });
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(0, breaker.getAvailableConcurrentCalls());
+
+        // 慢请求占满并发名额，其它请求立即失败且不计入熔断统计
+        assertRejected(client, CircuitBreakerException.CODE_BULKHEAD_FULL);
+        assertEquals(1, mServer.getRequestCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(200, slowCode[0]);
+        assertEquals(1, breaker.getAvailableConcurrentCalls());
+        assertCode(client, 200);
+        assertEquals(0f, breaker.getFailureRate(), 0f);
+    }
+
+    // ================== 工具 ==================
+
+    private OkHttpClient client(CircuitBreakerConfig config) {
+        return new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .addInterceptor(CircuitBreakers.obtainInterceptor(mKey, config))
+                .build();
+    }
+
+    private void enqueue(int... codes) {
+        for (int code : codes) {
+            mServer.enqueue(new MockResponse().setResponseCode(code));
+        }
+    }
+
+    /**
+     * 执行一次请求并校验响应码 (expected 为 -1 时不校验)
+     */
+    private void assertCode(OkHttpClient client, int expected) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute()) {
+            if (expected != -1) assertEquals(expected, response.code());
+        }
+    }
+
+    private void assertRejected(OkHttpClient client, String code) throws IOException {
+        try {
+            client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute().close();
+            fail("expected " + code);
+        } catch (CircuitBreakerException e) {
+            assertEquals(code, e.getCode());
+            assertEquals(mKey, e.getHost());
+        }
+    }
+}
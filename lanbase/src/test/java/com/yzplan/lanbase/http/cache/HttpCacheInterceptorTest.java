@@ -0,0 +1,166 @@
+package com.yzplan.lanbase.http.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缓存策略：命中/未命中统计、离线读取过期缓存、stale-while-revalidate 后台刷新重新签名
+ */
+public class HttpCacheInterceptorTest {
+    interface Service {
+        @CachePolicy(maxAge = 60)
+        @GET("fresh")
+        Call<ResponseBody> fresh();
+
+        @CachePolicy(maxAge = 0, staleWhileRevalidate = 60)
+        @GET("swr")
+        Call<ResponseBody> swr();
+
+        @CachePolicy(maxAge = 0, offlineStale = 60)
+        @GET("offline")
+        Call<ResponseBody> offline();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer mServer = new MockWebServer();
+    // 模拟签名拦截器：每次经过拦截器链生成新的签名 (放在请求头中)
+    private final AtomicInteger mSignCount = new AtomicInteger();
+    private volatile boolean mConnected = true;
+    private Cache mCache;
+    private Service mService;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.start();
+        HttpCacheStats.reset();
+        mCache = new Cache(folder.newFolder("http"), 1024 * 1024);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .cache(mCache)
+                .addNetworkInterceptor(new CacheControlInterceptor())
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("X-Sign", String.valueOf(mSignCount.incrementAndGet()))
+                        .build()))
+                .addInterceptor(new HttpCacheInterceptor() {
+                    @Override
+                    boolean isConnected() {
+                        return mConnected;
+                    }
+                })
+                .build();
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .client(client)
+                .build()
+                .create(Service.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mCache.close();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void countsMissThenHit() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("v1"));
+
+        assertEquals("v1", body(mService.fresh().execute()));
+        assertEquals("v1", body(mService.fresh().execute()));
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, HttpCacheStats.getMissCount());
+        assertEquals(1, HttpCacheStats.getHitCount());
+    }
+
+    @Test
+    public void staleWhileRevalidateRefreshesWithNewSignature() throws Exception {
+        mServer.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("v1"));
+        mServer.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        assertEquals("v1", body(mService.swr().execute()));
+        RecordedRequest first = mServer.takeRequest();
+
+        // 过期缓存立即返回，后台发起条件请求
+        Response<ResponseBody> stale = mService.swr().execute();
+        assertEquals("v1", body(stale));
+        assertNull(stale.raw().networkResponse());
+        assertNotNull(stale.raw().cacheResponse());
+
+        RecordedRequest refresh = mServer.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull("background refresh was not sent", refresh);
+        assertEquals("\"v1\"", refresh.getHeader("If-None-Match"));
+        // 后台刷新重新经过签名拦截器，而不是重放之前的签名
+        assertEquals("1", first.getHeader("X-Sign"));
+        assertEquals("3", refresh.getHeader("X-Sign"));
+
+        awaitCount(HttpCacheStats.REVALIDATE, 1);
+        assertEquals(1, HttpCacheStats.getBackgroundRefreshCount());
+        assertEquals(1, HttpCacheStats.getMissCount());
+        assertEquals(1, HttpCacheStats.getHitCount());
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void offlineReadsStaleCache() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("v1"));
+        assertEquals("v1", body(mService.offline().execute()));
+
+        mConnected = false;
+        Response<ResponseBody> offline = mService.offline().execute();
+        assertEquals("v1", body(offline));
+        assertNull(offline.raw().networkResponse());
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, HttpCacheStats.getOfflineHitCount());
+    }
+
+    @Test
+    public void offlineWithoutCacheReturns504() throws Exception {
+        mConnected = false;
+        Response<ResponseBody> response = mService.offline().execute();
+        assertEquals(504, response.code());
+        assertEquals(0, mServer.getRequestCount());
+        assertEquals(0, HttpCacheStats.getOfflineHitCount());
+    }
+
+    private static String body(Response<ResponseBody> response) throws IOException {
+        assertTrue("HTTP " + response.code(), response.isSuccessful());
+        try (ResponseBody body = response.body()) {
+            return body.string();
+        }
+    }
+
+    private static void awaitCount(AtomicLong counter, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.get() < expected) {
+            assertTrue("counter did not reach " + expected, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.yzplan.lanbase.http.compress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 响应解码：gzip / deflate / 反射解码器，以及 Vary: Accept-Encoding 的响应仍能命中磁盘缓存
+ */
+public class ContentDecodingInterceptorTest {
+    private static final String BODY = "{\"data\":\"hello hello hello hello\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void decodedResponseWithVaryIsServedFromCache() throws Exception {
+        Cache cache = new Cache(folder.newFolder("http"), 1024 * 1024);
+        OkHttpClient client = client(new CompressionConfig()).newBuilder().cache(cache).build();
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "gzip")
+                .setHeader("Cache-Control", "max-age=60")
+                .setHeader("Vary", "Accept-Encoding")
+                .setBody(new Buffer().write(gzip(BODY))));
+
+        try (Response first = client.newCall(get()).execute()) {
+            assertEquals(BODY, first.body().string());
+            assertNotNull(first.networkResponse());
+            assertEquals("gzip", first.networkResponse().request().header("Accept-Encoding"));
+        }
+        try (Response second = client.newCall(get()).execute()) {
+            assertEquals(BODY, second.body().string());
+            assertNotNull(second.cacheResponse());
+            assertNull(second.networkResponse());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals("gzip, deflate", server.takeRequest().getHeader("Accept-Encoding"));
+        cache.close();
+    }
+
+    @Test
+    public void decodesDeflate() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "deflate")
+                .setBody(new Buffer().write(zlib(BODY))));
+
+        try (Response response = client(new CompressionConfig()).newCall(get()).execute()) {
+            assertNull(response.header("Content-Encoding"));
+            assertNull(response.header("Content-Length"));
+            assertEquals(BODY, response.body().string());
+        }
+    }
+
+    @Test
+    public void decodesWithReflectiveDecoder() throws Exception {
+        // 测试环境没有 org.brotli:dec，用 JDK 的 InflaterInputStream 充当 "br" 解码库，验证反射包装的路径
+        CompressionConfig config = new CompressionConfig()
+                .addDecoder(ContentDecoders.fromInputStream("br", "java.util.zip.InflaterInputStream"));
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "br")
+                .setBody(new Buffer().write(zlib(BODY))));
+
+        try (Response response = client(config).newCall(get()).execute()) {
+            assertEquals(BODY, response.body().string());
+        }
+        assertTrue(server.takeRequest().getHeader("Accept-Encoding").startsWith("br, "));
+    }
+
+    @Test
+    public void keepsCallerAcceptEncoding() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        Request request = get().newBuilder().header("Accept-Encoding", "identity").build();
+        try (Response response = client(new CompressionConfig()).newCall(request).execute()) {
+            assertEquals(BODY, response.body().string());
+        }
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("identity", recorded.getHeader("Accept-Encoding"));
+    }
+
+    private OkHttpClient client(CompressionConfig config) {
+        return new OkHttpClient.Builder()
+                .addNetworkInterceptor(new ContentDecodingInterceptor(config))
+                .build();
+    }
+
+    private Request get() {
+        return new Request.Builder().url(server.url("/data")).build();
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zlib(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package com.yzplan.lanbase.http.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.yzplan.lanbase.http.exception.ApiException;
+
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 响应外壳解析：code / data 的先后顺序不影响结果，失败响应的 data 结构不同时仍抛出 ApiException
+ */
+public class EnvelopeConverterFactoryTest {
+    static final class Bean {
+        String name;
+        int count;
+    }
+
+    private final List<String> mHandledCodes = new ArrayList<>();
+    private final ResponseEnvelope mEnvelope = new ResponseEnvelope()
+            .setFieldNames("errorCode", "errorMsg", "data")
+            .setSuccessCodes("0")
+            .setCodeHandler(mHandledCodes::add);
+
+    @Test
+    public void successInBothFieldOrders() throws Exception {
+        Bean codeFirst = convert(Bean.class, "{\"errorCode\":0,\"errorMsg\":\"\",\"data\":{\"name\":\"a\",\"count\":1}}");
+        assertEquals("a", codeFirst.name);
+        assertEquals(1, codeFirst.count);
+
+        Bean dataFirst = convert(Bean.class, "{\"data\":{\"name\":\"b\",\"count\":2},\"errorMsg\":\"\",\"errorCode\":0}");
+        assertEquals("b", dataFirst.name);
+        assertEquals(2, dataFirst.count);
+
+        List<Bean> list = convert(new TypeToken<List<Bean>>() {
+        }.getType(), "{\"data\":[{\"name\":\"c\"}],\"errorCode\":\"0\"}");
+        assertEquals(1, list.size());
+        assertEquals("c", list.get(0).name);
+        assertEquals(Arrays.asList("0", "0", "0"), mHandledCodes);
+    }
+
+    @Test
+    public void failureWithMismatchedDataInBothFieldOrders() throws Exception {
+        assertApiException("{\"errorCode\":-1001,\"errorMsg\":\"登录失效\",\"data\":\"\"}", "-1001", "登录失效");
+        assertApiException("{\"data\":\"\",\"errorCode\":-1001,\"errorMsg\":\"登录失效\"}", "-1001", "登录失效");
+        assertApiException("{\"data\":[],\"errorMsg\":\"参数错误\",\"errorCode\":400}", "400", "参数错误");
+        assertEquals(Arrays.asList("-1001", "-1001", "400"), mHandledCodes);
+    }
+
+    @Test
+    public void missingCodeIsFailure() throws Exception {
+        assertApiException("{\"data\":{\"name\":\"a\"},\"errorMsg\":\"unknown\"}", null, "unknown");
+        assertTrue(mHandledCodes.isEmpty());
+    }
+
+    @Test
+    public void nullDataIsRejectedUnlessAllowed() throws Exception {
+        assertApiException("{\"data\":null,\"errorCode\":0}", "0", "无应答数据");
+        assertApiException("{\"errorCode\":0}", "0", "无应答数据");
+
+        mEnvelope.setAllowNullData(true);
+        assertNull(convert(Bean.class, "{\"data\":null,\"errorCode\":0}"));
+    }
+
+    // ================== 工具 ==================
+
+    @SuppressWarnings("unchecked")
+    private <T> T convert(Type type, String json) throws Exception {
+        Converter<ResponseBody, ?> converter = new EnvelopeConverterFactory(mEnvelope, new Gson())
+                .responseBodyConverter(type, new Annotation[0], null);
+        return (T) converter.convert(ResponseBody.create(MediaType.parse("application/json"), json));
+    }
+
+    private void assertApiException(String json, String code, String message) throws Exception {
+        try {
+            convert(Bean.class, json);
+            fail("expected ApiException for " + json);
+        } catch (ApiException e) {
+            assertEquals(code, e.getCode());
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
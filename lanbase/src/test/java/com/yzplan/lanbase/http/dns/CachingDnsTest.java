@@ -0,0 +1,299 @@
+package com.yzplan.lanbase.http.dns;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * CachingDns：TTL、提前刷新、失败兜底、并发合并、LRU 上限与 Happy Eyeballs 排序
+ */
+public class CachingDnsTest {
+    private static final String HOST = "api.example.com";
+    private static final long TTL = 1000;
+    private static final long STALE = 5000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private FakeResolver resolver;
+    private CachingDns dns;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        resolver = new FakeResolver();
+        resolver.set(HOST, v4(1));
+        dns = new TestDns(resolver).setTtl(TTL, STALE).setRefreshRatio(1f);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cachedWithinTtlAndResolvedAgainAfterExpiry() throws Exception {
+        assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+        clock.addAndGet(TTL - 1);
+        assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+        assertEquals(1, resolver.calls.get());
+
+        resolver.set(HOST, v4(2));
+        clock.addAndGet(1);
+        assertEquals(Arrays.asList(v4(2)), dns.lookup(HOST));
+        assertEquals(2, resolver.calls.get());
+    }
+
+    @Test
+    public void refreshesAheadOfExpiryInBackground() throws Exception {
+        dns.setRefreshRatio(0.5f);
+        dns.lookup(HOST);
+        resolver.set(HOST, v4(2));
+        resolver.block();
+
+        // 超过 TTL 的一半：仍返回旧结果，后台只发起一次刷新
+        clock.addAndGet(TTL / 2);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+        }
+        resolver.awaitCalls(2);
+        resolver.release();
+        awaitAddress(v4(2));
+        assertEquals(2, resolver.calls.get());
+    }
+
+    @Test
+    public void failedRefreshKeepsOldEntryAndAllowsRetry() throws Exception {
+        dns.setRefreshRatio(0.5f);
+        dns.lookup(HOST);
+        resolver.fail(HOST);
+
+        clock.addAndGet(TTL / 2);
+        assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+        resolver.awaitCalls(2);
+
+        // 刷新失败后允许再次刷新
+        resolver.set(HOST, v4(3));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!dns.lookup(HOST).equals(Arrays.asList(v4(3)))) {
+            assertTrue("refresh was not retried", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void staleEntryIsUsedWhenResolveFails() throws Exception {
+        dns.lookup(HOST);
+        resolver.fail(HOST);
+
+        clock.addAndGet(TTL + STALE - 1);
+        assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+
+        clock.addAndGet(1);
+        try {
+            dns.lookup(HOST);
+            fail("stale window passed");
+        } catch (UnknownHostException expected) {
+            // 超过兜底时长
+        }
+    }
+
+    @Test
+    public void concurrentMissesResolveOnce() throws Exception {
+        resolver.block();
+        List<Future<List<InetAddress>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> dns.lookup(HOST)));
+        }
+        resolver.awaitCalls(1);
+        // 其它线程进入等待后再放行
+        Thread.sleep(100);
+        resolver.release();
+
+        List<InetAddress> first = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<InetAddress>> future : futures) {
+            assertSame(first, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, resolver.calls.get());
+    }
+
+    @Test
+    public void concurrentMissesShareFailure() throws Exception {
+        resolver.fail(HOST);
+        resolver.block();
+        List<Future<List<InetAddress>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> dns.lookup(HOST)));
+        }
+        resolver.awaitCalls(1);
+        Thread.sleep(100);
+        resolver.release();
+
+        for (Future<List<InetAddress>> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("expected UnknownHostException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof UnknownHostException);
+            }
+        }
+        assertEquals(1, resolver.calls.get());
+    }
+
+    @Test
+    public void lruBoundEvictsLeastRecentlyUsed() throws Exception {
+        dns.setMaxEntries(2);
+        resolver.set("a", v4(1));
+        resolver.set("b", v4(2));
+        resolver.set("c", v4(3));
+
+        dns.lookup("a");
+        dns.lookup("b");
+        dns.lookup("a");
+        dns.lookup("c");
+        assertEquals(2, dns.size());
+        assertEquals(3, resolver.calls.get());
+
+        // a 最近访问过仍在缓存，b 被淘汰
+        dns.lookup("a");
+        assertEquals(3, resolver.calls.get());
+        dns.lookup("b");
+        assertEquals(4, resolver.calls.get());
+    }
+
+    @Test
+    public void interleavesFamilies() throws Exception {
+        InetAddress a4 = v4(1), b4 = v4(2), c4 = v4(3);
+        InetAddress a6 = v6(1), b6 = v6(2);
+
+        assertEquals(Arrays.asList(a6, a4, b6, b4, c4), dns.interleave(Arrays.asList(a4, b4, c4, a6, b6)));
+        assertEquals(Arrays.asList(a6, a4, b4, c4), dns.interleave(Arrays.asList(a4, a6, b4, c4)));
+        assertEquals(Arrays.asList(a4, b4), dns.interleave(Arrays.asList(a4, b4)));
+
+        dns.setPreferIpv6(false);
+        assertEquals(Arrays.asList(a4, a6, b4, b6, c4), dns.interleave(Arrays.asList(a6, b6, a4, b4, c4)));
+
+        // lookup 返回的结果已排序
+        dns.setPreferIpv6(true);
+        resolver.set(HOST, a4, b4, a6);
+        assertEquals(Arrays.asList(a6, a4, b4), dns.lookup(HOST));
+    }
+
+    @Test
+    public void parallelFamiliesToleratesOneFamilyFailing() throws Exception {
+        dns.setParallelFamilies(true);
+        resolver.setFamily(HOST, DnsResolver.Family.IPV4, v4(1));
+        resolver.setFamily(HOST, DnsResolver.Family.IPV6, v6(1));
+        assertEquals(Arrays.asList(v6(1), v4(1)), dns.lookup(HOST));
+
+        dns.clear();
+        resolver.setFamily(HOST, DnsResolver.Family.IPV6);
+        assertEquals(Arrays.asList(v4(1)), dns.lookup(HOST));
+    }
+
+    // ================== 工具 ==================
+
+    private void awaitAddress(InetAddress expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!dns.lookup(HOST).equals(Arrays.asList(expected))) {
+            assertTrue("refresh did not complete", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static InetAddress v4(int last) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) last});
+    }
+
+    private static InetAddress v6(int last) throws UnknownHostException {
+        byte[] bytes = new byte[16];
+        bytes[0] = 0x20;
+        bytes[1] = 0x01;
+        bytes[15] = (byte) last;
+        return InetAddress.getByAddress(bytes);
+    }
+
+    /**
+     * 可控时钟
+     */
+    private final class TestDns extends CachingDns {
+        TestDns(DnsResolver resolver) {
+            super(resolver);
+        }
+
+        @Override
+        long now() {
+            return clock.get();
+        }
+    }
+
+    /**
+     * 假解析器：按域名 / 类型返回预设地址，可让解析阻塞或失败
+     */
+    static final class FakeResolver implements DnsResolver {
+        final AtomicInteger calls = new AtomicInteger();
+        private final Map<String, List<InetAddress>> addresses = new ConcurrentHashMap<>();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void set(String host, InetAddress... result) {
+            setFamily(host, Family.ANY, result);
+        }
+
+        void setFamily(String host, Family family, InetAddress... result) {
+            addresses.put(host + "/" + family, Arrays.asList(result));
+        }
+
+        void fail(String host) {
+            set(host);
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void awaitCalls(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (calls.get() < count) {
+                assertTrue("resolver was not called", System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+        }
+
+        @Override
+        public List<InetAddress> lookup(String hostname, Family family) throws UnknownHostException {
+            calls.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new UnknownHostException("interrupted");
+            }
+            List<InetAddress> result = addresses.get(hostname + "/" + family);
+            if (result == null || result.isEmpty()) throw new UnknownHostException(hostname + " " + family);
+            return result;
+        }
+    }
+}
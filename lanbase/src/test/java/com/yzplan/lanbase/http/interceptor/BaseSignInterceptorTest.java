@@ -0,0 +1,150 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * JSON 请求的流式签名与普通签名 (prepareSignedParams) 结果一致
+ */
+public class BaseSignInterceptorTest {
+    private static final String SALT = "s3cr3t";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * 普通签名：补齐公共参数 -> 对除 sign 以外的参数签名
+     */
+    static class TreeSign extends BaseSignInterceptor {
+        @Override
+        protected void prepareSignedParams(Map<String, Object> params) {
+            putIfMissing(params, "appId", "demo");
+            putIfMissing(params, "timestamp", 1700000000000L);
+            params.remove("sign");
+            params.put("sign", sign(params, SALT));
+        }
+    }
+
+    /**
+     * 流式签名：相同的公共参数与盐，无法流式处理时回退到 TreeSign 的逻辑
+     */
+    static class StreamingSign extends TreeSign {
+        @Override
+        protected boolean isStreamingJsonSign() {
+            return true;
+        }
+
+        @Override
+        protected String getSignSalt() {
+            return SALT;
+        }
+
+        @Override
+        protected void prepareCommonParams(Map<String, Object> commonParams) {
+            commonParams.put("appId", "demo");
+            commonParams.put("timestamp", 1700000000000L);
+        }
+    }
+
+    static String signBody(BaseSignInterceptor interceptor, MediaType type, byte[] body) throws IOException {
+        Request request = new Request.Builder()
+                .url("https://api.example.com/order/create")
+                .post(RequestBody.create(type, body))
+                .build();
+        CapturingChain chain = new CapturingChain(request);
+        interceptor.intercept(chain);
+        Buffer buffer = new Buffer();
+        chain.proceeded.body().writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    private static String signBody(BaseSignInterceptor interceptor, String json) throws IOException {
+        return signBody(interceptor, JSON, json.getBytes("UTF-8"));
+    }
+
+    private static void assertSameSignAndContent(String json) throws IOException {
+        String tree = signBody(new TreeSign(), json);
+        String streaming = signBody(new StreamingSign(), json);
+        JsonObject treeObject = JsonParser.parseString(tree).getAsJsonObject();
+        JsonObject streamingObject = JsonParser.parseString(streaming).getAsJsonObject();
+        assertEquals(json, treeObject.get("sign").getAsString(), streamingObject.get("sign").getAsString());
+        // 字段与值一致 (流式保留原始字节顺序、数字写法与 null 字段，普通签名重新序列化时省略 null)
+        assertEquals(json, treeObject, withoutNulls(streamingObject));
+    }
+
+    private static JsonObject withoutNulls(JsonObject object) {
+        JsonObject result = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            if (!entry.getValue().isJsonNull()) result.add(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Test
+    public void streamingSignMatchesTreeSign() throws IOException {
+        assertSameSignAndContent("{}");
+        assertSameSignAndContent("{\"b\":\"2\",\"a\":1}");
+        assertSameSignAndContent("{\"name\":\"张三 \\u00e9 😀\",\"amount\":12.50,\"big\":12345678901234,"
+                + "\"exp\":1e3,\"neg\":-0.5,\"ok\":true,\"none\":null}");
+        assertSameSignAndContent("{\"items\":[{\"id\":1,\"qty\":2},{\"id\":2,\"tags\":[\"x\",\"y\"]}],"
+                + "\"extra\":{\"z\":1,\"a\":{\"k\":\"v\"}}}");
+        // 请求体已有公共参数时不覆盖
+        assertSameSignAndContent("{\"timestamp\":1,\"appId\":\"mine\",\"v\":\"1\"}");
+        assertSameSignAndContent("  {\"spaced\" : \"yes\" }  \n");
+    }
+
+    @Test
+    public void streamingKeepsOriginalBytes() throws IOException {
+        String json = "{\"b\":1.50,\"a\":\"x\"}";
+        String streaming = signBody(new StreamingSign(), json);
+        // 原始字节不重新序列化，只在末尾追加字段
+        assertEquals(json.substring(0, json.length() - 1), streaming.substring(0, json.length() - 1));
+        assertNotEquals(signBody(new TreeSign(), json), streaming);
+    }
+
+    @Test
+    public void duplicateKeyFallsBackToTreeSign() throws IOException {
+        String json = "{\"a\":\"1\",\"b\":2,\"a\":\"3\"}";
+        assertFallback(JSON, json.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void existingSignKeyFallsBackToTreeSign() throws IOException {
+        String json = "{\"a\":\"1\",\"sign\":\"client-side\"}";
+        assertFallback(JSON, json.getBytes("UTF-8"));
+        JsonElement sign = JsonParser.parseString(signBody(new StreamingSign(), json)).getAsJsonObject().get("sign");
+        assertFalse("client-side".equals(sign.getAsString()));
+    }
+
+    @Test
+    public void nonUtf8BodyFallsBackToTreeSign() throws IOException {
+        MediaType gbk = MediaType.parse("application/json; charset=GBK");
+        assertFallback(gbk, "{\"name\":\"张三\",\"n\":1}".getBytes(Charset.forName("GBK")));
+    }
+
+    @Test
+    public void nonObjectRootFallsBackToTreeSign() throws IOException {
+        assertFallback(JSON, "[1,2]".getBytes("UTF-8"));
+    }
+
+    /**
+     * 无法流式处理时，流式模式的输出 (签名与请求体字节) 与普通签名完全相同
+     */
+    private static void assertFallback(MediaType type, byte[] body) throws IOException {
+        assertEquals(signBody(new TreeSign(), type, body), signBody(new StreamingSign(), type, body));
+    }
+}
@@ -0,0 +1,200 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import com.orhanobut.logger.LogAdapter;
+import com.orhanobut.logger.Logger;
+import com.yzplan.lanbase.BaseApp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志拦截器：采样 (全局 / &#64;LogSample)、级别与 Body 跳过规则，且不影响调用方读取响应体
+ */
+public class LogInterceptorTest {
+    interface Service {
+        @GET("poll")
+        Call<ResponseBody> poll();
+
+        @LogSample(0f)
+        @GET("poll")
+        Call<ResponseBody> pollNeverLogged();
+
+        @LogSample(1f)
+        @GET("poll")
+        Call<ResponseBody> pollAlwaysLogged();
+    }
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final List<String> mLogs = Collections.synchronizedList(new ArrayList<String>());
+    private boolean mLogEnable;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.start();
+        LogInterceptor.resetStats();
+        mLogEnable = BaseApp.sLogEnable;
+        BaseApp.sLogEnable = true;
+        Logger.clearLogAdapters();
+        Logger.addLogAdapter(new LogAdapter() {
+            @Override
+            public boolean isLoggable(int priority, String tag) {
+                return true;
+            }
+
+            @Override
+            public void log(int priority, String tag, String message) {
+                mLogs.add(message);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Logger.clearLogAdapters();
+        BaseApp.sLogEnable = mLogEnable;
+        mServer.shutdown();
+    }
+
+    @Test
+    public void samplesByGlobalRateAndAnnotation() throws Exception {
+        Service sampledOut = service(new LogInterceptor().setSampleRate(0f));
+        Service sampledIn = service(new LogInterceptor().setSampleRate(1f));
+        for (int i = 0; i < 3; i++) {
+            call(sampledOut.poll());
+        }
+        assertEquals(3, LogInterceptor.getSampledOutCount());
+        assertEquals(0, LogInterceptor.getLoggedCount());
+        assertTrue(mLogs.isEmpty());
+
+        // 接口注解优先于全局采样率
+        call(sampledOut.pollAlwaysLogged());
+        call(sampledIn.pollNeverLogged());
+        assertEquals(1, LogInterceptor.getLoggedCount());
+        assertEquals(4, LogInterceptor.getSampledOutCount());
+        assertEquals(2, mLogs.size());
+
+        // 按比例采样 (不经过网络，直接调用拦截器)
+        LogInterceptor.resetStats();
+        LogInterceptor half = new LogInterceptor().setSampleRate(0.5f);
+        Request request = new Request.Builder().url(mServer.url("/poll")).build();
+        for (int i = 0; i < 1000; i++) {
+            half.intercept(new CapturingChain(request)).close();
+        }
+        long logged = LogInterceptor.getLoggedCount();
+        assertTrue("logged " + logged, logged > 400 && logged < 600);
+        assertEquals(1000, logged + LogInterceptor.getSampledOutCount());
+    }
+
+    @Test
+    public void skipsBinaryAndLargeBodies() throws Exception {
+        OkHttpClient client = client(new LogInterceptor());
+        byte[] binary = new byte[4096];
+        mServer.enqueue(new MockResponse().setHeader("Content-Type", "application/octet-stream")
+                .setBody(new Buffer().write(binary)));
+        RequestBody large = RequestBody.create(MediaType.parse("application/json"), new byte[4096]);
+        assertEquals(4096, execute(client, new Request.Builder().url(mServer.url("/upload")).post(large).build()).length);
+        assertTrue(log(0).contains("Body   : (Binary / Stream / LargeBody - Ignored)"));
+        assertTrue(log(1).contains("Body   : (Binary / Stream - Ignored)"));
+
+        // multipart 文件只打印文件名，不读取内容
+        mLogs.clear();
+        mServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"ok\":true}"));
+        MultipartBody multipart = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("desc", "avatar")
+                .addFormDataPart("file", "a.png", RequestBody.create(MediaType.parse("image/png"), "PNG-CONTENT"))
+                .build();
+        execute(client, new Request.Builder().url(mServer.url("/upload")).post(multipart).build());
+        assertTrue(log(0).contains("Key: \"desc\"  Value: \"avatar\""));
+        assertTrue(log(0).contains("Key: \"file\"  [File] Name: a.png"));
+        assertFalse(log(0).contains("PNG-CONTENT"));
+        assertTrue(log(1).contains("\"ok\""));
+    }
+
+    @Test
+    public void truncatesBodyWithoutConsumingIt() throws Exception {
+        OkHttpClient client = client(new LogInterceptor().setTruncateBody(16));
+        StringBuilder json = new StringBuilder("{\"data\":\"");
+        for (int i = 0; i < 1000; i++) json.append('x');
+        json.append("\"}");
+        mServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(json.toString()));
+
+        byte[] body = execute(client, new Request.Builder().url(mServer.url("/list")).build());
+        assertEquals(json.toString(), new String(body, "UTF-8"));
+        assertTrue(log(1).contains("Body   : (Truncated)\n{\"data\":\"xxxxxxx..."));
+    }
+
+    @Test
+    public void headersLevelSkipsBody() throws Exception {
+        OkHttpClient client = client(new LogInterceptor().setLevel(LogInterceptor.Level.HEADERS));
+        mServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setHeader("X-Trace", "t-1").setBody("{\"secret\":1}"));
+        execute(client, new Request.Builder().url(mServer.url("/list")).header("X-Device", "d-1")
+                .post(RequestBody.create(MediaType.parse("application/json"), "{\"password\":1}")).build());
+        assertTrue(log(0).contains("X-Device: d-1"));
+        assertFalse(log(0).contains("password"));
+        assertTrue(log(1).contains("X-Trace: t-1"));
+        assertFalse(log(1).contains("secret"));
+
+        // NONE 不打印也不计数
+        mLogs.clear();
+        mServer.enqueue(new MockResponse());
+        execute(client(new LogInterceptor().setLevel(LogInterceptor.Level.NONE)),
+                new Request.Builder().url(mServer.url("/list")).build());
+        assertTrue(mLogs.isEmpty());
+        assertEquals(1, LogInterceptor.getLoggedCount());
+    }
+
+    // ================== 工具 ==================
+
+    private OkHttpClient client(LogInterceptor interceptor) {
+        return new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    }
+
+    private Service service(LogInterceptor interceptor) {
+        return new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .client(client(interceptor))
+                .build()
+                .create(Service.class);
+    }
+
+    private void call(Call<ResponseBody> call) throws IOException {
+        mServer.enqueue(new MockResponse().setBody("ok"));
+        call.execute().body().close();
+    }
+
+    private static byte[] execute(OkHttpClient client, Request request) throws IOException {
+        try (okhttp3.Response response = client.newCall(request).execute()) {
+            return response.body().bytes();
+        }
+    }
+
+    private String log(int index) {
+        assertTrue("only " + mLogs.size() + " logs", mLogs.size() > index);
+        return mLogs.get(index);
+    }
+}
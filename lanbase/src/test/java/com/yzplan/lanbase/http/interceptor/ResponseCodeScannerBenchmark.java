@@ -0,0 +1,111 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 响应码扫描耗时：原实现 (request 1MB -> 克隆 Buffer -> InputStreamReader + JsonReader) 对比字节扫描器
+ * 分别测量 code 在第一个字段 (head) 与最后一个字段 (tail) 的情况，报告单次耗时
+ * 默认不运行：./gradlew :lanbase:testDebugUnitTest -Pbenchmark --tests '*ResponseCodeScannerBenchmark'
+ */
+public class ResponseCodeScannerBenchmark {
+    private static final long MAX_CONTENT_LENGTH = 1024 * 1024;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final long ROUND_MILLIS = 500;
+
+    interface Op {
+        String run() throws Exception;
+    }
+
+    @Test
+    public void scanTime() throws Exception {
+        // 1MB 档略小于上限，保证原实现不会因超长直接跳过
+        for (int size : new int[]{10 * 1024, 100 * 1024, 1000 * 1024}) {
+            for (boolean head : new boolean[]{true, false}) {
+                // 两条路径都不消费 Buffer，可以反复扫描同一个响应体
+                final Buffer body = new Buffer().writeUtf8(payload(size, head));
+                assertEquals("200", legacy(body));
+                assertEquals("200", scanner(body));
+                double legacyMicros = measure(() -> legacy(body));
+                double scannerMicros = measure(() -> scanner(body));
+                System.out.printf(Locale.US, "%5dKB %s  JsonReader %9.1f us  scanner %8.1f us  x%.1f%n",
+                        body.size() / 1024, head ? "head" : "tail", legacyMicros, scannerMicros, legacyMicros / scannerMicros);
+            }
+        }
+    }
+
+    private static String legacy(Buffer source) throws Exception {
+        source.request(MAX_CONTENT_LENGTH);
+        Buffer buffer = source.getBuffer();
+        if (buffer.size() > MAX_CONTENT_LENGTH) {
+            return null;
+        }
+        try (JsonReader reader = new JsonReader(new InputStreamReader(buffer.clone().inputStream(), StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            return BaseResponseCodeInterceptor.scanForCode(reader, "code");
+        }
+    }
+
+    private static String scanner(Buffer source) throws IOException {
+        ResponseCodeScanner scanner = new ResponseCodeScanner(source, MAX_CONTENT_LENGTH);
+        return scanner.scan("code", StandardCharsets.UTF_8) == ResponseCodeScanner.FOUND ? scanner.getCode() : null;
+    }
+
+    /**
+     * @return 每轮平均的单次耗时 (微秒)
+     */
+    private static double measure(Op op) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(op);
+        }
+        double total = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            total += round(op);
+        }
+        return total / MEASURE_ROUNDS;
+    }
+
+    private static double round(Op op) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + ROUND_MILLIS * 1_000_000L;
+        long ops = 0;
+        int sink = 0;
+        long now;
+        do {
+            sink += op.run().length();
+            ops++;
+        } while ((now = System.nanoTime()) < deadline);
+        if (sink == 0) throw new IllegalStateException();
+        return (now - start) / 1e3 / ops;
+    }
+
+    /**
+     * 列表类响应：code/msg + 一个 data 数组，总长度约为 targetBytes
+     */
+    private static String payload(int targetBytes, boolean codeFirst) {
+        StringBuilder json = new StringBuilder("{");
+        if (codeFirst) json.append("\"code\":200,");
+        json.append("\"msg\":\"success\",\"data\":[");
+        for (int i = 0; json.length() < targetBytes - 64; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(i)
+                    .append(",\"name\":\"item-").append(i)
+                    .append("\",\"price\":").append(9.9 + i)
+                    .append(",\"tags\":[\"a\",\"b\"]}");
+        }
+        json.append(']');
+        if (!codeFirst) json.append(",\"code\":200");
+        return json.append('}').toString();
+    }
+}
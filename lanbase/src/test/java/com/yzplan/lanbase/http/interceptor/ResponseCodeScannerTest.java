@@ -0,0 +1,256 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 字节扫描器与 JsonReader 回退路径的对照测试
+ * 每个用例都同时跑两条路径：扫描器 FOUND / NOT_FOUND 时结果必须与 JsonReader 一致，UNSUPPORTED 时由 JsonReader 给出结果
+ */
+public class ResponseCodeScannerTest {
+    private static final long LIMIT = 1024 * 1024;
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Test
+    public void codeAfterLargeDataArray() throws Exception {
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) json.append(',');
+            // 字符串里混入括号、转义引号和反斜杠，确保跳过数组时不会被误判
+            json.append("{\"id\":").append(i).append(",\"name\":\"a}b]c\\\"d\\\\\",\"tags\":[[],{}]}");
+        }
+        json.append("],\"msg\":\"ok\",\"code\":401}");
+        assertTrue(json.length() > 200 * 1024);
+
+        assertEquals("401", check(json.toString(), StandardCharsets.UTF_8, ResponseCodeScanner.FOUND));
+    }
+
+    @Test
+    public void codeFieldForms() throws Exception {
+        assertEquals("0", check("{\"code\":0}", null, ResponseCodeScanner.FOUND));
+        assertEquals("-1", check(" \r\n{ \"code\" :\t-1 , \"data\":null}", null, ResponseCodeScanner.FOUND));
+        assertEquals("A0001", check("{\"msg\":\"x\",\"code\":\"A0001\"}", null, ResponseCodeScanner.FOUND));
+        assertEquals("成功", check("{\"code\":\"成功\"}", StandardCharsets.UTF_8, ResponseCodeScanner.FOUND));
+        // 只认顶层字段，嵌套的 code 不算
+        assertEquals("2", check("{\"data\":{\"code\":1},\"code\":2}", null, ResponseCodeScanner.FOUND));
+    }
+
+    @Test
+    public void missingOrNonScalarCode() throws Exception {
+        assertNull(check("{\"data\":{\"code\":1}}", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("{}", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("[{\"code\":1}]", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("{\"code\":true}", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("{\"code\":null}", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("{\"code\":{\"value\":1}}", null, ResponseCodeScanner.NOT_FOUND));
+        assertNull(check("{\"codes\":1,\"cod\":2}", null, ResponseCodeScanner.NOT_FOUND));
+    }
+
+    @Test
+    public void escapedKeyFallsBackToReader() throws Exception {
+        assertEquals("500", check("{\"co\\u0064e\":500}", null, ResponseCodeScanner.UNSUPPORTED));
+        assertEquals("7", check("{\"a\\\"b\":1,\"code\":7}", null, ResponseCodeScanner.UNSUPPORTED));
+        assertEquals("x\"y", check("{\"code\":\"x\\\"y\"}", null, ResponseCodeScanner.UNSUPPORTED));
+    }
+
+    @Test
+    public void exoticNumbersFallBackToReader() throws Exception {
+        assertEquals("200", check("{\"code\":200.0}", null, ResponseCodeScanner.UNSUPPORTED));
+        assertEquals("200", check("{\"code\":2e2}", null, ResponseCodeScanner.UNSUPPORTED));
+        assertEquals("1234567890123456789", check("{\"code\":1234567890123456789}", null, ResponseCodeScanner.UNSUPPORTED));
+        // lenient JSON：单引号字段名
+        assertEquals("3", check("{'code':3}", null, ResponseCodeScanner.UNSUPPORTED));
+    }
+
+    @Test
+    public void utf8Bom() throws Exception {
+        byte[] json = "{\"code\":\"OK\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[json.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(json, 0, withBom, 3, json.length);
+
+        assertEquals("OK", check(withBom, StandardCharsets.UTF_8, ResponseCodeScanner.FOUND));
+    }
+
+    @Test
+    public void latin1StringCodeIsDecodedWithDeclaredCharset() throws Exception {
+        assertTrue(ResponseCodeScanner.isSupported(StandardCharsets.ISO_8859_1));
+        assertEquals("café", check("{\"code\":\"café\"}", StandardCharsets.ISO_8859_1, ResponseCodeScanner.FOUND));
+    }
+
+    @Test
+    public void nonAsciiCompatibleCharsetIsNotScanned() throws Exception {
+        assertFalse(ResponseCodeScanner.isSupported(GBK));
+        assertFalse(ResponseCodeScanner.isSupported(StandardCharsets.UTF_16));
+        // GBK 第二个字节可能落在 ASCII 区间 (如 "\" 0x5C)，只能交给 JsonReader 解码
+        byte[] json = "{\"msg\":\"成功\",\"code\":\"失败\"}".getBytes(GBK);
+        assertEquals("失败", readWithReader(json, GBK));
+        byte[] utf16 = "{\"code\":12}".getBytes(StandardCharsets.UTF_16);
+        assertEquals("12", readWithReader(utf16, StandardCharsets.UTF_16));
+    }
+
+    @Test
+    public void truncatedOrLimitedBodyIsNotFound() throws Exception {
+        byte[] json = "{\"data\":\"abcdefghij\",\"code\":1}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(ResponseCodeScanner.NOT_FOUND, scan(json, 12, null).status);
+        assertEquals(ResponseCodeScanner.FOUND, scan(json, json.length, null).status);
+        assertEquals(ResponseCodeScanner.NOT_FOUND, scan("{\"data\":[1,2".getBytes(StandardCharsets.UTF_8), LIMIT, null).status);
+    }
+
+    @Test
+    public void scanDoesNotConsumeAndOnlyRequestsWhatItNeeds() throws Exception {
+        String json = "{\"code\":200,\"data\":\"" + repeat('x', 100 * 1024) + "\"}";
+        BufferedSource source = trickle(json.getBytes(StandardCharsets.UTF_8));
+        ResponseCodeScanner scanner = new ResponseCodeScanner(source, LIMIT);
+
+        assertEquals(ResponseCodeScanner.FOUND, scanner.scan("code", null));
+        assertEquals("200", scanner.getCode());
+        assertTrue(source.getBuffer().size() < 1024);
+        assertEquals(json, source.readUtf8());
+    }
+
+    @Test
+    public void randomDocumentsMatchReader() throws Exception {
+        Random random = new Random(9);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder json = new StringBuilder("{");
+            int fields = random.nextInt(6);
+            for (int f = 0; f < fields; f++) {
+                json.append('"').append(f % 2 == 0 ? "k" + f : "data").append("\":");
+                randomValue(random, json, 3);
+                json.append(',');
+            }
+            json.append("\"code\":");
+            randomValue(random, json, 1);
+            json.append(",\"tail\":1}");
+
+            String text = json.toString();
+            Result result = scan(text.getBytes(StandardCharsets.UTF_8), LIMIT, StandardCharsets.UTF_8);
+            if (result.status != ResponseCodeScanner.UNSUPPORTED) {
+                assertEquals(text, readWithReader(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), result.code);
+            }
+        }
+    }
+
+    // ================== 工具方法 ==================
+
+    private static String check(String json, Charset charset, int expectedStatus) throws Exception {
+        return check(json.getBytes(charset != null ? charset : StandardCharsets.UTF_8), charset, expectedStatus);
+    }
+
+    /**
+     * 断言扫描器状态，并确认与 JsonReader 回退路径的结果一致，返回 JsonReader 读到的 code
+     */
+    private static String check(byte[] json, Charset charset, int expectedStatus) throws Exception {
+        Result result = scan(json, LIMIT, charset);
+        assertEquals(expectedStatus, result.status);
+        String expected = readWithReader(json, charset != null ? charset : StandardCharsets.UTF_8);
+        if (result.status != ResponseCodeScanner.UNSUPPORTED) {
+            assertEquals(expected, result.code);
+        }
+        return expected;
+    }
+
+    private static Result scan(byte[] json, long limit, Charset charset) throws IOException {
+        BufferedSource source = trickle(json);
+        ResponseCodeScanner scanner = new ResponseCodeScanner(source, limit);
+        Result result = new Result();
+        result.status = scanner.scan("code", charset);
+        result.code = result.status == ResponseCodeScanner.FOUND ? scanner.getCode() : null;
+        // 扫描不消费响应流
+        assertEquals(json.length, source.readByteArray().length);
+        return result;
+    }
+
+    /**
+     * 与 BaseResponseCodeInterceptor 回退路径相同：lenient JsonReader + scanForCode
+     */
+    private static String readWithReader(byte[] json, Charset charset) throws Exception {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new Buffer().write(json).inputStream(), charset))) {
+            reader.setLenient(true);
+            return BaseResponseCodeInterceptor.scanForCode(reader, "code");
+        }
+    }
+
+    /**
+     * 模拟网络：每次最多读出 97 字节，迫使扫描器跨 Segment 并多次 request
+     */
+    private static BufferedSource trickle(byte[] bytes) {
+        final Buffer data = new Buffer().write(bytes);
+        return Okio.buffer(new ForwardingSource(data) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                return super.read(sink, Math.min(byteCount, 97));
+            }
+        });
+    }
+
+    private static void randomValue(Random random, StringBuilder out, int depth) {
+        switch (random.nextInt(depth > 0 ? 8 : 6)) {
+            case 0:
+                out.append(random.nextInt(2000) - 1000);
+                break;
+            case 1:
+                out.append(random.nextBoolean() ? "true" : random.nextBoolean() ? "false" : "null");
+                break;
+            case 2:
+                out.append("\"s").append(random.nextInt(100)).append("\"");
+                break;
+            case 3:
+                out.append("\"转义\\\"\\\\\\n\"");
+                break;
+            case 4:
+                out.append(random.nextInt(100)).append('.').append(random.nextInt(10));
+                break;
+            case 5:
+                out.append("\"").append(random.nextBoolean() ? "中文" : "é").append("\"");
+                break;
+            case 6:
+                out.append('[');
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    randomValue(random, out, depth - 1);
+                    if (i > 1) out.append(',');
+                }
+                out.append(']');
+                break;
+            default:
+                out.append("{\"code\":");
+                randomValue(random, out, depth - 1);
+                out.append(",\"n\":");
+                randomValue(random, out, depth - 1);
+                out.append('}');
+                break;
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static final class Result {
+        int status;
+        String code;
+    }
+}
@@ -0,0 +1,97 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import okhttp3.MediaType;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JSON 请求签名耗时：普通签名 (解析为 Map -> 签名 -> 重新序列化) 对比流式签名
+ * 按 JMH 的方式先预热、再分多轮测量，报告每轮平均的 ops/s 与单次耗时
+ * 默认不运行：./gradlew :lanbase:testDebugUnitTest -Pbenchmark --tests '*SignInterceptorBenchmark'
+ */
+public class SignInterceptorBenchmark {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final long ROUND_MILLIS = 500;
+
+    interface Op {
+        String run() throws IOException;
+    }
+
+    @Test
+    public void opsPerSecond() throws IOException {
+        for (int size : new int[]{1024, 10 * 1024, 100 * 1024}) {
+            final byte[] body = payload(size).getBytes(StandardCharsets.UTF_8);
+            final BaseSignInterceptor tree = new BaseSignInterceptorTest.TreeSign();
+            final BaseSignInterceptor streaming = new BaseSignInterceptorTest.StreamingSign();
+            double treeOps = measure(() -> BaseSignInterceptorTest.signBody(tree, JSON, body));
+            double streamingOps = measure(() -> BaseSignInterceptorTest.signBody(streaming, JSON, body));
+            System.out.printf(Locale.US, "%4dKB  tree %,9.0f ops/s (%7.1f us)  streaming %,9.0f ops/s (%7.1f us)  x%.2f%n",
+                    body.length / 1024, treeOps, 1e6 / treeOps, streamingOps, 1e6 / streamingOps, streamingOps / treeOps);
+            assertTrue(treeOps > 0 && streamingOps > 0);
+        }
+    }
+
+    private static double measure(Op op) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(op);
+        }
+        double total = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            total += round(op);
+        }
+        return total / MEASURE_ROUNDS;
+    }
+
+    /**
+     * @return 本轮的 ops/s
+     */
+    private static double round(Op op) throws IOException {
+        long start = System.nanoTime();
+        long deadline = start + ROUND_MILLIS * 1_000_000L;
+        long ops = 0;
+        int sink = 0;
+        long now;
+        do {
+            sink += op.run().length();
+            ops++;
+        } while ((now = System.nanoTime()) < deadline);
+        if (sink == 0) throw new IllegalStateException();
+        return ops / ((now - start) / 1e9);
+    }
+
+    /**
+     * 订单类请求体：若干扁平字段 + 一个明细数组，总长度约为 targetBytes
+     */
+    static String payload(int targetBytes) {
+        JsonObject root = new JsonObject();
+        root.addProperty("orderNo", "ORD202401010000001");
+        root.addProperty("merchantId", 10086);
+        root.addProperty("amount", 128.50);
+        root.addProperty("remark", "门店收银 / counter");
+        JsonArray items = new JsonArray();
+        root.add("items", items);
+        int i = 0;
+        while (root.toString().length() < targetBytes) {
+            JsonObject item = new JsonObject();
+            item.addProperty("sku", "SKU-" + i);
+            item.addProperty("name", "商品 " + i);
+            item.addProperty("qty", i % 5 + 1);
+            item.addProperty("price", 9.9 + i);
+            items.add(item);
+            root.addProperty("field" + i, "value-" + i);
+            i++;
+        }
+        return root.toString();
+    }
+}
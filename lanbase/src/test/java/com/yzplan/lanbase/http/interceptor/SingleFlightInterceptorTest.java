@@ -0,0 +1,212 @@
+package com.yzplan.lanbase.http.interceptor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 请求合并：并发的相同 GET 只发出一次，leader 被取消时 follower 不受影响
+ */
+public class SingleFlightInterceptorTest {
+    private static final int FOLLOWERS = 7;
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final ServerDispatcher mDispatcher = new ServerDispatcher();
+    private OkHttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.setDispatcher(mDispatcher);
+        mServer.start();
+        SingleFlightInterceptor.resetStats();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(FOLLOWERS + 2);
+        mClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .addInterceptor(new SingleFlightInterceptor())
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mDispatcher.release.countDown();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void concurrentGetsShareOneNetworkCall() throws Exception {
+        Results leader = enqueue(get("/data?id=1"));
+        assertNotNull(mServer.takeRequest(5, TimeUnit.SECONDS));
+        List<Results> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(enqueue(get("/data?id=1")));
+        }
+        awaitRunning(FOLLOWERS + 1);
+        mDispatcher.release.countDown();
+
+        assertEquals("body:1", leader.await());
+        for (Results follower : followers) {
+            assertEquals("body:1", follower.await());
+        }
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, SingleFlightInterceptor.getLeaderCount());
+        assertEquals(FOLLOWERS, SingleFlightInterceptor.getSuppressedCount());
+    }
+
+    @Test
+    public void differentRequestsAreNotMerged() throws Exception {
+        mDispatcher.release.countDown();
+        Results a = enqueue(get("/data?id=1"));
+        Results b = enqueue(get("/data?id=2"));
+        Results c = enqueue(new Request.Builder().url(mServer.url("/data?id=1")).header("X-User", "2").build());
+        Results post = enqueue(new Request.Builder().url(mServer.url("/data?id=1"))
+                .post(RequestBody.create(MediaType.parse("text/plain"), "x")).build());
+        a.await();
+        b.await();
+        c.await();
+        post.await();
+        assertEquals(4, mServer.getRequestCount());
+        assertEquals(0, SingleFlightInterceptor.getSuppressedCount());
+    }
+
+    @Test
+    public void cancelingLeaderDoesNotFailFollowers() throws Exception {
+        Results leader = enqueue(get("/data?id=1"));
+        assertNotNull(mServer.takeRequest(5, TimeUnit.SECONDS));
+        List<Results> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(enqueue(get("/data?id=1")));
+        }
+        awaitRunning(FOLLOWERS + 1);
+
+        leader.call.cancel();
+        assertTrue(leader.awaitFailure() instanceof IOException);
+        // follower 重新合并：由其中一个发出请求，其余共享结果
+        assertNotNull(mServer.takeRequest(5, TimeUnit.SECONDS));
+        // 给其余 follower 留出加入新 Flight 的时间，否则新 leader 结束后才醒来的 follower 会再发一次请求
+        Thread.sleep(200);
+        mDispatcher.release.countDown();
+        for (Results follower : followers) {
+            assertEquals("body:2", follower.await());
+        }
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(FOLLOWERS - 1, SingleFlightInterceptor.getSuppressedCount());
+    }
+
+    @Test
+    public void cancelingFollowerEndsOnlyItsWait() throws Exception {
+        Results leader = enqueue(get("/data?id=1"));
+        assertNotNull(mServer.takeRequest(5, TimeUnit.SECONDS));
+        Results follower = enqueue(get("/data?id=1"));
+        awaitRunning(2);
+
+        follower.call.cancel();
+        assertTrue(follower.awaitFailure() instanceof IOException);
+        mDispatcher.release.countDown();
+        assertEquals("body:1", leader.await());
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    // ================== 工具 ==================
+
+    private Request get(String path) {
+        return new Request.Builder().url(mServer.url(path)).build();
+    }
+
+    private Results enqueue(Request request) {
+        Results results = new Results(mClient.newCall(request));
+        results.call.enqueue(results);
+        return results;
+    }
+
+    /**
+     * 等待所有请求都已进入拦截器 (follower 在拦截器中等待 leader)
+     */
+    private void awaitRunning(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mClient.dispatcher().runningCallsCount() < count) {
+            assertTrue("calls not running", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        // 给 follower 留出加入 Flight 的时间
+        Thread.sleep(200);
+    }
+
+    /**
+     * 在 release 之前阻塞响应，body 为该请求在服务端的序号
+     */
+    private static final class ServerDispatcher extends okhttp3.mockwebserver.Dispatcher {
+        final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            int index = mCount.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return new MockResponse().setBody("body:" + index);
+        }
+    }
+
+    private static final class Results implements Callback {
+        final Call call;
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private volatile String mBody;
+        private volatile IOException mFailure;
+
+        Results(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            mFailure = e;
+            mDone.countDown();
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+            try {
+                mBody = response.body().string();
+            } catch (IOException e) {
+                mFailure = e;
+            } finally {
+                response.close();
+                mDone.countDown();
+            }
+        }
+
+        String await() throws Exception {
+            assertTrue("call did not finish", mDone.await(5, TimeUnit.SECONDS));
+            if (mFailure != null) throw mFailure;
+            return mBody;
+        }
+
+        IOException awaitFailure() throws InterruptedException {
+            assertTrue("call did not finish", mDone.await(5, TimeUnit.SECONDS));
+            return mFailure;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.yzplan.lanbase.http.outbox;
+
+import com.yzplan.lanbase.http.exception.OutboxQueuedException;
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.Header;
+import retrofit2.http.POST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 离线发件箱：连接失败时入队，恢复后补发 (重新签名、幂等键不变)，按幂等键去重，超过补发次数后丢弃
+ * OutboxManager 为进程内单例，所有用例共用一个发件箱目录，按幂等键区分
+ */
+public class OutboxManagerTest {
+    private static final int MAX_ATTEMPTS = 3;
+
+    interface Service {
+        @Outbox
+        @POST("submit")
+        Call<ResponseBody> submit(@Header("Idempotency-Key") String key, @Body RequestBody body);
+
+        @Outbox
+        @POST("submit")
+        Call<ResponseBody> submitWithoutKey(@Body RequestBody body);
+    }
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startOutbox() throws IOException {
+        OutboxManager.getInstance().start(new OutboxConfig(folder.newFolder("outbox"))
+                .setBatch(10, 0)
+                .setReconnectJitterMillis(0)
+                .setRetryDelayMillis(100)
+                .setMaxAttempts(MAX_ATTEMPTS));
+    }
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final ServerDispatcher mDispatcher = new ServerDispatcher();
+    private final AtomicInteger mSignCount = new AtomicInteger();
+    private final Events mEvents = new Events();
+    private Service mService;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.setDispatcher(mDispatcher);
+        mServer.start();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .addInterceptor(new OutboxInterceptor())
+                // 模拟签名拦截器，补发时应重新执行
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("X-Sign", String.valueOf(mSignCount.incrementAndGet()))
+                        .build()))
+                .build();
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .client(client)
+                .build()
+                .create(Service.class);
+        OutboxManager.getInstance().addListener(mEvents);
+        OutboxManager.getInstance().bindChannel(Service.class.getName(), client);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        OutboxManager.getInstance().removeListener(mEvents);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void replaysAfterConnectionRecovers() throws Exception {
+        mDispatcher.down = true;
+        String id = assertQueued(mService.submit("order-1", json("{\"n\":1}")));
+        assertEquals("order-1", id);
+        assertTrue(OutboxManager.getInstance().contains("order-1"));
+        int signsBefore = mSignCount.get();
+        mDispatcher.down = false;
+
+        assertEquals("delivered:200", mEvents.await("order-1"));
+        RecordedRequest replay = mDispatcher.delivered("order-1").get(0);
+        assertEquals("{\"n\":1}", replay.getBody().readUtf8());
+        assertTrue(Integer.parseInt(replay.getHeader("X-Sign")) > signsBefore);
+        assertFalse(pendingIds().contains("order-1"));
+    }
+
+    @Test
+    public void deduplicatesByIdempotencyKey() throws Exception {
+        long duplicates = NetworkStats.getCounter(OutboxManager.COUNTER_DUPLICATE);
+        mDispatcher.down = true;
+        assertQueued(mService.submit("order-2", json("{}")));
+        assertQueued(mService.submit("order-2", json("{}")));
+        assertEquals(duplicates + 1, NetworkStats.getCounter(OutboxManager.COUNTER_DUPLICATE));
+        assertEquals(1, count(pendingIds(), "order-2"));
+        mDispatcher.down = false;
+
+        assertEquals("delivered:200", mEvents.await("order-2"));
+        // 已完成的幂等键再次入队也会被去重，不会重复提交
+        mDispatcher.down = true;
+        assertQueued(mService.submit("order-2", json("{}")));
+        mDispatcher.down = false;
+        OutboxManager.getInstance().flush();
+        Thread.sleep(300);
+        assertEquals(1, mDispatcher.delivered("order-2").size());
+    }
+
+    @Test
+    public void generatesIdempotencyKey() throws Exception {
+        mDispatcher.down = true;
+        String id = assertQueued(mService.submitWithoutKey(json("{}")));
+        assertNotNull(id);
+        assertFalse(id.isEmpty());
+        mDispatcher.down = false;
+
+        assertEquals("delivered:200", mEvents.await(id));
+        assertEquals(1, mDispatcher.delivered(id).size());
+    }
+
+    @Test
+    public void dropsAfterMaxAttempts() throws Exception {
+        mDispatcher.down = true;
+        assertQueued(mService.submit("poison", json("{}")));
+        mDispatcher.down = false;
+
+        assertEquals("dropped:too many attempts", mEvents.await("poison"));
+        assertEquals(MAX_ATTEMPTS, mDispatcher.delivered("poison").size());
+        assertFalse(pendingIds().contains("poison"));
+    }
+
+    // ================== 工具 ==================
+
+    private static RequestBody json(String json) {
+        return RequestBody.create(MediaType.parse("application/json"), json);
+    }
+
+    private static String assertQueued(Call<ResponseBody> call) throws IOException {
+        try {
+            call.execute();
+            fail("expected OutboxQueuedException");
+            return null;
+        } catch (OutboxQueuedException e) {
+            assertEquals(OutboxQueuedException.CODE_QUEUED, e.getCode());
+            return e.getId();
+        }
+    }
+
+    private static List<String> pendingIds() {
+        List<String> ids = new ArrayList<>();
+        for (OutboxEntry entry : OutboxManager.getInstance().getPending()) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    private static int count(List<String> ids, String id) {
+        int count = 0;
+        for (String value : ids) {
+            if (value.equals(id)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * down 时读取请求后不响应直接断开 (模拟连接中断)；幂等键为 poison 的请求始终返回 503
+     */
+    private static final class ServerDispatcher extends Dispatcher {
+        volatile boolean down;
+        private final List<RecordedRequest> mRequests = new ArrayList<>();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (down) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            synchronized (mRequests) {
+                mRequests.add(request);
+            }
+            if ("poison".equals(request.getHeader("Idempotency-Key"))) {
+                return new MockResponse().setResponseCode(503);
+            }
+            return new MockResponse().setBody("ok");
+        }
+
+        List<RecordedRequest> delivered(String id) {
+            List<RecordedRequest> result = new ArrayList<>();
+            synchronized (mRequests) {
+                for (RecordedRequest request : mRequests) {
+                    if (id.equals(request.getHeader("Idempotency-Key"))) result.add(request);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 按幂等键记录补发结果
+     */
+    private static final class Events implements OutboxManager.Listener {
+        private final ConcurrentHashMap<String, String> mResults = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, CountDownLatch> mLatches = new ConcurrentHashMap<>();
+
+        @Override
+        public void onDelivered(OutboxEntry entry, int httpCode) {
+            record(entry.getId(), "delivered:" + httpCode);
+        }
+
+        @Override
+        public void onDropped(OutboxEntry entry, String reason) {
+            record(entry.getId(), "dropped:" + reason);
+        }
+
+        private void record(String id, String result) {
+            mResults.put(id, result);
+            latch(id).countDown();
+        }
+
+        private CountDownLatch latch(String id) {
+            CountDownLatch created = new CountDownLatch(1);
+            CountDownLatch latch = mLatches.putIfAbsent(id, created);
+            return latch != null ? latch : created;
+        }
+
+        String await(String id) throws InterruptedException {
+            assertTrue("no result for " + id, latch(id).await(5, TimeUnit.SECONDS));
+            return mResults.get(id);
+        }
+    }
+}
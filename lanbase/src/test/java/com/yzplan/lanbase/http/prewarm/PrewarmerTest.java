@@ -0,0 +1,144 @@
+package com.yzplan.lanbase.http.prewarm;
+
+import com.yzplan.lanbase.http.HttpConfig;
+import com.yzplan.lanbase.http.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 启动预热：DNS 解析、HEAD 建立连接后连接留在连接池供业务请求复用、失败的步骤不影响预取与完成回调
+ */
+public class PrewarmerTest {
+    private final MockWebServer mServer = new MockWebServer();
+    private final List<String> mLookups = Collections.synchronizedList(new ArrayList<String>());
+    private final Events mEvents = new Events();
+    private final Prewarmer mPrewarmer = new Prewarmer();
+    private final Dns mRecordingDns = hostname -> {
+        mLookups.add(hostname);
+        return Dns.SYSTEM.lookup(hostname);
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.start();
+        mPrewarmer.addListener(mEvents);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mPrewarmer.stop();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void warmedConnectionIsReused() throws Exception {
+        HttpConfig config = config(mRecordingDns);
+        mServer.enqueue(new MockResponse());
+        mServer.enqueue(new MockResponse().setBody("home"));
+        mPrewarmer.addBaseUrl(mServer.url("/").toString(), config).start();
+        mEvents.awaitComplete();
+
+        String host = mServer.url("/").host();
+        // 预热解析一次，建立连接时 OkHttp 自身再解析一次 (配合 CachingDns 时命中缓存)
+        assertEquals(host, mLookups.get(0));
+        assertEquals("[DNS " + host + " ok, CONNECT " + host + " ok]", mEvents.steps.toString());
+        RecordedRequest head = mServer.takeRequest();
+        assertEquals("HEAD", head.getMethod());
+
+        // 业务请求复用预热时建立的连接
+        OkHttpClient client = RetrofitClient.getInstance().getClient(config);
+        assertEquals(1, client.connectionPool().idleConnectionCount());
+        try (Response response = client.newCall(new Request.Builder().url(mServer.url("/home")).build()).execute()) {
+            assertEquals("home", response.body().string());
+        }
+        RecordedRequest home = mServer.takeRequest();
+        assertEquals(1, home.getSequenceNumber());
+        assertEquals(1, client.connectionPool().connectionCount());
+    }
+
+    @Test
+    public void anyStatusCountsAsConnected() throws Exception {
+        HttpConfig config = config(mRecordingDns);
+        // 延迟响应，保证两个 HEAD 同时在途 (各自占用一个连接)
+        for (int i = 0; i < 2; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(405).setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        }
+        mPrewarmer.setConnectionsPerHost(2).addBaseUrl(mServer.url("/").toString(), config).start();
+        mEvents.awaitComplete();
+
+        String host = mServer.url("/").host();
+        assertEquals("[DNS " + host + " ok, CONNECT " + host + " ok, CONNECT " + host + " ok]", mEvents.steps.toString());
+        assertEquals(2, mServer.getRequestCount());
+        // 两个响应都已关闭，连接回到连接池
+        assertEquals(2, RetrofitClient.getInstance().getClient(config).connectionPool().idleConnectionCount());
+    }
+
+    @Test
+    public void dnsFailureSkipsConnectButRunsPrefetch() throws Exception {
+        HttpConfig config = config(hostname -> {
+            mLookups.add(hostname);
+            throw new UnknownHostException(hostname);
+        });
+        mPrewarmer.addBaseUrl(mServer.url("/").toString(), config)
+                .addPrefetch(Completable.complete())
+                .addPrefetch(Completable.error(new IOException("offline")))
+                .start();
+        mEvents.awaitComplete();
+
+        String host = mServer.url("/").host();
+        assertEquals("[DNS " + host + " failed, PREFETCH 0 ok, PREFETCH 1 failed]", mEvents.steps.toString());
+        assertEquals(0, mServer.getRequestCount());
+    }
+
+    // ================== 工具 ==================
+
+    /**
+     * 使用独立连接池的接口配置
+     */
+    private static HttpConfig config(Dns dns) {
+        return HttpConfig.getGlobal().copy()
+                .setConnectionPool(4, 60)
+                .setDns(dns);
+    }
+
+    private static final class Events implements PrewarmListener {
+        final List<String> steps = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch mComplete = new CountDownLatch(1);
+
+        @Override
+        public void onStep(PrewarmStep step, String target, long costMillis, Throwable error) {
+            steps.add(step + " " + target + (error == null ? " ok" : " failed"));
+        }
+
+        @Override
+        public void onComplete(long costMillis) {
+            mComplete.countDown();
+        }
+
+        void awaitComplete() throws InterruptedException {
+            assertTrue("prewarm did not complete", mComplete.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
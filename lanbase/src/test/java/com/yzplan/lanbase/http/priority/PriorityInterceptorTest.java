@@ -0,0 +1,288 @@
+package com.yzplan.lanbase.http.priority;
+
+import com.yzplan.lanbase.http.metrics.NetworkStats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 优先级调度：前台优先、后台并发上限、前台进行中时后台暂停 (超时后放行)、响应体关闭或读完后归还名额
+ */
+public class PriorityInterceptorTest {
+    private final MockWebServer mServer = new MockWebServer();
+    private final ServerDispatcher mDispatcher = new ServerDispatcher();
+    private PriorityScheduler mScheduler;
+    private OkHttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.setDispatcher(mDispatcher);
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mDispatcher.release.countDown();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void foregroundStartsFirst() throws Exception {
+        init(new PriorityConfig().setMaxConcurrent(1));
+        Results holder = enqueue("/hold", RequestPriority.NORMAL);
+        awaitRunning(RequestPriority.NORMAL, 1);
+
+        List<Results> queued = new ArrayList<>();
+        queued.add(enqueue("/background", RequestPriority.BACKGROUND));
+        queued.add(enqueue("/normal", RequestPriority.NORMAL));
+        queued.add(enqueue("/foreground", RequestPriority.FOREGROUND));
+        awaitWaiting(RequestPriority.BACKGROUND, 1);
+        awaitWaiting(RequestPriority.NORMAL, 1);
+        awaitWaiting(RequestPriority.FOREGROUND, 1);
+        assertEquals(1, mServer.getRequestCount());
+
+        mDispatcher.release.countDown();
+        holder.await();
+        for (Results results : queued) {
+            results.await();
+        }
+        assertEquals("[/hold, /foreground, /normal, /background]", mDispatcher.paths.toString());
+        assertIdle();
+    }
+
+    @Test
+    public void backgroundIsCapped() throws Exception {
+        init(new PriorityConfig().setMaxBackground(2));
+        List<Results> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(enqueue("/hold", RequestPriority.BACKGROUND));
+        }
+        awaitRunning(RequestPriority.BACKGROUND, 2);
+        awaitWaiting(RequestPriority.BACKGROUND, 2);
+        Thread.sleep(200);
+        assertEquals(2, mServer.getRequestCount());
+
+        mDispatcher.release.countDown();
+        for (Results results : calls) {
+            results.await();
+        }
+        assertEquals(4, mServer.getRequestCount());
+        assertIdle();
+    }
+
+    @Test
+    public void backgroundPausesWhileForegroundInFlight() throws Exception {
+        init(new PriorityConfig().setMaxPauseMillis(10_000));
+        long paused = NetworkStats.getCounter(PriorityScheduler.COUNTER_BACKGROUND_PAUSED);
+        Results foreground = enqueue("/hold", RequestPriority.FOREGROUND);
+        awaitRunning(RequestPriority.FOREGROUND, 1);
+
+        Results background = enqueue("/background", RequestPriority.BACKGROUND);
+        awaitWaiting(RequestPriority.BACKGROUND, 1);
+        // NORMAL 不受前台进行中影响
+        enqueue("/normal", RequestPriority.NORMAL).await();
+        Thread.sleep(200);
+        assertEquals(1, mScheduler.getWaitingCount(RequestPriority.BACKGROUND));
+
+        mDispatcher.release.countDown();
+        foreground.await();
+        background.await();
+        assertEquals("[/hold, /normal, /background]", mDispatcher.paths.toString());
+        assertEquals(paused + 1, NetworkStats.getCounter(PriorityScheduler.COUNTER_BACKGROUND_PAUSED));
+        assertIdle();
+    }
+
+    @Test
+    public void backgroundResumesAfterMaxPause() throws Exception {
+        init(new PriorityConfig().setMaxPauseMillis(300));
+        Results foreground = enqueue("/hold", RequestPriority.FOREGROUND);
+        awaitRunning(RequestPriority.FOREGROUND, 1);
+
+        long start = System.nanoTime();
+        enqueue("/background", RequestPriority.BACKGROUND).await();
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited, waited >= 300);
+        assertEquals(1, mScheduler.getRunningCount(RequestPriority.FOREGROUND));
+        assertEquals(1, mScheduler.getQueueWait(RequestPriority.BACKGROUND).getCount());
+
+        mDispatcher.release.countDown();
+        foreground.await();
+        assertIdle();
+    }
+
+    @Test
+    public void slotIsReleasedOnCloseEofAndFailure() throws Exception {
+        init(new PriorityConfig());
+        // 关闭未读的响应体
+        Response response = execute("/body", RequestPriority.NORMAL);
+        assertEquals(1, mScheduler.getRunningCount(RequestPriority.NORMAL));
+        response.close();
+        assertIdle();
+
+        // 读到 EOF 但未关闭
+        response = execute("/body", RequestPriority.NORMAL);
+        assertEquals("body", response.body().source().readUtf8());
+        assertIdle();
+        response.close();
+        assertIdle();
+
+        // 请求失败
+        try {
+            execute("/disconnect", RequestPriority.NORMAL);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            assertIdle();
+        }
+    }
+
+    @Test
+    public void canceledWhileWaitingLeavesQueue() throws Exception {
+        init(new PriorityConfig().setMaxConcurrent(1));
+        Results holder = enqueue("/hold", RequestPriority.NORMAL);
+        awaitRunning(RequestPriority.NORMAL, 1);
+        Results waiting = enqueue("/normal", RequestPriority.NORMAL);
+        awaitWaiting(RequestPriority.NORMAL, 1);
+
+        waiting.call.cancel();
+        assertTrue(waiting.awaitFailure() instanceof IOException);
+        assertEquals(0, mScheduler.getWaitingCount(RequestPriority.NORMAL));
+        mDispatcher.release.countDown();
+        holder.await();
+        assertEquals(1, mServer.getRequestCount());
+        assertIdle();
+    }
+
+    // ================== 工具 ==================
+
+    private void init(PriorityConfig config) {
+        mScheduler = new PriorityScheduler(config);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(16);
+        mClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .retryOnConnectionFailure(false)
+                .addInterceptor(new PriorityInterceptor(RequestPriority.NORMAL, mScheduler))
+                .build();
+    }
+
+    private Request request(String path, RequestPriority priority) {
+        return new Request.Builder().url(mServer.url(path)).tag(RequestPriority.class, priority).build();
+    }
+
+    private Response execute(String path, RequestPriority priority) throws IOException {
+        return mClient.newCall(request(path, priority)).execute();
+    }
+
+    private Results enqueue(String path, RequestPriority priority) {
+        Results results = new Results(mClient.newCall(request(path, priority)));
+        results.call.enqueue(results);
+        return results;
+    }
+
+    private void awaitRunning(RequestPriority priority, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mScheduler.getRunningCount(priority) < count) {
+            assertTrue(priority + " not running", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitWaiting(RequestPriority priority, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mScheduler.getWaitingCount(priority) < count) {
+            assertTrue(priority + " not waiting", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertIdle() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            assertEquals(priority + " running", 0, mScheduler.getRunningCount(priority));
+            assertEquals(priority + " waiting", 0, mScheduler.getWaitingCount(priority));
+        }
+    }
+
+    /**
+     * /hold 在 release 之前阻塞响应，/disconnect 直接断开；按到达顺序记录路径
+     */
+    private static final class ServerDispatcher extends okhttp3.mockwebserver.Dispatcher {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> paths = new ArrayList<>();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getPath();
+            synchronized (paths) {
+                paths.add(path);
+            }
+            if ("/disconnect".equals(path)) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            if ("/hold".equals(path)) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new MockResponse().setBody("body");
+        }
+    }
+
+    private static final class Results implements Callback {
+        final Call call;
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private volatile IOException mFailure;
+
+        Results(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            mFailure = e;
+            mDone.countDown();
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            try {
+                // 读到 EOF 即归还名额
+                response.body().string();
+            } catch (IOException e) {
+                mFailure = e;
+            } finally {
+                response.close();
+                mDone.countDown();
+            }
+        }
+
+        void await() throws Exception {
+            assertTrue("call did not finish", mDone.await(5, TimeUnit.SECONDS));
+            if (mFailure != null) throw mFailure;
+        }
+
+        IOException awaitFailure() throws InterruptedException {
+            assertTrue("call did not finish", mDone.await(5, TimeUnit.SECONDS));
+            return mFailure;
+        }
+    }
+}
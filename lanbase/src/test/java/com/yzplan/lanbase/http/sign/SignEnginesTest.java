@@ -0,0 +1,231 @@
+package com.yzplan.lanbase.http.sign;
+
+import com.yzplan.lanbase.utils.data.JsonUtil;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 签名引擎与历史算法 (拼接字符串后整体 getBytes) 的逐字节一致性
+ */
+public class SignEnginesTest {
+    private static final String SALT = "s3cr3t";
+    private static final String GRIN = "😀";
+
+    @Test
+    public void surrogatePairSplitAcrossValues() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("a", "x\uD83D");
+        params.put("b", "\uDE00y");
+        assertSameAsLegacy(params, SALT);
+
+        // 最后一个 Value 的高代理与盐值开头的低代理
+        params.clear();
+        params.put("a", "\uD83D");
+        assertSameAsLegacy(params, "\uDE00salt");
+        assertSameAsLegacy(params, null);
+        assertSameAsLegacy(params, "");
+    }
+
+    @Test
+    public void loneAndRepeatedSurrogates() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("a", "\uDE00\uD83D\uD83D" + GRIN);
+        params.put("b", "\uDE00\uDE00");
+        params.put("c", "\uD83D");
+        params.put("d", "\uD83D");
+        assertSameAsLegacy(params, SALT);
+    }
+
+    @Test
+    public void surrogatesAtBufferBoundary() {
+        // 编码缓冲区为 1024 字节，让代理对与结尾 '?' 落在各个分块边界上
+        for (int prefix = 1015; prefix <= 1030; prefix++) {
+            char[] ascii = new char[prefix];
+            Arrays.fill(ascii, 'a');
+            Map<String, Object> params = new HashMap<>();
+            params.put("a", new String(ascii) + GRIN + "\uD83D");
+            params.put("b", new String(ascii, 0, prefix - 1000) + "\uD83D");
+            assertSameAsLegacy(params, "");
+            params.put("c", "\uDE00" + new String(ascii) + "中");
+            assertSameAsLegacy(params, SALT);
+        }
+    }
+
+    @Test
+    public void emptyAndNullInputs() {
+        assertSameAsLegacy(null, SALT);
+        assertSameAsLegacy(new HashMap<String, Object>(), SALT);
+        assertSameAsLegacy(new HashMap<String, Object>(), "");
+        assertSameAsLegacy(new HashMap<String, Object>(), null);
+        Map<String, Object> params = new HashMap<>();
+        params.put("a", null);
+        params.put("b", "");
+        assertSameAsLegacy(params, "");
+    }
+
+    @Test
+    public void randomMapsListsAndNonBmp() {
+        Random random = new Random(6);
+        for (int i = 0; i < 3000; i++) {
+            Map<String, Object> params = new HashMap<>();
+            int size = random.nextInt(8);
+            for (int k = 0; k < size; k++) {
+                params.put(randomText(random, 3), randomValue(random, 2));
+            }
+            String salt = random.nextInt(10) == 0 ? null : randomText(random, 6);
+            assertSameAsLegacy(params, salt);
+        }
+    }
+
+    @Test
+    public void hmacEncodesConcatenatedValues() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> params = new HashMap<>();
+            int size = random.nextInt(6);
+            for (int k = 0; k < size; k++) {
+                params.put("k" + k, randomText(random, 5));
+            }
+            StringBuilder message = new StringBuilder();
+            for (Object value : new TreeMap<>(params).values()) {
+                message.append(value);
+            }
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SALT.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String expected = BaseSignEngine.bytesToHex(mac.doFinal(message.toString().getBytes(StandardCharsets.UTF_8)));
+            assertEquals(expected, SignEngines.HMAC_SHA256.sign(params, SALT));
+        }
+    }
+
+    private static void assertSameAsLegacy(Map<String, Object> params, String salt) {
+        assertEquals(String.valueOf(params) + " / " + salt, LegacyMd5Util.sign(params, salt), SignEngines.MD5.sign(params, salt));
+    }
+
+    /**
+     * 随机文本：ASCII、中文、完整的非 BMP 字符、孤立的高/低代理字符
+     */
+    private static String randomText(Random random, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    sb.append((char) ('a' + random.nextInt(26)));
+                    break;
+                case 1:
+                    sb.append((char) (0x4E00 + random.nextInt(0x5000)));
+                    break;
+                case 2:
+                    sb.appendCodePoint(0x10000 + random.nextInt(0x100000));
+                    break;
+                case 3:
+                    sb.append((char) (0xD800 + random.nextInt(0x400)));
+                    break;
+                case 4:
+                    sb.append((char) (0xDC00 + random.nextInt(0x400)));
+                    break;
+                default:
+                    sb.append((char) (0x80 + random.nextInt(0x780)));
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 6 : 4)) {
+            case 0:
+                return null;
+            case 1:
+                return random.nextInt(100000) - 50000;
+            case 2:
+                return random.nextBoolean();
+            case 3:
+                return randomText(random, 8);
+            case 4:
+                List<Object> list = new ArrayList<>();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    list.add(randomValue(random, depth - 1));
+                }
+                return list;
+            default:
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    map.put(randomText(random, 3), randomValue(random, depth - 1));
+                }
+                return map;
+        }
+    }
+
+    /**
+     * 优化前的 Md5Util.sign / md5 (原样保留，TextUtils.isEmpty 换成等价的判断以便在 JVM 上运行)
+     */
+    static final class LegacyMd5Util {
+        private static final char[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+        static String md5(String s) {
+            if (s == null || s.length() == 0) {
+                return "";
+            }
+            try {
+                byte[] btInput = s.getBytes(StandardCharsets.UTF_8);
+                MessageDigest mdInst = MessageDigest.getInstance("MD5");
+                mdInst.update(btInput);
+                byte[] md = mdInst.digest();
+                return bytesToHex(md);
+            } catch (NoSuchAlgorithmException e) {
+                e.printStackTrace();
+                return "";
+            }
+        }
+
+        private static String bytesToHex(byte[] bytes) {
+            if (bytes == null) return "";
+            char[] result = new char[bytes.length * 2];
+            int index = 0;
+            for (byte b : bytes) {
+                result[index++] = HEX_DIGITS[(b >>> 4) & 0xf];
+                result[index++] = HEX_DIGITS[b & 0xf];
+            }
+            return new String(result);
+        }
+
+        static String sign(Map<String, Object> parameter, String salt) {
+            if (parameter == null) {
+                return md5(salt);
+            }
+            SortedMap<String, Object> sortedMap = new TreeMap<>(parameter);
+            StringBuilder sb = new StringBuilder();
+            for (Object value : sortedMap.values()) {
+                if (value != null) {
+                    String strVal;
+                    if (value instanceof Map || value instanceof java.util.List) {
+                        strVal = JsonUtil.toJson(value);
+                    } else {
+                        strVal = value.toString();
+                    }
+                    sb.append(strVal);
+                }
+            }
+            String originalString = sb.toString();
+            return md5(originalString + salt);
+        }
+    }
+}
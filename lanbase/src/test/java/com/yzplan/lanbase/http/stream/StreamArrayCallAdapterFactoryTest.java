@@ -0,0 +1,194 @@
+package com.yzplan.lanbase.http.stream;
+
+import com.google.gson.Gson;
+import com.yzplan.lanbase.http.converter.ResponseEnvelope;
+import com.yzplan.lanbase.http.exception.ApiException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.HttpException;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 流式数组解析：路径定位、背压 (null 元素不占用请求数)、取消订阅与外壳 code 失败
+ */
+public class StreamArrayCallAdapterFactoryTest {
+    static final class Bean {
+        String name;
+    }
+
+    interface Service {
+        @Streaming
+        @StreamArray("data.datas")
+        @GET("list")
+        Flowable<Bean> list();
+
+        @Streaming
+        @StreamArray
+        @GET("array")
+        Flowable<Bean> array();
+    }
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final List<String> mHandledCodes = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Throwable> mUndeliverable = Collections.synchronizedList(new ArrayList<Throwable>());
+    private Service mService;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer.start();
+        RxJavaPlugins.setErrorHandler(mUndeliverable::add);
+        ResponseEnvelope envelope = new ResponseEnvelope()
+                .setFieldNames("errorCode", "errorMsg", "data")
+                .setSuccessCodes("0")
+                .setCodeHandler(mHandledCodes::add);
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addCallAdapterFactory(new StreamArrayCallAdapterFactory(new Gson(), envelope))
+                .build()
+                .create(Service.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        RxJavaPlugins.reset();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void resolvesNestedPath() {
+        enqueue("{\"errorCode\":0,\"data\":{\"total\":2,\"datas\":[{\"name\":\"a\"},{\"name\":\"b\"}],\"over\":true},\"extra\":[1]}");
+        assertEquals("[a, b]", names(mService.list().test().assertComplete().assertNoErrors()));
+
+        // code 在数组之后出现
+        enqueue("{\"data\":{\"datas\":[{\"name\":\"c\"}]},\"errorCode\":\"0\"}");
+        assertEquals("[c]", names(mService.list().test().assertComplete().assertNoErrors()));
+
+        // 路径缺失或为 null 时视为空数组
+        enqueue("{\"errorCode\":0,\"data\":null}");
+        mService.list().test().assertNoValues().assertComplete();
+        enqueue("{\"errorCode\":0,\"data\":{\"total\":0}}");
+        mService.list().test().assertNoValues().assertComplete();
+
+        assertEquals(4, mHandledCodes.size());
+    }
+
+    @Test
+    public void emitsOnlyWhatIsRequested() {
+        enqueue("[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"},{\"name\":\"d\"},{\"name\":\"e\"}]");
+        TestSubscriber<Bean> subscriber = mService.array().test(0);
+        subscriber.assertNoValues();
+
+        subscriber.request(2);
+        assertEquals("[a, b]", names(subscriber));
+        subscriber.assertNotComplete();
+        subscriber.request(3);
+        assertEquals("[a, b, c, d, e]", names(subscriber));
+        subscriber.assertNotComplete();
+        subscriber.request(1);
+        subscriber.assertComplete().assertNoErrors();
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void nullElementsDoNotConsumeRequests() {
+        enqueue("[null,{\"name\":\"a\"},null,null,{\"name\":\"b\"},{\"name\":\"c\"},null]");
+        TestSubscriber<Bean> subscriber = mService.array().test(0);
+
+        subscriber.request(2);
+        assertEquals("[a, b]", names(subscriber));
+        subscriber.request(1);
+        assertEquals("[a, b, c]", names(subscriber));
+        // 末尾的 null 被跳过后直接结束
+        subscriber.request(1);
+        subscriber.assertValueCount(3).assertComplete().assertNoErrors();
+    }
+
+    @Test
+    public void cancelStopsStreaming() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"name\":\"").append(i).append("\"}");
+        }
+        enqueue(json.append(']').toString());
+        TestSubscriber<Bean> subscriber = mService.array().test(0);
+        subscriber.request(1);
+        subscriber.cancel();
+        subscriber.request(10);
+        subscriber.assertValueCount(1).assertNotComplete().assertNoErrors();
+
+        // 响应头到达前取消：请求被取消，异常不作为未送达错误抛出
+        mServer.enqueue(new MockResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS).setBody("[]"));
+        TestSubscriber<Bean> pending = mService.array().subscribeOn(Schedulers.io()).test();
+        assertNotNull(mServer.takeRequest(5, TimeUnit.SECONDS));
+        pending.cancel();
+        Thread.sleep(800);
+        pending.assertNoValues().assertNotComplete().assertNoErrors();
+        assertTrue(mUndeliverable.toString(), mUndeliverable.isEmpty());
+    }
+
+    @Test
+    public void envelopeFailureEndsWithApiException() {
+        // code 在数组之前：不解析数组
+        enqueue("{\"errorCode\":-1001,\"errorMsg\":\"登录失效\",\"data\":{\"datas\":[{\"name\":\"a\"}]}}");
+        TestSubscriber<Bean> before = mService.list().test();
+        before.assertNoValues().assertError(ApiException.class);
+        assertApiException(before, "-1001", "登录失效");
+
+        // code 在数组之后：已解析的元素照常发射，结束时报错
+        enqueue("{\"data\":{\"datas\":[{\"name\":\"a\"}]},\"errorMsg\":\"参数错误\",\"errorCode\":400}");
+        TestSubscriber<Bean> after = mService.list().test();
+        assertEquals("[a]", names(after));
+        assertApiException(after, "400", "参数错误");
+
+        // 没有 code
+        enqueue("{\"data\":{\"datas\":[]}}");
+        assertApiException(mService.list().test(), null, null);
+
+        mServer.enqueue(new MockResponse().setResponseCode(500));
+        mService.list().test().assertNoValues().assertError(HttpException.class);
+        assertEquals(2, mHandledCodes.size());
+    }
+
+    // ================== 工具 ==================
+
+    private void enqueue(String json) {
+        mServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(json));
+    }
+
+    private static String names(TestSubscriber<Bean> subscriber) {
+        List<String> names = new ArrayList<>();
+        for (Bean bean : subscriber.values()) {
+            names.add(bean.name);
+        }
+        return names.toString();
+    }
+
+    private static void assertApiException(TestSubscriber<Bean> subscriber, String code, String message) {
+        subscriber.assertError(ApiException.class);
+        ApiException e = (ApiException) subscriber.errors().get(0);
+        assertEquals(code, e.getCode());
+        assertEquals(message, e.getMessage());
+    }
+}
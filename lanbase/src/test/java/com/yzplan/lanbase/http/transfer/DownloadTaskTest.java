@@ -0,0 +1,317 @@
+package com.yzplan.lanbase.http.transfer;
+
+import com.yzplan.lanbase.http.exception.TransferException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 断点续传下载：Range 续传、If-Range 失配后重新下载、多段并行下载 + OrderedDigest MD5、
+ * 服务端不支持 Range 时复用探测响应 (出错时也会关闭)
+ */
+public class DownloadTaskTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private RangeDispatcher dispatcher;
+    private OkHttpClient client;
+    // 响应体的创建 / 关闭次数，用于检查响应是否泄漏
+    private final AtomicInteger openedBodies = new AtomicInteger();
+    private final AtomicInteger closedBodies = new AtomicInteger();
+    private TransferStore store;
+    private File dest;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        dispatcher = new RangeDispatcher();
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> track(chain.proceed(chain.request())))
+                .build();
+        store = new TransferStore(folder.newFolder("state"));
+        dest = new File(folder.getRoot(), "download/file.bin");
+        url = server.url("/file.bin").toString();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumesWithRangeAfterInterruption() throws Exception {
+        byte[] content = randomBytes(300 * 1024 + 7, 1);
+        dispatcher.serve(content, "\"v1\"");
+        TransferConfig config = config(1, 1);
+
+        dispatcher.cutNext.set(1);
+        download(config, null).assertError(IOException.class);
+        File part = new File(dest.getPath() + DownloadTask.PART_SUFFIX);
+        assertTrue(part.exists());
+        assertFalse(dest.exists());
+
+        dispatcher.requests.clear();
+        TestObserver<TransferProgress> observer = download(config, md5Of(content));
+        observer.assertComplete();
+
+        // 续传不再探测，直接从断点请求剩余部分
+        assertEquals(1, dispatcher.requests.size());
+        RecordedRequest resume = dispatcher.requests.get(0);
+        long from = rangeStart(resume.getHeader("Range"));
+        assertTrue("resume offset " + from, from > 0 && from < content.length);
+        assertEquals("bytes=" + from + "-" + (content.length - 1), resume.getHeader("Range"));
+        assertEquals("\"v1\"", resume.getHeader("If-Range"));
+
+        assertArrayEquals(content, Files.readAllBytes(dest.toPath()));
+        assertFalse(part.exists());
+        assertCompleted(observer, content);
+    }
+
+    @Test
+    public void restartsWhenIfRangeDoesNotMatch() throws Exception {
+        byte[] v1 = randomBytes(200 * 1024, 2);
+        dispatcher.serve(v1, "\"v1\"");
+        TransferConfig config = config(1, 1);
+
+        dispatcher.cutNext.set(1);
+        download(config, null).assertError(IOException.class);
+
+        // 服务端文件被替换，If-Range 失配时返回 200 完整内容
+        byte[] v2 = randomBytes(150 * 1024 + 3, 3);
+        dispatcher.serve(v2, "\"v2\"");
+        dispatcher.requests.clear();
+        TestObserver<TransferProgress> observer = download(config, md5Of(v2));
+        observer.assertComplete();
+
+        List<RecordedRequest> requests = dispatcher.requests;
+        assertEquals(3, requests.size());
+        assertEquals("\"v1\"", requests.get(0).getHeader("If-Range"));
+        assertEquals("bytes=0-0", requests.get(1).getHeader("Range"));
+        assertNull(requests.get(1).getHeader("If-Range"));
+        assertEquals("bytes=0-" + (v2.length - 1), requests.get(2).getHeader("Range"));
+        assertEquals("\"v2\"", requests.get(2).getHeader("If-Range"));
+
+        assertArrayEquals(v2, Files.readAllBytes(dest.toPath()));
+        assertCompleted(observer, v2);
+    }
+
+    @Test
+    public void segmentedDownloadComputesMd5() throws Exception {
+        byte[] content = randomBytes(1024 * 1024 + 5, 4);
+        dispatcher.serve(content, "\"v1\"");
+
+        TestObserver<TransferProgress> observer = download(config(3, 64 * 1024), md5Of(content).toLowerCase());
+        observer.assertComplete();
+
+        // 探测 + 3 个分段，分段区间首尾相接覆盖整个文件
+        assertEquals(4, dispatcher.requests.size());
+        assertEquals("bytes=0-0", dispatcher.requests.get(0).getHeader("Range"));
+        List<Long> starts = new ArrayList<>();
+        for (RecordedRequest request : dispatcher.requests.subList(1, 4)) {
+            starts.add(rangeStart(request.getHeader("Range")));
+        }
+        Collections.sort(starts);
+        long size = content.length / 3;
+        assertEquals(Arrays.asList(0L, size, size * 2), starts);
+
+        assertArrayEquals(content, Files.readAllBytes(dest.toPath()));
+        assertCompleted(observer, content);
+    }
+
+    @Test
+    public void segmentedResumeKeepsMd5() throws Exception {
+        byte[] content = randomBytes(1024 * 1024, 5);
+        dispatcher.serve(content, "\"v1\"");
+        TransferConfig config = config(3, 64 * 1024);
+
+        // 一个分段中断后其它分段也被停止，各段进度不连续
+        dispatcher.cutNext.set(1);
+        download(config, null).assertError(IOException.class);
+
+        TestObserver<TransferProgress> observer = download(config, md5Of(content));
+        observer.assertComplete();
+        assertArrayEquals(content, Files.readAllBytes(dest.toPath()));
+        assertCompleted(observer, content);
+    }
+
+    @Test
+    public void md5MismatchDiscardsPart() throws Exception {
+        byte[] content = randomBytes(100 * 1024, 6);
+        dispatcher.serve(content, "\"v1\"");
+
+        TestObserver<TransferProgress> observer = download(config(1, 1), "00000000000000000000000000000000");
+        observer.assertError(e -> e instanceof TransferException
+                && TransferException.CODE_MD5_MISMATCH.equals(((TransferException) e).getCode()));
+        assertFalse(dest.exists());
+        assertFalse(new File(dest.getPath() + DownloadTask.PART_SUFFIX).exists());
+    }
+
+    @Test
+    public void reusesProbeResponseWithoutRangeSupport() throws Exception {
+        byte[] content = randomBytes(64 * 1024 + 1, 7);
+        dispatcher.serve(content, "\"v1\"");
+        dispatcher.rangeSupported = false;
+
+        TestObserver<TransferProgress> observer = download(config(3, 1), md5Of(content));
+        observer.assertComplete();
+        // 探测返回 200 完整内容，直接作为唯一的分段读取
+        assertEquals(1, dispatcher.requests.size());
+        assertArrayEquals(content, Files.readAllBytes(dest.toPath()));
+        assertCompleted(observer, content);
+        assertEquals(1, closedBodies.get());
+    }
+
+    @Test
+    public void closesProbeResponseWhenPreparingFails() throws Exception {
+        dispatcher.serve(randomBytes(1024, 8), "\"v1\"");
+        dispatcher.rangeSupported = false;
+        // 父目录是一个文件，探测之后创建临时文件失败
+        File blocker = folder.newFile("blocker");
+        dest = new File(blocker, "file.bin");
+
+        download(config(1, 1), null).assertError(IOException.class);
+        assertEquals(1, dispatcher.requests.size());
+        assertEquals(1, openedBodies.get());
+        assertEquals(1, closedBodies.get());
+    }
+
+    // ================== 工具 ==================
+
+    private Response track(Response response) {
+        ResponseBody body = response.body();
+        if (body == null) return response;
+        openedBodies.incrementAndGet();
+        ForwardingSource source = new ForwardingSource(body.source()) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    closedBodies.incrementAndGet();
+                }
+                super.close();
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                .build();
+    }
+
+    private TransferConfig config(int segments, long minSegmentBytes) {
+        return new TransferConfig(folder.getRoot())
+                .setSegments(segments, minSegmentBytes)
+                .setRetry(0, 0);
+    }
+
+    private TestObserver<TransferProgress> download(TransferConfig config, String md5) {
+        return Observable.<TransferProgress>create(emitter ->
+                new DownloadTask(client, config, store, url, dest, md5, emitter).run()).test();
+    }
+
+    private static void assertCompleted(TestObserver<TransferProgress> observer, byte[] content) throws Exception {
+        TransferProgress last = observer.values().get(observer.valueCount() - 1);
+        assertTrue(last.isCompleted());
+        assertEquals(content.length, last.getTotalBytes());
+        assertNotNull(last.getMd5());
+        assertTrue(md5Of(content).equalsIgnoreCase(last.getMd5()));
+    }
+
+    private static long rangeStart(String range) {
+        return Long.parseLong(range.substring("bytes=".length(), range.indexOf('-')));
+    }
+
+    static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    static String md5Of(byte[] bytes) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 支持 Range / If-Range 的静态文件服务
+     */
+    static final class RangeDispatcher extends Dispatcher {
+        final List<RecordedRequest> requests = Collections.synchronizedList(new ArrayList<RecordedRequest>());
+        // 之后多少个分段请求在响应体传到一半时断开
+        final AtomicInteger cutNext = new AtomicInteger();
+        // 为 false 时忽略 Range，始终返回 200 完整内容
+        volatile boolean rangeSupported = true;
+        private volatile byte[] content;
+        private volatile String etag;
+
+        void serve(byte[] content, String etag) {
+            this.content = content;
+            this.etag = etag;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            requests.add(request);
+            byte[] data = content;
+            String range = request.getHeader("Range");
+            String ifRange = request.getHeader("If-Range");
+            if (!rangeSupported || range == null || (ifRange != null && !ifRange.equals(etag))) {
+                return new MockResponse().setHeader("ETag", etag).setBody(new Buffer().write(data));
+            }
+            int dash = range.indexOf('-');
+            int start = Integer.parseInt(range.substring("bytes=".length(), dash));
+            int end = dash + 1 < range.length() ? Integer.parseInt(range.substring(dash + 1)) : data.length - 1;
+            MockResponse response = new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("ETag", etag)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + data.length)
+                    .setBody(new Buffer().write(data, start, end - start + 1));
+            if (end > start && cutNext.getAndDecrement() > 0) {
+                response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+            }
+            return response;
+        }
+    }
+}
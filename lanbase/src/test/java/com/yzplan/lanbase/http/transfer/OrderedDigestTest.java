@@ -0,0 +1,73 @@
+package com.yzplan.lanbase.http.transfer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 顺序 MD5：乱序、重复写入与从文件补算的组合结果应与整体计算一致
+ */
+public class OrderedDigestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void inOrderUpdates() throws Exception {
+        byte[] content = DownloadTaskTest.randomBytes(100 * 1024 + 1, 11);
+        File file = write(content);
+        OrderedDigest digest = new OrderedDigest();
+        for (int position = 0; position < content.length; position += 4096) {
+            digest.update(position, content, position, Math.min(4096, content.length - position));
+        }
+        assertEquals(content.length, digest.getPosition());
+        assertEquals(DownloadTaskTest.md5Of(content), digest.finish(file, content.length));
+    }
+
+    @Test
+    public void outOfOrderAndRepeatedUpdates() throws Exception {
+        byte[] content = DownloadTaskTest.randomBytes(300 * 1024, 12);
+        File file = write(content);
+        OrderedDigest digest = new OrderedDigest();
+        int third = content.length / 3;
+
+        // 第三段先到：忽略
+        digest.update(2 * third, content, 2 * third, content.length - 2 * third);
+        assertEquals(0, digest.getPosition());
+        // 第一段的一部分，之后重试时整段重写 (重叠部分只计算一次)
+        digest.update(0, content, 0, 1000);
+        digest.update(0, content, 0, third);
+        assertEquals(third, digest.getPosition());
+        // 第二段由文件补算后，第三段剩余部分从文件补齐
+        digest.catchUp(file, 2 * third);
+        assertEquals(2 * third, digest.getPosition());
+
+        assertEquals(DownloadTaskTest.md5Of(content), digest.finish(file, content.length));
+    }
+
+    @Test
+    public void catchUpThenContinueWriting() throws Exception {
+        byte[] content = DownloadTaskTest.randomBytes(200 * 1024, 13);
+        File file = write(content);
+        OrderedDigest digest = new OrderedDigest();
+        int resumed = 70000;
+
+        // 续传：已写入部分从文件补算，之后的数据边写边算
+        digest.catchUp(file, resumed);
+        digest.update(resumed - 10, content, resumed - 10, 5000);
+        digest.update(resumed + 4990, content, resumed + 4990, content.length - resumed - 4990);
+        assertEquals(content.length, digest.getPosition());
+
+        assertEquals(DownloadTaskTest.md5Of(content), digest.finish(file, content.length));
+    }
+
+    private File write(byte[] content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
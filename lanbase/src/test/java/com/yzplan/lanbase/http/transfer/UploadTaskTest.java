@@ -0,0 +1,191 @@
+package com.yzplan.lanbase.http.transfer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * tus 分块上传：分块失败后以服务端 Upload-Offset 为准重新对齐
+ */
+public class UploadTaskTest {
+    private static final int CHUNK = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private TusDispatcher dispatcher;
+    private OkHttpClient client;
+    private TransferStore store;
+    private File file;
+    private byte[] content;
+    private String endpoint;
+
+    @Before
+    public void setUp() throws IOException {
+        dispatcher = new TusDispatcher();
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        client = new OkHttpClient();
+        store = new TransferStore(folder.newFolder("state"));
+        content = DownloadTaskTest.randomBytes(3 * CHUNK + 123, 7);
+        file = folder.newFile("upload.bin");
+        Files.write(file.toPath(), content);
+        endpoint = server.url("/files").toString();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void uploadsInChunks() throws Exception {
+        TestObserver<TransferProgress> observer = upload(3);
+        observer.assertComplete();
+
+        assertEquals(1, dispatcher.created);
+        assertEquals(4, dispatcher.offsets.size());
+        assertEquals(Long.valueOf(0), dispatcher.offsets.get(0));
+        assertEquals(Long.valueOf(3 * CHUNK), dispatcher.offsets.get(3));
+        assertUploaded(observer);
+    }
+
+    @Test
+    public void resyncsOffsetAfterPartialChunk() throws Exception {
+        // 第二块服务端只收到 10000 字节，响应丢失
+        dispatcher.dropPatch = 1;
+        dispatcher.keepBytes = 10000;
+
+        TestObserver<TransferProgress> observer = upload(3);
+        observer.assertComplete();
+
+        // 重新 HEAD 查询后从服务端实际收到的位置继续，而不是从分块边界重传
+        assertTrue(dispatcher.heads > 0);
+        assertTrue(dispatcher.offsets.toString(), dispatcher.offsets.contains((long) CHUNK + 10000));
+        assertUploaded(observer);
+    }
+
+    @Test
+    public void resumesFromServerOffsetAfterRestart() throws Exception {
+        dispatcher.dropPatch = 2;
+        dispatcher.keepBytes = 777;
+        upload(0).assertError(IOException.class);
+        long received = dispatcher.received.size();
+        assertEquals(2 * CHUNK + 777, received);
+
+        // 新任务 (进程重启) 读取保存的上传地址，先查询偏移量再续传，不重新创建
+        dispatcher.offsets.clear();
+        TestObserver<TransferProgress> observer = upload(0);
+        observer.assertComplete();
+        assertEquals(1, dispatcher.created);
+        assertEquals(Long.valueOf(received), dispatcher.offsets.get(0));
+        assertUploaded(observer);
+    }
+
+    @Test
+    public void recreatesExpiredUploadUrl() throws Exception {
+        dispatcher.dropPatch = 1;
+        dispatcher.keepBytes = 100;
+        upload(0).assertError(IOException.class);
+
+        // 上传地址过期：HEAD 返回 404 时重新创建并从头上传
+        dispatcher.expire();
+        TestObserver<TransferProgress> observer = upload(0);
+        observer.assertComplete();
+        assertEquals(2, dispatcher.created);
+        assertUploaded(observer);
+    }
+
+    // ================== 工具 ==================
+
+    private TestObserver<TransferProgress> upload(int maxRetries) {
+        TransferConfig config = new TransferConfig(folder.getRoot())
+                .setChunkBytes(CHUNK)
+                .setRetry(maxRetries, 0);
+        return Observable.<TransferProgress>create(emitter ->
+                new UploadTask(client, config, store, endpoint, file, emitter).run()).test();
+    }
+
+    private void assertUploaded(TestObserver<TransferProgress> observer) throws Exception {
+        assertArrayEquals(content, dispatcher.received.snapshot().toByteArray());
+        TransferProgress last = observer.values().get(observer.valueCount() - 1);
+        assertTrue(last.isCompleted());
+        assertTrue(DownloadTaskTest.md5Of(content).equalsIgnoreCase(last.getMd5()));
+    }
+
+    /**
+     * 最小 tus 服务端：POST 创建、HEAD 查询偏移量、PATCH 追加 (偏移量不一致返回 409)
+     */
+    static final class TusDispatcher extends Dispatcher {
+        final Buffer received = new Buffer();
+        // 每个 PATCH 请求携带的 Upload-Offset
+        final List<Long> offsets = Collections.synchronizedList(new ArrayList<Long>());
+        volatile int created;
+        volatile int heads;
+        // 第几个 PATCH 只保存前 keepBytes 字节后断开连接 (-1 表示不模拟)
+        int dropPatch = -1;
+        int keepBytes;
+        private int patches;
+        private String location;
+
+        synchronized void expire() {
+            location = null;
+            received.clear();
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            if ("POST".equals(request.getMethod())) {
+                created++;
+                received.clear();
+                location = "/files/" + created;
+                return new MockResponse().setResponseCode(201).setHeader("Location", location);
+            }
+            if (!path.equals(location)) {
+                return new MockResponse().setResponseCode(404);
+            }
+            if ("HEAD".equals(request.getMethod())) {
+                heads++;
+                return new MockResponse().setHeader("Upload-Offset", received.size());
+            }
+            long offset = Long.parseLong(request.getHeader("Upload-Offset"));
+            offsets.add(offset);
+            if (offset != received.size()) {
+                return new MockResponse().setResponseCode(409);
+            }
+            Buffer body = request.getBody();
+            if (patches++ == dropPatch) {
+                received.write(body, Math.min(keepBytes, body.size()));
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            received.write(body, body.size());
+            return new MockResponse().setResponseCode(204).setHeader("Upload-Offset", received.size());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.yzplan.lanbase.http.utils;
+
+import com.yzplan.lanbase.http.retry.Retry;
+import com.yzplan.lanbase.http.retry.RetryBudget;
+import com.yzplan.lanbase.http.retry.RetryPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.reactivex.Single;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.POST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * RxUtils.retry 的幂等感知：与 RetryInterceptor 一致，非幂等请求未声明时不重试
+ */
+public class RxUtilsRetryTest {
+    private static final int MAX_ATTEMPTS = 3;
+
+    interface Service {
+        @GET("get")
+        Single<ResponseBody> get();
+
+        @POST("post")
+        Single<ResponseBody> post();
+
+        @POST("post")
+        Single<ResponseBody> postWithKey(@Header("Idempotency-Key") String key);
+
+        @Retry(idempotent = true)
+        @POST("post")
+        Single<ResponseBody> idempotentPost();
+    }
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final RetryPolicy mPolicy = new RetryPolicy().setMaxAttempts(MAX_ATTEMPTS).setBackoff(0, 0);
+    private RetryBudget mOriginalBudget;
+    private Service mService;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer.start();
+        mOriginalBudget = RetryBudget.getGlobal();
+        RetryBudget.setGlobal(new RetryBudget(1, 0, 100));
+        mService = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .client(new OkHttpClient.Builder().retryOnConnectionFailure(false).build())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(Service.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetryBudget.setGlobal(mOriginalBudget);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void getIsRetriedOnHttpError() {
+        enqueueFailures(503);
+        await(mService.get().compose(RxUtils.retry(mPolicy)));
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void postIsNotRetried() {
+        enqueueFailures(503);
+        await(mService.post().compose(RxUtils.retry(mPolicy)));
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void postDeclaredIdempotentIsRetried() {
+        enqueueFailures(503);
+        await(mService.idempotentPost().compose(RxUtils.retry(mPolicy)));
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void postWithIdempotencyKeyIsRetried() {
+        enqueueFailures(503);
+        await(mService.postWithKey("order-1").compose(RxUtils.retry(mPolicy)));
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void postIsRetriedWhenPolicyAllowsNonIdempotent() {
+        enqueueFailures(503);
+        await(mService.post().compose(RxUtils.retry(new RetryPolicy().setMaxAttempts(MAX_ATTEMPTS).setBackoff(0, 0).setRetryNonIdempotent(true))));
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void networkErrorNeedsExplicitIdempotentFlag() {
+        enqueueDisconnects();
+        await(mService.get().compose(RxUtils.retry(mPolicy)));
+        assertEquals(1, mServer.getRequestCount());
+
+        enqueueDisconnects();
+        await(mService.get().compose(RxUtils.retry(mPolicy, true)));
+        assertEquals(1 + MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    private void enqueueFailures(int code) {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(code));
+        }
+    }
+
+    private void enqueueDisconnects() {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            mServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        }
+    }
+
+    private static void await(Single<ResponseBody> single) {
+        try {
+            single.blockingGet();
+            fail("expected failure");
+        } catch (RuntimeException expected) {
+            // 重试用尽或不重试，错误下发给订阅者
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.yzplan.lanbase.utils.log;
+
+import com.orhanobut.logger.Logger;
+import com.yzplan.lanbase.BaseApp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 各 LogLocationMode 下 L.i() 的调用线程耗时 (只写文件，不打印控制台)
+ * 默认不运行：./gradlew :lanbase:testDebugUnitTest -Pbenchmark --tests '*CallerLocationBenchmark'
+ * 注意：类名不能以 L 开头，DefaultLogAdapter 会把 utils.log.L* 当作日志工具类跳过
+ */
+public class CallerLocationBenchmark {
+    private static final int CALLS = 200_000;
+    private static final int ROUNDS = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        BaseApp.sLogTag = "Bench";
+        BaseApp.sLogEnable = false;
+        BaseApp.sLogToFile = true;
+        LogFileUtils.init(folder.newFolder().getPath());
+        Logger.clearLogAdapters();
+        Logger.addLogAdapter(new DefaultLogAdapter());
+    }
+
+    @After
+    public void tearDown() {
+        Logger.clearLogAdapters();
+        BaseApp.sLogToFile = false;
+        DefaultLogAdapter.setLocationMode(null);
+        LogFileUtils.flush();
+    }
+
+    @Test
+    public void callsPerSecond() {
+        // 先按所有模式各跑一轮预热，避免第一个模式吃亏
+        for (LogLocationMode mode : LogLocationMode.values()) {
+            run(mode);
+        }
+        for (LogLocationMode mode : LogLocationMode.values()) {
+            long nanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                nanos = Math.min(nanos, run(mode));
+            }
+            System.out.printf(Locale.US, "%-10s %,12.0f calls/s  %6.2f us/call%n",
+                    mode, CALLS / (nanos / 1e9), nanos / 1e3 / CALLS);
+        }
+        System.out.printf(Locale.US, "dropped by queue: %d%n", LogFileUtils.getDroppedCount());
+    }
+
+    /**
+     * @return 本轮耗时 (纳秒)，不含写入线程追赶的时间
+     */
+    private static long run(LogLocationMode mode) {
+        DefaultLogAdapter.setLocationMode(mode);
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            L.i("Bench", "request finished");
+        }
+        long nanos = System.nanoTime() - start;
+        LogFileUtils.flush();
+        return nanos;
+    }
+}
@@ -0,0 +1,144 @@
+package com.yzplan.lanbase.utils.log;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 写入线程：丢弃后在文件中记录缺口；重新 init 时旧的写入器由写入线程关闭，并发写入的日志不丢失
+ */
+public class LogConsumerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String mToday = new SimpleDateFormat("yyyyMMdd", Locale.CHINA).format(new Date());
+
+    @After
+    public void tearDown() {
+        LogFileUtils.clearTempFiles();
+    }
+
+    @Test
+    public void writesGapLineAfterDrops() throws IOException {
+        File dir = folder.newFolder();
+        LogQueue queue = new LogQueue(4, LogBackPressure.DROP_NEWEST, 0);
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= 6; i++) {
+            queue.offer(0, "T", now, null, null, "line-" + i);
+        }
+        MappedLogWriter writer = new MappedLogWriter(dir, 0, null);
+        LogConsumer consumer = new LogConsumer(queue);
+        assertEquals(2, consumer.drain(writer, 2));
+        assertEquals(2, consumer.drain(writer, Integer.MAX_VALUE));
+        assertEquals(0, consumer.drain(writer, Integer.MAX_VALUE));
+        writer.close();
+
+        String[] lines = read(new File(dir, mToday + ".log")).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].endsWith("[T]: line-1"));
+        // 缺口提示只写一次，紧跟在当时已取出的日志之后
+        assertTrue(lines[1].endsWith("[T]: line-2"));
+        assertTrue(lines[2].endsWith("[LogFileUtils]: 日志队列已满，已丢弃 2 条"));
+        assertTrue(lines[4].endsWith("[T]: line-4"));
+    }
+
+    @Test
+    public void closedWriterRejectsAppend() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(folder.newFolder(), 0, null);
+        writer.append(System.currentTimeMillis(), "T", "before");
+        writer.close();
+        try {
+            writer.append(System.currentTimeMillis(), "T", "after");
+            assertTrue("expected IOException", false);
+        } catch (IOException expected) {
+            // 已关闭的写入器不会重新打开文件
+        }
+    }
+
+    @Test
+    public void retiredWriterIsClosedAfterInFlightBatch() throws Exception {
+        File a = folder.newFolder("retired-a");
+        LogFileUtils.init(a.getPath());
+        MappedLogWriter old = LogFileUtils.getWriter();
+        // 持有旧写入器的锁，模拟写入线程正在用它写入当前批次
+        synchronized (old) {
+            LogFileUtils.init(folder.newFolder("retired-b").getPath());
+            old.append(System.currentTimeMillis(), "T", "in-flight");
+        }
+        // 当前批次写完后由写入线程关闭并截断，不会留下未关闭的文件
+        String content = awaitSealed(new File(a, mToday + ".log"));
+        assertTrue(content, content.endsWith("[T]: in-flight\n"));
+        try {
+            old.append(System.currentTimeMillis(), "T", "late");
+            assertTrue("expected IOException", false);
+        } catch (IOException expected) {
+            // 已关闭
+        }
+    }
+
+    @Test
+    public void reinitWhileWritingKeepsEveryLine() throws Exception {
+        final int count = 3000;
+        File[] dirs = {folder.newFolder("a"), folder.newFolder("b"), folder.newFolder("c")};
+        LogFileUtils.init(dirs[0].getPath());
+        long dropped = LogFileUtils.getDroppedCount();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                LogFileUtils.writeLogAsync("Swap", "line-" + i);
+                if (i % 100 == 0) Thread.yield();
+            }
+        });
+        producer.start();
+        for (int i = 1; i < dirs.length; i++) {
+            Thread.sleep(5);
+            LogFileUtils.init(dirs[i].getPath());
+        }
+        producer.join();
+        LogFileUtils.flush();
+        assertEquals(dropped, LogFileUtils.getDroppedCount());
+
+        // 旧目录的文件由写入线程关闭并截断 (尾部没有映射预留的 0)，之后不再被重新打开
+        int[] seen = new int[count];
+        for (File dir : dirs) {
+            File file = new File(dir, mToday + ".log");
+            if (!file.exists()) continue;
+            String content = awaitSealed(file);
+            for (String line : content.split("\n")) {
+                int index = line.indexOf("[Swap]: line-");
+                if (index >= 0) seen[Integer.parseInt(line.substring(index + 13))]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals("line-" + i, 1, seen[i]);
+        }
+    }
+
+    // ================== 工具 ==================
+
+    private static String awaitSealed(File file) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            String content = read(file);
+            if (content.indexOf('\0') < 0) return content;
+            assertFalse(file + " was not sealed", System.currentTimeMillis() > deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
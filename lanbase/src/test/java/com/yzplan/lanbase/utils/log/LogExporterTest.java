@@ -0,0 +1,215 @@
+package com.yzplan.lanbase.utils.log;
+
+import com.yzplan.lanbase.BaseApp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志导出：多个分段按顺序输出，按时间 / 级别 / tag 逐行过滤 (后续行跟随首行)，ZIP / GZIP / PLAIN 内容一致
+ */
+public class LogExporterTest {
+    private static final String FILE_HEADER = "==================== File: ";
+    private static final String LONG_TAG = repeat('T', 300);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String mLogTag;
+
+    @Before
+    public void setUp() throws IOException {
+        mLogTag = BaseApp.sLogTag;
+        BaseApp.sLogTag = "App";
+        File dir = folder.newFolder("log");
+        segment(dir, "20240303-001",
+                "2024-03-03 10:00:00.000 [App-Net]: I | main | A.java:1 | old\n");
+        // 同一天的两个分段
+        segment(dir, "20240304-001",
+                "2024-03-04 10:00:00.000 [App-Net]: D | main | A.java:1 | debug\n"
+                        + "\tdebug detail\n"
+                        + "2024-03-04 10:20:00.000 [App-Db]: W | io | B.java:2 | slow query\n"
+                        + "2024-03-04 10:30:00.000 [Crash]: boom\n"
+                        + "\tat A.run\n");
+        segment(dir, "20240304-002",
+                "2024-03-04 11:00:00.000 [App-Net]: E | main | A.java:3 | failed\n"
+                        + "\tat A.call\n"
+                        + "2024-03-04 11:10:00.000 [App-" + LONG_TAG + "]: I | main | C.java:4 | long tag\n");
+        LogFileUtils.init(dir.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        BaseApp.sLogTag = mLogTag;
+        LogFileUtils.clearTempFiles();
+    }
+
+    @Test
+    public void exportsEverySegmentInOrder() throws IOException {
+        String text = plain(new LogExporter().setDateRange("20240301", "20240304"));
+        assertEquals(Arrays.asList("20240303-001.log.gz", "20240304-001.log.gz", "20240304-002.log.gz"), fileNames(text));
+        assertEquals(Arrays.asList("old", "debug", "\tdebug detail", "slow query", "boom", "\tat A.run",
+                "failed", "\tat A.call", "long tag"), messages(text));
+    }
+
+    @Test
+    public void filtersByTimeRange() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA);
+        LogExporter exporter = new LogExporter()
+                .setTimeRange(format.parse("2024-03-04 10:20:00").getTime(), format.parse("2024-03-04 11:00:00").getTime());
+        // 前一天的分段按索引跳过
+        assertEquals(2, exporter.getFiles().size());
+        assertEquals(Arrays.asList("slow query", "boom", "\tat A.run", "failed", "\tat A.call"), messages(plain(exporter)));
+    }
+
+    @Test
+    public void filtersByMinLevel() throws IOException {
+        LogExporter exporter = new LogExporter().setDateRange("20240301", "20240304").setMinLevel('W');
+        // 只有 I 级别日志的分段按索引跳过
+        assertEquals(2, exporter.getFiles().size());
+        // 没有级别的行 (Crash) 始终导出，后续行跟随首行
+        assertEquals(Arrays.asList("slow query", "boom", "\tat A.run", "failed", "\tat A.call"),
+                messages(plain(exporter)));
+    }
+
+    @Test
+    public void filtersByTagOnWholeLine() throws IOException {
+        assertEquals(Arrays.asList("old", "debug", "\tdebug detail", "failed", "\tat A.call"),
+                messages(plain(new LogExporter().setDateRange("20240301", "20240304").addTag("Net"))));
+        assertEquals(Arrays.asList("boom", "\tat A.run"),
+                messages(plain(new LogExporter().setDateRange("20240301", "20240304").addTag("Crash"))));
+        // 超长 tag 位于分段中间，需按整行解析才能匹配
+        assertEquals(Arrays.asList("long tag"),
+                messages(plain(new LogExporter().setDateRange("20240301", "20240304").addTag(LONG_TAG))));
+    }
+
+    @Test
+    public void zipAndGzipContainPlainText() throws IOException {
+        byte[] plain = export(new LogExporter().setDateRange("20240304", "20240304").setFormat(LogExporter.Format.PLAIN));
+
+        byte[] gzip = export(new LogExporter().setDateRange("20240304", "20240304").setFormat(LogExporter.Format.GZIP));
+        assertArrayEquals(plain, readAll(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+
+        byte[] zip = export(new LogExporter().setDateRange("20240304", "20240304").setEntryName("a.txt"));
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("a.txt", entry.getName());
+            assertArrayEquals(plain, readAll(in));
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    public void requestBodyStreamsOnEveryWrite() throws IOException {
+        RequestBody body = new LogExporter().setDateRange("20240304", "20240304")
+                .setFormat(LogExporter.Format.GZIP)
+                .toRequestBody();
+        assertEquals("application/gzip", body.contentType().toString());
+        assertEquals(-1, body.contentLength());
+        Buffer first = new Buffer();
+        body.writeTo(first);
+        // 重试时重新读取文件，内容相同
+        Buffer retry = new Buffer();
+        body.writeTo(retry);
+        assertTrue(first.size() > 0);
+        assertEquals(first.readByteString(), retry.readByteString());
+
+        assertEquals("application/zip", new LogExporter().toRequestBody().contentType().toString());
+        assertEquals("text/plain; charset=utf-8",
+                new LogExporter().setFormat(LogExporter.Format.PLAIN).toRequestBody().contentType().toString());
+    }
+
+    // ================== 工具 ==================
+
+    private static void segment(File dir, String name, String content) throws IOException {
+        File plain = new File(dir, name + LogSegments.LOG_SUFFIX);
+        Files.write(plain.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        LogSegments.compress(plain);
+    }
+
+    private static byte[] export(LogExporter exporter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static String plain(LogExporter exporter) throws IOException {
+        return new String(export(exporter.setFormat(LogExporter.Format.PLAIN)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 导出内容中的文件名 (每个文件前的分隔行)
+     */
+    private static List<String> fileNames(String text) {
+        List<String> names = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.startsWith(FILE_HEADER)) {
+                names.add(line.substring(FILE_HEADER.length(), line.indexOf(' ', FILE_HEADER.length())));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 导出内容中每行的消息部分 (首行取最后一个 " | " 或 "]: " 之后，后续行原样保留)
+     */
+    private static List<String> messages(String text) {
+        List<String> messages = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.isEmpty() || line.startsWith(FILE_HEADER)) continue;
+            assertFalse(line, line.contains("\0"));
+            if (!line.startsWith("2024-")) {
+                messages.add(line);
+            } else if (line.contains(" | ")) {
+                messages.add(line.substring(line.lastIndexOf(" | ") + 3));
+            } else {
+                messages.add(line.substring(line.indexOf("]: ") + 3));
+            }
+        }
+        return messages;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) sb.append(c);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.yzplan.lanbase.utils.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按日期查询：getLogFilesByRange 每天返回一个可读文本文件，getLogSegmentsByRange 返回原始分段
+ */
+public class LogFileUtilsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private String today;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = folder.newFolder("log");
+        today = new SimpleDateFormat("yyyyMMdd", Locale.CHINA).format(new Date());
+        // 往日的分段在 init 之前已压缩，init 时没有需要后台处理的文件
+        segment("20240303-001", "2024-03-03 10:00:00.000 [A]: only\n");
+        segment("20240304-001", "2024-03-04 10:00:00.000 [A]: first\n");
+        segment("20240304-002", "2024-03-04 11:00:00.000 [A]: second\n");
+        LogFileUtils.init(dir.getPath());
+        LogFileUtils.writeLogSync("B", "today");
+    }
+
+    @After
+    public void tearDown() {
+        LogFileUtils.clearTempFiles();
+    }
+
+    @Test
+    public void filesByRangeAreReadablePerDay() throws IOException {
+        List<File> files = LogFileUtils.getLogFilesByRange("20240301", today);
+        assertEquals(3, files.size());
+        for (File file : files) {
+            assertFalse(file.getName(), file.getName().endsWith(".gz"));
+        }
+        assertEquals("20240303.log", files.get(0).getName());
+        assertEquals("2024-03-03 10:00:00.000 [A]: only\n", read(files.get(0)));
+        assertEquals("20240304.log", files.get(1).getName());
+        assertEquals("2024-03-04 10:00:00.000 [A]: first\n2024-03-04 11:00:00.000 [A]: second\n", read(files.get(1)));
+
+        // 当天未滚动的文件直接返回原文件
+        assertEquals(new File(dir, today + ".log"), files.get(2));
+        assertTrue(read(files.get(2)).endsWith("[B]: today\n"));
+    }
+
+    @Test
+    public void segmentsByRangeKeepCompressedFiles() {
+        List<File> segments = LogFileUtils.getLogSegmentsByRange("20240301", "20240304");
+        assertEquals(3, segments.size());
+        for (File segment : segments) {
+            assertTrue(segment.getName(), segment.getName().endsWith(LogSegments.GZIP_SUFFIX));
+            assertEquals(dir, segment.getParentFile());
+        }
+    }
+
+    @Test
+    public void invalidRangeReturnsEmpty() {
+        assertTrue(LogFileUtils.getLogFilesByRange("2024-03-01", today).isEmpty());
+        assertTrue(LogFileUtils.getLogFilesByRange("20240305", "20240306").isEmpty());
+    }
+
+    private void segment(String name, String content) throws IOException {
+        File plain = new File(dir, name + LogSegments.LOG_SUFFIX);
+        Files.write(plain.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        LogSegments.compress(plain);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
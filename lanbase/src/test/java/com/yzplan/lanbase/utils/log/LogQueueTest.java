@@ -0,0 +1,175 @@
+package com.yzplan.lanbase.utils.log;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志环形队列：容量取整、三种写满策略、多生产者并发时不丢失不重复且每个生产者内保持顺序
+ */
+public class LogQueueTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 20000;
+
+    @Test
+    public void roundsCapacityToPowerOfTwo() {
+        assertEquals(8, new LogQueue(5, LogBackPressure.DROP_NEWEST, 0).capacity());
+        assertEquals(8, new LogQueue(8, LogBackPressure.DROP_NEWEST, 0).capacity());
+        assertEquals(2, new LogQueue(0, LogBackPressure.DROP_NEWEST, 0).capacity());
+    }
+
+    @Test
+    public void dropNewestKeepsEarliest() {
+        LogQueue queue = new LogQueue(4, LogBackPressure.DROP_NEWEST, 0);
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(i <= 4, offer(queue, i));
+        }
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(2, queue.takeUnreportedDrops());
+        assertEquals(0, queue.takeUnreportedDrops());
+        assertEquals("[1, 2, 3, 4]", drain(queue).toString());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void dropOldestKeepsLatest() {
+        LogQueue queue = new LogQueue(4, LogBackPressure.DROP_OLDEST, 0);
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(offer(queue, i));
+        }
+        assertEquals(3, queue.getDroppedCount());
+        assertEquals("[4, 5, 6, 7]", drain(queue).toString());
+    }
+
+    @Test
+    public void blockWaitsForConsumerThenDrops() throws Exception {
+        LogQueue queue = new LogQueue(2, LogBackPressure.BLOCK, 2000);
+        assertTrue(offer(queue, 1));
+        assertTrue(offer(queue, 2));
+
+        // 写入线程腾出空间后，等待中的生产者写入成功
+        final CountDownLatch polled = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            queue.poll(new LogQueue.Record());
+            polled.countDown();
+        });
+        consumer.start();
+        long start = System.nanoTime();
+        assertTrue(offer(queue, 3));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertTrue(polled.await(5, TimeUnit.SECONDS));
+        assertEquals(1, queue.getBlockedCount());
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals("[2, 3]", drain(queue).toString());
+
+        // 超过最长等待时间后丢弃新日志
+        LogQueue shortBlock = new LogQueue(2, LogBackPressure.BLOCK, 50);
+        offer(shortBlock, 1);
+        offer(shortBlock, 2);
+        assertFalse(offer(shortBlock, 3));
+        assertEquals(1, shortBlock.getDroppedCount());
+        assertEquals("[1, 2]", drain(shortBlock).toString());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingWhenBlocking() throws Exception {
+        LogQueue queue = new LogQueue(1024, LogBackPressure.BLOCK, 10_000);
+        List<List<Integer>> received = runProducers(queue);
+        for (List<Integer> values : received) {
+            assertEquals(PER_PRODUCER, values.size());
+        }
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void concurrentDropOldestAccountsForEveryRecord() throws Exception {
+        LogQueue queue = new LogQueue(64, LogBackPressure.DROP_OLDEST, 0);
+        List<List<Integer>> received = runProducers(queue);
+        long total = 0;
+        for (List<Integer> values : received) {
+            total += values.size();
+        }
+        // 每条日志要么被写入线程取出，要么被计为丢弃 (由生产者出队)
+        assertEquals(PRODUCERS * PER_PRODUCER, total + queue.getDroppedCount());
+    }
+
+    // ================== 工具 ==================
+
+    private static boolean offer(LogQueue queue, int value) {
+        return queue.offer(0, "T", value, null, null, String.valueOf(value));
+    }
+
+    private static List<Integer> drain(LogQueue queue) {
+        List<Integer> values = new ArrayList<>();
+        LogQueue.Record record = new LogQueue.Record();
+        while (queue.poll(record)) {
+            values.add(Integer.parseInt(record.message));
+            assertEquals(values.get(values.size() - 1).longValue(), record.time);
+        }
+        return values;
+    }
+
+    /**
+     * 多个生产者并发写入 (消息为 生产者序号:自增序号)，单个写入线程并发读取
+     * 校验每个生产者的日志不重复且保持顺序，返回按生产者分组的序号
+     */
+    private static List<List<Integer>> runProducers(final LogQueue queue) throws Exception {
+        final List<List<Integer>> received = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            received.add(new ArrayList<Integer>());
+        }
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        final AssertionError[] failure = new AssertionError[1];
+        Thread consumer = new Thread(() -> {
+            LogQueue.Record record = new LogQueue.Record();
+            int[] last = new int[PRODUCERS];
+            Arrays.fill(last, -1);
+            while (producing.get() || !queue.isEmpty()) {
+                if (!queue.poll(record)) {
+                    queue.awaitRecords(TimeUnit.MILLISECONDS.toNanos(1));
+                    continue;
+                }
+                int producer = Integer.parseInt(record.tag);
+                int seq = Integer.parseInt(record.message);
+                if (seq <= last[producer] && failure[0] == null) {
+                    failure[0] = new AssertionError("producer " + producer + ": " + seq + " after " + last[producer]);
+                }
+                last[producer] = seq;
+                received.get(producer).add(seq);
+            }
+        });
+        consumer.start();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final String tag = String.valueOf(p);
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    queue.offer(0, tag, 0, null, null, String.valueOf(i));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        producing.set(false);
+        consumer.join(TimeUnit.SECONDS.toMillis(30));
+        assertFalse(consumer.isAlive());
+        if (failure[0] != null) throw failure[0];
+        return received;
+    }
+}
@@ -0,0 +1,92 @@
+package com.yzplan.lanbase.utils.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 文件日志写入吞吐 (行/秒)：旧实现 (每行 open + write + flush + close) 对比 MappedLogWriter
+ * 默认不运行：./gradlew :lanbase:testDebugUnitTest -Pbenchmark --tests '*MappedLogWriterBenchmark'
+ */
+public class MappedLogWriterBenchmark {
+    private static final int LINES = 200_000;
+    private static final int ROUNDS = 3;
+    private static final String MESSAGE = "I | main | at com.example.MainActivity.onCreate(MainActivity.java:42) | "
+            + "request finished, code=200, cost=35ms";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void linesPerSecond() throws IOException {
+        for (int round = 1; round <= ROUNDS; round++) {
+            File legacyDir = folder.newFolder();
+            long start = System.nanoTime();
+            LegacyWriter legacy = new LegacyWriter(legacyDir);
+            for (int i = 0; i < LINES; i++) {
+                legacy.write("Bench", MESSAGE);
+            }
+            report("legacy FileWriter per line", round, start);
+
+            File mappedDir = folder.newFolder();
+            start = System.nanoTime();
+            MappedLogWriter writer = new MappedLogWriter(mappedDir, 0, null);
+            for (int i = 0; i < LINES; i++) {
+                writer.append(System.currentTimeMillis(), "Bench", MESSAGE);
+            }
+            writer.close();
+            report("MappedLogWriter", round, start);
+            assertEquals(length(legacyDir), length(mappedDir));
+        }
+    }
+
+    private static void report(String name, int round, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf(Locale.US, "%-28s round %d: %,10.0f lines/s%n", name, round, LINES / seconds);
+    }
+
+    private static long length(File dir) {
+        long total = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) total += file.length();
+        }
+        return total;
+    }
+
+    /**
+     * 改为 mmap 之前 LogFileUtils.performWrite 的写法
+     */
+    private static final class LegacyWriter {
+        private final String dirPath;
+        private final SimpleDateFormat logTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.CHINA);
+        private final SimpleDateFormat fileNameFormat = new SimpleDateFormat("yyyyMMdd", Locale.CHINA);
+
+        LegacyWriter(File dir) {
+            this.dirPath = dir.getPath() + File.separator;
+        }
+
+        void write(String tag, String msg) {
+            File dir = new File(dirPath);
+            if (!dir.exists() && !dir.mkdirs()) return;
+            File logFile = new File(dirPath, fileNameFormat.format(new Date()) + ".log");
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFile, true))) {
+                String content = String.format("%s [%s]: %s\n", logTimeFormat.format(new Date()), tag, msg);
+                writer.write(content);
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
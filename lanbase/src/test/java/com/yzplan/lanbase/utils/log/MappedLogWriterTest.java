@@ -0,0 +1,145 @@
+package com.yzplan.lanbase.utils.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedLogWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 2024-03-05 10:00:00 本地时间，对应文件 20240305.log
+    private static final long TIME = time(2024, 3, 5, 10);
+
+    private static long time(int year, int month, int day, int hour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, 0, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static byte[] read(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
+    }
+
+    private static int countLines(byte[] bytes) {
+        int lines = 0;
+        for (byte b : bytes) {
+            if (b == '\n') lines++;
+        }
+        return lines;
+    }
+
+    private static boolean hasZero(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b == 0) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void appendsFormattedLine() throws IOException {
+        File dir = folder.newFolder();
+        MappedLogWriter writer = new MappedLogWriter(dir, 0, null);
+        writer.append(TIME + 7, "Tag", "I | main | at A.b(A.java:1) | hello");
+        writer.close();
+        String content = new String(read(new File(dir, "20240305.log")), StandardCharsets.UTF_8);
+        assertEquals("2024-03-05 10:00:00.007 [Tag]: I | main | at A.b(A.java:1) | hello\n", content);
+    }
+
+    @Test
+    public void sealTruncatesMappedTail() throws IOException {
+        File dir = folder.newFolder();
+        MappedLogWriter writer = new MappedLogWriter(dir, 0, null);
+        writer.append(TIME, "T", "line");
+        File file = new File(dir, "20240305.log");
+        // 映射把文件预先扩展到窗口末尾
+        assertEquals(MappedLogWriter.WINDOW_SIZE, file.length());
+        writer.seal();
+        assertFalse(hasZero(read(file)));
+        // seal 之后仍可继续写入
+        writer.append(TIME, "T", "more");
+        writer.close();
+        assertEquals(2, countLines(read(file)));
+        assertFalse(hasZero(read(file)));
+    }
+
+    @Test
+    public void recoversZeroTailAfterCrash() throws IOException {
+        File dir = folder.newFolder();
+        File file = new File(dir, "20240305.log");
+        // 模拟崩溃：写入后既不 seal 也不 close，文件尾部残留映射预留的 0
+        MappedLogWriter crashed = new MappedLogWriter(dir, 0, null);
+        for (int i = 0; i < 1000; i++) {
+            crashed.append(TIME + i, "T", "line " + i);
+        }
+        crashed.force();
+        long written = 0;
+        byte[] before = read(file);
+        for (int i = before.length - 1; i >= 0; i--) {
+            if (before[i] != 0) {
+                written = i + 1;
+                break;
+            }
+        }
+        assertTrue(before.length > written);
+
+        MappedLogWriter reopened = new MappedLogWriter(dir, 0, null);
+        reopened.append(TIME + 2000, "T", "after crash");
+        reopened.close();
+        byte[] after = read(file);
+        assertFalse(hasZero(after));
+        assertEquals(1001, countLines(after));
+        String content = new String(after, StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("2024-03-05 10:00:00.000 [T]: line 0\n"));
+        assertTrue(content.endsWith("line 999\n2024-03-05 10:00:02.000 [T]: after crash\n"));
+    }
+
+    @Test
+    public void replacesNulCharacters() throws IOException {
+        File dir = folder.newFolder();
+        MappedLogWriter writer = new MappedLogWriter(dir, 0, null);
+        writer.append(TIME, "T", "a\0b");
+        writer.close();
+        String content = new String(read(new File(dir, "20240305.log")), StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("a b\n"));
+    }
+
+    @Test
+    public void rollsToSegmentBySizeAndDay() throws IOException {
+        File dir = folder.newFolder();
+        final List<File> rolled = new ArrayList<>();
+        MappedLogWriter writer = new MappedLogWriter(dir, 1024, rolled::add);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100; i++) message.append('x');
+        // 每行约 130 字节，第 8 行超过 1024 字节时滚动
+        for (int i = 0; i < 10; i++) {
+            writer.append(TIME + i, "T", message.toString());
+        }
+        assertEquals(1, rolled.size());
+        assertEquals("20240305-001.log", rolled.get(0).getName());
+        assertEquals(8, countLines(read(rolled.get(0))));
+        assertEquals(20240305, writer.getCurrentDay());
+
+        // 跨天：前一天的文件滚动为下一个分段，新一天写入新文件
+        writer.append(time(2024, 3, 6, 0), "T", "next day");
+        assertEquals(2, rolled.size());
+        assertEquals("20240305-002.log", rolled.get(1).getName());
+        assertEquals(2, countLines(read(rolled.get(1))));
+        assertEquals(20240306, writer.getCurrentDay());
+        writer.close();
+        assertEquals(1, countLines(read(new File(dir, "20240306.log"))));
+    }
+}